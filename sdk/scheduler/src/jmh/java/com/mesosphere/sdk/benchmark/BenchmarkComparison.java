@@ -0,0 +1,89 @@
+package com.mesosphere.sdk.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON results files, such as those written by {@code ./gradlew :scheduler:jmh} before and after a
+ * change on the same machine, printing the relative change of each benchmark.
+ *
+ * <p>Usage: {@code BenchmarkComparison <baseline.json> <results.json> [max-regression-percent]}
+ *
+ * <p>Exits with a non-zero status if any benchmark regressed by more than the provided percentage (default 20%).
+ * Benchmarks which only appear in one of the two files are listed but never treated as regressions.
+ */
+public class BenchmarkComparison {
+
+    private static final double DEFAULT_MAX_REGRESSION_PERCENT = 20.0;
+
+    private BenchmarkComparison() {
+        // do not instantiate
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <results.json> [max-regression-percent]");
+            System.exit(2);
+        }
+        double maxRegressionPercent = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MAX_REGRESSION_PERCENT;
+        Map<String, Double> baseline = readScores(new File(args[0]));
+        Map<String, Double> results = readScores(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : results.entrySet()) {
+            Double baselineScore = baseline.get(entry.getKey());
+            if (baselineScore == null || baselineScore == 0) {
+                System.out.println(String.format("%-100s %12.3f  (no baseline)", entry.getKey(), entry.getValue()));
+                continue;
+            }
+            // All benchmarks are measured in average time, so a higher score is slower:
+            double changePercent = 100.0 * (entry.getValue() - baselineScore) / baselineScore;
+            boolean regressed = changePercent > maxRegressionPercent;
+            if (regressed) {
+                ++regressions;
+            }
+            System.out.println(String.format("%-100s %12.3f -> %12.3f  %+7.1f%%%s",
+                    entry.getKey(), baselineScore, entry.getValue(), changePercent, regressed ? "  REGRESSED" : ""));
+        }
+        for (String benchmark : baseline.keySet()) {
+            if (!results.containsKey(benchmark)) {
+                System.out.println(String.format("%-100s  (missing from results)", benchmark));
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.println(String.format(
+                    "%d benchmark%s regressed by more than %.1f%%",
+                    regressions, regressions == 1 ? "" : "s", maxRegressionPercent));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns a mapping of benchmark name with parameters, e.g.
+     * {@code com.mesosphere.sdk.offer.evaluate.OfferEvaluatorBenchmark.evaluateAllPassing:agentCount=10},
+     * to the benchmark's primary score.
+     */
+    static Map<String, Double> readScores(File file) throws IOException {
+        Map<String, Double> scores = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder name = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    name.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            scores.put(name.toString(), result.get("primaryMetric").get("score").asDouble());
+        }
+        return scores;
+    }
+}
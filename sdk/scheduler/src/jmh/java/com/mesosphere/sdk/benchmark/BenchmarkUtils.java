@@ -0,0 +1,129 @@
+package com.mesosphere.sdk.benchmark;
+
+import com.mesosphere.sdk.dcos.Capabilities;
+import com.mesosphere.sdk.dcos.DcosVersion;
+import com.mesosphere.sdk.offer.CommonIdUtils;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Utilities for generating the synthetic clusters which are used as benchmark inputs.
+ */
+public class BenchmarkUtils {
+
+    /**
+     * The name of the text attribute which is assigned to every generated agent.
+     */
+    public static final String ZONE_ATTRIBUTE = "zone";
+
+    /**
+     * The number of distinct {@link #ZONE_ATTRIBUTE} values which are spread across the generated agents.
+     */
+    public static final int ZONE_COUNT = 3;
+
+    /**
+     * The pod type of every generated task.
+     */
+    public static final String POD_TYPE = "pod";
+
+    private BenchmarkUtils() {
+        // do not instantiate
+    }
+
+    /**
+     * Installs a fixed set of {@link Capabilities} so that benchmarks never attempt to query a DC/OS cluster for its
+     * version.
+     */
+    public static void setCapabilities() {
+        Capabilities.overrideCapabilities(new Capabilities(new DcosVersion("1.10-dev")) {
+            @Override
+            public boolean supportsPreReservedResources() {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Returns one offer per agent, each with sufficient resources for the default executor plus the provided amount of
+     * cpus, memory and disk, and a 1000 port range.
+     */
+    public static List<Protos.Offer> getOffers(int agentCount, double cpus, double mem, double disk) {
+        List<Protos.Offer> offers = new ArrayList<>(agentCount);
+        for (int i = 0; i < agentCount; ++i) {
+            offers.add(getOffer(i, cpus, mem, disk));
+        }
+        return offers;
+    }
+
+    /**
+     * Returns an offer from the agent with the provided index.
+     */
+    public static Protos.Offer getOffer(int agentIndex, double cpus, double mem, double disk) {
+        Protos.Offer.Builder offerBuilder = OfferTestUtils.getEmptyOfferBuilder()
+                .setId(Protos.OfferID.newBuilder().setValue("offer-" + agentIndex))
+                .setSlaveId(getAgentId(agentIndex))
+                .setHostname(getHostname(agentIndex))
+                .addAllResources(OfferTestUtils.getExecutorResources())
+                .addAllResources(Arrays.asList(
+                        ResourceTestUtils.getUnreservedCpus(cpus),
+                        ResourceTestUtils.getUnreservedMem(mem),
+                        ResourceTestUtils.getUnreservedDisk(disk),
+                        ResourceTestUtils.getUnreservedPorts(10000, 10999)));
+        offerBuilder.addAttributesBuilder()
+                .setName(ZONE_ATTRIBUTE)
+                .setType(Protos.Value.Type.TEXT)
+                .getTextBuilder().setValue(getZone(agentIndex));
+        return offerBuilder.build();
+    }
+
+    /**
+     * Returns {@code taskCount} launched tasks spread round-robin across {@code agentCount} agents. Each task carries
+     * the hostname, attribute, type and index labels which are consulted by placement rules.
+     */
+    public static List<Protos.TaskInfo> getTasks(int taskCount, int agentCount) {
+        List<Protos.TaskInfo> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; ++i) {
+            tasks.add(getTask(i, agentCount));
+        }
+        return tasks;
+    }
+
+    private static Protos.TaskInfo getTask(int index, int agentCount) {
+        String taskName = String.format("%s-%d-%s", POD_TYPE, index, TestConstants.TASK_NAME);
+        int agentIndex = index % agentCount;
+        Protos.Offer launchOffer = getOffer(agentIndex, 1.0, 256, 512);
+        Protos.TaskInfo.Builder taskBuilder = Protos.TaskInfo.newBuilder()
+                .setName(taskName)
+                .setTaskId(CommonIdUtils.toTaskId(taskName))
+                .setSlaveId(getAgentId(agentIndex))
+                .setCommand(TestConstants.COMMAND_INFO)
+                .addResources(ResourceTestUtils.getReservedCpus(1.0, UUID.randomUUID().toString()));
+        taskBuilder.setLabels(new TaskLabelWriter(taskBuilder)
+                .setType(POD_TYPE)
+                .setIndex(index)
+                .setHostname(launchOffer)
+                .setOfferAttributes(launchOffer)
+                .toProto());
+        return taskBuilder.build();
+    }
+
+    private static Protos.SlaveID getAgentId(int agentIndex) {
+        return Protos.SlaveID.newBuilder().setValue("agent-" + agentIndex).build();
+    }
+
+    private static String getHostname(int agentIndex) {
+        return String.format("host-%d.example.com", agentIndex);
+    }
+
+    private static String getZone(int agentIndex) {
+        return "zone-" + (agentIndex % ZONE_COUNT);
+    }
+}
@@ -0,0 +1,97 @@
+package com.mesosphere.sdk.offer;
+
+import com.mesosphere.sdk.benchmark.BenchmarkUtils;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks construction of a {@link MesosResourcePool} from an offer, and consumption of reserved and unreserved
+ * resources from the resulting pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MesosResourcePoolBenchmark {
+
+    /**
+     * The number of reserved resources in the offer, and the number of consume calls made per invocation.
+     */
+    @Param({"10", "100", "1000"})
+    public int resourceCount;
+
+    private Protos.Offer offer;
+    private MesosResourcePool pool;
+    private List<String> resourceIds;
+    private Protos.Value cpuValue;
+    private List<Protos.Value> portValues;
+
+    @Setup
+    public void setup() {
+        BenchmarkUtils.setCapabilities();
+        resourceIds = new ArrayList<>(resourceCount);
+        portValues = new ArrayList<>(resourceCount);
+        Protos.Offer.Builder offerBuilder = OfferTestUtils.getEmptyOfferBuilder();
+        for (int i = 0; i < resourceCount; ++i) {
+            String resourceId = UUID.randomUUID().toString();
+            resourceIds.add(resourceId);
+            offerBuilder.addResources(ResourceTestUtils.getReservedCpus(1.0, resourceId));
+            portValues.add(Protos.Value.newBuilder()
+                    .setType(Protos.Value.Type.RANGES)
+                    .setRanges(Protos.Value.Ranges.newBuilder()
+                            .addRange(Protos.Value.Range.newBuilder().setBegin(10000 + i).setEnd(10000 + i)))
+                    .build());
+        }
+        offerBuilder
+                .addResources(ResourceTestUtils.getUnreservedCpus(resourceCount))
+                .addResources(ResourceTestUtils.getUnreservedMem(resourceCount * 1024))
+                .addResources(ResourceTestUtils.getUnreservedPorts(10000, 10000 + resourceCount));
+        offer = offerBuilder.build();
+        pool = new MesosResourcePool(offer, Optional.of(TestConstants.ROLE));
+        cpuValue = Protos.Value.newBuilder()
+                .setType(Protos.Value.Type.SCALAR)
+                .setScalar(Protos.Value.Scalar.newBuilder().setValue(0.5))
+                .build();
+    }
+
+    @Benchmark
+    public MesosResourcePool construct() {
+        return new MesosResourcePool(offer, Optional.of(TestConstants.ROLE));
+    }
+
+    @Benchmark
+    public MesosResourcePool copy() {
+        return pool.copy();
+    }
+
+    @Benchmark
+    public void consumeReserved(Blackhole blackhole) {
+        MesosResourcePool consumedPool = pool.copy();
+        for (String resourceId : resourceIds) {
+            blackhole.consume(consumedPool.consumeReserved(Constants.CPUS_RESOURCE_TYPE, cpuValue, resourceId));
+        }
+    }
+
+    @Benchmark
+    public void consumeReservableMerged(Blackhole blackhole) {
+        MesosResourcePool consumedPool = pool.copy();
+        for (Protos.Value portValue : portValues) {
+            blackhole.consume(consumedPool.consumeReservableMerged(
+                    Constants.CPUS_RESOURCE_TYPE, cpuValue, Constants.ANY_ROLE));
+            blackhole.consume(consumedPool.consumeReservableMerged(
+                    Constants.PORTS_RESOURCE_TYPE, portValue, Constants.ANY_ROLE));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.benchmark.BenchmarkUtils;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirementTestUtils;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.MemPersister;
+import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link OfferEvaluator#evaluate(PodInstanceRequirement, List)} against synthetic clusters of varying size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfferEvaluatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int agentCount;
+
+    private OfferEvaluator evaluator;
+    private PodInstanceRequirement podInstanceRequirement;
+    private List<Protos.Offer> passingOffers;
+    private List<Protos.Offer> lastPassingOffers;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkUtils.setCapabilities();
+        StateStore stateStore = new StateStore(new MemPersister());
+        stateStore.storeFrameworkId(TestConstants.FRAMEWORK_ID);
+        evaluator = new OfferEvaluator(
+                stateStore,
+                TestConstants.SERVICE_NAME,
+                UUID.randomUUID(),
+                SchedulerConfigTestUtils.getTestSchedulerConfig(),
+                true);
+        podInstanceRequirement = PodInstanceRequirementTestUtils.getCpuRequirement(1.0);
+
+        passingOffers = BenchmarkUtils.getOffers(agentCount, 4.0, 4096, 10240);
+
+        // Every agent but the last is too small, so that all offers are evaluated before a match is found:
+        lastPassingOffers = new ArrayList<>(BenchmarkUtils.getOffers(agentCount - 1, 0.5, 4096, 10240));
+        lastPassingOffers.add(BenchmarkUtils.getOffer(agentCount - 1, 4.0, 4096, 10240));
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> evaluateAllPassing() throws Exception {
+        return evaluator.evaluate(podInstanceRequirement, passingOffers);
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> evaluateLastPassing() throws Exception {
+        return evaluator.evaluate(podInstanceRequirement, lastPassingOffers);
+    }
+}
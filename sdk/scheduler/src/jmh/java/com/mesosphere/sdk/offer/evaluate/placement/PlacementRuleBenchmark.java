@@ -0,0 +1,110 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.mesosphere.sdk.benchmark.BenchmarkUtils;
+import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirementTestUtils;
+import com.mesosphere.sdk.specification.PodInstance;
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each {@link PlacementRule} implementation against a large collection of already-launched tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementRuleBenchmark {
+
+    private static final int AGENT_COUNT = 100;
+
+    @Param({
+            "agent",
+            "attribute",
+            "hostname",
+            "max-per-attribute",
+            "max-per-hostname",
+            "round-robin-by-attribute",
+            "round-robin-by-hostname",
+            "task-type",
+            "and",
+            "or",
+            "not",
+            "passthrough"})
+    public String rule;
+
+    @Param({"100", "1000", "10000"})
+    public int taskCount;
+
+    private PlacementRule placementRule;
+    private Protos.Offer offer;
+    private PodInstance podInstance;
+    private Collection<Protos.TaskInfo> tasks;
+    private PlacementContext placementContext;
+
+    @Setup
+    public void setup() {
+        BenchmarkUtils.setCapabilities();
+        placementRule = getRule(rule, taskCount);
+        offer = BenchmarkUtils.getOffer(0, 4.0, 4096, 10240);
+        podInstance = PodInstanceRequirementTestUtils.getCpuRequirement(1.0).getPodInstance();
+        tasks = BenchmarkUtils.getTasks(taskCount, AGENT_COUNT);
+        placementContext = new PlacementContext(podInstance, tasks);
+        // Populate the shared context, as the first offer in an evaluation round would:
+        placementRule.filter(offer, placementContext);
+    }
+
+    @Benchmark
+    public EvaluationOutcome filter() {
+        return placementRule.filter(offer, podInstance, tasks);
+    }
+
+    /**
+     * Evaluates an offer against a {@link PlacementContext} which was already populated by an earlier offer, which is
+     * the cost of each additional offer in an evaluation round.
+     */
+    @Benchmark
+    public EvaluationOutcome filterWithSharedContext() {
+        return placementRule.filter(offer, placementContext);
+    }
+
+    private static PlacementRule getRule(String name, int taskCount) {
+        StringMatcher zoneMatcher = ExactMatcher.createAttribute(BenchmarkUtils.ZONE_ATTRIBUTE, "zone-0");
+        switch (name) {
+        case "agent":
+            return AgentRule.require("agent-0");
+        case "attribute":
+            return AttributeRule.require(zoneMatcher);
+        case "hostname":
+            return HostnameRule.avoidExact("host-1.example.com");
+        case "max-per-attribute":
+            // Limits are never reached, so that every task is tallied:
+            return new MaxPerAttributeRule(taskCount, RegexMatcher.create(BenchmarkUtils.ZONE_ATTRIBUTE + ":.*"));
+        case "max-per-hostname":
+            return new MaxPerHostnameRule(taskCount);
+        case "round-robin-by-attribute":
+            return new RoundRobinByAttributeRule(
+                    BenchmarkUtils.ZONE_ATTRIBUTE, Optional.of(BenchmarkUtils.ZONE_COUNT));
+        case "round-robin-by-hostname":
+            return new RoundRobinByHostnameRule(Optional.of(AGENT_COUNT));
+        case "task-type":
+            return TaskTypeRule.avoid("other-" + BenchmarkUtils.POD_TYPE);
+        case "and":
+            return new AndRule(new MaxPerHostnameRule(taskCount), AttributeRule.require(zoneMatcher));
+        case "or":
+            return new OrRule(AgentRule.require("agent-1"), new MaxPerHostnameRule(taskCount));
+        case "not":
+            return new NotRule(HostnameRule.requireExact("host-1.example.com"));
+        case "passthrough":
+            return new PassthroughRule();
+        default:
+            throw new IllegalArgumentException("Unknown placement rule: " + name);
+        }
+    }
+}
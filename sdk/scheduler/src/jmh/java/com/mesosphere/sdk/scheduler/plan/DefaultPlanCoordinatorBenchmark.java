@@ -0,0 +1,74 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import com.mesosphere.sdk.benchmark.BenchmarkUtils;
+import com.mesosphere.sdk.scheduler.plan.strategy.ParallelStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DefaultPlanCoordinator#getCandidates()} against a large deploy plan and a competing recovery plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultPlanCoordinatorBenchmark {
+
+    private static final int PHASE_COUNT = 10;
+
+    /**
+     * The number of steps in the deploy plan. Half of the steps are complete, and the rest are pending.
+     */
+    @Param({"100", "1000", "5000"})
+    public int stepCount;
+
+    private DefaultPlanCoordinator coordinator;
+
+    @Setup
+    public void setup() {
+        BenchmarkUtils.setCapabilities();
+        List<Phase> deployPhases = new ArrayList<>();
+        List<Step> recoverySteps = new ArrayList<>();
+        int stepsPerPhase = Math.max(1, stepCount / PHASE_COUNT);
+        for (int phaseIndex = 0; phaseIndex < PHASE_COUNT; ++phaseIndex) {
+            List<Step> deploySteps = new ArrayList<>();
+            for (int i = 0; i < stepsPerPhase; ++i) {
+                int podIndex = phaseIndex * stepsPerPhase + i;
+                PodInstanceRequirement requirement = PodInstanceRequirementTestUtils.getCpuRequirement(1.0, podIndex);
+                Status status = i % 2 == 0 ? Status.COMPLETE : Status.PENDING;
+                deploySteps.add(new DeploymentStep(
+                        "deploy-" + podIndex, status, requirement, Collections.emptyList()));
+                if (i % 10 == 1) {
+                    // Recovering a pod which is also pending deployment, to exercise the dirty asset checks:
+                    recoverySteps.add(new DeploymentStep(
+                            "recover-" + podIndex, Status.PENDING, requirement, Collections.emptyList()));
+                }
+            }
+            deployPhases.add(DefaultPhaseFactory.getPhase(
+                    "deploy-phase-" + phaseIndex, deploySteps, new ParallelStrategy<>()));
+        }
+
+        Plan deployPlan = DeployPlanFactory.getPlan("deploy", deployPhases, new ParallelStrategy<>());
+        Plan recoveryPlan = DeployPlanFactory.getPlan(
+                "recovery",
+                Arrays.asList(DefaultPhaseFactory.getPhase("recovery", recoverySteps, new ParallelStrategy<>())),
+                new ParallelStrategy<>());
+        coordinator = new DefaultPlanCoordinator(
+                Arrays.asList(new DefaultPlanManager(deployPlan), new DefaultPlanManager(recoveryPlan)));
+        // Plan managers interrupt their plans on construction:
+        deployPlan.proceed();
+        recoveryPlan.proceed();
+    }
+
+    @Benchmark
+    public List<Step> getCandidates() {
+        return coordinator.getCandidates();
+    }
+}
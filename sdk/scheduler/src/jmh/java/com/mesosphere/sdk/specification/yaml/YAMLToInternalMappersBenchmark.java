@@ -0,0 +1,57 @@
+package com.mesosphere.sdk.specification.yaml;
+
+import com.mesosphere.sdk.benchmark.BenchmarkUtils;
+import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import com.mesosphere.sdk.specification.DefaultServiceSpec;
+import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing of service specification YAML files: rendering and deserializing the raw YAML, and converting the
+ * result into a {@link DefaultServiceSpec} via {@link YAMLToInternalMappers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YAMLToInternalMappersBenchmark {
+
+    @Param({"valid-minimal.yml", "valid-exhaustive.yml"})
+    public String yamlFile;
+
+    private File file;
+    private SchedulerConfig schedulerConfig;
+    private RawServiceSpec rawServiceSpec;
+    private YAMLToInternalMappers.ConfigTemplateReader configTemplateReader;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkUtils.setCapabilities();
+        file = new File(getClass().getClassLoader().getResource(yamlFile).getFile());
+        schedulerConfig = SchedulerConfigTestUtils.getTestSchedulerConfig();
+        rawServiceSpec = RawServiceSpec.newBuilder(file).build();
+        configTemplateReader = new YAMLToInternalMappers.ConfigTemplateReader(file.getParentFile()) {
+            @Override
+            public String read(String templateFileName) {
+                return "config-template-content";
+            }
+        };
+    }
+
+    @Benchmark
+    public RawServiceSpec parseRawServiceSpec() throws Exception {
+        return RawServiceSpec.newBuilder(file).build();
+    }
+
+    @Benchmark
+    public DefaultServiceSpec convertServiceSpec() throws Exception {
+        return DefaultServiceSpec.newGenerator(rawServiceSpec, schedulerConfig, file.getParentFile())
+                .setConfigTemplateReader(configTemplateReader)
+                .build();
+    }
+}
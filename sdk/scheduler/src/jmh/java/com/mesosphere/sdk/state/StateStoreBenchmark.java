@@ -0,0 +1,81 @@
+package com.mesosphere.sdk.state;
+
+import com.mesosphere.sdk.benchmark.BenchmarkUtils;
+import com.mesosphere.sdk.storage.MemPersister;
+import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link StateStore} reads over a {@link MemPersister}, and over a {@link PersisterCache} wrapping a
+ * {@link MemPersister}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateStoreBenchmark {
+
+    @Param({"mem", "cache"})
+    public String persister;
+
+    @Param({"100", "1000"})
+    public int taskCount;
+
+    private StateStore stateStore;
+    private List<Protos.TaskInfo> tasks;
+    private int nextTask;
+
+    @Setup
+    public void setup() throws Exception {
+        stateStore = new StateStore(getPersister(persister));
+        tasks = BenchmarkUtils.getTasks(taskCount, 100);
+        stateStore.storeTasks(tasks);
+        for (Protos.TaskInfo task : tasks) {
+            stateStore.storeStatus(task.getName(), Protos.TaskStatus.newBuilder()
+                    .setTaskId(task.getTaskId())
+                    .setState(Protos.TaskState.TASK_RUNNING)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public Collection<String> fetchTaskNames() throws Exception {
+        return stateStore.fetchTaskNames();
+    }
+
+    @Benchmark
+    public Collection<Protos.TaskInfo> fetchTasks() throws Exception {
+        return stateStore.fetchTasks();
+    }
+
+    @Benchmark
+    public Collection<Protos.TaskStatus> fetchStatuses() throws Exception {
+        return stateStore.fetchStatuses();
+    }
+
+    @Benchmark
+    public Optional<Protos.TaskInfo> fetchTask() throws Exception {
+        nextTask = (nextTask + 1) % tasks.size();
+        return stateStore.fetchTask(tasks.get(nextTask).getName());
+    }
+
+    private static Persister getPersister(String name) throws Exception {
+        switch (name) {
+        case "mem":
+            return new MemPersister();
+        case "cache":
+            return new PersisterCache(new MemPersister());
+        default:
+            throw new IllegalArgumentException("Unknown persister: " + name);
+        }
+    }
+}
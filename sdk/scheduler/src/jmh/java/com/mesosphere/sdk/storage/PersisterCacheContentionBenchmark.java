@@ -0,0 +1,114 @@
+package com.mesosphere.sdk.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reads from a {@link PersisterCache} while other threads are writing to it, where each write to the
+ * underlying persister takes {@code writeLatencyMs} to complete, as with a remote ZooKeeper. Readers access a
+ * different subtree from the writers, and should not be slowed down by the writes.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersisterCacheContentionBenchmark {
+
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"0", "5"})
+    public int writeLatencyMs;
+
+    @Param({"100", "1000"})
+    public int taskCount;
+
+    private PersisterCache cache;
+
+    @Setup
+    public void setup() throws Exception {
+        cache = new PersisterCache(new SlowMemPersister(writeLatencyMs));
+        Map<String, byte[]> data = new HashMap<>();
+        for (int i = 0; i < taskCount; ++i) {
+            data.put(getTaskPath(i), DATA);
+        }
+        data.put("Properties/suppressed", DATA);
+        cache.setMany(data);
+    }
+
+    @TearDown
+    public void teardown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public byte[] readTask() throws Exception {
+        return cache.get(getTaskPath(ThreadLocalRandom.current().nextInt(taskCount)));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void writeProperty() throws Exception {
+        cache.set("Properties/suppressed", DATA);
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(3)
+    public byte[] readTaskAlone() throws Exception {
+        return cache.get(getTaskPath(ThreadLocalRandom.current().nextInt(taskCount)));
+    }
+
+    private static String getTaskPath(int index) {
+        return String.format("Tasks/task-%d/TaskInfo", index);
+    }
+
+    /**
+     * A {@link MemPersister} whose writes are delayed to simulate the round trip to a remote persister.
+     */
+    private static class SlowMemPersister extends MemPersister {
+        private final int writeLatencyMs;
+
+        private SlowMemPersister(int writeLatencyMs) {
+            this.writeLatencyMs = writeLatencyMs;
+        }
+
+        @Override
+        public void set(String path, byte[] bytes) throws PersisterException {
+            sleep();
+            super.set(path, bytes);
+        }
+
+        @Override
+        public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+            sleep();
+            super.setMany(pathBytesMap);
+        }
+
+        @Override
+        public void deleteAll(String path) throws PersisterException {
+            sleep();
+            super.deleteAll(path);
+        }
+
+        private void sleep() {
+            if (writeLatencyMs <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(writeLatencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
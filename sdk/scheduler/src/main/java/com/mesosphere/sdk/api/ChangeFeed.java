@@ -0,0 +1,98 @@
+package com.mesosphere.sdk.api;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Serves watch requests for some content by recording changes to it in a {@link ChangeLog}. Changes are detected
+ * lazily, only while clients are watching, so that nothing is recorded for content which nobody is watching.
+ *
+ * <p>A watch request which provides the version of a previous response receives the events which followed that
+ * version, waiting up to the requested time for at least one event to occur. A request without a version, or with a
+ * version whose events are no longer retained, instead receives a full snapshot of the content along with the version
+ * which the snapshot reflects. Events which follow that version may repeat changes which are already reflected in the
+ * snapshot, so clients should apply each event as the new state of the element it describes.
+ */
+abstract class ChangeFeed {
+
+    /**
+     * The maximum time that a watch request may wait for new events.
+     */
+    static final int MAX_WAIT_SECONDS = 60;
+
+    private static final int CHANGE_LOG_CAPACITY = 1000;
+
+    private final ChangeLog changeLog = new ChangeLog(CHANGE_LOG_CAPACITY);
+
+    /**
+     * Produces a snapshot of the watched content, to be included in a JSON response.
+     */
+    interface SnapshotProducer {
+        Object produce() throws Exception;
+    }
+
+    /**
+     * Appends any changes which have occurred since the previous invocation to the provided log. Invocations are
+     * serialized by the caller.
+     */
+    protected abstract void syncChanges(ChangeLog changeLog) throws Exception;
+
+    /**
+     * Waits until further changes may have occurred since the previous invocation of
+     * {@link #syncChanges(ChangeLog)}, or until the provided timeout has passed.
+     *
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    protected abstract void awaitChanges(long timeoutMs) throws InterruptedException;
+
+    /**
+     * Returns the response to a watch request.
+     *
+     * @param sinceVersion the version returned by the client's previous request, or {@code null} for a snapshot
+     * @param waitSeconds how long to wait for events following {@code sinceVersion}, or {@code null}
+     * @param snapshotKey the key under which a snapshot of the content is returned
+     * @param snapshot produces a snapshot of the current content
+     */
+    JSONObject getWatchResponse(
+            Long sinceVersion,
+            Integer waitSeconds,
+            String snapshotKey,
+            SnapshotProducer snapshot) throws Exception {
+        int boundedWaitSeconds = waitSeconds == null ? 0 : Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        long deadlineMs = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(boundedWaitSeconds);
+        while (true) {
+            sync();
+            Optional<List<JSONObject>> events = sinceVersion == null
+                    ? Optional.empty()
+                    : changeLog.getSince(sinceVersion);
+            if (!events.isPresent()) {
+                // Retrieve the version before the snapshot, so that any change while producing it is also returned
+                // as an event to the client's next request:
+                long version = changeLog.getVersion();
+                return new JSONObject()
+                        .put(ChangeLog.VERSION_KEY, version)
+                        .put(snapshotKey, snapshot.produce());
+            }
+            long remainingMs = deadlineMs - System.currentTimeMillis();
+            if (!events.get().isEmpty() || remainingMs <= 0) {
+                // Return the version of the last returned event, rather than the latest version, in case any events
+                // were appended after the call to getSince():
+                long version = events.get().isEmpty()
+                        ? sinceVersion
+                        : events.get().get(events.get().size() - 1).getLong(ChangeLog.VERSION_KEY);
+                return new JSONObject()
+                        .put(ChangeLog.VERSION_KEY, version)
+                        .put("events", new JSONArray(events.get()));
+            }
+            awaitChanges(remainingMs);
+        }
+    }
+
+    private synchronized void sync() throws Exception {
+        syncChanges(changeLog);
+    }
+}
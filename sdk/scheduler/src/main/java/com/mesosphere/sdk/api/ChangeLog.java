@@ -0,0 +1,71 @@
+package com.mesosphere.sdk.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONObject;
+
+/**
+ * A bounded in-memory log of change events for a watch API, where each event is tagged with a monotonically increasing
+ * version. Clients which have seen a given version may retrieve just the events which followed it. Once the log is
+ * full, the oldest events are discarded, and clients which haven't seen the events following them must instead start
+ * over from a full snapshot of the watched content.
+ *
+ * <p>Versions start from the current time in microseconds when the log is created, so that a client which retains a
+ * version across a scheduler restart is told to start over rather than being given the wrong events.
+ */
+class ChangeLog {
+
+    /**
+     * The key of each event's version within the event JSON.
+     */
+    static final String VERSION_KEY = "version";
+
+    private final int capacity;
+    private final Deque<JSONObject> events = new ArrayDeque<>();
+    private long version;
+
+    ChangeLog(int capacity) {
+        this.capacity = capacity;
+        this.version = System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * Returns the version of the latest event, or the initial version if no events have been appended.
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Appends an event to the log, assigning it the next version.
+     */
+    synchronized void append(JSONObject event) {
+        ++version;
+        events.addLast(event.put(VERSION_KEY, version));
+        if (events.size() > capacity) {
+            events.removeFirst();
+        }
+    }
+
+    /**
+     * Returns the events which followed the provided version, or an empty {@link Optional} if any of those events have
+     * been discarded, or if the version wasn't produced by this log, in which case the caller must start over.
+     */
+    synchronized Optional<List<JSONObject>> getSince(long sinceVersion) {
+        long oldestVersion = events.isEmpty() ? version + 1 : events.getFirst().getLong(VERSION_KEY);
+        if (sinceVersion > version || sinceVersion < oldestVersion - 1) {
+            return Optional.empty();
+        }
+        List<JSONObject> newEvents = new ArrayList<>();
+        for (JSONObject event : events) {
+            if (event.getLong(VERSION_KEY) > sinceVersion) {
+                newEvents.add(event);
+            }
+        }
+        return Optional.of(newEvents);
+    }
+}
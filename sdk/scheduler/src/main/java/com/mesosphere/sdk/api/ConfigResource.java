@@ -7,14 +7,18 @@ import javax.inject.Singleton;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
 import com.mesosphere.sdk.api.types.PrettyJsonResource;
+import com.mesosphere.sdk.config.ServiceSpecDiff;
+import com.mesosphere.sdk.config.ServiceSpecDiffCache;
 import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.ConfigStoreException;
 import com.mesosphere.sdk.storage.StorageError.Reason;
 
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,9 +37,15 @@ public class ConfigResource<T extends ConfigStore<?>> extends PrettyJsonResource
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final T configStore;
+    private final ServiceSpecDiffCache configDiffs;
 
     public ConfigResource(T configStore) {
+        this(configStore, new ServiceSpecDiffCache(configStore));
+    }
+
+    public ConfigResource(T configStore, ServiceSpecDiffCache configDiffs) {
         this.configStore = configStore;
+        this.configDiffs = configDiffs;
     }
 
     /**
@@ -128,6 +138,51 @@ public class ConfigResource<T extends ConfigStore<?>> extends PrettyJsonResource
         }
     }
 
+    /**
+     * Produces the pods and tasks which were added, removed, or changed between two configurations, or returns an
+     * error if either configuration doesn't exist or couldn't be compared. If no {@code to} configuration ID is
+     * provided, then the {@code from} configuration is compared against the current target configuration.
+     */
+    @Path("/diff")
+    @GET
+    public Response getDiff(@QueryParam("from") String fromId, @QueryParam("to") String toId) {
+        UUID fromUuid;
+        UUID toUuid;
+        try {
+            fromUuid = UUID.fromString(fromId);
+            toUuid = toId == null ? configStore.getTargetConfig() : UUID.fromString(toId);
+        } catch (ConfigStoreException ex) {
+            logger.error("Failed to fetch ID of target configuration", ex);
+            return Response.serverError().build();
+        } catch (Exception ex) {
+            logger.warn(String.format(
+                    "Failed to parse requested configuration ids '%s' and '%s' as UUIDs", fromId, toId), ex);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        ServiceSpecDiff diff;
+        try {
+            diff = configDiffs.getDiff(fromUuid, toUuid);
+        } catch (ConfigStoreException ex) {
+            if (ex.getReason() == Reason.NOT_FOUND) {
+                logger.warn(String.format(
+                        "Requested configuration '%s' or '%s' doesn't exist", fromUuid, toUuid), ex);
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            logger.error(String.format("Failed to compare configurations '%s' and '%s'", fromUuid, toUuid), ex);
+            return Response.serverError().build();
+        }
+        JSONObject changedPods = new JSONObject();
+        for (String podType : diff.getChangedPodTypes()) {
+            changedPods.put(podType, new JSONArray(diff.getChangedTaskNames(podType)));
+        }
+        return jsonOkResponse(new JSONObject()
+                .put("from", fromUuid.toString())
+                .put("to", toUuid.toString())
+                .put("addedPods", new JSONArray(diff.getAddedPodTypes()))
+                .put("removedPods", new JSONArray(diff.getRemovedPodTypes()))
+                .put("changedPods", changedPods));
+    }
+
     /**
      * Returns an HTTP response containing the content of the requested configuration.
      */
@@ -1,13 +1,25 @@
 package com.mesosphere.sdk.api;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import com.google.common.hash.Hashing;
 import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.api.types.EndpointProducer;
 import com.mesosphere.sdk.offer.Constants;
@@ -28,11 +40,17 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static com.mesosphere.sdk.api.ResponseUtils.jsonOkResponse;
-import static com.mesosphere.sdk.api.ResponseUtils.plainOkResponse;
-
 /**
  * A read-only API for accessing information about how to connect to the service.
+ *
+ * <p>Endpoints are derived from the tasks in the {@link StateStore}: their TaskInfos, TaskStatuses, and the IP
+ * addresses stored in properties. They are only recomputed when the state store's data has changed, see
+ * {@link StateStore#getDataVersion()}, and the resulting view of the endpoints has its own version which only advances
+ * when the endpoints themselves have changed. Each response includes a strong {@code ETag} of its content. Requests
+ * with a matching {@code If-None-Match} header receive a {@code 304 Not Modified} response, or if a {@code wait}
+ * duration in seconds is also provided, the response is suspended until the view of the endpoints changes in a way
+ * that affects the content, or until the duration has passed. This allows clients to cheaply poll for changes to the
+ * service's topology. Custom endpoints are always returned immediately, as their changes can't be detected.
  */
 @Path("/v1/endpoints")
 public class EndpointsResource {
@@ -42,10 +60,24 @@ public class EndpointsResource {
     private static final String RESPONSE_KEY_ADDRESS = "address";
     private static final String RESPONSE_KEY_VIP = "vip";
 
+    /**
+     * The longest that a request may wait for its content to change. Waiting requests are suspended, so they don't
+     * occupy a request thread.
+     */
+    private static final int MAX_WAIT_SECONDS = 60;
+
     private final StateStore stateStore;
     private final String serviceName;
     private final Map<String, EndpointProducer> customEndpoints = new HashMap<>();
 
+    private final Object viewLock = new Object();
+    private volatile EndpointsView view = null;
+
+    // Requests which are waiting for the view to advance past the version they've seen. Guarded by itself.
+    private final List<Waiter> waiters = new ArrayList<>();
+    // Whether a check of the waiting requests has been scheduled but hasn't started yet, see scheduleWaiterCheck():
+    private final AtomicBoolean waiterCheckScheduled = new AtomicBoolean(false);
+
     /**
      * Creates a new instance which retrieves task/pod state from the provided {@link StateStore},
      * using the provided {@code serviceName} for endpoint paths.
@@ -53,6 +85,7 @@ public class EndpointsResource {
     public EndpointsResource(StateStore stateStore, String serviceName) {
         this.stateStore = stateStore;
         this.serviceName = serviceName;
+        stateStore.addDataVersionListener(this::scheduleWaiterCheck);
     }
 
     /**
@@ -80,49 +113,192 @@ public class EndpointsResource {
 
     /**
      * Produces a listing of all endpoint names.
+     *
+     * @param ifNoneMatch the ETag(s) of content which the caller already has, or {@code null}
+     * @param waitSeconds how long to wait for the content to differ from {@code ifNoneMatch}, or {@code null}
+     * @param asyncResponse the response, which is resumed once the content is available
      */
     @GET
-    public Response getEndpoints() {
-        try {
+    public void getEndpoints(
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam("wait") Integer waitSeconds,
+            @Suspended AsyncResponse asyncResponse) {
+        respond(asyncResponse, currentView -> {
             Set<String> endpoints = new TreeSet<>();
             endpoints.addAll(customEndpoints.keySet());
-            endpoints.addAll(getDiscoveryEndpoints().keySet());
-            return jsonOkResponse(new JSONArray(endpoints));
-        } catch (Exception ex) {
-            LOGGER.error("Failed to fetch list of endpoints", ex);
-            return Response.serverError().build();
-        }
+            endpoints.addAll(currentView.endpoints.keySet());
+            return Optional.of(new Content(new JSONArray(endpoints).toString(2), MediaType.APPLICATION_JSON_TYPE));
+        }, ifNoneMatch, waitSeconds, "Failed to fetch list of endpoints");
     }
 
     /**
      * Produces the content of the specified endpoint.
      *
      * @param name the name of the endpoint whose content should be included
+     * @param ifNoneMatch the ETag(s) of content which the caller already has, or {@code null}
+     * @param waitSeconds how long to wait for the content to differ from {@code ifNoneMatch}, or {@code null}. Ignored
+     *     for custom endpoints
+     * @param asyncResponse the response, which is resumed once the content is available
      */
     @Path("/{name}")
     @GET
-    public Response getEndpoint(@PathParam("name") String name) {
-        try {
-            // Check for custom value before emitting any default values:
-            EndpointProducer customValue = customEndpoints.get(name);
-            if (customValue != null) {
-                // Return custom values as plain text. They could be anything.
-                return plainOkResponse(customValue.getEndpoint());
+    public void getEndpoint(
+            @PathParam("name") String name,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam("wait") Integer waitSeconds,
+            @Suspended AsyncResponse asyncResponse) {
+        String errorMessage = String.format("Failed to fetch endpoint %s", name);
+        // Check for custom value before emitting any default values:
+        EndpointProducer customValue = customEndpoints.get(name);
+        if (customValue != null) {
+            // Return custom values as plain text. They could be anything. Changes to them aren't reported, so the
+            // response is never held for them to change.
+            respond(asyncResponse,
+                    currentView -> Optional.of(new Content(customValue.getEndpoint(), MediaType.TEXT_PLAIN_TYPE)),
+                    ifNoneMatch, null, errorMessage);
+            return;
+        }
+
+        // Fall back to checking default values:
+        respond(asyncResponse,
+                currentView -> Optional.ofNullable(currentView.endpoints.get(name)),
+                ifNoneMatch, waitSeconds, errorMessage);
+    }
+
+    /**
+     * Resumes the provided response with the content produced by the provided {@code producer}, or with a {@code 304
+     * Not Modified} response if the content matches {@code ifNoneMatch}. If {@code waitSeconds} is provided, a
+     * matching request is instead left suspended until the view of the endpoints advances such that the content no
+     * longer matches, or until the wait has passed.
+     */
+    private void respond(
+            AsyncResponse asyncResponse,
+            ContentProducer producer,
+            String ifNoneMatch,
+            Integer waitSeconds,
+            String errorMessage) {
+        int boundedWaitSeconds = waitSeconds == null ? 0 : Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        Waiter waiter = new Waiter(asyncResponse, producer, ifNoneMatch, errorMessage);
+        if (boundedWaitSeconds == 0) {
+            waiter.respond(false);
+            return;
+        }
+        asyncResponse.setTimeoutHandler(timedOutResponse -> {
+            synchronized (waiters) {
+                waiters.remove(waiter);
             }
+            waiter.respond(false);
+        });
+        asyncResponse.setTimeout(boundedWaitSeconds, TimeUnit.SECONDS);
+        if (waiter.respond(true)) {
+            return;
+        }
+        synchronized (waiters) {
+            waiters.add(waiter);
+        }
+        // The view may have advanced before the waiter was added, in which case a check for that change missed it:
+        scheduleWaiterCheck();
+    }
 
-            // Fall back to checking default values:
-            JSONObject endpoint = getDiscoveryEndpoints().get(name);
-            if (endpoint != null) {
-                return jsonOkResponse(endpoint);
+    /**
+     * Schedules a check of whether the view of the endpoints has advanced for any waiting requests. This is invoked
+     * whenever the {@link StateStore}'s data may have changed, possibly while the state store's locks are held, so the
+     * check itself is performed asynchronously. Checks which are requested before a scheduled check has started are
+     * coalesced into that check.
+     */
+    private void scheduleWaiterCheck() {
+        synchronized (waiters) {
+            if (waiters.isEmpty()) {
+                return;
             }
+        }
+        if (waiterCheckScheduled.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                // Reset before checking, so that any change which happens during the check schedules another:
+                waiterCheckScheduled.set(false);
+                checkWaiters();
+            });
+        }
+    }
 
-            return Response.status(Response.Status.NOT_FOUND).build();
+    /**
+     * Resumes any waiting requests whose content has changed since the view of the endpoints that they last saw.
+     * Waiting requests whose content is unaffected by the change continue waiting.
+     */
+    private void checkWaiters() {
+        Long currentVersion;
+        try {
+            currentVersion = getView().version;
         } catch (Exception ex) {
-            LOGGER.error(String.format("Failed to fetch endpoint %s", name), ex);
-            return Response.serverError().build();
+            // Resume all of the waiting requests, each of which will then report the error:
+            currentVersion = null;
+        }
+        List<Waiter> advancedWaiters = new ArrayList<>();
+        synchronized (waiters) {
+            Iterator<Waiter> iter = waiters.iterator();
+            while (iter.hasNext()) {
+                Waiter waiter = iter.next();
+                if (currentVersion == null || waiter.viewVersion != currentVersion) {
+                    iter.remove();
+                    advancedWaiters.add(waiter);
+                }
+            }
+        }
+        List<Waiter> unaffectedWaiters = new ArrayList<>();
+        for (Waiter waiter : advancedWaiters) {
+            if (!waiter.respond(true)) {
+                unaffectedWaiters.add(waiter);
+            }
+        }
+        if (!unaffectedWaiters.isEmpty()) {
+            synchronized (waiters) {
+                waiters.addAll(unaffectedWaiters);
+            }
         }
     }
 
+    /**
+     * Returns the discovery endpoints for the current content of the {@link StateStore}, recomputing them if the
+     * content has changed since they were last computed. The version of the returned view only advances when the
+     * recomputed endpoints differ from those of the previous view.
+     */
+    private EndpointsView getView() throws TaskException {
+        EndpointsView currentView = view;
+        if (currentView != null && currentView.dataVersion == stateStore.getDataVersion()) {
+            return currentView;
+        }
+        synchronized (viewLock) {
+            // Retrieve the version before the data, so that any change while reading the data results in a recompute:
+            long dataVersion = stateStore.getDataVersion();
+            currentView = view;
+            if (currentView == null || currentView.dataVersion != dataVersion) {
+                currentView = new EndpointsView(dataVersion, getDiscoveryEndpoints(), currentView);
+                view = currentView;
+            }
+            return currentView;
+        }
+    }
+
+    /**
+     * Returns whether the provided {@code If-None-Match} header value matches the provided tag. Per RFC 7232, tags are
+     * compared using weak comparison.
+     */
+    private static boolean matchesAny(String ifNoneMatch, EntityTag tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(String.format("\"%s\"", tag.getValue()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns a mapping of endpoint type to host:port (or ip:port) endpoints, endpoint type.
      */
@@ -270,4 +446,111 @@ public class EndpointsResource {
         portEndpoint.append(RESPONSE_KEY_ADDRESS, ipHostPort);
         return portEndpoint;
     }
+
+    /**
+     * Produces the content of a response from the provided view of the endpoints, or an empty {@link Optional} if the
+     * requested content doesn't exist.
+     */
+    private interface ContentProducer {
+        Optional<Content> get(EndpointsView currentView) throws Exception;
+    }
+
+    /**
+     * A request for content, which may be waiting for its content to differ from what the caller already has.
+     */
+    private class Waiter {
+        private final AsyncResponse asyncResponse;
+        private final ContentProducer producer;
+        private final String ifNoneMatch;
+        private final String errorMessage;
+        // The version of the view which the content was last produced from. Only updated while the waiter isn't among
+        // the waiting requests, and otherwise only read while holding their lock.
+        private long viewVersion = -1;
+
+        private Waiter(AsyncResponse asyncResponse, ContentProducer producer, String ifNoneMatch, String errorMessage) {
+            this.asyncResponse = asyncResponse;
+            this.producer = producer;
+            this.ifNoneMatch = ifNoneMatch;
+            this.errorMessage = errorMessage;
+        }
+
+        /**
+         * Resumes the response with the content produced from the current view of the endpoints, or with an error if
+         * the content couldn't be produced. If the content matches {@code ifNoneMatch}, the response is resumed with a
+         * {@code 304 Not Modified} unless {@code canWait} is set, in which case this returns {@code false} without
+         * resuming the response.
+         */
+        private boolean respond(boolean canWait) {
+            final EndpointsView currentView;
+            final Optional<Content> content;
+            try {
+                currentView = getView();
+                content = producer.get(currentView);
+            } catch (Exception ex) {
+                LOGGER.error(errorMessage, ex);
+                asyncResponse.resume(Response.serverError().build());
+                return true;
+            }
+            if (!content.isPresent()) {
+                asyncResponse.resume(Response.status(Response.Status.NOT_FOUND).build());
+            } else if (!matchesAny(ifNoneMatch, content.get().tag)) {
+                asyncResponse.resume(
+                        Response.ok(content.get().body, content.get().type).tag(content.get().tag).build());
+            } else if (canWait) {
+                viewVersion = currentView.version;
+                return false;
+            } else {
+                asyncResponse.resume(Response.notModified(content.get().tag).build());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The rendered content of a response, along with its strong ETag.
+     */
+    private static class Content {
+        private final String body;
+        private final MediaType type;
+        private final EntityTag tag;
+
+        private Content(String body, MediaType type) {
+            this.body = body;
+            this.type = type;
+            this.tag = new EntityTag(Hashing.sha256().hashString(body, StandardCharsets.UTF_8).toString());
+        }
+    }
+
+    /**
+     * The rendered discovery endpoints for a given version of the {@link StateStore}'s data. The view's own version
+     * only advances when the endpoints differ from those of the previous view.
+     */
+    private static class EndpointsView {
+        private final long dataVersion;
+        private final long version;
+        private final Map<String, Content> endpoints = new TreeMap<>();
+
+        private EndpointsView(long dataVersion, Map<String, JSONObject> endpoints, EndpointsView previousView) {
+            this.dataVersion = dataVersion;
+            for (Map.Entry<String, JSONObject> entry : endpoints.entrySet()) {
+                this.endpoints.put(
+                        entry.getKey(), new Content(entry.getValue().toString(2), MediaType.APPLICATION_JSON_TYPE));
+            }
+            if (previousView == null) {
+                this.version = 0;
+            } else if (getTags(this.endpoints).equals(getTags(previousView.endpoints))) {
+                this.version = previousView.version;
+            } else {
+                this.version = previousView.version + 1;
+            }
+        }
+
+        private static Map<String, EntityTag> getTags(Map<String, Content> endpoints) {
+            Map<String, EntityTag> tags = new HashMap<>();
+            for (Map.Entry<String, Content> entry : endpoints.entrySet()) {
+                tags.put(entry.getKey(), entry.getValue().tag);
+            }
+            return tags;
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package com.mesosphere.sdk.api;
+
+import com.codahale.metrics.MetricRegistry;
+import com.mesosphere.sdk.metrics.Metrics;
+import com.mesosphere.sdk.metrics.MetricsFormatter;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * An API for retrieving the scheduler's internal metrics, as JSON or as Prometheus text.
+ */
+@Path("/v1/metrics")
+public class MetricsResource {
+
+    private final MetricRegistry registry;
+
+    public MetricsResource() {
+        this(Metrics.getRegistry());
+    }
+
+    public MetricsResource(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns all metrics as a JSON object, grouped by metric type.
+     */
+    @GET
+    public Response getMetrics() {
+        return ResponseUtils.jsonOkResponse(MetricsFormatter.toJson(registry));
+    }
+
+    /**
+     * Returns all metrics in the Prometheus text exposition format, for consumption by a Prometheus scraper.
+     */
+    @Path("/prometheus")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getPrometheusMetrics() {
+        return ResponseUtils.plainOkResponse(MetricsFormatter.toPrometheus(registry));
+    }
+}
@@ -2,12 +2,17 @@ package com.mesosphere.sdk.api;
 
 import com.mesosphere.sdk.api.types.PlanInfo;
 import com.mesosphere.sdk.api.types.PrettyJsonResource;
+import com.mesosphere.sdk.config.SerializationUtils;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.evaluate.placement.RegexMatcher;
 import com.mesosphere.sdk.offer.evaluate.placement.StringMatcher;
+import com.mesosphere.sdk.scheduler.plan.Element;
 import com.mesosphere.sdk.scheduler.plan.ParentElement;
 import com.mesosphere.sdk.scheduler.plan.Phase;
 import com.mesosphere.sdk.scheduler.plan.Plan;
 import com.mesosphere.sdk.scheduler.plan.PlanManager;
+import com.mesosphere.sdk.scheduler.plan.Status;
+import com.mesosphere.sdk.scheduler.plan.StatusListener;
 import com.mesosphere.sdk.scheduler.plan.Step;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -27,9 +32,13 @@ import javax.ws.rs.core.Response;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -47,6 +56,7 @@ public class PlansResource extends PrettyJsonResource {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final Collection<PlanManager> planManagers = new ArrayList<>();
+    private final Map<String, PlanFeed> planFeeds = new HashMap<>();
     private final Object planManagersLock = new Object();
 
     /**
@@ -58,6 +68,8 @@ public class PlansResource extends PrettyJsonResource {
         synchronized (planManagersLock) {
             this.planManagers.clear();
             this.planManagers.addAll(planManagers);
+            planFeeds.values().forEach(PlanFeed::close);
+            planFeeds.clear();
         }
         return this;
     }
@@ -73,13 +85,30 @@ public class PlansResource extends PrettyJsonResource {
 
     /**
      * Returns a full list of the {@link Plan}'s contents (incl all {@link Phase}s/{@link Step}s).
+     * <p>
+     * With {@code watch} enabled, this instead returns the status changes of the plan and of its phases and steps
+     * which followed the {@code version} of a previous watch response, waiting up to {@code wait} seconds for a change
+     * to occur. Responses include a {@code version} for use in the next request, and contain either a list of
+     * {@code events}, or a full snapshot of the {@code plan} if no version was provided or if the events following it
+     * are no longer available.
+     *
+     * @param watch whether to return changes to the plan rather than its full contents
+     * @param sinceVersion when watching, the version returned by the previous watch response, or {@code null}
+     * @param waitSeconds when watching, how long to wait for a change to occur, or {@code null}
      */
     @GET
     @Path("/plans/{planName}")
-    public Response getPlanInfo(@PathParam("planName") String planName) {
+    public Response getPlanInfo(
+            @PathParam("planName") String planName,
+            @QueryParam("watch") boolean watch,
+            @QueryParam("since") Long sinceVersion,
+            @QueryParam("wait") Integer waitSeconds) {
         final Optional<PlanManager> planManagerOptional = getPlanManager(planName);
         if (planManagerOptional.isPresent()) {
             Plan plan = planManagerOptional.get().getPlan();
+            if (watch) {
+                return getPlanWatchResponse(plan, sinceVersion, waitSeconds);
+            }
 
             Response.Status response = Response.Status.ACCEPTED;
             if (plan.hasErrors()) {
@@ -121,6 +150,7 @@ public class PlansResource extends PrettyJsonResource {
 
             logger.info("Started plan {} with parameters {} by user request", planName, parameters);
 
+            Metrics.recordPlanCommand("start");
             return jsonOkResponse(getCommandResult(String.format("%s %s with parameters: %s",
                     "start",
                     planName,
@@ -144,6 +174,7 @@ public class PlansResource extends PrettyJsonResource {
             Plan plan = planManagerOptional.get().getPlan();
             plan.interrupt();
             plan.restart();
+            Metrics.recordPlanCommand("stop");
             return jsonOkResponse(getCommandResult("stop"));
         } else {
             return elementNotFoundResponse();
@@ -186,6 +217,7 @@ public class PlansResource extends PrettyJsonResource {
             plan.proceed();
         }
 
+        Metrics.recordPlanCommand("continue");
         return jsonOkResponse(getCommandResult("continue"));
     }
 
@@ -229,7 +261,7 @@ public class PlansResource extends PrettyJsonResource {
                 return alreadyReportedResponse();
             }
 
-            phases.forEach(p -> p.getStrategy().interrupt());
+            phases.forEach(Phase::interrupt);
         } else {
             Plan plan = planManagerOptional.get().getPlan();
             if (plan.isInterrupted() || plan.isComplete()) {
@@ -238,6 +270,7 @@ public class PlansResource extends PrettyJsonResource {
             plan.interrupt();
         }
 
+        Metrics.recordPlanCommand("interrupt");
         return jsonOkResponse(getCommandResult("interrupt"));
     }
 
@@ -261,6 +294,7 @@ public class PlansResource extends PrettyJsonResource {
 
         stepOptional.get().forceComplete();
 
+        Metrics.recordPlanCommand("forceComplete");
         return jsonOkResponse(getCommandResult("forceComplete"));
     }
 
@@ -279,6 +313,7 @@ public class PlansResource extends PrettyJsonResource {
             Plan plan = planManagerOptional.get().getPlan();
             plan.restart();
             plan.proceed();
+            Metrics.recordPlanCommand("restart");
             return jsonOkResponse(getCommandResult("restart"));
         }
 
@@ -290,6 +325,7 @@ public class PlansResource extends PrettyJsonResource {
 
             phases.forEach(phz -> phz.restart());
             phases.forEach(phz -> phz.proceed());
+            Metrics.recordPlanCommand("restart");
             return jsonOkResponse(getCommandResult("restart"));
         }
 
@@ -300,6 +336,7 @@ public class PlansResource extends PrettyJsonResource {
             }
             stepOptional.get().restart();
             stepOptional.get().proceed();
+            Metrics.recordPlanCommand("restart");
             return jsonOkResponse(getCommandResult("restart"));
         }
 
@@ -310,7 +347,7 @@ public class PlansResource extends PrettyJsonResource {
     @Deprecated
     @Path("/plan")
     public Response getFullInfo() {
-        return getPlanInfo("deploy");
+        return getPlanInfo("deploy", false, null, null);
     }
 
     @POST
@@ -401,6 +438,34 @@ public class PlansResource extends PrettyJsonResource {
         }
     }
 
+    private Response getPlanWatchResponse(Plan plan, Long sinceVersion, Integer waitSeconds) {
+        try {
+            return jsonOkResponse(getPlanFeed(plan).getWatchResponse(
+                    sinceVersion,
+                    waitSeconds,
+                    "plan",
+                    () -> new JSONObject(SerializationUtils.toJsonString(PlanInfo.forPlan(plan)))));
+        } catch (Exception e) {
+            logger.error(String.format("Failed to watch plan %s", plan.getName()), e);
+            return Response.serverError().build();
+        }
+    }
+
+    private PlanFeed getPlanFeed(Plan plan) {
+        synchronized (planManagersLock) {
+            PlanFeed planFeed = planFeeds.get(plan.getName());
+            // Plan managers may replace their plan, in which case the old plan's elements are no longer of interest:
+            if (planFeed == null || planFeed.plan != plan) {
+                if (planFeed != null) {
+                    planFeed.close();
+                }
+                planFeed = new PlanFeed(plan);
+                planFeeds.put(plan.getName(), planFeed);
+            }
+            return planFeed;
+        }
+    }
+
     private static Response invalidParameterResponse(String message) {
         return plainResponse(
                 String.format("Couldn't parse parameters: %s", message),
@@ -427,4 +492,120 @@ public class PlansResource extends PrettyJsonResource {
                 "message",
                 String.format("Received cmd: %s", command)));
     }
+
+    /**
+     * Records the status changes of a plan and of its phases and steps. Elements notify the feed when their status may
+     * have changed, and the statuses of those elements are then compared against their previous statuses when a watch
+     * request arrives. Elements which don't support notifications are instead compared on every request, and are
+     * polled while a request is waiting.
+     */
+    private static class PlanFeed extends ChangeFeed implements StatusListener {
+
+        private static final long UNOBSERVED_POLL_INTERVAL_MS = 1000;
+
+        private final Plan plan;
+        private final Map<UUID, Element> elements = new LinkedHashMap<>();
+        private final Map<UUID, String> phaseNamesByStepId = new HashMap<>();
+        private final Set<UUID> unobservedIds = new HashSet<>();
+        // Only accessed within syncChanges(), which is serialized:
+        private final Map<UUID, Status> statuses = new HashMap<>();
+
+        private final Object dirtyLock = new Object();
+        private Set<UUID> dirtyIds = new HashSet<>();
+        private volatile boolean active = true;
+
+        private PlanFeed(Plan plan) {
+            this.plan = plan;
+            // Track elements in post-order, so that a step's change is recorded before any resulting phase change:
+            for (Phase phase : plan.getChildren()) {
+                for (Step step : phase.getChildren()) {
+                    track(step, phase.getName());
+                }
+                track(phase, null);
+            }
+            track(plan, null);
+        }
+
+        /**
+         * Stops recording changes and unsubscribes from the plan's elements, so that a replaced plan doesn't keep
+         * notifying the feed, and the feed doesn't keep the plan's elements reachable.
+         */
+        private void close() {
+            active = false;
+            for (Element element : elements.values()) {
+                if (!unobservedIds.contains(element.getId())) {
+                    element.removeStatusListener(this);
+                }
+            }
+        }
+
+        @Override
+        public void statusChanged(Element element) {
+            if (!active) {
+                return;
+            }
+            synchronized (dirtyLock) {
+                if (dirtyIds.add(element.getId())) {
+                    dirtyLock.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        protected void syncChanges(ChangeLog changeLog) {
+            Set<UUID> changedIds;
+            synchronized (dirtyLock) {
+                changedIds = dirtyIds;
+                dirtyIds = new HashSet<>();
+            }
+            changedIds.addAll(unobservedIds);
+            if (changedIds.isEmpty()) {
+                return;
+            }
+            for (Element element : elements.values()) {
+                if (!changedIds.contains(element.getId())) {
+                    continue;
+                }
+                Status status = element.getStatus();
+                if (statuses.put(element.getId(), status) == status) {
+                    continue;
+                }
+                JSONObject event = new JSONObject()
+                        .put("id", element.getId().toString())
+                        .put("name", element.getName())
+                        .put("status", status.toString());
+                String phaseName = phaseNamesByStepId.get(element.getId());
+                if (element == plan) {
+                    event.put("type", "plan");
+                } else if (phaseName == null) {
+                    event.put("type", "phase");
+                } else {
+                    event.put("type", "step").put("phase", phaseName);
+                }
+                changeLog.append(event);
+            }
+        }
+
+        @Override
+        protected void awaitChanges(long timeoutMs) throws InterruptedException {
+            long waitMs = unobservedIds.isEmpty() ? timeoutMs : Math.min(timeoutMs, UNOBSERVED_POLL_INTERVAL_MS);
+            synchronized (dirtyLock) {
+                if (dirtyIds.isEmpty()) {
+                    dirtyLock.wait(waitMs);
+                }
+            }
+        }
+
+        private void track(Element element, String phaseName) {
+            elements.put(element.getId(), element);
+            if (phaseName != null) {
+                phaseNamesByStepId.put(element.getId(), phaseName);
+            }
+            // Subscribe before querying the status, so that no changes are missed in between:
+            if (!element.addStatusListener(this)) {
+                unobservedIds.add(element.getId());
+            }
+            statuses.put(element.getId(), element.getStatus());
+        }
+    }
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,6 +19,7 @@ import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
 import com.mesosphere.sdk.api.types.PrettyJsonResource;
@@ -53,6 +55,7 @@ public class PodResource extends PrettyJsonResource {
     private static final String UNKNOWN_POD_LABEL = "UNKNOWN_POD";
 
     private final StateStore stateStore;
+    private final PodStatusFeed podStatusFeed;
 
     private TaskKiller taskKiller;
 
@@ -61,6 +64,7 @@ public class PodResource extends PrettyJsonResource {
      */
     public PodResource(StateStore stateStore) {
         this.stateStore = stateStore;
+        this.podStatusFeed = new PodStatusFeed(stateStore);
     }
 
     /**
@@ -102,26 +106,33 @@ public class PodResource extends PrettyJsonResource {
 
     /**
      * Produces the summary statuses of all pod instances.
+     * <p>
+     * With {@code watch} enabled, this instead returns the changes to task states which followed the {@code version}
+     * of a previous watch response, waiting up to {@code wait} seconds for a change to occur. Responses include a
+     * {@code version} for use in the next request, and contain either a list of {@code events}, or a full snapshot of
+     * the {@code pods} if no version was provided or if the events following it are no longer available.
+     *
+     * @param watch whether to return changes to the statuses rather than the statuses themselves
+     * @param sinceVersion when watching, the version returned by the previous watch response, or {@code null}
+     * @param waitSeconds when watching, how long to wait for a change to occur, or {@code null}
      */
     @Path("/status")
     @GET
-    public Response getPodStatuses() {
-        try {
-            // Group the tasks by pod:
-            GroupedTasks groupedTasks = GroupedTasks.create(stateStore);
-
-            // Output statuses for all tasks in each pod:
-            JSONObject json = new JSONObject();
-            for (Map.Entry<String, List<TaskInfoAndStatus>> podTasks : groupedTasks.byPod.entrySet()) {
-                json.put(podTasks.getKey(), getStatusesJson(podTasks.getValue()));
-            }
-
-            // Output 'unknown pod' for any tasks which didn't have a resolvable pod:
-            if (!groupedTasks.unknownPod.isEmpty()) {
-                json.put(UNKNOWN_POD_LABEL, getStatusesJson(groupedTasks.unknownPod));
+    public Response getPodStatuses(
+            @QueryParam("watch") boolean watch,
+            @QueryParam("since") Long sinceVersion,
+            @QueryParam("wait") Integer waitSeconds) {
+        if (watch) {
+            try {
+                return jsonOkResponse(
+                        podStatusFeed.getWatchResponse(sinceVersion, waitSeconds, "pods", this::getPodStatusesJson));
+            } catch (Exception e) {
+                LOGGER.error("Failed to watch task statuses", e);
+                return Response.serverError().build();
             }
-
-            return jsonOkResponse(json);
+        }
+        try {
+            return jsonOkResponse(getPodStatusesJson());
         } catch (Exception e) {
             LOGGER.error("Failed to fetch collated list of task statuses by pod", e);
             return Response.serverError().build();
@@ -277,22 +288,111 @@ public class PodResource extends PrettyJsonResource {
         }
     }
 
+    private JSONObject getPodStatusesJson() {
+        // Group the tasks by pod:
+        GroupedTasks groupedTasks = GroupedTasks.create(stateStore);
+
+        // Output statuses for all tasks in each pod:
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, List<TaskInfoAndStatus>> podTasks : groupedTasks.byPod.entrySet()) {
+            json.put(podTasks.getKey(), getStatusesJson(podTasks.getValue()));
+        }
+
+        // Output 'unknown pod' for any tasks which didn't have a resolvable pod:
+        if (!groupedTasks.unknownPod.isEmpty()) {
+            json.put(UNKNOWN_POD_LABEL, getStatusesJson(groupedTasks.unknownPod));
+        }
+
+        return json;
+    }
+
     private static JSONArray getStatusesJson(List<TaskInfoAndStatus> tasks) {
         JSONArray jsonPod = new JSONArray();
         for (TaskInfoAndStatus task : tasks) {
-            JSONObject jsonTask = new JSONObject();
-            jsonTask.put("id", task.getInfo().getTaskId().getValue());
-            jsonTask.put("name", task.getInfo().getName());
-            if (task.hasStatus()) {
-                jsonTask.put("state", task.getStatus().get().getState().toString());
-            } else {
-                jsonTask.put("state", "No state defined");
-            }
-            jsonPod.put(jsonTask);
+            jsonPod.put(getStatusJson(task));
         }
         return jsonPod;
     }
 
+    private static JSONObject getStatusJson(TaskInfoAndStatus task) {
+        JSONObject jsonTask = new JSONObject();
+        jsonTask.put("id", task.getInfo().getTaskId().getValue());
+        jsonTask.put("name", task.getInfo().getName());
+        if (task.hasStatus()) {
+            jsonTask.put("state", task.getStatus().get().getState().toString());
+        } else {
+            jsonTask.put("state", "No state defined");
+        }
+        return jsonTask;
+    }
+
+    /**
+     * Records the changes to each task's summary status. The tasks are only re-read from the {@link StateStore} when a
+     * watch request arrives after its data has changed, and are then compared against their previous statuses.
+     */
+    private static class PodStatusFeed extends ChangeFeed {
+
+        private final StateStore stateStore;
+        // Only accessed within syncChanges(), which is serialized:
+        private Map<String, JSONObject> statusesByTask;
+        private volatile long dataVersion;
+
+        private PodStatusFeed(StateStore stateStore) {
+            this.stateStore = stateStore;
+        }
+
+        @Override
+        protected void syncChanges(ChangeLog changeLog) {
+            // Retrieve the version before the tasks, so that any change while reading them is detected next time:
+            long currentDataVersion = stateStore.getDataVersion();
+            if (statusesByTask != null && currentDataVersion == dataVersion) {
+                return;
+            }
+            GroupedTasks groupedTasks = GroupedTasks.create(stateStore);
+            Map<String, JSONObject> currentStatuses = new HashMap<>();
+            for (Map.Entry<String, List<TaskInfoAndStatus>> podTasks : groupedTasks.byPod.entrySet()) {
+                putStatuses(currentStatuses, podTasks.getKey(), podTasks.getValue());
+            }
+            putStatuses(currentStatuses, UNKNOWN_POD_LABEL, groupedTasks.unknownPod);
+
+            // The first sync only establishes the baseline, as any earlier changes weren't being watched:
+            if (statusesByTask != null) {
+                for (Map.Entry<String, JSONObject> entry : new TreeMap<>(currentStatuses).entrySet()) {
+                    JSONObject previous = statusesByTask.get(entry.getKey());
+                    if (previous == null || !previous.similar(entry.getValue())) {
+                        changeLog.append(toEvent(entry.getValue()));
+                    }
+                }
+                for (Map.Entry<String, JSONObject> entry : new TreeMap<>(statusesByTask).entrySet()) {
+                    if (!currentStatuses.containsKey(entry.getKey())) {
+                        changeLog.append(toEvent(entry.getValue()).put("removed", true));
+                    }
+                }
+            }
+            statusesByTask = currentStatuses;
+            dataVersion = currentDataVersion;
+        }
+
+        @Override
+        protected void awaitChanges(long timeoutMs) throws InterruptedException {
+            stateStore.awaitDataVersion(dataVersion, timeoutMs);
+        }
+
+        private static void putStatuses(
+                Map<String, JSONObject> statuses, String podName, List<TaskInfoAndStatus> tasks) {
+            for (TaskInfoAndStatus task : tasks) {
+                statuses.put(
+                        String.format("%s/%s", podName, task.getInfo().getName()),
+                        getStatusJson(task).put("pod", podName));
+            }
+        }
+
+        private static JSONObject toEvent(JSONObject status) {
+            // Copy the status, as the log adds the event's version to it:
+            return new JSONObject(status, JSONObject.getNames(status)).put("type", "task");
+        }
+    }
+
     private static Optional<String> getPodInstanceName(TaskInfo taskInfo) {
         try {
             TaskLabelReader labels = new TaskLabelReader(taskInfo);
@@ -38,16 +38,27 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
     private final ConfigStore<ServiceSpec> configStore;
     private final ConfigurationComparator<ServiceSpec> configComparator;
     private final Collection<ConfigValidator<ServiceSpec>> validators;
+    private final ServiceSpecDiffCache configDiffs;
 
     public DefaultConfigurationUpdater(
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
             ConfigurationComparator<ServiceSpec> configComparator,
             Collection<ConfigValidator<ServiceSpec>> validators) {
+        this(stateStore, configStore, configComparator, validators, new ServiceSpecDiffCache(configStore));
+    }
+
+    public DefaultConfigurationUpdater(
+            StateStore stateStore,
+            ConfigStore<ServiceSpec> configStore,
+            ConfigurationComparator<ServiceSpec> configComparator,
+            Collection<ConfigValidator<ServiceSpec>> validators,
+            ServiceSpecDiffCache configDiffs) {
         this.stateStore = stateStore;
         this.configStore = configStore;
         this.configComparator = configComparator;
         this.validators = validators;
+        this.configDiffs = configDiffs;
     }
 
     @Override
@@ -182,6 +193,8 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
         List<Protos.TaskInfo> taskInfosToUpdate = new ArrayList<>();
         Set<UUID> neededConfigs = new HashSet<>();
         neededConfigs.add(targetConfigId);
+        // Many tasks share each prior config, so only log the diff of each prior config against the target once:
+        Set<UUID> loggedConfigIds = new HashSet<>();
         // Search task labels for configs which need to be cleaned up.
         for (Protos.TaskInfo taskInfo : stateStore.fetchTasks()) {
             final UUID taskConfigId;
@@ -198,8 +211,11 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
                         taskInfo.getName(), taskConfigId);
             } else {
                 try {
-                    final ServiceSpec taskConfig = configStore.fetch(taskConfigId);
-                    if (!needsConfigUpdate(taskInfo, targetConfig, taskConfig)) {
+                    ServiceSpecDiff diff = configDiffs.getDiff(taskConfigId, targetConfigId);
+                    if (loggedConfigIds.add(taskConfigId)) {
+                        LOGGER.info("Changes from configuration {} to target: {}", taskConfigId, diff);
+                    }
+                    if (!needsConfigUpdate(taskInfo, diff)) {
                         // Task is effectively already on the target config. Update task's config ID to match target,
                         // and allow the duplicate config to be dropped from configStore.
                         TaskInfo.Builder taskBuilder = taskInfo.toBuilder();
@@ -226,19 +242,9 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
             stateStore.storeTasks(taskInfosToUpdate);
         }
 
-        Collection<UUID> configIds = configStore.list();
-        LOGGER.info("Testing deserialization of {} listed configurations before cleanup:", configIds.size());
-        for (UUID configId : configIds) {
-            try {
-                configStore.fetch(configId);
-                LOGGER.info("- {}: OK", configId);
-            } catch (Exception e) {
-                LOGGER.info("- {}: FAILED, leaving as-is: {}", configId, e.getMessage());
-                neededConfigs.add(configId);
-            }
-        }
-
-        clearConfigsNotListed(neededConfigs);
+        // Unused configs which fail to parse are left as-is, in case they're needed by another scheduler version:
+        Collection<UUID> clearedConfigs = configStore.clearAllExcept(neededConfigs);
+        LOGGER.info("Cleaned up {} unused configs: {}", clearedConfigs.size(), clearedConfigs);
     }
 
     private static void printConfigDiff(ServiceSpec oldConfig, UUID oldConfigId, String newConfigJson) {
@@ -262,9 +268,8 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
         }
     }
 
-    private static boolean needsConfigUpdate(
-            Protos.TaskInfo taskInfo, ServiceSpec targetConfig, ServiceSpec taskConfig) {
-        if (targetConfig.equals(taskConfig)) {
+    private static boolean needsConfigUpdate(Protos.TaskInfo taskInfo, ServiceSpecDiff diff) {
+        if (diff.isEmpty()) {
             LOGGER.info("Task '{}' is up to date: Task's target ServiceSpec matches the current ServiceSpec",
                     taskInfo.getName());
             return false;
@@ -280,65 +285,13 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
             return true;
         }
 
-        Optional<PodSpec> targetSpecOptional = getPodSpec(targetConfig, podType);
-        Optional<PodSpec> taskSpecOptional = getPodSpec(taskConfig, podType);
-        if (!targetSpecOptional.isPresent() || !taskSpecOptional.isPresent()) {
-            LOGGER.info("Task '{}' needs a configuration update: " +
-                    "PodSpec '{}' was {} in task's config, but is {} in current target config",
-                    taskInfo.getName(),
-                    podType,
-                    taskSpecOptional.isPresent() ? "present" : "missing",
-                    targetSpecOptional.isPresent() ? "present" : "missing");
-            return true;
-        }
-
-        boolean updateNeeded = !areMatching(targetSpecOptional.get(), taskSpecOptional.get());
+        boolean updateNeeded = diff.isPodUpdateNeeded(podType);
         if (updateNeeded) {
-            LOGGER.info("Task '{}' needs a configuration update: PodSpec '{}' has changed",
+            LOGGER.info("Task '{}' needs a configuration update: PodSpec '{}' was added, removed, or changed",
                     taskInfo.getName(), podType);
         } else {
             LOGGER.info("Task '{}' is up to date: PodSpec '{}' is the same", taskInfo.getName(), podType);
         }
         return updateNeeded;
     }
-
-    private static Optional<PodSpec> getPodSpec(ServiceSpec serviceSpecification, String podType) {
-        return serviceSpecification.getPods().stream()
-                .filter(pod -> pod.getType().equals(podType))
-                .findFirst();
-    }
-
-    private static boolean areMatching(PodSpec podSpec1, PodSpec podSpec2) {
-        if (podSpec1.equals(podSpec2)) {
-            // Shortcut: Below modification was not needed to check for equality
-            return true;
-        }
-
-        // When evaluating whether a pod should be updated, some PodSpec changes are immaterial:
-        //   1. Count: Extant pods do not care if they will have more fellows
-        //   2. Placement Rules: Extant pods should not (immediately) move around due to placement changes
-        // As such, ignore these values when checking for changes:
-        podSpec1 = DefaultPodSpec.newBuilder(podSpec1).count(0).placementRule(null).build();
-        podSpec2 = DefaultPodSpec.newBuilder(podSpec2).count(0).placementRule(null).build();
-        return podSpec1.equals(podSpec2);
-    }
-
-    /**
-     * Searches for any config IDs which are no longer active and removes them from the config
-     * store.
-     *
-     * @throws ConfigStoreException if config access fails
-     */
-    private void clearConfigsNotListed(Set<UUID> neededConfigs) throws ConfigStoreException {
-        final Set<UUID> configsToClear = new HashSet<>();
-        for (UUID configId : configStore.list()) {
-            if (!neededConfigs.contains(configId)) {
-                configsToClear.add(configId);
-            }
-        }
-        LOGGER.info("Cleaning up {} unused configs: {}", configsToClear.size(), configsToClear);
-        for (UUID configToClear : configsToClear) {
-            configStore.clear(configToClear);
-        }
-    }
 }
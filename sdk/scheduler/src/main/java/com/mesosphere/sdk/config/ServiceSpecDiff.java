@@ -0,0 +1,178 @@
+package com.mesosphere.sdk.config;
+
+import com.mesosphere.sdk.specification.DefaultPodSpec;
+import com.mesosphere.sdk.specification.PodSpec;
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.specification.TaskSpec;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The structural differences between two {@link ServiceSpec}s, in terms of the pod types and tasks which were added,
+ * removed, or changed. This is computed once for a pair of configurations, after which the pods which are affected by
+ * the changes may be looked up directly, rather than comparing the specs again for each task.
+ *
+ * <p>When determining whether a pod has changed, some {@link PodSpec} changes are immaterial to pods which are already
+ * deployed: a change to the pod count doesn't affect the existing pods, and a change to the placement rules shouldn't
+ * (immediately) move the existing pods around. These fields are ignored when comparing pods.
+ */
+public class ServiceSpecDiff {
+
+    private final boolean isEmpty;
+    private final Set<String> addedPodTypes;
+    private final Set<String> removedPodTypes;
+    private final Map<String, Set<String>> changedPods;
+    private final Set<String> unchangedPodTypes;
+
+    private ServiceSpecDiff(
+            boolean isEmpty,
+            Set<String> addedPodTypes,
+            Set<String> removedPodTypes,
+            Map<String, Set<String>> changedPods,
+            Set<String> unchangedPodTypes) {
+        this.isEmpty = isEmpty;
+        this.addedPodTypes = Collections.unmodifiableSet(addedPodTypes);
+        this.removedPodTypes = Collections.unmodifiableSet(removedPodTypes);
+        this.changedPods = Collections.unmodifiableMap(changedPods);
+        this.unchangedPodTypes = Collections.unmodifiableSet(unchangedPodTypes);
+    }
+
+    /**
+     * Returns the differences from {@code oldSpec} to {@code newSpec}.
+     */
+    public static ServiceSpecDiff compute(ServiceSpec oldSpec, ServiceSpec newSpec) {
+        Map<String, PodSpec> oldPods = getPodsByType(oldSpec);
+        Map<String, PodSpec> newPods = getPodsByType(newSpec);
+        if (oldSpec.equals(newSpec)) {
+            return new ServiceSpecDiff(
+                    true, new TreeSet<>(), new TreeSet<>(), new TreeMap<>(), new TreeSet<>(newPods.keySet()));
+        }
+
+        Set<String> addedPodTypes = new TreeSet<>(newPods.keySet());
+        addedPodTypes.removeAll(oldPods.keySet());
+        Set<String> removedPodTypes = new TreeSet<>(oldPods.keySet());
+        removedPodTypes.removeAll(newPods.keySet());
+
+        Map<String, Set<String>> changedPods = new TreeMap<>();
+        Set<String> unchangedPodTypes = new TreeSet<>();
+        for (Map.Entry<String, PodSpec> entry : newPods.entrySet()) {
+            PodSpec oldPod = oldPods.get(entry.getKey());
+            if (oldPod == null) {
+                continue;
+            }
+            if (areMatching(oldPod, entry.getValue())) {
+                unchangedPodTypes.add(entry.getKey());
+            } else {
+                changedPods.put(entry.getKey(), getChangedTaskNames(oldPod, entry.getValue()));
+            }
+        }
+        return new ServiceSpecDiff(false, addedPodTypes, removedPodTypes, changedPods, unchangedPodTypes);
+    }
+
+    /**
+     * Returns whether the two specs are equal, in which case nothing was added, removed, or changed.
+     */
+    public boolean isEmpty() {
+        return isEmpty;
+    }
+
+    /**
+     * Returns the types of any pods which are only present in the new spec.
+     */
+    public Set<String> getAddedPodTypes() {
+        return addedPodTypes;
+    }
+
+    /**
+     * Returns the types of any pods which are only present in the old spec.
+     */
+    public Set<String> getRemovedPodTypes() {
+        return removedPodTypes;
+    }
+
+    /**
+     * Returns the types of any pods which are present in both specs, but which differ in something other than their
+     * count or placement.
+     */
+    public Set<String> getChangedPodTypes() {
+        return changedPods.keySet();
+    }
+
+    /**
+     * Returns the names of the tasks which were added, removed, or changed within the provided changed pod type. This
+     * may be empty if only the pod-level settings were changed, or if the pod type wasn't changed.
+     */
+    public Set<String> getChangedTaskNames(String podType) {
+        Set<String> taskNames = changedPods.get(podType);
+        return taskNames == null ? Collections.emptySet() : taskNames;
+    }
+
+    /**
+     * Returns whether existing pods of the provided type need to be updated in order to match the new spec. This is
+     * the case if the pod type is missing from either spec, or if it was changed.
+     */
+    public boolean isPodUpdateNeeded(String podType) {
+        return !unchangedPodTypes.contains(podType);
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty) {
+            return "no changes";
+        }
+        return String.format("added pods: %s, removed pods: %s, changed pods (with changed tasks): %s",
+                addedPodTypes, removedPodTypes, changedPods);
+    }
+
+    private static Map<String, PodSpec> getPodsByType(ServiceSpec serviceSpec) {
+        Map<String, PodSpec> pods = new HashMap<>();
+        for (PodSpec podSpec : serviceSpec.getPods()) {
+            // Retain the first pod of each type, matching the lookup of pods by type elsewhere:
+            pods.putIfAbsent(podSpec.getType(), podSpec);
+        }
+        return pods;
+    }
+
+    private static Set<String> getChangedTaskNames(PodSpec oldPod, PodSpec newPod) {
+        Map<String, TaskSpec> oldTasks = getTasksByName(oldPod);
+        Map<String, TaskSpec> newTasks = getTasksByName(newPod);
+        Set<String> taskNames = new HashSet<>(oldTasks.keySet());
+        taskNames.addAll(newTasks.keySet());
+
+        Set<String> changedTaskNames = new TreeSet<>();
+        for (String taskName : taskNames) {
+            TaskSpec oldTask = oldTasks.get(taskName);
+            TaskSpec newTask = newTasks.get(taskName);
+            if (oldTask == null || newTask == null || !oldTask.equals(newTask)) {
+                changedTaskNames.add(taskName);
+            }
+        }
+        return Collections.unmodifiableSet(changedTaskNames);
+    }
+
+    private static Map<String, TaskSpec> getTasksByName(PodSpec podSpec) {
+        Map<String, TaskSpec> tasks = new HashMap<>();
+        for (TaskSpec taskSpec : podSpec.getTasks()) {
+            tasks.putIfAbsent(taskSpec.getName(), taskSpec);
+        }
+        return tasks;
+    }
+
+    private static boolean areMatching(PodSpec podSpec1, PodSpec podSpec2) {
+        if (podSpec1.equals(podSpec2)) {
+            // Shortcut: Below modification was not needed to check for equality
+            return true;
+        }
+
+        // Ignore the count and placement rules, per the class description:
+        podSpec1 = DefaultPodSpec.newBuilder(podSpec1).count(0).placementRule(null).build();
+        podSpec2 = DefaultPodSpec.newBuilder(podSpec2).count(0).placementRule(null).build();
+        return podSpec1.equals(podSpec2);
+    }
+}
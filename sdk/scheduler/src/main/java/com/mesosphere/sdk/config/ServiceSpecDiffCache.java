@@ -0,0 +1,88 @@
+package com.mesosphere.sdk.config;
+
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.state.ConfigStore;
+import com.mesosphere.sdk.state.ConfigStoreException;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Computes {@link ServiceSpecDiff}s between configurations in a {@link ConfigStore}, memoizing the result for each
+ * pair of configuration IDs. The content stored against a configuration ID never changes, so a memoized diff remains
+ * valid for as long as both configurations exist. The least recently used diffs are discarded once the cache is full.
+ */
+public class ServiceSpecDiffCache {
+
+    private static final int DEFAULT_CAPACITY = 100;
+
+    private final ConfigStore<?> configStore;
+    private final Map<List<UUID>, ServiceSpecDiff> diffs;
+
+    public ServiceSpecDiffCache(ConfigStore<?> configStore) {
+        this(configStore, DEFAULT_CAPACITY);
+    }
+
+    public ServiceSpecDiffCache(ConfigStore<?> configStore, int capacity) {
+        this.configStore = configStore;
+        this.diffs = new LruMap<>(capacity);
+    }
+
+    /**
+     * Returns the differences from the configuration with ID {@code fromId} to the configuration with ID {@code toId}.
+     *
+     * @throws ConfigStoreException if either configuration couldn't be retrieved, or isn't a {@link ServiceSpec}
+     */
+    public ServiceSpecDiff getDiff(UUID fromId, UUID toId) throws ConfigStoreException {
+        List<UUID> key = Arrays.asList(fromId, toId);
+        synchronized (diffs) {
+            ServiceSpecDiff diff = diffs.get(key);
+            if (diff != null) {
+                return diff;
+            }
+        }
+
+        // Compute the diff without holding the lock. If another thread computes the same diff concurrently, then
+        // both get equivalent results.
+        ServiceSpec toSpec = fetch(toId);
+        ServiceSpecDiff diff = ServiceSpecDiff.compute(fromId.equals(toId) ? toSpec : fetch(fromId), toSpec);
+        synchronized (diffs) {
+            diffs.put(key, diff);
+        }
+        return diff;
+    }
+
+    /**
+     * A map in access order which discards its least recently used entry once it exceeds its capacity.
+     */
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private ServiceSpec fetch(UUID id) throws ConfigStoreException {
+        Configuration config = configStore.fetch(id);
+        if (!(config instanceof ServiceSpec)) {
+            throw new ConfigStoreException(Reason.LOGIC_ERROR, String.format(
+                    "Configuration %s is not a ServiceSpec, so it can't be compared: %s",
+                    id, config == null ? null : config.getClass().getName()));
+        }
+        return (ServiceSpec) config;
+    }
+}
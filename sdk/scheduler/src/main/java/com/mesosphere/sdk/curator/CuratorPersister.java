@@ -1,33 +1,58 @@
 package com.mesosphere.sdk.curator;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.storage.AsyncPersister;
 import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.PersisterException;
 import com.mesosphere.sdk.storage.PersisterUtils;
 import com.mesosphere.sdk.storage.StorageError.Reason;
+import com.mesosphere.sdk.storage.VersionedPersister;
+import com.mesosphere.sdk.storage.WatchablePersister;
 
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.api.ACLProvider;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.framework.api.transaction.CuratorTransaction;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.data.ACL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The Curator implementation of the {@link Persister} interface provides for persistence and retrieval of data from
  * Zookeeper. All paths passed to this instance are automatically namespaced within a framework-specific znode to avoid
  * conflicts with other users of the same ZK instance.
+ *
+ * <p>The {@link AsyncPersister} operations {@code getAsync()}, {@code getChildrenAsync()}, and {@code setAsync()} are
+ * performed as Curator background operations, so that many of them may be in flight at once. Background reads are
+ * limited to a bounded window of in-flight requests, with any further reads being started as earlier reads complete.
+ * Curator doesn't support running transactions in the background, so {@code setManyAsync()} and
+ * {@code deleteAllAsync()} are instead performed one at a time by a dedicated thread.
+ *
+ * <p>The {@link VersionedPersister} version of each node is its ZK modification zxid, which is unique within the ZK
+ * ensemble. {@link WatchablePersister} watches are implemented using a Curator {@link TreeCache} which doesn't retain
+ * any node data of its own.
  */
-public class CuratorPersister implements Persister {
+public class CuratorPersister implements WatchablePersister, AsyncPersister {
 
     private static final Logger logger = LoggerFactory.getLogger(CuratorPersister.class);
 
@@ -37,9 +62,37 @@ public class CuratorPersister implements Persister {
      */
     private static final int ATOMIC_WRITE_ATTEMPTS = 3;
 
+    /**
+     * Maximum number of background reads to have in flight at once. This allows bulk loads of many nodes to be
+     * pipelined without flooding the ZK connection with thousands of outstanding requests.
+     */
+    private static final int MAX_IN_FLIGHT_READS = 100;
+
     private final String serviceRootPath;
     private final CuratorFramework client;
 
+    /**
+     * Prefixed paths which are known to exist in ZK as a result of previous operations by this instance. This allows
+     * writes to skip checking whether their nodes and parent nodes exist. Paths are forgotten when they're deleted by
+     * this instance, and everything is forgotten when a write fails, as the failure may be due to an out-of-band
+     * change.
+     */
+    private final Set<String> existingPaths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Runs the transactions for {@link #setManyAsync(Map)} and {@link #deleteAllAsync(String)}.
+     */
+    private final ExecutorService transactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "persister-transactions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guards inFlightReads and queuedReads:
+    private final Object readWindowLock = new Object();
+    private final Queue<Runnable> queuedReads = new ArrayDeque<>();
+    private int inFlightReads = 0;
+
     /**
      * Builder for constructing {@link CuratorPersister} instances.
      */
@@ -145,8 +198,11 @@ public class CuratorPersister implements Persister {
     @Override
     public byte[] get(String unprefixedPath) throws PersisterException {
         final String path = withFrameworkPrefix(unprefixedPath);
+        Timer.Context context = Metrics.timePersisterOperation("get");
         try {
-            return client.getData().forPath(path);
+            byte[] bytes = client.getData().forPath(path);
+            markExisting(path);
+            return bytes;
         } catch (KeeperException.NoNodeException e) {
             if (path.equals(serviceRootPath)) {
                 // Special case: Root is always present. Missing root should be treated as a root with no data.
@@ -156,14 +212,22 @@ public class CuratorPersister implements Persister {
         } catch (Exception e) {
             throw new PersisterException(Reason.STORAGE_ERROR,
                     String.format("Unable to retrieve data from %s", path), e);
+        } finally {
+            context.stop();
         }
     }
 
     @Override
     public Collection<String> getChildren(String unprefixedPath) throws PersisterException {
         final String path = withFrameworkPrefix(unprefixedPath);
+        Timer.Context context = Metrics.timePersisterOperation("get_children");
         try {
-            return new TreeSet<>(client.getChildren().forPath(path));
+            Collection<String> children = new TreeSet<>(client.getChildren().forPath(path));
+            markExisting(path);
+            for (String child : children) {
+                existingPaths.add(PersisterUtils.join(path, child));
+            }
+            return children;
         } catch (KeeperException.NoNodeException e) {
             if (path.equals(serviceRootPath)) {
                 // Special case: Root is always present. Missing root should be treated as a root with no data.
@@ -172,11 +236,22 @@ public class CuratorPersister implements Persister {
             throw new PersisterException(Reason.NOT_FOUND, String.format("Path to list does not exist: %s", path), e);
         } catch (Exception e) {
             throw new PersisterException(Reason.STORAGE_ERROR, String.format("Unable to get children of %s", path), e);
+        } finally {
+            context.stop();
         }
     }
 
     @Override
     public void deleteAll(String unprefixedPath) throws PersisterException {
+        Timer.Context context = Metrics.timePersisterOperation("delete_all");
+        try {
+            deleteAllUntimed(unprefixedPath);
+        } finally {
+            context.stop();
+        }
+    }
+
+    private void deleteAllUntimed(String unprefixedPath) throws PersisterException {
         final String path = withFrameworkPrefix(unprefixedPath);
         if (path.equals(serviceRootPath)) {
             // Special case: If we're being told to delete root, we should instead delete the contents OF root. We don't
@@ -214,9 +289,11 @@ public class CuratorPersister implements Persister {
                 }
                 transaction.commit();
             } catch (Exception e) {
+                existingPaths.clear();
                 throw new PersisterException(Reason.STORAGE_ERROR,
                         String.format("Unable to delete children of root %s: %s", path, e.getMessage()), e);
             }
+            existingPaths.clear();
             // Need to explicitly set null or else curator will return a zero-bytes value later:
             set(unprefixedPath, null);
         } else {
@@ -224,7 +301,9 @@ public class CuratorPersister implements Persister {
             logger.debug("Deleting {} (and any children)", path);
             try {
                 client.delete().deletingChildrenIfNeeded().forPath(path);
+                forgetExisting(path);
             } catch (KeeperException.NoNodeException e) {
+                forgetExisting(path);
                 throw new PersisterException(
                         Reason.NOT_FOUND, String.format("Path to delete does not exist: %s", path), e);
             } catch (Exception e) {
@@ -249,15 +328,33 @@ public class CuratorPersister implements Persister {
     public void set(String unprefixedPath, byte[] bytes) throws PersisterException {
         final String path = withFrameworkPrefix(unprefixedPath);
         logger.debug("Setting {} => {}", path, getInfo(bytes));
+        Timer.Context context = Metrics.timePersisterOperation("set");
         try {
-            try {
-                client.create().creatingParentsIfNeeded().forPath(path, bytes);
-            } catch (KeeperException.NodeExistsException e) {
-                client.setData().forPath(path, bytes);
+            boolean updated = false;
+            if (existingPaths.contains(path)) {
+                // Skip the create attempt for nodes which we've already seen:
+                try {
+                    client.setData().forPath(path, bytes);
+                    updated = true;
+                    Metrics.incrementCounter(Metrics.PERSISTER_EXISTS_CHECKS_SKIPPED);
+                } catch (KeeperException.NoNodeException e) {
+                    logger.info("Node {} was deleted by another client, recreating it", path);
+                    existingPaths.clear();
+                }
             }
+            if (!updated) {
+                try {
+                    client.create().creatingParentsIfNeeded().forPath(path, bytes);
+                } catch (KeeperException.NodeExistsException e) {
+                    client.setData().forPath(path, bytes);
+                }
+            }
+            markExisting(path);
         } catch (Exception e) {
             throw new PersisterException(Reason.STORAGE_ERROR,
-                    String.format("Unable to set %d bytes in %s", bytes.length, path), e);
+                    String.format("Unable to set %s in %s", getInfo(bytes), path), e);
+        } finally {
+            context.stop();
         }
     }
 
@@ -272,14 +369,11 @@ public class CuratorPersister implements Persister {
             pathBytesMap.put(withFrameworkPrefix(entry.getKey()), entry.getValue());
         }
         logger.debug("Setting many entries: {}", pathBytesMap.keySet());
+        Timer.Context context = Metrics.timePersisterOperation("set_many");
         try {
             for (int i = 0; i < ATOMIC_WRITE_ATTEMPTS; ++i) {
                 // Phase 1: Determine which nodes already exist. This determination can be rendered
                 //          invalid by an out-of-band change to the data.
-                //TODO(nickbp): This currently doesn't correctly detect when our own transaction is creating a node.
-                //              For example, a transaction which writes both "/a" and "/a/b" entries will not detect
-                //              that "/a" will already exist by the time "/a/b" is being written. However in practice
-                //              this hasn't come up (yet...)
                 final Set<String> pathsWhichExist = selectPathsWhichExist(pathBytesMap.keySet());
                 List<String> parentPathsToCreate = getParentPathsToCreate(pathBytesMap.keySet(), pathsWhichExist);
 
@@ -295,35 +389,348 @@ public class CuratorPersister implements Persister {
                 if (i + 1 < ATOMIC_WRITE_ATTEMPTS) {
                     try {
                         transaction.commit();
+                        markExisting(pathBytesMap.keySet());
                         break; // Success!
                     } catch (Exception e) {
                         // Transaction failed! Bad connection? Existence check rendered invalid?
-                        // Swallow exception and try again
+                        // Swallow exception and try again, without relying on any cached existence checks
+                        existingPaths.clear();
+                        Metrics.incrementCounter(Metrics.PERSISTER_TRANSACTION_RETRIES);
                         logger.error(String.format("Failed to complete transaction attempt %d/%d: %s",
                                 i + 1, ATOMIC_WRITE_ATTEMPTS, transaction), e);
                     }
                 } else {
                     // Last try: Any exception should be forwarded upstream
                     transaction.commit();
+                    markExisting(pathBytesMap.keySet());
                 }
             }
         } catch (Exception e) {
+            existingPaths.clear();
             throw new PersisterException(Reason.STORAGE_ERROR, e);
+        } finally {
+            context.stop();
         }
     }
 
+    @Override
+    public CompletableFuture<byte[]> getAsync(String unprefixedPath) {
+        final String path = withFrameworkPrefix(unprefixedPath);
+        return readInBackground("get_async", callback -> client.getData().inBackground(callback).forPath(path))
+                .thenApply(event -> {
+                    switch (getResultCode(event)) {
+                    case OK:
+                        markExisting(path);
+                        return event.getData();
+                    case NONODE:
+                        if (path.equals(serviceRootPath)) {
+                            // Special case: Root is always present, see get().
+                            return null;
+                        }
+                        throw new CompletionException(new PersisterException(
+                                Reason.NOT_FOUND, String.format("Path to get does not exist: %s", path)));
+                    default:
+                        throw getStorageError(event, String.format("Unable to retrieve data from %s", path));
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<Collection<String>> getChildrenAsync(String unprefixedPath) {
+        final String path = withFrameworkPrefix(unprefixedPath);
+        return readInBackground(
+                "get_children_async", callback -> client.getChildren().inBackground(callback).forPath(path))
+                .thenApply(event -> {
+                    switch (getResultCode(event)) {
+                    case OK:
+                        Collection<String> children = new TreeSet<>(event.getChildren());
+                        markExisting(path);
+                        for (String child : children) {
+                            existingPaths.add(PersisterUtils.join(path, child));
+                        }
+                        return children;
+                    case NONODE:
+                        if (path.equals(serviceRootPath)) {
+                            // Special case: Root is always present, see getChildren().
+                            return Collections.emptySet();
+                        }
+                        throw new CompletionException(new PersisterException(
+                                Reason.NOT_FOUND, String.format("Path to list does not exist: %s", path)));
+                    default:
+                        throw getStorageError(event, String.format("Unable to get children of %s", path));
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> setAsync(String unprefixedPath, byte[] bytes) {
+        final String path = withFrameworkPrefix(unprefixedPath);
+        logger.debug("Setting {} => {} in background", path, getInfo(bytes));
+        final String errorMessage = String.format("Unable to set %s in %s", getInfo(bytes), path);
+        if (existingPaths.contains(path)) {
+            // Skip the create attempt for nodes which we've already seen, falling back to creating the node if it
+            // has since been deleted by another client:
+            Metrics.incrementCounter(Metrics.PERSISTER_EXISTS_CHECKS_SKIPPED);
+            return updateInBackground(path, bytes).thenCompose(event -> {
+                if (getResultCode(event) == KeeperException.Code.NONODE) {
+                    existingPaths.clear();
+                    return createOrUpdateInBackground(path, bytes, errorMessage);
+                }
+                return completeWrite(path, event, errorMessage);
+            });
+        }
+        return createOrUpdateInBackground(path, bytes, errorMessage);
+    }
+
+    @Override
+    public CompletableFuture<Void> setManyAsync(Map<String, byte[]> pathBytesMap) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                setMany(pathBytesMap);
+            } catch (PersisterException e) {
+                throw new CompletionException(e);
+            }
+        }, transactionExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllAsync(String unprefixedPath) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                deleteAll(unprefixedPath);
+            } catch (PersisterException e) {
+                throw new CompletionException(e);
+            }
+        }, transactionExecutor);
+    }
+
+    @Override
+    public Map<String, Long> getAllVersions() throws PersisterException {
+        Timer.Context context = Metrics.timePersisterOperation("get_all_versions");
+        try {
+            Map<String, Long> versions = new ConcurrentHashMap<>();
+            PersisterUtils.await(readVersionsUnder(PersisterUtils.PATH_DELIM_STR, versions));
+            return new TreeMap<>(versions);
+        } finally {
+            context.stop();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getVersions(Collection<String> unprefixedPaths) throws PersisterException {
+        Map<String, Long> versions = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String unprefixedPath : unprefixedPaths) {
+            final String path = withFrameworkPrefix(unprefixedPath);
+            futures.add(readInBackground(
+                    "get_version", callback -> client.checkExists().inBackground(callback).forPath(path))
+                    .thenAccept(event -> {
+                        switch (getResultCode(event)) {
+                        case OK:
+                            versions.put(unprefixedPath, event.getStat().getMzxid());
+                            break;
+                        case NONODE:
+                            break;
+                        default:
+                            throw getStorageError(event, String.format("Unable to get version of %s", path));
+                        }
+                    }));
+        }
+        PersisterUtils.await(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])));
+        return versions;
+    }
+
+    /**
+     * Reads the versions of all nodes under the provided path into {@code versions}, listing each node's children in
+     * the same request that retrieves the node's version.
+     */
+    private CompletableFuture<Void> readVersionsUnder(String unprefixedPath, Map<String, Long> versions) {
+        final String path = withFrameworkPrefix(unprefixedPath);
+        return readInBackground("get_versions", callback -> client.getChildren().inBackground(callback).forPath(path))
+                .thenCompose(event -> {
+                    switch (getResultCode(event)) {
+                    case OK:
+                        break;
+                    case NONODE:
+                        // Missing root, or a node which was deleted since its parent was listed:
+                        return CompletableFuture.completedFuture(null);
+                    default:
+                        throw getStorageError(event, String.format("Unable to get versions under %s", path));
+                    }
+                    if (!path.equals(serviceRootPath)) {
+                        versions.put(unprefixedPath, event.getStat().getMzxid());
+                    }
+                    List<CompletableFuture<Void>> futures = new ArrayList<>();
+                    for (String child : event.getChildren()) {
+                        futures.add(readVersionsUnder(PersisterUtils.join(unprefixedPath, child), versions)); // RECURSE
+                    }
+                    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+                });
+    }
+
+    @Override
+    public Closeable watch(WatchablePersister.Listener listener) throws PersisterException {
+        // The listener receives the data of each event, so there's no need for the TreeCache to hold a copy:
+        TreeCache treeCache = TreeCache.newBuilder(client, serviceRootPath).setCacheData(false).build();
+        // Removal events lack a Stat, so the last version of each node is tracked here. Only accessed by the
+        // TreeCache's event thread:
+        Map<String, Long> lastVersions = new HashMap<>();
+        treeCache.getListenable().addListener((curatorClient, event) -> {
+            ChildData childData = event.getData();
+            if (childData != null && childData.getPath().equals(serviceRootPath)) {
+                // Changes to the root node itself aren't visible via this persister.
+                return;
+            }
+            switch (event.getType()) {
+            case NODE_ADDED:
+            case NODE_UPDATED:
+                lastVersions.put(childData.getPath(), childData.getStat().getMzxid());
+                listener.onUpdated(
+                        getUnprefixedPath(childData.getPath()), childData.getData(), childData.getStat().getMzxid());
+                break;
+            case NODE_REMOVED:
+                Long lastVersion = lastVersions.remove(childData.getPath());
+                listener.onRemoved(getUnprefixedPath(childData.getPath()), lastVersion == null ? 0 : lastVersion);
+                break;
+            case INITIALIZED:
+                listener.onInitialized();
+                break;
+            default:
+                // Connection state changes: the TreeCache resyncs itself on reconnect, producing events for any
+                // changes which were missed in the meantime.
+                logger.info("Watch of {}: {}", serviceRootPath, event.getType());
+                break;
+            }
+        });
+        try {
+            treeCache.start();
+        } catch (Exception e) {
+            treeCache.close();
+            throw new PersisterException(Reason.STORAGE_ERROR, String.format("Unable to watch %s", serviceRootPath), e);
+        }
+        return treeCache;
+    }
+
     @Override
     public void close() {
+        transactionExecutor.shutdown();
         client.close();
     }
 
     /**
-     * Returns the subset of the provided (prefixed) paths which exist in ZK.
+     * Starts a Curator background operation.
+     */
+    @FunctionalInterface
+    private interface BackgroundOperation {
+        void start(BackgroundCallback callback) throws Exception;
+    }
+
+    /**
+     * Starts the provided background operation, returning a future which is completed with the resulting event once
+     * the operation has finished, or which fails if the operation couldn't be started. The event must be checked for
+     * errors by the caller.
+     */
+    private static CompletableFuture<CuratorEvent> inBackground(String operation, BackgroundOperation backgroundOp) {
+        CompletableFuture<CuratorEvent> future = new CompletableFuture<>();
+        Timer.Context context = Metrics.timePersisterOperation(operation);
+        try {
+            backgroundOp.start((client, event) -> {
+                context.stop();
+                future.complete(event);
+            });
+        } catch (Exception e) {
+            context.stop();
+            future.completeExceptionally(new PersisterException(Reason.STORAGE_ERROR, e));
+        }
+        return future;
+    }
+
+    /**
+     * Starts the provided background read if fewer than {@link #MAX_IN_FLIGHT_READS} reads are in flight, or otherwise
+     * queues it to be started once an earlier read has completed.
+     */
+    private CompletableFuture<CuratorEvent> readInBackground(String operation, BackgroundOperation backgroundOp) {
+        CompletableFuture<CuratorEvent> future = new CompletableFuture<>();
+        Runnable read = () -> inBackground(operation, backgroundOp).whenComplete((event, throwable) -> {
+            startNextRead();
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(event);
+            }
+        });
+        synchronized (readWindowLock) {
+            if (inFlightReads >= MAX_IN_FLIGHT_READS) {
+                queuedReads.add(read);
+                return future;
+            }
+            ++inFlightReads;
+        }
+        read.run();
+        return future;
+    }
+
+    /**
+     * Starts the next queued read in place of a read which has just completed, if any reads are queued.
+     */
+    private void startNextRead() {
+        Runnable read;
+        synchronized (readWindowLock) {
+            read = queuedReads.poll();
+            if (read == null) {
+                --inFlightReads;
+                return;
+            }
+        }
+        read.run();
+    }
+
+    private CompletableFuture<CuratorEvent> createInBackground(String path, byte[] bytes) {
+        return inBackground("set_async",
+                callback -> client.create().creatingParentsIfNeeded().inBackground(callback).forPath(path, bytes));
+    }
+
+    private CompletableFuture<CuratorEvent> updateInBackground(String path, byte[] bytes) {
+        return inBackground("set_async", callback -> client.setData().inBackground(callback).forPath(path, bytes));
+    }
+
+    private CompletableFuture<Void> createOrUpdateInBackground(String path, byte[] bytes, String errorMessage) {
+        return createInBackground(path, bytes).thenCompose(event -> {
+            if (getResultCode(event) == KeeperException.Code.NODEEXISTS) {
+                return updateInBackground(path, bytes);
+            }
+            return CompletableFuture.completedFuture(event);
+        }).thenCompose(event -> completeWrite(path, event, errorMessage));
+    }
+
+    private CompletableFuture<Void> completeWrite(String path, CuratorEvent event, String errorMessage) {
+        if (getResultCode(event) != KeeperException.Code.OK) {
+            throw getStorageError(event, errorMessage);
+        }
+        markExisting(path);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static KeeperException.Code getResultCode(CuratorEvent event) {
+        return KeeperException.Code.get(event.getResultCode());
+    }
+
+    private static CompletionException getStorageError(CuratorEvent event, String message) {
+        return new CompletionException(new PersisterException(Reason.STORAGE_ERROR, message,
+                KeeperException.create(getResultCode(event), event.getPath())));
+    }
+
+    /**
+     * Returns the subset of the provided (prefixed) paths which exist in ZK. Paths which are already known to exist are
+     * not checked.
      */
     private Set<String> selectPathsWhichExist(Set<String> paths) throws Exception {
         Set<String> pathsWhichExist = new HashSet<>();
         for (String path : paths) {
-            if (client.checkExists().forPath(path) != null) {
+            if (existingPaths.contains(path)) {
+                Metrics.incrementCounter(Metrics.PERSISTER_EXISTS_CHECKS_SKIPPED);
+                pathsWhichExist.add(path);
+            } else if (client.checkExists().forPath(path) != null) {
                 pathsWhichExist.add(path);
             }
         }
@@ -341,8 +748,12 @@ public class CuratorPersister implements Persister {
             }
             // Transaction interface doesn't support creatingParentsIfNeeded(), so go manual.
             for (String parentPath : PersisterUtils.getParentPaths(path)) {
-                if (client.checkExists().forPath(parentPath) == null
-                        && !parentPathsToCreate.contains(parentPath)) {
+                if (parentPathsToCreate.contains(parentPath)) {
+                    continue;
+                }
+                if (existingPaths.contains(parentPath)) {
+                    Metrics.incrementCounter(Metrics.PERSISTER_EXISTS_CHECKS_SKIPPED);
+                } else if (client.checkExists().forPath(parentPath) == null) {
                     parentPathsToCreate.add(parentPath);
                 }
             }
@@ -356,11 +767,16 @@ public class CuratorPersister implements Persister {
         CuratorTransactionFinal transactionFinal = null;
         CuratorTransaction transaction = client.inTransaction();
         for (String parentPath : parentPathsToCreate) {
-            transactionFinal = transaction.create().forPath(parentPath).and();
+            // If the parent is also being written, create it with its data up front, as its children may precede it:
+            transactionFinal = pathBytesMap.containsKey(parentPath)
+                    ? transaction.create().forPath(parentPath, pathBytesMap.get(parentPath)).and()
+                    : transaction.create().forPath(parentPath).and();
             transaction = transactionFinal;
         }
         for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
-            if (pathsWhichExist.contains(entry.getKey())) {
+            if (parentPathsToCreate.contains(entry.getKey())) {
+                continue;
+            } else if (pathsWhichExist.contains(entry.getKey())) {
                 transactionFinal = transaction.setData().forPath(entry.getKey(), entry.getValue()).and();
             } else {
                 transactionFinal = transaction.create().forPath(entry.getKey(), entry.getValue()).and();
@@ -370,6 +786,29 @@ public class CuratorPersister implements Persister {
         return transactionFinal;
     }
 
+    /**
+     * Records that the provided (prefixed) paths, and therefore all of their parents, exist in ZK.
+     */
+    private void markExisting(Collection<String> paths) {
+        for (String path : paths) {
+            markExisting(path);
+        }
+    }
+
+    private void markExisting(String path) {
+        if (existingPaths.add(path)) {
+            existingPaths.addAll(PersisterUtils.getParentPaths(path));
+        }
+    }
+
+    /**
+     * Forgets the provided (prefixed) path and all of its children, following their deletion.
+     */
+    private void forgetExisting(String path) {
+        String childPrefix = path + PersisterUtils.PATH_DELIM_STR;
+        existingPaths.removeIf(existingPath -> existingPath.equals(path) || existingPath.startsWith(childPrefix));
+    }
+
     /**
      * Maps the provided external path into a framework-namespaced path. This translation MUST be performed against all
      * externally-provided paths, or else unintended data loss in ZK may result!!
@@ -388,6 +827,14 @@ public class CuratorPersister implements Persister {
         return path;
     }
 
+    /**
+     * Maps the provided framework-namespaced path back into an external path, in the format returned by
+     * {@link PersisterUtils#getAllKeys(Persister)}. This is the reverse of {@link #withFrameworkPrefix(String)}.
+     */
+    private String getUnprefixedPath(String path) {
+        return path.substring(serviceRootPath.length());
+    }
+
     private static String getInfo(byte[] bytes) {
         return bytes == null ? "NULL" : String.format("%d bytes", bytes.length);
     }
@@ -0,0 +1,233 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import org.apache.mesos.Protos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of the counters, timers, histograms, and gauges which describe the scheduler's activity. The
+ * contents of the registry are served by {@link com.mesosphere.sdk.api.MetricsResource}, and may optionally be pushed
+ * to a StatsD endpoint via {@link #configureStatsd(SchedulerConfig)}.
+ *
+ * <p>Metric names are dot-separated, e.g. {@code offers.received}. Names which are specific to a component are built
+ * by the helper methods below, so that callers don't need to agree on naming conventions.
+ */
+public class Metrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Metrics.class);
+
+    private static final MetricRegistry METRICS = new MetricRegistry();
+    // The gauges which have been registered via setGauge(), by name. Guarded by itself.
+    private static final Map<String, SupplierGauge> GAUGES = new HashMap<>();
+
+    // Offers
+    public static final String OFFERS_RECEIVED = "offers.received";
+    public static final String OFFERS_PROCESSED = "offers.processed";
+    public static final String OFFERS_ACCEPTED = "offers.accepted";
+    public static final String OFFERS_DECLINED = "offers.declined";
+    public static final String OFFERS_RESCINDED = "offers.rescinded";
+    public static final String OFFERS_QUEUE_DEPTH = "offers.queue.depth";
+    public static final String OFFERS_QUEUE_OLDEST_AGE = "offers.queue.oldest_age_ms";
+    public static final String OFFERS_QUEUE_RESCIND_RATE = "offers.queue.rescinds_per_minute";
+    public static final String OFFERS_QUEUE_EXPIRED = "offers.queue.expired";
+    public static final String OFFERS_QUEUE_OVERFLOWED = "offers.queue.overflowed";
+    public static final String OFFERS_PROCESS_DURATION = "offers.process";
+    public static final String OFFERS_PROCESS_BATCH_SIZE = "offers.process.batch_size";
+    public static final String OFFERS_EVALUATE_DURATION = "offers.evaluate";
+    private static final String OFFERS_EVALUATE_STAGE_PREFIX = "offers.evaluate.stage";
+
+    // Task statuses
+    public static final String TASK_STATUS_QUEUE_DEPTH = "task_status.queue.depth";
+    private static final String TASK_STATUS_PREFIX = "task_status";
+
+    // Revives
+    public static final String REVIVES = "revives";
+    public static final String REVIVE_THROTTLES = "revives.throttles";
+
+    // Reconciliation
+    public static final String RECONCILE_EXPLICIT = "reconciliation.explicit";
+    public static final String RECONCILE_IMPLICIT = "reconciliation.implicit";
+    public static final String RECONCILE_UNRECONCILED_TASKS = "reconciliation.unreconciled";
+
+    // Persister
+    private static final String PERSISTER_PREFIX = "persister";
+    public static final String PERSISTER_TRANSACTION_RETRIES = "persister.set_many.retries";
+    public static final String PERSISTER_WRITE_BEHIND_BATCH_SIZE = "persister.write_behind.batch_size";
+    public static final String PERSISTER_WRITE_BEHIND_COALESCED = "persister.write_behind.coalesced";
+    public static final String PERSISTER_WRITE_BEHIND_FAILURES = "persister.write_behind.failures";
+    public static final String PERSISTER_EXISTS_CHECKS_SKIPPED = "persister.exists_checks.skipped";
+
+    // Config store
+    public static final String CONFIG_CACHE_HITS = "config_store.cache.hits";
+    public static final String CONFIG_CACHE_MISSES = "config_store.cache.misses";
+    public static final String CONFIG_CACHE_EVICTIONS = "config_store.cache.evictions";
+    public static final String CONFIG_CACHE_SIZE = "config_store.cache.size";
+    public static final String CONFIG_CACHE_WEIGHT = "config_store.cache.weight_bytes";
+    public static final String CONFIG_PARSE_DURATION = "config_store.parse";
+
+    // Plans API
+    private static final String PLANS_COMMAND_PREFIX = "plans.commands";
+
+    private static final Object STATSD_LOCK = new Object();
+    private static StatsdReporter statsdReporter;
+
+    private Metrics() {
+        // do not instantiate
+    }
+
+    /**
+     * Returns the registry which contains all scheduler metrics.
+     */
+    public static MetricRegistry getRegistry() {
+        return METRICS;
+    }
+
+    /**
+     * Increments the named counter by one.
+     */
+    public static void incrementCounter(String name) {
+        incrementCounter(name, 1);
+    }
+
+    /**
+     * Increments the named counter by the provided amount.
+     */
+    public static void incrementCounter(String name, long amount) {
+        METRICS.counter(name).inc(amount);
+    }
+
+    /**
+     * Returns the named counter, creating it if it doesn't exist yet.
+     */
+    public static Counter getCounter(String name) {
+        return METRICS.counter(name);
+    }
+
+    /**
+     * Returns the named timer, creating it if it doesn't exist yet.
+     */
+    public static Timer getTimer(String name) {
+        return METRICS.timer(name);
+    }
+
+    /**
+     * Returns the named histogram, creating it if it doesn't exist yet.
+     */
+    public static Histogram getHistogram(String name) {
+        return METRICS.histogram(name);
+    }
+
+    /**
+     * Starts timing an operation with the named timer. The returned context must be closed when the operation has
+     * completed, e.g. using try-with-resources.
+     */
+    public static Timer.Context time(String name) {
+        return METRICS.timer(name).time();
+    }
+
+    /**
+     * Sets the source of the value of the named gauge, replacing any source which was previously set for that name.
+     * Sources typically refer to a specific object instance, which may be recreated over the life of the process, e.g.
+     * across scheduler re-registrations. The gauge itself is only registered once, and reads from the current source.
+     */
+    public static void setGauge(String name, Supplier<?> valueSupplier) {
+        SupplierGauge gauge;
+        synchronized (GAUGES) {
+            gauge = GAUGES.get(name);
+            if (gauge == null) {
+                gauge = new SupplierGauge(valueSupplier);
+                METRICS.register(name, gauge);
+                GAUGES.put(name, gauge);
+                return;
+            }
+        }
+        gauge.valueSupplier = valueSupplier;
+    }
+
+    /**
+     * Records the outcome and duration of a single offer evaluation stage.
+     *
+     * @param stageName the name of the stage, typically its class name
+     * @param passed whether the offer passed the stage
+     * @param durationNanos how long the stage took to evaluate the offer
+     */
+    public static void recordEvaluationStage(String stageName, boolean passed, long durationNanos) {
+        String prefix = MetricRegistry.name(OFFERS_EVALUATE_STAGE_PREFIX, stageName);
+        METRICS.timer(prefix).update(durationNanos, TimeUnit.NANOSECONDS);
+        METRICS.counter(MetricRegistry.name(prefix, passed ? "pass" : "fail")).inc();
+    }
+
+    /**
+     * Records that a task status with the provided state was received from Mesos.
+     */
+    public static void recordTaskStatus(Protos.TaskState state) {
+        METRICS.counter(MetricRegistry.name(TASK_STATUS_PREFIX, state.name().toLowerCase())).inc();
+    }
+
+    /**
+     * Starts timing a persister operation, e.g. {@code get} or {@code set_many}.
+     */
+    public static Timer.Context timePersisterOperation(String operation) {
+        return METRICS.timer(MetricRegistry.name(PERSISTER_PREFIX, operation)).time();
+    }
+
+    /**
+     * Records that a plan command, e.g. {@code start} or {@code interrupt}, was successfully issued via the API.
+     */
+    public static void recordPlanCommand(String command) {
+        METRICS.counter(MetricRegistry.name(PLANS_COMMAND_PREFIX, command)).inc();
+    }
+
+    /**
+     * Starts periodically pushing the contents of the registry to the StatsD endpoint which DC/OS advertises in the
+     * scheduler environment. Does nothing if no endpoint is advertised, or if reporting was already started.
+     */
+    public static void configureStatsd(SchedulerConfig schedulerConfig) {
+        if (!schedulerConfig.isStatsdEnabled()) {
+            LOGGER.info("No StatsD endpoint is configured, metrics will not be pushed");
+            return;
+        }
+        synchronized (STATSD_LOCK) {
+            if (statsdReporter != null) {
+                return;
+            }
+            long pollIntervalS = schedulerConfig.getStatsdPollInterval().getSeconds();
+            LOGGER.info("Pushing metrics to StatsD at {}:{} every {}s",
+                    schedulerConfig.getStatsdHost(), schedulerConfig.getStatsdPort(), pollIntervalS);
+            statsdReporter = new StatsdReporter(
+                    METRICS,
+                    MetricFilter.ALL,
+                    schedulerConfig.getStatsdHost(),
+                    schedulerConfig.getStatsdPort());
+            statsdReporter.start(pollIntervalS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A gauge which returns the value of its current supplier, which may be replaced after it has been registered.
+     */
+    private static class SupplierGauge implements Gauge<Object> {
+        private volatile Supplier<?> valueSupplier;
+
+        private SupplierGauge(Supplier<?> valueSupplier) {
+            this.valueSupplier = valueSupplier;
+        }
+
+        @Override
+        public Object getValue() {
+            return valueSupplier.get();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the contents of a {@link MetricRegistry} as JSON or as Prometheus text exposition format.
+ */
+public class MetricsFormatter {
+
+    private static final double NANOS_PER_MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_S = TimeUnit.SECONDS.toNanos(1);
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99};
+
+    private MetricsFormatter() {
+        // do not instantiate
+    }
+
+    /**
+     * Returns a JSON object containing all metrics in the registry, grouped by type. Timer durations are in
+     * milliseconds.
+     */
+    @SuppressWarnings("rawtypes")
+    public static JSONObject toJson(MetricRegistry registry) {
+        JSONObject gauges = new JSONObject();
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            gauges.put(entry.getKey(), new JSONObject().put("value", entry.getValue().getValue()));
+        }
+
+        JSONObject counters = new JSONObject();
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            counters.put(entry.getKey(), new JSONObject().put("count", entry.getValue().getCount()));
+        }
+
+        JSONObject histograms = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            histograms.put(entry.getKey(),
+                    toJson(entry.getValue().getCount(), entry.getValue().getSnapshot(), 1));
+        }
+
+        JSONObject meters = new JSONObject();
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            meters.put(entry.getKey(), new JSONObject()
+                    .put("count", entry.getValue().getCount())
+                    .put("m1_rate", entry.getValue().getOneMinuteRate())
+                    .put("mean_rate", entry.getValue().getMeanRate()));
+        }
+
+        JSONObject timers = new JSONObject();
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            timers.put(entry.getKey(),
+                    toJson(entry.getValue().getCount(), entry.getValue().getSnapshot(), NANOS_PER_MS)
+                            .put("m1_rate", entry.getValue().getOneMinuteRate()));
+        }
+
+        return new JSONObject()
+                .put("gauges", gauges)
+                .put("counters", counters)
+                .put("histograms", histograms)
+                .put("meters", meters)
+                .put("timers", timers);
+    }
+
+    /**
+     * Returns all metrics in the registry in the Prometheus text exposition format. Metric names are converted to
+     * valid Prometheus names, e.g. {@code offers.received} becomes {@code offers_received}. Histograms and timers are
+     * rendered as summaries, with timer durations in seconds.
+     */
+    @SuppressWarnings("rawtypes")
+    public static String toPrometheus(MetricRegistry registry) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            Object value = entry.getValue().getValue();
+            double numericValue;
+            if (value instanceof Number) {
+                numericValue = ((Number) value).doubleValue();
+            } else if (value instanceof Boolean) {
+                numericValue = ((Boolean) value) ? 1 : 0;
+            } else {
+                // Prometheus only supports numeric values
+                continue;
+            }
+            String name = toPrometheusName(entry.getKey());
+            appendType(sb, name, "gauge");
+            appendSample(sb, name, "", numericValue);
+        }
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            String name = toPrometheusName(entry.getKey());
+            appendType(sb, name, "counter");
+            appendSample(sb, name, "", entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            appendSummary(
+                    sb,
+                    toPrometheusName(entry.getKey()),
+                    entry.getValue().getCount(),
+                    entry.getValue().getSnapshot(),
+                    1);
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            String name = toPrometheusName(entry.getKey()) + "_total";
+            appendType(sb, name, "counter");
+            appendSample(sb, name, "", entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            appendSummary(
+                    sb,
+                    toPrometheusName(entry.getKey()) + "_seconds",
+                    entry.getValue().getCount(),
+                    entry.getValue().getSnapshot(),
+                    NANOS_PER_S);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converts a dot-separated metric name into a valid Prometheus metric name, which may only contain letters,
+     * digits, underscores, and colons, and may not start with a digit.
+     */
+    static String toPrometheusName(String name) {
+        String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static JSONObject toJson(long count, Snapshot snapshot, double divisor) {
+        return new JSONObject()
+                .put("count", count)
+                .put("min", snapshot.getMin() / divisor)
+                .put("max", snapshot.getMax() / divisor)
+                .put("mean", snapshot.getMean() / divisor)
+                .put("stddev", snapshot.getStdDev() / divisor)
+                .put("p50", snapshot.getMedian() / divisor)
+                .put("p75", snapshot.get75thPercentile() / divisor)
+                .put("p95", snapshot.get95thPercentile() / divisor)
+                .put("p99", snapshot.get99thPercentile() / divisor);
+    }
+
+    private static void appendSummary(StringBuilder sb, String name, long count, Snapshot snapshot, double divisor) {
+        appendType(sb, name, "summary");
+        for (double quantile : QUANTILES) {
+            appendSample(sb, name, String.format("{quantile=\"%s\"}", quantile), snapshot.getValue(quantile) / divisor);
+        }
+        appendSample(sb, name + "_count", "", count);
+    }
+
+    private static void appendType(StringBuilder sb, String name, String type) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendSample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+}
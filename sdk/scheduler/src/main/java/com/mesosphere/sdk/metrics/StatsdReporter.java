@@ -0,0 +1,155 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically pushes the contents of a {@link MetricRegistry} to a StatsD endpoint over UDP.
+ *
+ * <p>Counters are sent as StatsD counters containing the change since the previous report. Gauges, along with the
+ * count and distribution of histograms and timers, are sent as StatsD gauges. Timer durations are in milliseconds.
+ */
+public class StatsdReporter extends ScheduledReporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatsdReporter.class);
+
+    /**
+     * The maximum size of a single UDP packet, chosen to avoid fragmentation on typical networks. Multiple metrics are
+     * sent in each packet, separated by newlines.
+     */
+    @VisibleForTesting
+    static final int MAX_PACKET_BYTES = 1432;
+
+    private final String host;
+    private final int port;
+    // Only accessed by the reporting thread:
+    private final Map<String, Long> previousCounts = new HashMap<>();
+
+    public StatsdReporter(MetricRegistry registry, MetricFilter filter, String host, int port) {
+        super(registry, "statsd-reporter", filter, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void report(
+            SortedMap<String, Gauge> gauges,
+            SortedMap<String, Counter> counters,
+            SortedMap<String, Histogram> histograms,
+            SortedMap<String, Meter> meters,
+            SortedMap<String, Timer> timers) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            Object value = entry.getValue().getValue();
+            if (value instanceof Number) {
+                lines.add(gauge(entry.getKey(), ((Number) value).doubleValue()));
+            } else if (value instanceof Boolean) {
+                lines.add(gauge(entry.getKey(), ((Boolean) value) ? 1 : 0));
+            }
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            long count = entry.getValue().getCount();
+            Long previousCount = previousCounts.put(entry.getKey(), count);
+            long delta = count - (previousCount == null ? 0 : previousCount);
+            if (delta != 0) {
+                lines.add(String.format("%s:%d|c", entry.getKey(), delta));
+            }
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            lines.add(gauge(MetricRegistry.name(entry.getKey(), "count"), entry.getValue().getCount()));
+            addSnapshot(lines, entry.getKey(), entry.getValue().getSnapshot(), false);
+        }
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            lines.add(gauge(MetricRegistry.name(entry.getKey(), "count"), entry.getValue().getCount()));
+            lines.add(gauge(MetricRegistry.name(entry.getKey(), "m1_rate"),
+                    convertRate(entry.getValue().getOneMinuteRate())));
+        }
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            lines.add(gauge(MetricRegistry.name(entry.getKey(), "count"), entry.getValue().getCount()));
+            addSnapshot(lines, entry.getKey(), entry.getValue().getSnapshot(), true);
+        }
+
+        try (DatagramSocket socket = new DatagramSocket()) {
+            send(socket, new InetSocketAddress(host, port), lines);
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Failed to send %d metrics to StatsD at %s:%d", lines.size(), host, port), e);
+        }
+    }
+
+    private void addSnapshot(List<String> lines, String name, Snapshot snapshot, boolean isDuration) {
+        lines.add(gauge(MetricRegistry.name(name, "min"), convert(snapshot.getMin(), isDuration)));
+        lines.add(gauge(MetricRegistry.name(name, "max"), convert(snapshot.getMax(), isDuration)));
+        lines.add(gauge(MetricRegistry.name(name, "mean"), convert(snapshot.getMean(), isDuration)));
+        lines.add(gauge(MetricRegistry.name(name, "p50"), convert(snapshot.getMedian(), isDuration)));
+        lines.add(gauge(MetricRegistry.name(name, "p95"), convert(snapshot.get95thPercentile(), isDuration)));
+        lines.add(gauge(MetricRegistry.name(name, "p99"), convert(snapshot.get99thPercentile(), isDuration)));
+    }
+
+    private double convert(double value, boolean isDuration) {
+        return isDuration ? convertDuration(value) : value;
+    }
+
+    private static String gauge(String name, double value) {
+        return String.format("%s:%s|g", name, formatValue(value));
+    }
+
+    /**
+     * Formats whole numbers without a decimal point, and other numbers with a limited precision.
+     */
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.format("%.6f", value);
+    }
+
+    /**
+     * Sends the provided lines to the provided address, packing as many lines into each packet as will fit.
+     */
+    private static void send(DatagramSocket socket, InetSocketAddress address, List<String> lines)
+            throws IOException {
+        StringBuilder packet = new StringBuilder();
+        for (String line : lines) {
+            if (packet.length() > 0 && packet.length() + 1 + line.length() > MAX_PACKET_BYTES) {
+                sendPacket(socket, address, packet.toString());
+                packet.setLength(0);
+            }
+            if (packet.length() > 0) {
+                packet.append('\n');
+            }
+            packet.append(line);
+        }
+        if (packet.length() > 0) {
+            sendPacket(socket, address, packet.toString());
+        }
+    }
+
+    private static void sendPacket(DatagramSocket socket, InetSocketAddress address, String content)
+            throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        socket.send(new DatagramPacket(bytes, bytes.length, address));
+    }
+}
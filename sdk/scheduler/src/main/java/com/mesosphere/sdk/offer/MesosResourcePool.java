@@ -50,6 +50,26 @@ public class MesosResourcePool {
         this.reservableMergedPoolByRole = getReservableMergedPool(mesosResources);
     }
 
+    private MesosResourcePool(MesosResourcePool pool) {
+        this.offer = pool.offer;
+        this.unreservedAtomicPool = new HashMap<>();
+        for (Map.Entry<String, List<MesosResource>> entry : pool.unreservedAtomicPool.entrySet()) {
+            this.unreservedAtomicPool.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        this.dynamicallyReservedPoolByResourceId = new HashMap<>(pool.dynamicallyReservedPoolByResourceId);
+        this.reservableMergedPoolByRole = new HashMap<>();
+        for (Map.Entry<String, Map<String, Value>> entry : pool.reservableMergedPoolByRole.entrySet()) {
+            this.reservableMergedPoolByRole.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+    }
+
+    /**
+     * Returns a copy of this pool. Resources consumed from or freed to the copy do not affect this pool.
+     */
+    public MesosResourcePool copy() {
+        return new MesosResourcePool(this);
+    }
+
     /**
      * Returns the underlying offer which this resource pool represents.
      */
@@ -264,8 +284,7 @@ public class MesosResourcePool {
             return false;
         }
 
-        Value difference = ValueUtils.subtract(desired, available);
-        return ValueUtils.compare(difference, ValueUtils.getZero(desired.getType())) <= 0;
+        return ValueUtils.isSufficient(desired, available);
     }
 
     private static Collection<MesosResource> getMesosResources(Offer offer, Optional<String> role) {
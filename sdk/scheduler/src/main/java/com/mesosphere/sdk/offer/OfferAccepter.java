@@ -1,6 +1,7 @@
 package com.mesosphere.sdk.offer;
 
 import com.google.protobuf.TextFormat;
+import com.mesosphere.sdk.metrics.Metrics;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.mesos.Protos.Filters;
@@ -12,8 +13,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -42,7 +46,7 @@ public class OfferAccepter {
         logOperations(operations);
 
         try {
-            record(recommendations);
+            recordAll(recommendations);
         } catch (Exception ex) {
             LOGGER.error("Failed to record Operations so not launching Task", ex);
             return new ArrayList<>();
@@ -50,6 +54,7 @@ public class OfferAccepter {
 
         if (CollectionUtils.isNotEmpty(operations)) {
             driver.acceptOffers(offerIds, operations, FILTERS);
+            Metrics.incrementCounter(Metrics.OFFERS_ACCEPTED, offerIds.size());
         } else {
             LOGGER.warn("No Operations to perform.");
         }
@@ -57,12 +62,67 @@ public class OfferAccepter {
         return offerIds;
     }
 
-    private void record(List<OfferRecommendation> recommendations) throws Exception {
+    /**
+     * Records the provided recommendations with all {@link OperationRecorder}s, without accepting any offers. Returns
+     * whether recording succeeded. The recommendations should subsequently be passed to
+     * {@link #acceptRecorded(SchedulerDriver, List)}.
+     */
+    public boolean record(List<OfferRecommendation> recommendations) {
+        try {
+            recordAll(recommendations);
+            return true;
+        } catch (Exception ex) {
+            LOGGER.error("Failed to record Operations so not launching Task", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Accepts offers with the provided recommendations, which must have already been recorded via
+     * {@link #record(List)}. The recommendations may span several offers, possibly across several agents, and are
+     * submitted with one {@link SchedulerDriver#acceptOffers(Collection, Collection, Filters)} call per offer.
+     *
+     * @return the IDs of all offers which were accepted
+     */
+    public List<OfferID> acceptRecorded(SchedulerDriver driver, List<OfferRecommendation> recommendations) {
+        if (CollectionUtils.isEmpty(recommendations)) {
+            LOGGER.warn("No recommendations, nothing to do");
+            return new ArrayList<>();
+        }
+
+        // Preserve the order of operations within each offer:
+        Map<OfferID, List<OfferRecommendation>> recommendationsByOffer = new LinkedHashMap<>();
+        for (OfferRecommendation recommendation : recommendations) {
+            recommendationsByOffer
+                    .computeIfAbsent(recommendation.getOffer().getId(), offerId -> new ArrayList<>())
+                    .add(recommendation);
+        }
+
+        for (Map.Entry<OfferID, List<OfferRecommendation>> entry : recommendationsByOffer.entrySet()) {
+            List<Operation> operations = getOperations(entry.getValue());
+            LOGGER.info("Offer {}:", entry.getKey().getValue());
+            logOperations(operations);
+            if (CollectionUtils.isNotEmpty(operations)) {
+                driver.acceptOffers(Collections.singletonList(entry.getKey()), operations, FILTERS);
+                Metrics.incrementCounter(Metrics.OFFERS_ACCEPTED);
+            } else {
+                LOGGER.warn("No Operations to perform.");
+            }
+        }
+
+        return new ArrayList<>(recommendationsByOffer.keySet());
+    }
+
+    private void recordAll(List<OfferRecommendation> recommendations) throws Exception {
         for (OfferRecommendation recommendation : recommendations) {
             for (OperationRecorder recorder : recorders) {
                 recorder.record(recommendation);
             }
         }
+        // Ensure that everything recorded above is durable before any of the operations are performed:
+        for (OperationRecorder recorder : recorders) {
+            recorder.flush();
+        }
     }
 
     private static List<Operation> getOperations(List<OfferRecommendation> recommendations) {
@@ -81,6 +141,9 @@ public class OfferAccepter {
         return operations;
     }
 
+    /**
+     * Returns the distinct IDs of the offers referenced by the provided recommendations.
+     */
     private static List<OfferID> getOfferIds(List<OfferRecommendation> recommendations) {
         Set<OfferID> offerIdSet = new HashSet<>();
 
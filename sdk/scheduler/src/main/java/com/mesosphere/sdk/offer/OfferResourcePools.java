@@ -0,0 +1,91 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Offer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the resources remaining in each {@link Offer} across multiple evaluations within a single offer cycle. This
+ * allows several pods to be packed into the same offer: each evaluation consumes from a copy of the offer's remaining
+ * {@link MesosResourcePool}, and the consumed copy replaces the remaining pool once the evaluation's recommendations
+ * have been selected.
+ *
+ * <p>Pools are tracked separately for each role, as a pod's {@link MesosResourcePool} only contains the resources in
+ * the offer which were allocated to the pod's role.
+ *
+ * <p>The remaining pools may be marked and later rolled back to the mark, so that the resources consumed by an
+ * evaluation whose recommendations end up being discarded are made available to later evaluations again.
+ *
+ * <p>Pools may be fetched concurrently, but updates are expected to come from a single thread.
+ */
+public class OfferResourcePools {
+
+    private final Map<PoolKey, MesosResourcePool> remainingPools = new ConcurrentHashMap<>();
+    // The remaining pools as of the last call to mark(). Tracked pools are replaced rather than modified, so a shallow
+    // copy suffices:
+    private Map<PoolKey, MesosResourcePool> markedPools = new HashMap<>();
+
+    /**
+     * Returns a new pool containing the resources which remain in the provided offer for the provided role. The
+     * returned pool may be freely consumed without affecting the tracked remaining resources.
+     */
+    public MesosResourcePool getPool(Offer offer, Optional<String> role) {
+        MesosResourcePool remainingPool = remainingPools.get(new PoolKey(offer, role));
+        return remainingPool == null ? new MesosResourcePool(offer, role) : remainingPool.copy();
+    }
+
+    /**
+     * Records that the resources remaining in the pool's offer for the provided role are those in the provided pool,
+     * which was previously returned by {@link #getPool(Offer, Optional)} and has since been consumed.
+     */
+    public void setPool(MesosResourcePool pool, Optional<String> role) {
+        remainingPools.put(new PoolKey(pool.getOffer(), role), pool);
+    }
+
+    /**
+     * Marks the resources which currently remain in each offer, such that they may be restored via {@link #rollback()}.
+     */
+    public void mark() {
+        markedPools = new HashMap<>(remainingPools);
+    }
+
+    /**
+     * Restores the resources remaining in each offer to what they were at the last call to {@link #mark()}, or to the
+     * full offers if it was never called. Resources consumed since the mark are available to later evaluations again.
+     */
+    public void rollback() {
+        remainingPools.keySet().retainAll(markedPools.keySet());
+        remainingPools.putAll(markedPools);
+    }
+
+    private static class PoolKey {
+        private final String offerId;
+        private final Optional<String> role;
+
+        private PoolKey(Offer offer, Optional<String> role) {
+            this.offerId = offer.getId().getValue();
+            this.role = role;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey other = (PoolKey) o;
+            return offerId.equals(other.offerId) && role.equals(other.role);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(offerId, role);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.offer;
 
+import com.mesosphere.sdk.metrics.Metrics;
 import org.apache.mesos.Protos;
 import org.apache.mesos.SchedulerDriver;
 import org.slf4j.Logger;
@@ -54,6 +55,7 @@ public class OfferUtils {
      */
     public static void declineOffers(SchedulerDriver driver, Collection<Protos.Offer> unusedOffers, int refuseSeconds) {
         LOGGER.info("Declining {} unused offers for {} seconds:", unusedOffers.size(), refuseSeconds);
+        Metrics.incrementCounter(Metrics.OFFERS_DECLINED, unusedOffers.size());
         final Protos.Filters filters = Protos.Filters.newBuilder()
                 .setRefuseSeconds(refuseSeconds)
                 .build();
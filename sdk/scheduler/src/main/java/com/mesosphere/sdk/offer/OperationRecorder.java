@@ -8,4 +8,13 @@ package com.mesosphere.sdk.offer;
  */
 public interface OperationRecorder {
     void record(OfferRecommendation offerRecommendation) throws Exception;
+
+    /**
+     * Invoked after all of the Operations for a set of offers have been recorded, and before any of those Operations
+     * are performed. Recorders which defer their writes must ensure that everything recorded so far is durable before
+     * returning. By default this does nothing.
+     */
+    default void flush() throws Exception {
+        // No-op by default: record() is expected to write synchronously.
+    }
 }
@@ -0,0 +1,278 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos;
+import org.apache.mesos.Protos.Value.Range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A mutable set of {@code long} values, stored as a sorted array of inclusive {@code [begin, end]} ranges. Ranges are
+ * kept disjoint and non-adjacent, so that any two sets containing the same values have the same representation.
+ * <p>
+ * This is used for arithmetic on Mesos {@code RANGES} values such as ports. Values are stored as primitives in a
+ * single array which is updated in place, so that merging, subtracting, and checking containment doesn't allocate
+ * per range. This class is not thread-safe.
+ */
+public final class RangeSet {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Range {@code i} is stored as {@code bounds[2 * i]} (begin) and {@code bounds[2 * i + 1]} (end).
+     */
+    private long[] bounds;
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    public RangeSet() {
+        this.bounds = new long[2 * INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns a new set containing all of the values in the provided ranges, which may overlap or be out of order.
+     */
+    public static RangeSet of(List<Range> ranges) {
+        return new RangeSet().addAll(ranges);
+    }
+
+    /**
+     * Returns a new set containing all of the values in the provided ranges, which may overlap or be out of order.
+     */
+    public static RangeSet of(Protos.Value.Ranges ranges) {
+        return of(ranges.getRangeList());
+    }
+
+    /**
+     * Adds the values from {@code begin} to {@code end} inclusive. Empty ranges, where {@code end} is less than
+     * {@code begin}, are ignored.
+     *
+     * @return this set
+     */
+    public RangeSet add(long begin, long end) {
+        if (end < begin) {
+            return this;
+        }
+        // Ranges which overlap or are adjacent to the new range are merged with it:
+        int from = indexOfFirstEndAtLeast(begin == Long.MIN_VALUE ? begin : begin - 1);
+        int to = from;
+        long upper = end == Long.MAX_VALUE ? end : end + 1;
+        while (to < size && getBegin(to) <= upper) {
+            ++to;
+        }
+        long mergedBegin = from < to ? Math.min(begin, getBegin(from)) : begin;
+        long mergedEnd = from < to ? Math.max(end, getEnd(to - 1)) : end;
+        replace(from, to, 1);
+        set(from, mergedBegin, mergedEnd);
+        return this;
+    }
+
+    /**
+     * Adds all values in the provided ranges.
+     *
+     * @return this set
+     */
+    public RangeSet addAll(List<Range> ranges) {
+        for (Range range : ranges) {
+            add(range.getBegin(), range.getEnd());
+        }
+        return this;
+    }
+
+    /**
+     * Removes the values from {@code begin} to {@code end} inclusive, if present.
+     *
+     * @return this set
+     */
+    public RangeSet subtract(long begin, long end) {
+        if (end < begin) {
+            return this;
+        }
+        int from = indexOfFirstEndAtLeast(begin);
+        int to = from;
+        while (to < size && getBegin(to) <= end) {
+            ++to;
+        }
+        if (from == to) {
+            return this;
+        }
+        // Only the first and last overlapping ranges may extend past the removed range:
+        long firstBegin = getBegin(from);
+        long lastEnd = getEnd(to - 1);
+        boolean keepLower = firstBegin < begin;
+        boolean keepUpper = lastEnd > end;
+        replace(from, to, (keepLower ? 1 : 0) + (keepUpper ? 1 : 0));
+        int index = from;
+        if (keepLower) {
+            set(index++, firstBegin, begin - 1);
+        }
+        if (keepUpper) {
+            set(index, end + 1, lastEnd);
+        }
+        return this;
+    }
+
+    /**
+     * Removes all values in the provided ranges.
+     *
+     * @return this set
+     */
+    public RangeSet subtractAll(List<Range> ranges) {
+        for (Range range : ranges) {
+            subtract(range.getBegin(), range.getEnd());
+        }
+        return this;
+    }
+
+    /**
+     * Returns whether the provided value is in this set.
+     */
+    public boolean contains(long value) {
+        return contains(value, value);
+    }
+
+    /**
+     * Returns whether all values from {@code begin} to {@code end} inclusive are in this set. Empty ranges are always
+     * contained.
+     */
+    public boolean contains(long begin, long end) {
+        if (end < begin) {
+            return true;
+        }
+        // Ranges are never adjacent, so a contained range must fall within a single stored range:
+        int index = indexOfFirstEndAtLeast(begin);
+        return index < size && getBegin(index) <= begin && end <= getEnd(index);
+    }
+
+    /**
+     * Returns whether all values in the provided ranges are in this set.
+     */
+    public boolean containsAll(List<Range> ranges) {
+        for (Range range : ranges) {
+            if (!contains(range.getBegin(), range.getEnd())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of disjoint ranges in this set.
+     */
+    public int getRangeCount() {
+        return size;
+    }
+
+    /**
+     * Returns the content of this set as a sorted list of disjoint ranges.
+     */
+    public List<Range> toRangeList() {
+        List<Range> ranges = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            ranges.add(Range.newBuilder().setBegin(getBegin(i)).setEnd(getEnd(i)).build());
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the content of this set as a sorted list of disjoint ranges.
+     */
+    public Protos.Value.Ranges toRanges() {
+        Protos.Value.Ranges.Builder builder = Protos.Value.Ranges.newBuilder();
+        for (int i = 0; i < size; ++i) {
+            builder.addRangeBuilder().setBegin(getBegin(i)).setEnd(getEnd(i));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RangeSet)) {
+            return false;
+        }
+        RangeSet other = (RangeSet) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < 2 * size; ++i) {
+            if (bounds[i] != other.bounds[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(Arrays.copyOf(bounds, 2 * size));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; ++i) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(getBegin(i)).append('-').append(getEnd(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    private long getBegin(int index) {
+        return bounds[2 * index];
+    }
+
+    private long getEnd(int index) {
+        return bounds[2 * index + 1];
+    }
+
+    private void set(int index, long begin, long end) {
+        bounds[2 * index] = begin;
+        bounds[2 * index + 1] = end;
+    }
+
+    /**
+     * Returns the index of the first range whose end is at least {@code value}, or {@code size} if there is none.
+     */
+    private int indexOfFirstEndAtLeast(long value) {
+        // Fast path for the common case of ranges being added in ascending order:
+        if (size == 0 || getEnd(size - 1) < value) {
+            return size;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getEnd(mid) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces the ranges at indices {@code from} (inclusive) to {@code to} (exclusive) with {@code count}
+     * uninitialized ranges, shifting any following ranges as needed.
+     */
+    private void replace(int from, int to, int count) {
+        int newSize = size - (to - from) + count;
+        if (2 * newSize > bounds.length) {
+            bounds = Arrays.copyOf(bounds, Math.max(2 * newSize, 2 * bounds.length));
+        }
+        System.arraycopy(bounds, 2 * to, bounds, 2 * (from + count), 2 * (size - to));
+        size = newSize;
+    }
+}
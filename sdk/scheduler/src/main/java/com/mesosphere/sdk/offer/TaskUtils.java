@@ -99,16 +99,7 @@ public class TaskUtils {
      * @return The list of TaskInfos associated with a PodInstance.
      */
     public static List<TaskInfo> getPodTasks(PodInstance podInstance, StateStore stateStore) {
-        return stateStore.fetchTasks().stream()
-                .filter(taskInfo -> {
-                    try {
-                        return isSamePodInstance(taskInfo, podInstance);
-                    } catch (TaskException e) {
-                        LOGGER.error("Failed to find pod tasks with exception: ", e);
-                        return false;
-                    }
-                })
-                .collect(Collectors.toList());
+        return new ArrayList<>(stateStore.fetchTasksForPod(podInstance.getName()));
     }
 
     /**
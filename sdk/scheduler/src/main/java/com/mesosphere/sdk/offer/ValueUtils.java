@@ -2,11 +2,9 @@ package com.mesosphere.sdk.offer;
 
 import org.apache.mesos.Protos.Resource;
 import org.apache.mesos.Protos.Value;
-import org.apache.mesos.Protos.Value.Range;
 import org.apache.mesos.Protos.Value.Type;
 
 import java.util.Collections;
-import java.util.List;
 
 /**
  * Utilities for manipulating Value protobufs.
@@ -55,10 +53,7 @@ public class ValueUtils {
     }
 
     private static Value.Ranges add(Value.Ranges ranges1, Value.Ranges ranges2) {
-        List<Range> list1 = ranges1.getRangeList();
-        List<Range> list2 = ranges2.getRangeList();
-        List<Range> list = RangeUtils.mergeRanges(list1, list2);
-        return Value.Ranges.newBuilder().addAllRange(list).build();
+        return RangeSet.of(ranges1).addAll(ranges2.getRangeList()).toRanges();
     }
 
     public static Value subtract(Value val1, Value val2) {
@@ -87,10 +82,7 @@ public class ValueUtils {
     }
 
     private static Value.Ranges subtract(Value.Ranges ranges1, Value.Ranges ranges2) {
-        List<Range> list1 = ranges1.getRangeList();
-        List<Range> list2 = ranges2.getRangeList();
-        List<Range> list = RangeUtils.subtractRanges(list1, list2);
-        return Value.Ranges.newBuilder().addAllRange(list).build();
+        return RangeSet.of(ranges1).subtractAll(ranges2.getRangeList()).toRanges();
     }
 
     public static boolean equal(Value val1, Value val2) {
@@ -129,18 +121,29 @@ public class ValueUtils {
     }
 
     private static Integer compare(Value.Ranges ranges1, Value.Ranges ranges2) {
-        List<Range> list1 = ranges1.getRangeList();
-        List<Range> list2 = ranges2.getRangeList();
+        RangeSet set1 = RangeSet.of(ranges1);
+        RangeSet set2 = RangeSet.of(ranges2);
 
-        if (RangeUtils.rangesEqual(list1, list2)) {
+        if (set1.equals(set2)) {
             return 0;
-        } else if (RangeUtils.subtractRanges(list1, list2).size() == 0) {
+        } else if (set2.containsAll(ranges1.getRangeList())) {
             return -1;
         } else {
             return 1;
         }
     }
 
+    /**
+     * Returns whether {@code available} is at least {@code desired}. For {@code RANGES} values, this is whether every
+     * desired range is contained in the available ranges, which is checked without computing their difference.
+     */
+    public static boolean isSufficient(Value desired, Value available) {
+        if (desired.getType() == Type.RANGES && available.getType() == Type.RANGES) {
+            return RangeSet.of(available.getRanges()).containsAll(desired.getRanges().getRangeList());
+        }
+        return compare(subtract(desired, available), getZero(desired.getType())) <= 0;
+    }
+
     public static Value getZero(Value.Type type) {
         switch (type) {
             case SCALAR:
@@ -194,6 +194,7 @@ class OfferEvaluationUtils {
             Protos.ExecutorInfo.Builder executorBuilder = podInfoBuilder.getExecutorBuilder().get();
             executorBuilder.addResources(resource);
         }
+        podInfoBuilder.getHostPorts().claim(resource);
     }
 
 
@@ -2,7 +2,11 @@ package com.mesosphere.sdk.offer.evaluate;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.TextFormat;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.*;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementContext;
+import com.mesosphere.sdk.offer.evaluate.scoring.OfferScorer;
+import com.mesosphere.sdk.offer.evaluate.scoring.OfferScorers;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
@@ -18,6 +22,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -34,6 +44,7 @@ public class OfferEvaluator {
     private final UUID targetConfigId;
     private final SchedulerConfig schedulerConfig;
     private final boolean useDefaultExecutor;
+    private final int evaluationParallelism;
 
     public OfferEvaluator(
             StateStore stateStore,
@@ -46,18 +57,36 @@ public class OfferEvaluator {
         this.targetConfigId = targetConfigId;
         this.schedulerConfig = schedulerConfig;
         this.useDefaultExecutor = useDefaultExecutor;
+        this.evaluationParallelism = schedulerConfig.getOfferEvaluationParallelism();
     }
 
     public List<OfferRecommendation> evaluate(PodInstanceRequirement podInstanceRequirement, List<Protos.Offer> offers)
             throws InvalidRequirementException, IOException {
+        return evaluate(podInstanceRequirement, offers, new OfferResourcePools());
+    }
+
+    /**
+     * Evaluates the provided offers against the provided requirement, consuming resources from the remaining pools
+     * tracked by {@code resourcePools}. If an offer is selected, the resources remaining in that offer after the
+     * returned recommendations are recorded in {@code resourcePools}, so that a later evaluation against the same
+     * offer only sees what is left over.
+     */
+    public List<OfferRecommendation> evaluate(
+            PodInstanceRequirement podInstanceRequirement,
+            List<Protos.Offer> offers,
+            OfferResourcePools resourcePools) throws InvalidRequirementException, IOException {
+        if (offers.isEmpty()) {
+            return Collections.emptyList();
+        }
+
         // All tasks in the service (used by some PlacementRules):
-        Map<String, Protos.TaskInfo> allTasks = stateStore.fetchTasks().stream()
-                .collect(Collectors.toMap(Protos.TaskInfo::getName, Function.identity()));
+        Collection<Protos.TaskInfo> allTasks = stateStore.fetchTasks();
         // Preexisting tasks for this pod (if any):
         Map<String, Protos.TaskInfo> thisPodTasks =
                 TaskUtils.getTaskNames(podInstanceRequirement.getPodInstance()).stream()
-                .map(taskName -> allTasks.get(taskName))
-                .filter(taskInfo -> taskInfo != null)
+                .map(taskName -> stateStore.fetchTask(taskName))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
                 .collect(Collectors.toMap(Protos.TaskInfo::getName, Function.identity()));
 
         boolean noTasksRunning = thisPodTasks.values().stream()
@@ -78,61 +107,242 @@ public class OfferEvaluator {
             executorInfo = Optional.of(execInfoBuilder.build());
         }
 
+        OfferEvaluationContext context = new OfferEvaluationContext(
+                podInstanceRequirement,
+                allTasks,
+                thisPodTasks,
+                executorInfo,
+                getTargetConfig(podInstanceRequirement, thisPodTasks.values()),
+                stateStore.fetchFrameworkId().get(),
+                resourcePools);
+
+        Optional<OfferScorer> offerScorer = getOfferScorer(podInstanceRequirement);
+        // Without a scorer, the first passing offer is selected and later offers needn't be evaluated:
+        boolean stopAtFirstPass = !offerScorer.isPresent();
+
+        long startTimeMs = System.currentTimeMillis();
+        final List<PassingOffer> passingOffers;
+        final String mode;
+        if (evaluationParallelism > 1 && offers.size() > 1 && !hasTLSTasks(podInstanceRequirement)) {
+            passingOffers = evaluateParallel(context, offers, stopAtFirstPass);
+            mode = "parallel";
+        } else {
+            passingOffers = evaluateSequential(context, offers, stopAtFirstPass);
+            mode = "sequential";
+        }
+        Optional<PassingOffer> selectedOffer = selectOffer(context, passingOffers, offerScorer);
+        long durationMs = System.currentTimeMillis() - startTimeMs;
+        Metrics.getTimer(Metrics.OFFERS_EVALUATE_DURATION).update(durationMs, TimeUnit.MILLISECONDS);
+        logger.info("Evaluated {} offer{} for pod '{}' in {}ms ({}): {}",
+                offers.size(),
+                offers.size() == 1 ? "" : "s",
+                podInstanceRequirement.getPodInstance().getName(),
+                durationMs,
+                mode,
+                selectedOffer.isPresent()
+                        ? String.format("selected offer %d of %d passing",
+                                selectedOffer.get().index + 1, passingOffers.size())
+                        : "no match");
+
+        if (!selectedOffer.isPresent()) {
+            return Collections.emptyList();
+        }
+        resourcePools.setPool(selectedOffer.get().resourcePool, context.role);
+        return selectedOffer.get().recommendations;
+    }
+
+    /**
+     * Evaluates the offers one at a time in the order provided, returning the passing offers in that order.
+     */
+    private List<PassingOffer> evaluateSequential(
+            OfferEvaluationContext context, List<Protos.Offer> offers, boolean stopAtFirstPass)
+            throws InvalidRequirementException, IOException {
+        List<PassingOffer> passingOffers = new ArrayList<>();
         for (int i = 0; i < offers.size(); ++i) {
-            List<OfferEvaluationStage> evaluationStages =
-                    getEvaluationPipeline(podInstanceRequirement, allTasks.values(), thisPodTasks, executorInfo);
-
-            Protos.Offer offer = offers.get(i);
-            MesosResourcePool resourcePool = new MesosResourcePool(
-                    offer,
-                    OfferEvaluationUtils.getRole(podInstanceRequirement.getPodInstance().getPod()));
-            PodInfoBuilder podInfoBuilder = new PodInfoBuilder(
-                    podInstanceRequirement,
-                    serviceName,
-                    getTargetConfig(podInstanceRequirement, thisPodTasks.values()),
-                    schedulerConfig,
-                    thisPodTasks.values(),
-                    stateStore.fetchFrameworkId().get(),
-                    useDefaultExecutor);
-            List<EvaluationOutcome> outcomes = new ArrayList<>();
-            int failedOutcomeCount = 0;
-
-            for (OfferEvaluationStage evaluationStage : evaluationStages) {
-                EvaluationOutcome outcome = evaluationStage.evaluate(resourcePool, podInfoBuilder);
-                outcomes.add(outcome);
-                if (!outcome.isPassing()) {
-                    failedOutcomeCount++;
+            Optional<PassingOffer> passingOffer = evaluateOffer(context, i, offers.get(i));
+            if (passingOffer.isPresent()) {
+                passingOffers.add(passingOffer.get());
+                if (stopAtFirstPass) {
+                    break;
                 }
             }
+        }
+        return passingOffers;
+    }
+
+    /**
+     * Evaluates the offers concurrently on the common {@link ForkJoinPool}, returning the passing offers in the order
+     * provided. This produces the same result as {@link #evaluateSequential(OfferEvaluationContext, List, boolean)}.
+     * The offers are split across at most {@link SchedulerConfig#getOfferEvaluationParallelism()} tasks, each of which
+     * evaluates every Nth offer in turn. When only the first passing offer is needed, offers which come after an offer
+     * already known to pass are skipped.
+     */
+    private List<PassingOffer> evaluateParallel(
+            OfferEvaluationContext context, List<Protos.Offer> offers, boolean stopAtFirstPass)
+            throws InvalidRequirementException, IOException {
+        AtomicInteger firstPassingIndex = new AtomicInteger(Integer.MAX_VALUE);
+        final int taskCount = Math.min(evaluationParallelism, offers.size());
+        List<Callable<List<PassingOffer>>> evaluations = new ArrayList<>();
+        for (int t = 0; t < taskCount; ++t) {
+            final int firstIndex = t;
+            evaluations.add(() -> {
+                List<PassingOffer> taskPassingOffers = new ArrayList<>();
+                for (int index = firstIndex; index < offers.size(); index += taskCount) {
+                    if (stopAtFirstPass && index > firstPassingIndex.get()) {
+                        break;
+                    }
+                    Optional<PassingOffer> passingOffer = evaluateOffer(context, index, offers.get(index));
+                    if (passingOffer.isPresent()) {
+                        taskPassingOffers.add(passingOffer.get());
+                        firstPassingIndex.accumulateAndGet(index, Math::min);
+                    }
+                }
+                return taskPassingOffers;
+            });
+        }
 
-            StringBuilder outcomeDetails = new StringBuilder();
-            for (EvaluationOutcome outcome : outcomes) {
-                logOutcome(outcomeDetails, outcome, "");
+        List<PassingOffer> passingOffers = new ArrayList<>();
+        try {
+            for (Future<List<PassingOffer>> result : ForkJoinPool.commonPool().invokeAll(evaluations)) {
+                passingOffers.addAll(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating offers", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidRequirementException) {
+                throw (InvalidRequirementException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            if (outcomeDetails.length() != 0) {
-                // trim extra trailing newline:
-                outcomeDetails.deleteCharAt(outcomeDetails.length() - 1);
+            throw new IllegalStateException("Failed to evaluate offers", cause);
+        }
+        passingOffers.sort(Comparator.comparingInt(passingOffer -> passingOffer.index));
+        if (stopAtFirstPass && passingOffers.size() > 1) {
+            return passingOffers.subList(0, 1);
+        }
+        return passingOffers;
+    }
+
+    /**
+     * Selects among the passing offers, which are ordered by their original index. Without a scorer, the first passing
+     * offer is selected. Otherwise the offer with the highest score is selected, with ties going to the earlier offer.
+     */
+    private static Optional<PassingOffer> selectOffer(
+            OfferEvaluationContext context, List<PassingOffer> passingOffers, Optional<OfferScorer> offerScorer) {
+        if (passingOffers.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!offerScorer.isPresent() || passingOffers.size() == 1) {
+            return Optional.of(passingOffers.get(0));
+        }
+
+        PassingOffer selectedOffer = null;
+        double selectedScore = 0;
+        for (PassingOffer passingOffer : passingOffers) {
+            double score = offerScorer.get().score(
+                    passingOffer.resourcePool,
+                    passingOffer.recommendations,
+                    context.podInstanceRequirement,
+                    context.allTasks);
+            logger.info("Offer {}, {}: scored {}",
+                    passingOffer.index + 1, passingOffer.offer.getId().getValue(), score);
+            if (selectedOffer == null || score > selectedScore) {
+                selectedOffer = passingOffer;
+                selectedScore = score;
             }
+        }
+        return Optional.of(selectedOffer);
+    }
 
-            if (failedOutcomeCount != 0) {
-                logger.info("Offer {}, {}: failed {} of {} evaluation stages:\n{}",
-                        i + 1,
-                        offer.getId().getValue(),
-                        failedOutcomeCount,
-                        evaluationStages.size(),
-                        outcomeDetails.toString());
-            } else {
-                List<OfferRecommendation> recommendations = outcomes.stream()
-                        .map(outcome -> outcome.getOfferRecommendations())
-                        .flatMap(xs -> xs.stream())
-                        .collect(Collectors.toList());
-                logger.info("Offer {}: passed all {} evaluation stages, returning {} recommendations:\n{}",
-                        i + 1, evaluationStages.size(), recommendations.size(), outcomeDetails.toString());
-                return recommendations;
+    /**
+     * Returns the scorer configured for the pod, or an empty Optional if the first passing offer should be selected.
+     */
+    private static Optional<OfferScorer> getOfferScorer(PodInstanceRequirement podInstanceRequirement) {
+        PodSpec podSpec = podInstanceRequirement.getPodInstance().getPod();
+        if (!podSpec.getOfferScorer().isPresent() || podSpec.getOfferScorer().get().equals(OfferScorers.FIRST_FIT)) {
+            return Optional.empty();
+        }
+        Optional<OfferScorer> offerScorer = OfferScorers.get(podSpec.getOfferScorer().get());
+        if (!offerScorer.isPresent()) {
+            logger.warn("Unknown offer scorer '{}' for pod '{}', selecting the first passing offer",
+                    podSpec.getOfferScorer().get(), podSpec.getType());
+        }
+        return offerScorer;
+    }
+
+    /**
+     * Evaluates a single offer against a freshly built evaluation pipeline, returning the resulting recommendations and
+     * consumed resource pool if all stages passed, or an empty Optional otherwise. Each invocation only touches state
+     * which is local to the offer, so this may be invoked concurrently for different offers.
+     */
+    private Optional<PassingOffer> evaluateOffer(
+            OfferEvaluationContext context, int index, Protos.Offer offer)
+            throws InvalidRequirementException, IOException {
+        List<OfferEvaluationStage> evaluationStages = getEvaluationPipeline(
+                context.podInstanceRequirement, context.placementContext, context.thisPodTasks, context.executorInfo);
+
+        MesosResourcePool resourcePool = context.resourcePools.getPool(offer, context.role);
+        PodInfoBuilder podInfoBuilder = new PodInfoBuilder(
+                context.podInstanceRequirement,
+                serviceName,
+                context.targetConfigId,
+                schedulerConfig,
+                context.thisPodTasks.values(),
+                context.frameworkId,
+                useDefaultExecutor);
+        List<EvaluationOutcome> outcomes = new ArrayList<>();
+        int failedOutcomeCount = 0;
+
+        for (OfferEvaluationStage evaluationStage : evaluationStages) {
+            long stageStartNanos = System.nanoTime();
+            EvaluationOutcome outcome = evaluationStage.evaluate(resourcePool, podInfoBuilder);
+            Metrics.recordEvaluationStage(
+                    getStageName(evaluationStage), outcome.isPassing(), System.nanoTime() - stageStartNanos);
+            outcomes.add(outcome);
+            if (!outcome.isPassing()) {
+                failedOutcomeCount++;
             }
         }
 
-        return Collections.emptyList();
+        StringBuilder outcomeDetails = new StringBuilder();
+        for (EvaluationOutcome outcome : outcomes) {
+            logOutcome(outcomeDetails, outcome, "");
+        }
+        if (outcomeDetails.length() != 0) {
+            // trim extra trailing newline:
+            outcomeDetails.deleteCharAt(outcomeDetails.length() - 1);
+        }
+
+        if (failedOutcomeCount != 0) {
+            logger.info("Offer {}, {}: failed {} of {} evaluation stages:\n{}",
+                    index + 1,
+                    offer.getId().getValue(),
+                    failedOutcomeCount,
+                    evaluationStages.size(),
+                    outcomeDetails.toString());
+            return Optional.empty();
+        }
+
+        List<OfferRecommendation> recommendations = outcomes.stream()
+                .map(outcome -> outcome.getOfferRecommendations())
+                .flatMap(xs -> xs.stream())
+                .collect(Collectors.toList());
+        logger.info("Offer {}: passed all {} evaluation stages, returning {} recommendations:\n{}",
+                index + 1, evaluationStages.size(), recommendations.size(), outcomeDetails.toString());
+        return Optional.of(new PassingOffer(index, offer, recommendations, resourcePool));
+    }
+
+    /**
+     * Returns whether any tasks in the pod use TLS. TLS evaluation stages generate and store certificates as a side
+     * effect of evaluation, so these pods are always evaluated sequentially.
+     */
+    private static boolean hasTLSTasks(PodInstanceRequirement podInstanceRequirement) {
+        return podInstanceRequirement.getPodInstance().getPod().getTasks().stream()
+                .anyMatch(taskSpec -> !taskSpec.getTransportEncryption().isEmpty());
     }
 
     public List<OfferEvaluationStage> getEvaluationPipeline(
@@ -140,6 +350,18 @@ public class OfferEvaluator {
             Collection<Protos.TaskInfo> allTasks,
             Map<String, Protos.TaskInfo> thisPodTasks,
             Optional<Protos.ExecutorInfo> executorInfo) throws IOException {
+        return getEvaluationPipeline(
+                podInstanceRequirement,
+                new PlacementContext(podInstanceRequirement.getPodInstance(), allTasks),
+                thisPodTasks,
+                executorInfo);
+    }
+
+    private List<OfferEvaluationStage> getEvaluationPipeline(
+            PodInstanceRequirement podInstanceRequirement,
+            PlacementContext placementContext,
+            Map<String, Protos.TaskInfo> thisPodTasks,
+            Optional<Protos.ExecutorInfo> executorInfo) throws IOException {
         boolean noLaunchedTasksExist = thisPodTasks.values().stream()
                 .flatMap(taskInfo -> taskInfo.getResourcesList().stream())
                 .map(resource -> ResourceUtils.getResourceId(resource))
@@ -176,10 +398,11 @@ public class OfferEvaluator {
         List<OfferEvaluationStage> evaluationPipeline = new ArrayList<>();
         evaluationPipeline.add(new ExecutorEvaluationStage(getExecutorInfo(thisPodTasks.values())));
         if (shouldGetNewRequirement) {
-            evaluationPipeline.addAll(getNewEvaluationPipeline(podInstanceRequirement, allTasks, tlsStageBuilder));
+            evaluationPipeline.addAll(
+                    getNewEvaluationPipeline(podInstanceRequirement, placementContext, tlsStageBuilder));
         } else {
             evaluationPipeline.addAll(getExistingEvaluationPipeline(
-                    podInstanceRequirement, thisPodTasks, allTasks, executorInfo.get(), tlsStageBuilder));
+                    podInstanceRequirement, thisPodTasks, placementContext, executorInfo.get(), tlsStageBuilder));
         }
 
         return evaluationPipeline;
@@ -213,6 +436,15 @@ public class OfferEvaluator {
         return Optional.empty();
     }
 
+    /**
+     * Returns the name under which metrics for the provided stage are recorded.
+     */
+    private static String getStageName(OfferEvaluationStage evaluationStage) {
+        String name = evaluationStage.getClass().getSimpleName();
+        // Anonymous classes have an empty simple name:
+        return name.isEmpty() ? evaluationStage.getClass().getName() : name;
+    }
+
     private static void logOutcome(StringBuilder stringBuilder, EvaluationOutcome outcome, String indent) {
         stringBuilder.append(String.format("  %s%s%n", indent, outcome.toString()));
         for (EvaluationOutcome child : outcome.getChildren()) {
@@ -270,12 +502,12 @@ public class OfferEvaluator {
 
     private List<OfferEvaluationStage> getNewEvaluationPipeline(
             PodInstanceRequirement podInstanceRequirement,
-            Collection<Protos.TaskInfo> allTasks,
+            PlacementContext placementContext,
             Optional<TLSEvaluationStage.Builder> tlsStageBuilder) {
         List<OfferEvaluationStage> evaluationStages = new ArrayList<>();
         if (podInstanceRequirement.getPodInstance().getPod().getPlacementRule().isPresent()) {
             evaluationStages.add(new PlacementRuleEvaluationStage(
-                    allTasks, podInstanceRequirement.getPodInstance().getPod().getPlacementRule().get()));
+                    placementContext, podInstanceRequirement.getPodInstance().getPod().getPlacementRule().get()));
         }
 
         for (VolumeSpec volumeSpec : podInstanceRequirement.getPodInstance().getPod().getVolumes()) {
@@ -381,7 +613,7 @@ public class OfferEvaluator {
     private List<OfferEvaluationStage> getExistingEvaluationPipeline(
             PodInstanceRequirement podInstanceRequirement,
             Map<String, Protos.TaskInfo> podTasks,
-            Collection<Protos.TaskInfo> allTasks,
+            PlacementContext placementContext,
             Protos.ExecutorInfo executorInfo,
             Optional<TLSEvaluationStage.Builder> tlsStageBuilder) {
         List<TaskSpec> taskSpecs = podInstanceRequirement.getPodInstance().getPod().getTasks().stream()
@@ -393,7 +625,7 @@ public class OfferEvaluator {
         if (podInstanceRequirement.getPodInstance().getPod().getPlacementRule().isPresent() &&
                 podInstanceRequirement.getRecoveryType().equals(RecoveryType.PERMANENT)) {
             evaluationStages.add(new PlacementRuleEvaluationStage(
-                    allTasks, podInstanceRequirement.getPodInstance().getPod().getPlacementRule().get()));
+                    placementContext, podInstanceRequirement.getPodInstance().getPod().getPlacementRule().get()));
         }
 
         ResourceSpec firstResource = taskSpecs.get(0).getResourceSet().getResources().iterator().next();
@@ -491,4 +723,61 @@ public class OfferEvaluator {
         }
     }
 
+    /**
+     * An offer which passed all evaluation stages, along with the resulting recommendations and the resources which
+     * remain in the offer after those recommendations.
+     */
+    private static class PassingOffer {
+        private final int index;
+        private final Protos.Offer offer;
+        private final List<OfferRecommendation> recommendations;
+        private final MesosResourcePool resourcePool;
+
+        private PassingOffer(
+                int index,
+                Protos.Offer offer,
+                List<OfferRecommendation> recommendations,
+                MesosResourcePool resourcePool) {
+            this.index = index;
+            this.offer = offer;
+            this.recommendations = recommendations;
+            this.resourcePool = resourcePool;
+        }
+    }
+
+    /**
+     * The inputs which are shared across the evaluation of all offers for a given {@link PodInstanceRequirement}. These
+     * are only read during evaluation.
+     */
+    private static class OfferEvaluationContext {
+        private final PodInstanceRequirement podInstanceRequirement;
+        private final Collection<Protos.TaskInfo> allTasks;
+        private final PlacementContext placementContext;
+        private final Map<String, Protos.TaskInfo> thisPodTasks;
+        private final Optional<Protos.ExecutorInfo> executorInfo;
+        private final UUID targetConfigId;
+        private final Protos.FrameworkID frameworkId;
+        private final OfferResourcePools resourcePools;
+        private final Optional<String> role;
+
+        private OfferEvaluationContext(
+                PodInstanceRequirement podInstanceRequirement,
+                Collection<Protos.TaskInfo> allTasks,
+                Map<String, Protos.TaskInfo> thisPodTasks,
+                Optional<Protos.ExecutorInfo> executorInfo,
+                UUID targetConfigId,
+                Protos.FrameworkID frameworkId,
+                OfferResourcePools resourcePools) {
+            this.podInstanceRequirement = podInstanceRequirement;
+            this.allTasks = allTasks;
+            // Shared by all offers, so that placement rules only aggregate the deployed tasks once:
+            this.placementContext = new PlacementContext(podInstanceRequirement.getPodInstance(), allTasks);
+            this.thisPodTasks = thisPodTasks;
+            this.executorInfo = executorInfo;
+            this.targetConfigId = targetConfigId;
+            this.frameworkId = frameworkId;
+            this.resourcePools = resourcePools;
+            this.role = OfferEvaluationUtils.getRole(podInstanceRequirement.getPodInstance().getPod());
+        }
+    }
 }
@@ -1,10 +1,12 @@
 package com.mesosphere.sdk.offer.evaluate;
 
 import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementContext;
 import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
 import org.apache.mesos.Protos;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.pass;
 
@@ -15,10 +17,22 @@ import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.pass;
  */
 public class PlacementRuleEvaluationStage implements OfferEvaluationStage {
     private final Collection<Protos.TaskInfo> deployedTasks;
+    private final Optional<PlacementContext> placementContext;
     private final PlacementRule placementRule;
 
     public PlacementRuleEvaluationStage(Collection<Protos.TaskInfo> deployedTasks, PlacementRule placementRule) {
         this.deployedTasks = deployedTasks;
+        this.placementContext = Optional.empty();
+        this.placementRule = placementRule;
+    }
+
+    /**
+     * Creates a stage which evaluates the rule against a {@link PlacementContext} that is shared with the evaluation of
+     * other offers, so that the deployed tasks are only aggregated once per evaluation round.
+     */
+    public PlacementRuleEvaluationStage(PlacementContext placementContext, PlacementRule placementRule) {
+        this.deployedTasks = placementContext.getTasks();
+        this.placementContext = Optional.of(placementContext);
         this.placementRule = placementRule;
     }
 
@@ -28,9 +42,9 @@ public class PlacementRuleEvaluationStage implements OfferEvaluationStage {
             return pass(this, "No placement rule defined").build();
         }
 
-        return placementRule.filter(
-                mesosResourcePool.getOffer(),
-                podInfoBuilder.getPodInstance(),
-                deployedTasks);
+        PlacementContext context = placementContext.isPresent()
+                ? placementContext.get()
+                : new PlacementContext(podInfoBuilder.getPodInstance(), deployedTasks);
+        return placementRule.filter(mesosResourcePool.getOffer(), context);
     }
 }
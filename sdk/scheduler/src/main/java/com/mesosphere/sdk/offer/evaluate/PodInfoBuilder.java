@@ -35,7 +35,16 @@ public class PodInfoBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(PodInfoBuilder.class);
     private static final String CONFIG_TEMPLATE_KEY_FORMAT = "CONFIG_TEMPLATE_%s";
     private static final String CONFIG_TEMPLATE_DOWNLOAD_PATH = "config-templates/";
-    private Set<Long> assignedOverlayPorts = new HashSet<>();
+    /**
+     * Host ports which are explicitly requested by the pod, or which have been added to its resources by earlier
+     * stages of the evaluation.
+     */
+    private final PortAllocator hostPorts;
+    /**
+     * Overlay network ports which are explicitly requested by the pod, or which have been dynamically assigned by
+     * earlier stages of the evaluation.
+     */
+    private final PortAllocator overlayPorts = new PortAllocator(false);
     private final Map<String, Protos.TaskInfo.Builder> taskBuilders = new HashMap<>();
     private Protos.ExecutorInfo.Builder executorBuilder;
     private final PodInstance podInstance;
@@ -52,6 +61,7 @@ public class PodInfoBuilder {
             boolean useDefaultExecutor) throws InvalidRequirementException {
         PodInstance podInstance = podInstanceRequirement.getPodInstance();
         this.useDefaultExecutor = useDefaultExecutor;
+        this.hostPorts = new PortAllocator(schedulerConfig.isDynamicPortRandomizationEnabled());
 
         // Generate new TaskInfos based on the task spec. To keep things consistent, we always generate new TaskInfos
         // from scratch, with the only carry-over being the prior task environment.
@@ -67,11 +77,15 @@ public class PodInfoBuilder {
             // as we're only looking at tasks within a given pod
             this.taskBuilders.put(taskSpec.getName(), taskInfoBuilder);
 
+            // Ports which are explicitly requested by any task in the pod may not be selected as dynamic ports:
             taskSpec.getResourceSet().getResources().stream()
                     .filter(resourceSpec -> resourceSpec.getName().equals(Constants.PORTS_RESOURCE_TYPE))
-                    .filter(resourceSpec -> resourceSpec.getValue().getRanges().getRange(0).getBegin() > 0)
-                    .forEach(resourceSpec -> assignedOverlayPorts
-                            .add(resourceSpec.getValue().getRanges().getRange(0).getBegin()));
+                    .map(resourceSpec -> resourceSpec.getValue().getRanges().getRange(0).getBegin())
+                    .filter(port -> port > 0)
+                    .forEach(port -> {
+                        hostPorts.claim(port);
+                        overlayPorts.claim(port);
+                    });
 
         }
 
@@ -111,6 +125,7 @@ public class PodInfoBuilder {
 
     public void setExecutorBuilder(Protos.ExecutorInfo.Builder executorBuilder) {
         this.executorBuilder = executorBuilder;
+        executorBuilder.getResourcesList().forEach(hostPorts::claim);
     }
 
     /**
@@ -136,17 +151,32 @@ public class PodInfoBuilder {
         return new ArrayList<>(executorBuilder.getResourcesBuilderList());
     }
 
+    /**
+     * Returns the host ports which have been claimed by this pod. Any ports resource which is added to a task or to the
+     * executor must also be claimed here, so that it isn't selected again as a dynamic port.
+     */
+    public PortAllocator getHostPorts() {
+        return hostPorts;
+    }
+
+    /**
+     * Returns the overlay network ports which have been claimed by this pod.
+     */
+    public PortAllocator getOverlayPorts() {
+        return overlayPorts;
+    }
+
     public boolean isAssignedOverlayPort(long candidatePort) {
-        return assignedOverlayPorts.contains(candidatePort);
+        return overlayPorts.isClaimed(candidatePort);
     }
 
     public void addAssignedOverlayPort(long port) {
-        assignedOverlayPorts.add(port);
+        overlayPorts.claim(port);
     }
 
     @VisibleForTesting
     public Set<Long> getAssignedOverlayPorts() {
-        return assignedOverlayPorts;
+        return overlayPorts.getClaimedPorts();
     }
 
     public void setExecutorVolume(VolumeSpec volumeSpec) {
@@ -0,0 +1,180 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.Constants;
+import org.apache.mesos.Protos;
+
+import java.util.BitSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tracks the ports which have been claimed by a pod over the course of an offer evaluation, and selects unclaimed
+ * ports for dynamic allocation. Claimed ports are kept in a {@link BitSet} indexed by port number, so that claiming,
+ * checking, and selecting ports does not allocate per port.
+ * <p>
+ * Ports are selected either sequentially, where the lowest unclaimed port is returned, or randomly from all
+ * unclaimed ports in the provided ranges. This class is not thread-safe, as each {@link PodInfoBuilder} is only used
+ * by a single evaluation at a time.
+ */
+public class PortAllocator {
+
+    /**
+     * The highest valid port number. Ranges extending past this value are truncated.
+     */
+    static final int MAX_PORT = 65535;
+
+    private final BitSet claimedPorts = new BitSet();
+    private final boolean randomized;
+
+    /**
+     * @param randomized whether ports should be selected randomly, rather than always selecting the lowest port
+     */
+    public PortAllocator(boolean randomized) {
+        this.randomized = randomized;
+    }
+
+    /**
+     * Marks the provided port as claimed. Port zero, which indicates a dynamic port, is ignored.
+     */
+    public void claim(long port) {
+        if (port > 0 && port <= MAX_PORT) {
+            claimedPorts.set((int) port);
+        }
+    }
+
+    /**
+     * Marks all ports in the provided resource as claimed, if the resource is a ports resource.
+     */
+    public void claim(Protos.Resource resource) {
+        if (!resource.getName().equals(Constants.PORTS_RESOURCE_TYPE)) {
+            return;
+        }
+        for (Protos.Value.Range range : resource.getRanges().getRangeList()) {
+            if (isValidRange(range.getBegin(), range.getEnd())) {
+                claimedPorts.set(clampBegin(range.getBegin()), clampEnd(range.getEnd()) + 1);
+            }
+        }
+    }
+
+    public boolean isClaimed(long port) {
+        return port > 0 && port <= MAX_PORT && claimedPorts.get((int) port);
+    }
+
+    /**
+     * Returns an unclaimed port from the provided ranges without claiming it, or an empty value if all ports in the
+     * ranges have been claimed.
+     */
+    public OptionalLong select(Protos.Value.Ranges ranges) {
+        if (!randomized) {
+            for (Protos.Value.Range range : ranges.getRangeList()) {
+                OptionalLong port = selectFirst(range.getBegin(), range.getEnd());
+                if (port.isPresent()) {
+                    return port;
+                }
+            }
+            return OptionalLong.empty();
+        }
+
+        long unclaimedCount = 0;
+        for (Protos.Value.Range range : ranges.getRangeList()) {
+            unclaimedCount += getUnclaimedCount(range.getBegin(), range.getEnd());
+        }
+        if (unclaimedCount == 0) {
+            return OptionalLong.empty();
+        }
+        // Find the n'th unclaimed port across all of the ranges:
+        long remaining = ThreadLocalRandom.current().nextLong(unclaimedCount);
+        for (Protos.Value.Range range : ranges.getRangeList()) {
+            long rangeUnclaimedCount = getUnclaimedCount(range.getBegin(), range.getEnd());
+            if (remaining < rangeUnclaimedCount) {
+                return selectNth(range.getBegin(), range.getEnd(), remaining);
+            }
+            remaining -= rangeUnclaimedCount;
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Selects and claims an unclaimed port between {@code begin} and {@code end} inclusive, or returns an empty value
+     * if all of those ports have been claimed.
+     */
+    public OptionalLong claimNext(long begin, long end) {
+        OptionalLong port = randomized ? selectRandom(begin, end) : selectFirst(begin, end);
+        if (port.isPresent()) {
+            claim(port.getAsLong());
+        }
+        return port;
+    }
+
+    /**
+     * Returns all claimed ports. This allocates a set entry per port, and is only intended for tests.
+     */
+    Set<Long> getClaimedPorts() {
+        Set<Long> ports = new TreeSet<>();
+        for (int port = claimedPorts.nextSetBit(0); port >= 0; port = claimedPorts.nextSetBit(port + 1)) {
+            ports.add((long) port);
+        }
+        return ports;
+    }
+
+    private OptionalLong selectFirst(long begin, long end) {
+        if (!isValidRange(begin, end)) {
+            return OptionalLong.empty();
+        }
+        int port = claimedPorts.nextClearBit(clampBegin(begin));
+        return port <= clampEnd(end) ? OptionalLong.of(port) : OptionalLong.empty();
+    }
+
+    private OptionalLong selectRandom(long begin, long end) {
+        long unclaimedCount = getUnclaimedCount(begin, end);
+        return unclaimedCount == 0
+                ? OptionalLong.empty()
+                : selectNth(begin, end, ThreadLocalRandom.current().nextLong(unclaimedCount));
+    }
+
+    private OptionalLong selectNth(long begin, long end, long n) {
+        if (!isValidRange(begin, end)) {
+            return OptionalLong.empty();
+        }
+        int clampedEnd = clampEnd(end);
+        long remaining = n;
+        int port = claimedPorts.nextClearBit(clampBegin(begin));
+        while (port <= clampedEnd) {
+            if (remaining == 0) {
+                return OptionalLong.of(port);
+            }
+            --remaining;
+            port = claimedPorts.nextClearBit(port + 1);
+        }
+        return OptionalLong.empty();
+    }
+
+    private long getUnclaimedCount(long begin, long end) {
+        if (!isValidRange(begin, end)) {
+            return 0;
+        }
+        int clampedEnd = clampEnd(end);
+        int port = clampBegin(begin);
+        long count = clampedEnd - port + 1;
+        port = claimedPorts.nextSetBit(port);
+        while (port >= 0 && port <= clampedEnd) {
+            --count;
+            port = claimedPorts.nextSetBit(port + 1);
+        }
+        return count;
+    }
+
+    private static boolean isValidRange(long begin, long end) {
+        return begin <= end && begin <= MAX_PORT && end >= 1;
+    }
+
+    private static int clampBegin(long begin) {
+        return (int) Math.max(begin, 1);
+    }
+
+    private static int clampEnd(long end) {
+        return (int) Math.min(end, MAX_PORT);
+    }
+}
@@ -1,7 +1,6 @@
 package com.mesosphere.sdk.offer.evaluate.placement;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -39,42 +38,26 @@ abstract class AbstractRoundRobinRule implements PlacementRule {
     protected abstract String getValue(Offer offer);
 
     /**
-     * Returns a value to round robin against from the provided {@link TaskInfo}, or {@code null} if
-     * none was found.
+     * Returns the number of deployed tasks matching {@link #taskFilter} on each value to round
+     * robin against, excluding stale data for the tasks being placed.
      */
-    protected abstract String getValue(TaskInfo task);
+    protected abstract Map<String, Integer> getValueCounts(PlacementContext context);
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
         final String offerValue = getValue(offer);
         if (offerValue == null) {
             // offer doesn't have the required attribute at all. denied.
             return EvaluationOutcome.fail(this, "Offer lacks required round robin value").build();
         }
 
-        // search across tasks, keeping value counts on a per-value basis.
         // attribute value (for selected attribute name) => # of instances on attribute value
-        Map<String, Integer> valueCounts = new HashMap<>();
-        for (TaskInfo task : tasks) {
-            // only tally tasks which match the task matcher (eg 'index-.*')
-            if (!taskFilter.matches(task.getName())) {
-                continue;
-            }
-            if (PlacementUtils.areEquivalent(task, podInstance)) {
-                // This is stale data for the same task that we're currently evaluating for
-                // placement. Don't worry about counting its usage. This occurs when we're
-                // redeploying a given task with a new configuration (old data not deleted yet).
-                continue;
-            }
-
-            final String taskAttributeValue = getValue(task);
-            if (taskAttributeValue == null) {
-                // no attribute matching the name was found. ignore.
-                continue;
-            }
-            Integer value = valueCounts.get(taskAttributeValue);
-            valueCounts.put(taskAttributeValue, (value == null) ? 1 : value + 1);
-        }
+        Map<String, Integer> valueCounts = getValueCounts(context);
 
         int maxKnownValueCount = 0;
         int minKnownValueCount = Integer.MAX_VALUE;
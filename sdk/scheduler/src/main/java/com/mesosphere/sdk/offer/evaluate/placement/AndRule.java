@@ -31,13 +31,18 @@ public class AndRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
         if (rules.isEmpty()) {
             return EvaluationOutcome.fail(this, "No rules to AND together is treated as 'always fail'").build();
         }
         int passingCount = 0;
         Collection<EvaluationOutcome> children = new ArrayList<>();
         for (PlacementRule rule : rules) {
-            EvaluationOutcome child = rule.filter(offer, podInstance, tasks);
+            EvaluationOutcome child = rule.filter(offer, context);
             if (child.isPassing()) {
                 passingCount++;
             }
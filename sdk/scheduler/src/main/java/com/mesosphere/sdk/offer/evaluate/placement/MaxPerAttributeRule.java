@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
 import com.mesosphere.sdk.offer.taskdata.AttributeStringUtils;
-import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 
 import com.mesosphere.sdk.specification.PodInstance;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -98,6 +97,11 @@ public class MaxPerAttributeRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
         // collect all the attribute values present in this offer:
         Set<String> offerAttributeStrings = new HashSet<>();
         for (Attribute attributeProto : offer.getAttributesList()) {
@@ -108,51 +112,30 @@ public class MaxPerAttributeRule implements PlacementRule {
             return EvaluationOutcome.pass(this, "Offer has no attributes to enforce").build();
         }
 
-        // map: enforced attribute in offer => # other tasks which were launched against attribute
-        Map<String, Integer> offerAttrTaskCounts = new HashMap<>();
-        for (TaskInfo task : tasks) {
-            // only tally tasks which match the task matcher (eg 'index-.*')
-            if (!taskFilter.matches(task.getName())) {
-                continue;
-            }
-            if (PlacementUtils.areEquivalent(task, podInstance)) {
-                // This is stale data for the same task that we're currently evaluating for
-                // placement. Don't worry about counting its attribute usage. This occurs when we're
-                // redeploying a given task with a new configuration (old data not deleted yet).
+        // map: attribute value => # other tasks matching the task matcher (eg 'index-.*') which were launched against
+        // that attribute value. This excludes stale data for the same task that we're currently evaluating for
+        // placement, which occurs when we're redeploying a given task with a new configuration.
+        Map<String, Integer> attrTaskCounts = context.getAttributeCounts(taskFilter);
+        for (String offerAttributeString : offerAttributeStrings) {
+            // only enforce attribute(s) that match the attribute matcher (eg 'rack:.*'):
+            if (!attributeMatcher.matches(offerAttributeString)) {
                 continue;
             }
-            for (String taskAttributeString : new TaskLabelReader(task).getOfferAttributeStrings()) {
-                // only tally attribute values that are actually present in the offer
-                if (!offerAttributeStrings.contains(taskAttributeString)) {
-                    continue;
-                }
-                // only tally attribute(s) that match the attribute matcher (eg 'rack:.*'):
-                if (!attributeMatcher.matches(taskAttributeString)) {
-                    continue;
-                }
-                // increment the tally for this exact attribute value (eg 'rack:9'):
-                Integer val = offerAttrTaskCounts.get(taskAttributeString);
-                if (val == null) {
-                    val = 0;
-                }
-                val++;
-                if (val >= maxTasksPerSelectedAttribute) {
-                    // this attribute value's usage meets or exceeds the limit, and it is
-                    // present in this offer per the earlier check. offer denied!
-                    return EvaluationOutcome.fail(
-                            this,
-                            "Reached %d/%d tasks matching filter '%s' on this agent with attribute: %s",
-                            val,
-                            maxTasksPerSelectedAttribute,
-                            taskFilter.toString(),
-                            attributeMatcher.toString())
-                            .build();
-                }
-                offerAttrTaskCounts.put(taskAttributeString, val);
+            Integer count = attrTaskCounts.get(offerAttributeString);
+            if (count != null && count >= maxTasksPerSelectedAttribute) {
+                // this attribute value's usage meets or exceeds the limit, and it is
+                // present in this offer. offer denied!
+                return EvaluationOutcome.fail(
+                        this,
+                        "Reached %d/%d tasks matching filter '%s' on this agent with attribute: %s",
+                        count,
+                        maxTasksPerSelectedAttribute,
+                        taskFilter.toString(),
+                        attributeMatcher.toString())
+                        .build();
             }
         }
-        // after scanning all the tasks for usage of attributes present in this offer, nothing
-        // hit or exceeded the limit. offer accepted!
+        // none of the attribute values present in this offer hit or exceeded the limit. offer accepted!
         return EvaluationOutcome.pass(
                 this,
                 "Fits within limit of %d tasks matching filter '%s' on this agent with attribute: %s",
@@ -2,17 +2,13 @@ package com.mesosphere.sdk.offer.evaluate.placement;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.mesosphere.sdk.offer.TaskException;
 import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
-import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 
 import com.mesosphere.sdk.specification.PodInstance;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.mesos.Protos.Offer;
 import org.apache.mesos.Protos.TaskInfo;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 
@@ -39,8 +35,6 @@ import java.util.Collection;
  */
 public class MaxPerHostnameRule implements PlacementRule {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(MaxPerHostnameRule.class);
-
     private final int maxTasksPerHostname;
     private final StringMatcher taskFilter;
 
@@ -78,42 +72,29 @@ public class MaxPerHostnameRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
-        int offerHostnameTaskCounts = 0;
-        for (TaskInfo task : tasks) {
-            // only tally tasks which match the task matcher (eg 'index-.*')
-            if (!taskFilter.matches(task.getName())) {
-                continue;
-            }
-            if (PlacementUtils.areEquivalent(task, podInstance)) {
-                // This is stale data for the same task that we're currently evaluating for
-                // placement. Don't worry about counting its usage. This occurs when we're
-                // redeploying a given task with a new configuration (old data not deleted yet).
-                continue;
-            }
-            final String taskHostname;
-            try {
-                taskHostname = new TaskLabelReader(task).getHostname();
-            } catch (TaskException e) {
-                LOGGER.warn("Unable to extract hostname from task for filtering", e);
-                continue;
-            }
-            if (!taskHostname.equals(offer.getHostname())) {
-                continue;
-            }
-            ++offerHostnameTaskCounts;
-            if (offerHostnameTaskCounts >= maxTasksPerHostname) {
-                // the hostname for this offer meets or exceeds the limit. offer denied!
-                return EvaluationOutcome.fail(
-                        this,
-                        "%d/%d tasks matching filter '%s' are already present on this host",
-                        offerHostnameTaskCounts,
-                        maxTasksPerHostname,
-                        taskFilter.toString())
-                        .build();
-            }
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
+        // # other tasks matching the task matcher (eg 'index-.*') on this offer's hostname. This excludes stale data
+        // for the same task that we're currently evaluating for placement, which occurs when we're redeploying a
+        // given task with a new configuration.
+        Integer offerHostnameTaskCounts = context.getHostnameCounts(taskFilter).get(offer.getHostname());
+        if (offerHostnameTaskCounts == null) {
+            offerHostnameTaskCounts = 0;
+        }
+        if (offerHostnameTaskCounts > 0 && offerHostnameTaskCounts >= maxTasksPerHostname) {
+            // the hostname for this offer meets or exceeds the limit. offer denied!
+            return EvaluationOutcome.fail(
+                    this,
+                    "%d/%d tasks matching filter '%s' are already present on this host",
+                    offerHostnameTaskCounts,
+                    maxTasksPerHostname,
+                    taskFilter.toString())
+                    .build();
         }
-        // after scanning all the tasks for usage of attributes present in this offer, nothing
-        // hit or exceeded the limit. offer accepted!
+        // the tasks on this host don't hit or exceed the limit. offer accepted!
         return EvaluationOutcome.pass(
                 this,
                 "%d/%d tasks matching filter '%s' are present on this host",
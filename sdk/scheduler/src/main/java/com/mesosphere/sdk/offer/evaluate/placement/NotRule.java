@@ -25,7 +25,12 @@ public class NotRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
-        EvaluationOutcome child = rule.filter(offer, podInstance, tasks);
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
+        EvaluationOutcome child = rule.filter(offer, context);
         String reason = "Returning opposite of child rule";
         if (child.isPassing()) {
             return EvaluationOutcome.fail(this, reason).build();
@@ -31,10 +31,15 @@ public class OrRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
         int passingCount = 0;
         Collection<EvaluationOutcome> children = new ArrayList<>();
         for (PlacementRule rule : rules) {
-            EvaluationOutcome child = rule.filter(offer, podInstance, tasks);
+            EvaluationOutcome child = rule.filter(offer, context);
             if (child.isPassing()) {
                 passingCount++;
             }
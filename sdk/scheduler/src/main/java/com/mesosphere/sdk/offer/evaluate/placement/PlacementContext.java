@@ -0,0 +1,231 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.mesosphere.sdk.offer.TaskException;
+import com.mesosphere.sdk.offer.taskdata.AttributeStringUtils;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
+import com.mesosphere.sdk.specification.PodInstance;
+import org.apache.mesos.Protos.TaskInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The deployed tasks which {@link PlacementRule}s are evaluated against when placing a given {@link PodInstance}.
+ * <p>
+ * A context is built once per round of offer evaluation and shared by every rule and every offer in that round. Values
+ * are read from each task's labels at most once, and task counts are aggregated at most once per task filter, so that
+ * a rule can evaluate an offer with a few map lookups rather than a scan of every task. Tasks which are equivalent to
+ * the pod instance being placed (see {@link PlacementUtils#areEquivalent(TaskInfo, PodInstance)}) are excluded from
+ * the counts, as they are stale copies of the tasks being relaunched.
+ * <p>
+ * Aggregates are computed lazily on first use, and may be requested concurrently by parallel offer evaluation.
+ */
+public class PlacementContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlacementContext.class);
+
+    private final PodInstance podInstance;
+    private final Collection<TaskInfo> tasks;
+
+    /**
+     * The tasks which aren't equivalent to {@link #podInstance}, which are the tasks counted by the rules.
+     */
+    private final Supplier<List<TaskInfo>> otherTasks;
+    /**
+     * The hostname of each task in {@link #otherTasks}, or {@code null} if it's unknown.
+     */
+    private final Supplier<List<String>> otherTaskHostnames;
+    /**
+     * The offer attribute strings of each task in {@link #otherTasks}.
+     */
+    private final Supplier<List<List<String>>> otherTaskAttributes;
+
+    private final Map<StringMatcher, BitSet> matchingTasks = new ConcurrentHashMap<>();
+    private final Map<StringMatcher, Map<String, Integer>> hostnameCounts = new ConcurrentHashMap<>();
+    private final Map<StringMatcher, Map<String, Integer>> attributeCounts = new ConcurrentHashMap<>();
+    private final Map<StringMatcher, Map<String, Map<String, Integer>>> attributeValueCounts =
+            new ConcurrentHashMap<>();
+    private final Map<TaskTypeConverter, TaskTypes> taskTypes = new ConcurrentHashMap<>();
+
+    public PlacementContext(PodInstance podInstance, Collection<TaskInfo> tasks) {
+        this.podInstance = podInstance;
+        this.tasks = tasks;
+        this.otherTasks = Suppliers.memoize(() -> {
+            List<TaskInfo> result = new ArrayList<>();
+            for (TaskInfo task : tasks) {
+                if (!PlacementUtils.areEquivalent(task, podInstance)) {
+                    result.add(task);
+                }
+            }
+            return result;
+        });
+        this.otherTaskHostnames = Suppliers.memoize(() -> {
+            List<String> result = new ArrayList<>();
+            for (TaskInfo task : otherTasks.get()) {
+                try {
+                    result.add(new TaskLabelReader(task).getHostname());
+                } catch (TaskException e) {
+                    LOGGER.warn("Unable to extract hostname from task for filtering", e);
+                    result.add(null);
+                }
+            }
+            return result;
+        });
+        this.otherTaskAttributes = Suppliers.memoize(() -> {
+            List<List<String>> result = new ArrayList<>();
+            for (TaskInfo task : otherTasks.get()) {
+                result.add(new TaskLabelReader(task).getOfferAttributeStrings());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns the pod instance being placed.
+     */
+    public PodInstance getPodInstance() {
+        return podInstance;
+    }
+
+    /**
+     * Returns all deployed tasks in the service, possibly including stale copies of the tasks being placed.
+     */
+    public Collection<TaskInfo> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the number of tasks matching {@code taskFilter} on each hostname.
+     */
+    public Map<String, Integer> getHostnameCounts(StringMatcher taskFilter) {
+        return hostnameCounts.computeIfAbsent(taskFilter, filter -> {
+            List<String> hostnames = otherTaskHostnames.get();
+            Map<String, Integer> counts = new HashMap<>();
+            BitSet matches = getMatchingTasks(filter);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                increment(counts, hostnames.get(i));
+            }
+            return Collections.unmodifiableMap(counts);
+        });
+    }
+
+    /**
+     * Returns the number of tasks matching {@code taskFilter} which were launched against each attribute string, such
+     * as {@code rack:foo}.
+     */
+    public Map<String, Integer> getAttributeCounts(StringMatcher taskFilter) {
+        return attributeCounts.computeIfAbsent(taskFilter, filter -> {
+            List<List<String>> attributes = otherTaskAttributes.get();
+            Map<String, Integer> counts = new HashMap<>();
+            BitSet matches = getMatchingTasks(filter);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                for (String attribute : attributes.get(i)) {
+                    increment(counts, attribute);
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        });
+    }
+
+    /**
+     * Returns the number of tasks matching {@code taskFilter} on each value of the attribute named
+     * {@code attributeName}, which is matched case-insensitively.
+     */
+    public Map<String, Integer> getAttributeValueCounts(StringMatcher taskFilter, String attributeName) {
+        Map<String, Map<String, Integer>> countsByName =
+                attributeValueCounts.computeIfAbsent(taskFilter, filter -> new ConcurrentHashMap<>());
+        return countsByName.computeIfAbsent(attributeName, name -> {
+            List<List<String>> attributes = otherTaskAttributes.get();
+            Map<String, Integer> counts = new HashMap<>();
+            BitSet matches = getMatchingTasks(taskFilter);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                for (String attribute : attributes.get(i)) {
+                    AttributeStringUtils.NameValue nameValue = AttributeStringUtils.split(attribute);
+                    if (nameValue.name.equalsIgnoreCase(name)) {
+                        increment(counts, nameValue.value);
+                        break;
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        });
+    }
+
+    /**
+     * Returns the number of tasks of the provided type, including any stale copies of the tasks being placed.
+     */
+    public int getTaskTypeCount(TaskTypeConverter typeConverter, String taskType) {
+        Integer count = getTaskTypes(typeConverter).counts.get(taskType);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns whether any task of the provided type is on the agent with the provided ID, excluding any stale copies
+     * of the tasks being placed.
+     */
+    public boolean isTaskTypeOnAgent(TaskTypeConverter typeConverter, String taskType, String agentId) {
+        Set<String> agentIds = getTaskTypes(typeConverter).agentIds.get(taskType);
+        return agentIds != null && agentIds.contains(agentId);
+    }
+
+    /**
+     * Returns the indices of the tasks in {@link #otherTasks} whose names match the provided filter. Each filter is
+     * only applied once per task.
+     */
+    private BitSet getMatchingTasks(StringMatcher taskFilter) {
+        return matchingTasks.computeIfAbsent(taskFilter, filter -> {
+            List<TaskInfo> candidates = otherTasks.get();
+            BitSet matches = new BitSet(candidates.size());
+            for (int i = 0; i < candidates.size(); ++i) {
+                if (filter.matches(candidates.get(i).getName())) {
+                    matches.set(i);
+                }
+            }
+            return matches;
+        });
+    }
+
+    private TaskTypes getTaskTypes(TaskTypeConverter typeConverter) {
+        return taskTypes.computeIfAbsent(typeConverter, converter -> {
+            TaskTypes result = new TaskTypes();
+            for (TaskInfo task : tasks) {
+                String taskType = converter.getTaskType(task);
+                if (taskType == null) {
+                    continue;
+                }
+                increment(result.counts, taskType);
+                if (!PlacementUtils.areEquivalent(task, podInstance)) {
+                    result.agentIds.computeIfAbsent(taskType, type -> new HashSet<>())
+                            .add(task.getSlaveId().getValue());
+                }
+            }
+            return result;
+        });
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        if (key != null) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * The tasks of each type for a given {@link TaskTypeConverter}.
+     */
+    private static class TaskTypes {
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Set<String>> agentIds = new HashMap<>();
+    }
+}
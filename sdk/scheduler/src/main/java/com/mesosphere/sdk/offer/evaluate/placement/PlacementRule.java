@@ -35,6 +35,22 @@ public interface PlacementRule {
      */
     EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks);
 
+    /**
+     * Returns whether the provided {@link Offer} passes or fails this placement constraint, using a
+     * {@link PlacementContext} which is shared across all rules and offers in an evaluation round.
+     *
+     * Rules which examine the deployed tasks should override this to use the precomputed lookups in the
+     * context, and rules which are a composition of other rules should pass the context to their children.
+     * By default this calls {@link #filter(Offer, PodInstance, Collection)}.
+     *
+     * @param offer the offer to be examined
+     * @param context the pod instance being placed and the currently deployed tasks in the system
+     * @return an {@link EvaluationOutcome} object describing whether the placement succeeded or failed and why
+     */
+    default EvaluationOutcome filter(Offer offer, PlacementContext context) {
+        return filter(offer, context.getPodInstance(), context.getTasks());
+    }
+
     /**
      * Must be explicitly implemented by all PlacementRules.
      *
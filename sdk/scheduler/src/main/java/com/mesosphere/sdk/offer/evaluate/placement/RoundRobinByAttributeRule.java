@@ -3,14 +3,13 @@ package com.mesosphere.sdk.offer.evaluate.placement;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.mesosphere.sdk.offer.taskdata.AttributeStringUtils;
-import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.mesos.Protos.Attribute;
 import org.apache.mesos.Protos.Offer;
-import org.apache.mesos.Protos.TaskInfo;
 
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -68,15 +67,8 @@ public class RoundRobinByAttributeRule extends AbstractRoundRobinRule {
     }
 
     @Override
-    protected String getValue(TaskInfo task) {
-        for (String taskAttributeString : new TaskLabelReader(task).getOfferAttributeStrings()) {
-            AttributeStringUtils.NameValue taskAttributeNameValue =
-                    AttributeStringUtils.split(taskAttributeString);
-            if (taskAttributeNameValue.name.equalsIgnoreCase(attributeName)) {
-                return taskAttributeNameValue.value;
-            }
-        }
-        return null;
+    protected Map<String, Integer> getValueCounts(PlacementContext context) {
+        return context.getAttributeValueCounts(taskFilter, attributeName);
     }
 
     @JsonProperty("name")
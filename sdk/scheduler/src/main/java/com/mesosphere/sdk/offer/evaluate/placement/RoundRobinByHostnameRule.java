@@ -2,16 +2,12 @@ package com.mesosphere.sdk.offer.evaluate.placement;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.mesosphere.sdk.offer.TaskException;
-import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.mesos.Protos.Offer;
-import org.apache.mesos.Protos.TaskInfo;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -43,8 +39,6 @@ import java.util.Optional;
  */
 public class RoundRobinByHostnameRule extends AbstractRoundRobinRule {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(RoundRobinByHostnameRule.class);
-
     public RoundRobinByHostnameRule(Optional<Integer> agentCount) {
         this(agentCount, null);
     }
@@ -64,15 +58,10 @@ public class RoundRobinByHostnameRule extends AbstractRoundRobinRule {
     }
 
     /**
-     * Returns a value to round robin against from the provided {@link TaskInfo}.
+     * Returns the number of deployed tasks to round robin against on each hostname.
      */
-    protected String getValue(TaskInfo task) {
-        try {
-            return new TaskLabelReader(task).getHostname();
-        } catch (TaskException e) {
-            LOGGER.warn("Unable to extract hostname from task for filtering", e);
-            return null;
-        }
+    protected Map<String, Integer> getValueCounts(PlacementContext context) {
+        return context.getHostnameCounts(taskFilter);
     }
 
     @JsonProperty("agent-count")
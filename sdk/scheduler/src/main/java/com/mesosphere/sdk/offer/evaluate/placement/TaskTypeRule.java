@@ -1,8 +1,6 @@
 package com.mesosphere.sdk.offer.evaluate.placement;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import com.mesosphere.sdk.specification.PodInstance;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -93,17 +91,17 @@ public class TaskTypeRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
-        List<TaskInfo> matchingTasks = new ArrayList<>();
-        for (TaskInfo task : tasks) {
-            if (typeToFind.equals(typeConverter.getTaskType(task))) {
-                matchingTasks.add(task);
-            }
-        }
-        // Create a rule which will handle most of the validation. Logic is deferred to avoid
-        // double-counting a task against a prior version of itself.
+        return filter(offer, new PlacementContext(podInstance, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, PlacementContext context) {
+        // The count includes any stale data for the same task that we're currently evaluating for placement, while
+        // the agent lookup excludes it. This avoids double-counting a task against a prior version of itself.
+        int matchingTaskCount = context.getTaskTypeCount(typeConverter, typeToFind);
         switch (behaviorType) {
         case AVOID:
-            if (matchingTasks.isEmpty()) {
+            if (matchingTaskCount == 0) {
                 // nothing to avoid, but this is expected when avoiding nodes of the same type
                 // (self-avoidance), or when the developer has configured bidirectional rules
                 // (A avoids B + B avoids A)
@@ -113,10 +111,10 @@ public class TaskTypeRule implements PlacementRule {
                         typeToFind)
                         .build();
             } else {
-                return filterAvoid(offer, podInstance, matchingTasks);
+                return filterAvoid(offer, context);
             }
         case COLOCATE:
-            if (matchingTasks.isEmpty()) {
+            if (matchingTaskCount == 0) {
                 // nothing to colocate with! fall back to allowing any location.
                 // this is expected when the developer has configured bidirectional rules
                 // (A colocates with B + B colocates with A)
@@ -126,7 +124,7 @@ public class TaskTypeRule implements PlacementRule {
                         typeToFind)
                         .build();
             } else {
-                return filterColocate(offer, podInstance, matchingTasks);
+                return filterColocate(offer, context);
             }
         default:
             throw new IllegalStateException("Unsupported behavior type: " + behaviorType);
@@ -139,25 +137,13 @@ public class TaskTypeRule implements PlacementRule {
      * that the offer be located on an agent which doesn't currently have an instance of the
      * specified task type.
      */
-    private EvaluationOutcome filterAvoid(
-            Offer offer,
-            PodInstance podInstance,
-            Collection<TaskInfo> tasksToAvoid) {
-
-        for (TaskInfo taskToAvoid : tasksToAvoid) {
-            if (PlacementUtils.areEquivalent(taskToAvoid, podInstance)) {
-                // This is stale data for the same task that we're currently evaluating for
-                // placement. Don't worry about avoiding it. This occurs when we're redeploying
-                // a given task with a new configuration (old data not deleted yet).
-                continue;
-            }
-            if (taskToAvoid.getSlaveId().equals(offer.getSlaveId())) {
-                // The offer is for an agent which has a task to be avoided. Denied!
-                return EvaluationOutcome.fail(
-                        this,
-                        "Found a task matching avoided type '%s' on this agent.", typeToFind)
-                        .build();
-            }
+    private EvaluationOutcome filterAvoid(Offer offer, PlacementContext context) {
+        if (context.isTaskTypeOnAgent(typeConverter, typeToFind, offer.getSlaveId().getValue())) {
+            // The offer is for an agent which has a task to be avoided. Denied!
+            return EvaluationOutcome.fail(
+                    this,
+                    "Found a task matching avoided type '%s' on this agent.", typeToFind)
+                    .build();
         }
         // The offer doesn't match any tasks to avoid. Approved!
         return EvaluationOutcome.pass(this, "No tasks of avoided type '%s' found on this agent.", typeToFind).build();
@@ -169,26 +155,14 @@ public class TaskTypeRule implements PlacementRule {
      * that the offer be located on an agent which currently has an instance of the specified task
      * type.
      */
-    private EvaluationOutcome filterColocate(
-            Offer offer,
-            PodInstance podInstance,
-            Collection<TaskInfo> tasksToColocate) {
-
-        for (TaskInfo taskToColocate : tasksToColocate) {
-            if (PlacementUtils.areEquivalent(taskToColocate, podInstance)) {
-                // This is stale data for the same task that we're currently evaluating for
-                // placement. Don't worry about colocating with it. This occurs when we're
-                // redeploying a given task with a new configuration (old data not deleted yet).
-                continue;
-            }
-            if (taskToColocate.getSlaveId().equals(offer.getSlaveId())) {
-                // The offer is for an agent which has a task to colocate with. Approved!
-                return EvaluationOutcome.pass(
-                        this,
-                        "Found a task matching colocated type '%s' on this agent.",
-                        typeToFind)
-                        .build();
-            }
+    private EvaluationOutcome filterColocate(Offer offer, PlacementContext context) {
+        if (context.isTaskTypeOnAgent(typeConverter, typeToFind, offer.getSlaveId().getValue())) {
+            // The offer is for an agent which has a task to colocate with. Approved!
+            return EvaluationOutcome.pass(
+                    this,
+                    "Found a task matching colocated type '%s' on this agent.",
+                    typeToFind)
+                    .build();
         }
         // The offer doesn't match any tasks to colocate with. Denied!
         return EvaluationOutcome.fail(
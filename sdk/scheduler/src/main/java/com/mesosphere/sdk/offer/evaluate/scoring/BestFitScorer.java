@@ -0,0 +1,26 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prefers the offer which would have the smallest fraction of its cpus, mem, and disk left over after the pod's
+ * reservations are made. Packing pods tightly leaves larger contiguous blocks of resources on other agents for large
+ * pods.
+ */
+public class BestFitScorer implements OfferScorer {
+
+    @Override
+    public double score(
+            MesosResourcePool resourcePool,
+            List<OfferRecommendation> recommendations,
+            PodInstanceRequirement podInstanceRequirement,
+            Collection<Protos.TaskInfo> allTasks) {
+        return -ScoringUtils.getRemainingFraction(resourcePool, recommendations);
+    }
+}
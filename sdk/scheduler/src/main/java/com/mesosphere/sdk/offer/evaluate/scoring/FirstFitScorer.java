@@ -0,0 +1,24 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Gives all offers the same score, such that the first passing offer is selected.
+ */
+public class FirstFitScorer implements OfferScorer {
+
+    @Override
+    public double score(
+            MesosResourcePool resourcePool,
+            List<OfferRecommendation> recommendations,
+            PodInstanceRequirement podInstanceRequirement,
+            Collection<Protos.TaskInfo> allTasks) {
+        return 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.TaskUtils;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prefers offers from agents which hosted the pod's previous tasks, where any prior reservations for the pod are most
+ * likely to be found. Offers which would require fewer new reservations are preferred among the remaining offers.
+ */
+public class LocalityScorer implements OfferScorer {
+
+    @Override
+    public double score(
+            MesosResourcePool resourcePool,
+            List<OfferRecommendation> recommendations,
+            PodInstanceRequirement podInstanceRequirement,
+            Collection<Protos.TaskInfo> allTasks) {
+        Collection<String> podTaskNames = TaskUtils.getTaskNames(podInstanceRequirement.getPodInstance());
+        boolean hostsPodTasks = allTasks.stream()
+                .filter(taskInfo -> podTaskNames.contains(taskInfo.getName()))
+                .anyMatch(taskInfo -> taskInfo.getSlaveId().equals(resourcePool.getOffer().getSlaveId()));
+        long reserveCount = recommendations.stream()
+                .filter(recommendation -> recommendation.getOperation().getType()
+                        .equals(Protos.Offer.Operation.Type.RESERVE))
+                .count();
+        // The reservation count is scaled to always be less than 1, so that it never outweighs locality:
+        return (hostsPodTasks ? 1 : 0) - ((double) reserveCount / (reserveCount + 1));
+    }
+}
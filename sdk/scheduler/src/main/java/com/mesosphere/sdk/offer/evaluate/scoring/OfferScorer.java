@@ -0,0 +1,37 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An {@link OfferScorer} ranks the offers which passed evaluation for a pod, so that the most suitable offer is
+ * selected rather than simply the first one which passed. Scorers are registered by name in {@link OfferScorers} and
+ * are selected per pod via the {@code offer-scorer} setting in the service YAML.
+ *
+ * Implementations must be thread-safe, as offers may be scored concurrently.
+ */
+public interface OfferScorer {
+
+    /**
+     * Returns a score for the provided passing offer. The offer with the highest score is selected, with ties going to
+     * the offer which was received first.
+     *
+     * @param resourcePool the resources which would remain in the offer which passed evaluation if it were selected,
+     *     i.e. after the recommendations are performed. When several pods are packed into one offer, this excludes the
+     *     resources consumed by the pods which were placed before this one. The offer itself is available via
+     *     {@link MesosResourcePool#getOffer()}
+     * @param recommendations the recommendations which would be performed against the offer if it were selected
+     * @param podInstanceRequirement the pod being placed
+     * @param allTasks all tasks currently in the service
+     */
+    double score(
+            MesosResourcePool resourcePool,
+            List<OfferRecommendation> recommendations,
+            PodInstanceRequirement podInstanceRequirement,
+            Collection<Protos.TaskInfo> allTasks);
+}
@@ -0,0 +1,66 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the {@link OfferScorer}s which may be referenced by name in a pod's {@code offer-scorer} setting.
+ *
+ * The following scorers are available by default:
+ * <ul>
+ * <li>{@code first-fit}: selects the first passing offer (the default when no scorer is configured)</li>
+ * <li>{@code best-fit}: selects the offer with the least cpus/mem/disk left over, to reduce fragmentation</li>
+ * <li>{@code worst-fit}: selects the offer with the most cpus/mem/disk left over</li>
+ * <li>{@code spread}: selects the offer from the agent with the fewest tasks of the same pod type</li>
+ * <li>{@code locality}: selects an offer from an agent which already hosts the pod's previous tasks</li>
+ * </ul>
+ *
+ * Services may register additional scorers via {@link #register(String, OfferScorer)} before their
+ * {@link com.mesosphere.sdk.specification.ServiceSpec} is built.
+ */
+public class OfferScorers {
+
+    public static final String FIRST_FIT = "first-fit";
+    public static final String BEST_FIT = "best-fit";
+    public static final String WORST_FIT = "worst-fit";
+    public static final String SPREAD = "spread";
+    public static final String LOCALITY = "locality";
+
+    private static final Map<String, OfferScorer> SCORERS = new ConcurrentHashMap<>();
+
+    static {
+        register(FIRST_FIT, new FirstFitScorer());
+        register(BEST_FIT, new BestFitScorer());
+        register(WORST_FIT, new WorstFitScorer());
+        register(SPREAD, new SpreadScorer());
+        register(LOCALITY, new LocalityScorer());
+    }
+
+    private OfferScorers() {
+        // do not instantiate
+    }
+
+    /**
+     * Registers a scorer under the provided name, replacing any scorer previously registered with that name.
+     */
+    public static void register(String name, OfferScorer scorer) {
+        SCORERS.put(name, scorer);
+    }
+
+    /**
+     * Returns the scorer registered with the provided name, or an empty Optional if none was found.
+     */
+    public static Optional<OfferScorer> get(String name) {
+        return Optional.ofNullable(SCORERS.get(name));
+    }
+
+    /**
+     * Returns the sorted names of all registered scorers.
+     */
+    public static Collection<String> getNames() {
+        return new TreeSet<>(SCORERS.keySet());
+    }
+}
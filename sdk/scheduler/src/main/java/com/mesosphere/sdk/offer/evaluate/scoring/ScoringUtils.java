@@ -0,0 +1,96 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.MesosResource;
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.TaskException;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
+import org.apache.mesos.Protos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilities shared by {@link OfferScorer} implementations.
+ */
+class ScoringUtils {
+
+    private static final List<String> SCORED_RESOURCE_NAMES = Arrays.asList(
+            Constants.CPUS_RESOURCE_TYPE, Constants.MEMORY_RESOURCE_TYPE, Constants.DISK_RESOURCE_TYPE);
+
+    private ScoringUtils() {
+        // do not instantiate
+    }
+
+    /**
+     * Returns the average fraction of the cpus, mem, and disk available in the offer which would be left over after the
+     * RESERVE operations in the provided recommendations, between 0.0 (nothing left over) and 1.0 (nothing consumed).
+     * The available resources are those remaining in the provided pool plus those reserved by the recommendations, so
+     * that resources already consumed by other pods packed into the same offer are not counted. Resource types which
+     * are not available are ignored.
+     *
+     * @param remainingPool the resources remaining in the offer after the recommendations are performed
+     */
+    static double getRemainingFraction(MesosResourcePool remainingPool, List<OfferRecommendation> recommendations) {
+        Map<String, Double> remaining = new HashMap<>();
+        for (Map<String, Protos.Value> rolePool : remainingPool.getReservableMergedPoolByRole().values()) {
+            rolePool.forEach((name, value) -> {
+                if (value.getType().equals(Protos.Value.Type.SCALAR)) {
+                    remaining.merge(name, value.getScalar().getValue(), Double::sum);
+                }
+            });
+        }
+        for (List<MesosResource> atomicResources : remainingPool.getUnreservedAtomicPool().values()) {
+            for (MesosResource atomicResource : atomicResources) {
+                sumScalars(Collections.singletonList(atomicResource.getResource()))
+                        .forEach((name, value) -> remaining.merge(name, value, Double::sum));
+            }
+        }
+        Map<String, Double> reserved = new HashMap<>();
+        for (OfferRecommendation recommendation : recommendations) {
+            Protos.Offer.Operation operation = recommendation.getOperation();
+            if (operation.getType().equals(Protos.Offer.Operation.Type.RESERVE)) {
+                sumScalars(operation.getReserve().getResourcesList())
+                        .forEach((name, value) -> reserved.merge(name, value, Double::sum));
+            }
+        }
+
+        double fractionSum = 0;
+        int fractionCount = 0;
+        for (String name : SCORED_RESOURCE_NAMES) {
+            double remainingValue = remaining.getOrDefault(name, 0.0);
+            double availableValue = remainingValue + reserved.getOrDefault(name, 0.0);
+            if (availableValue <= 0) {
+                continue;
+            }
+            fractionSum += remainingValue / availableValue;
+            fractionCount++;
+        }
+        return fractionCount == 0 ? 0 : fractionSum / fractionCount;
+    }
+
+    /**
+     * Returns whether the provided task belongs to a pod of the provided type.
+     */
+    static boolean isPodType(Protos.TaskInfo taskInfo, String podType) {
+        try {
+            return new TaskLabelReader(taskInfo).getType().equals(podType);
+        } catch (TaskException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, Double> sumScalars(List<Protos.Resource> resources) {
+        Map<String, Double> sums = new HashMap<>();
+        for (Protos.Resource resource : resources) {
+            if (resource.getType().equals(Protos.Value.Type.SCALAR)) {
+                sums.merge(resource.getName(), resource.getScalar().getValue(), Double::sum);
+            }
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prefers offers from agents which are running the fewest tasks of the same pod type, using the total number of the
+ * service's tasks on the agent as a tie-breaker.
+ */
+public class SpreadScorer implements OfferScorer {
+
+    @Override
+    public double score(
+            MesosResourcePool resourcePool,
+            List<OfferRecommendation> recommendations,
+            PodInstanceRequirement podInstanceRequirement,
+            Collection<Protos.TaskInfo> allTasks) {
+        String podType = podInstanceRequirement.getPodInstance().getPod().getType();
+        int sameTypeCount = 0;
+        int totalCount = 0;
+        for (Protos.TaskInfo taskInfo : allTasks) {
+            if (!taskInfo.getSlaveId().equals(resourcePool.getOffer().getSlaveId())) {
+                continue;
+            }
+            totalCount++;
+            if (ScoringUtils.isPodType(taskInfo, podType)) {
+                sameTypeCount++;
+            }
+        }
+        // The tie-breaker is scaled to always be less than 1, so that it never outweighs the same-type count:
+        return -sameTypeCount - ((double) totalCount / (allTasks.size() + 1));
+    }
+}
@@ -0,0 +1,25 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prefers the offer which would have the largest fraction of its cpus, mem, and disk left over after the pod's
+ * reservations are made. This leaves the most headroom for the pod to grow in place.
+ */
+public class WorstFitScorer implements OfferScorer {
+
+    @Override
+    public double score(
+            MesosResourcePool resourcePool,
+            List<OfferRecommendation> recommendations,
+            PodInstanceRequirement podInstanceRequirement,
+            Collection<Protos.TaskInfo> allTasks) {
+        return ScoringUtils.getRemainingFraction(resourcePool, recommendations);
+    }
+}
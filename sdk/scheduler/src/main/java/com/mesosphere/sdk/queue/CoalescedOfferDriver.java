@@ -0,0 +1,147 @@
+package com.mesosphere.sdk.queue;
+
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link SchedulerDriver} which translates operations against offers that were merged by an {@link OfferQueue} into
+ * operations against the original offers. Accepting or launching against a merged offer accepts all of the offers it
+ * was merged from, and declining a merged offer declines each of them. All other calls are passed through unchanged.
+ */
+public class CoalescedOfferDriver implements SchedulerDriver {
+
+    private final SchedulerDriver driver;
+    private final OfferQueue offerQueue;
+
+    public CoalescedOfferDriver(SchedulerDriver driver, OfferQueue offerQueue) {
+        this.driver = driver;
+        this.offerQueue = offerQueue;
+    }
+
+    @Override
+    public Protos.Status acceptOffers(
+            Collection<Protos.OfferID> offerIds,
+            Collection<Protos.Offer.Operation> operations,
+            Protos.Filters filters) {
+        return driver.acceptOffers(expand(offerIds), operations, filters);
+    }
+
+    @Override
+    public Protos.Status launchTasks(
+            Collection<Protos.OfferID> offerIds, Collection<Protos.TaskInfo> tasks, Protos.Filters filters) {
+        return driver.launchTasks(expand(offerIds), tasks, filters);
+    }
+
+    @Override
+    public Protos.Status launchTasks(Collection<Protos.OfferID> offerIds, Collection<Protos.TaskInfo> tasks) {
+        return driver.launchTasks(expand(offerIds), tasks);
+    }
+
+    @Deprecated
+    @Override
+    public Protos.Status launchTasks(
+            Protos.OfferID offerId, Collection<Protos.TaskInfo> tasks, Protos.Filters filters) {
+        return driver.launchTasks(offerQueue.getCoalescedOfferIds(offerId), tasks, filters);
+    }
+
+    @Deprecated
+    @Override
+    public Protos.Status launchTasks(Protos.OfferID offerId, Collection<Protos.TaskInfo> tasks) {
+        return driver.launchTasks(offerQueue.getCoalescedOfferIds(offerId), tasks);
+    }
+
+    @Override
+    public Protos.Status declineOffer(Protos.OfferID offerId, Protos.Filters filters) {
+        Protos.Status status = Protos.Status.DRIVER_RUNNING;
+        for (Protos.OfferID coalescedOfferId : offerQueue.getCoalescedOfferIds(offerId)) {
+            status = driver.declineOffer(coalescedOfferId, filters);
+        }
+        return status;
+    }
+
+    @Override
+    public Protos.Status declineOffer(Protos.OfferID offerId) {
+        Protos.Status status = Protos.Status.DRIVER_RUNNING;
+        for (Protos.OfferID coalescedOfferId : offerQueue.getCoalescedOfferIds(offerId)) {
+            status = driver.declineOffer(coalescedOfferId);
+        }
+        return status;
+    }
+
+    @Override
+    public Protos.Status start() {
+        return driver.start();
+    }
+
+    @Override
+    public Protos.Status stop(boolean failover) {
+        return driver.stop(failover);
+    }
+
+    @Override
+    public Protos.Status stop() {
+        return driver.stop();
+    }
+
+    @Override
+    public Protos.Status abort() {
+        return driver.abort();
+    }
+
+    @Override
+    public Protos.Status join() {
+        return driver.join();
+    }
+
+    @Override
+    public Protos.Status run() {
+        return driver.run();
+    }
+
+    @Override
+    public Protos.Status requestResources(Collection<Protos.Request> requests) {
+        return driver.requestResources(requests);
+    }
+
+    @Override
+    public Protos.Status killTask(Protos.TaskID taskId) {
+        return driver.killTask(taskId);
+    }
+
+    @Override
+    public Protos.Status reviveOffers() {
+        return driver.reviveOffers();
+    }
+
+    @Override
+    public Protos.Status suppressOffers() {
+        return driver.suppressOffers();
+    }
+
+    @Override
+    public Protos.Status acknowledgeStatusUpdate(Protos.TaskStatus status) {
+        return driver.acknowledgeStatusUpdate(status);
+    }
+
+    @Override
+    public Protos.Status sendFrameworkMessage(Protos.ExecutorID executorId, Protos.SlaveID agentId, byte[] data) {
+        return driver.sendFrameworkMessage(executorId, agentId, data);
+    }
+
+    @Override
+    public Protos.Status reconcileTasks(Collection<Protos.TaskStatus> statuses) {
+        return driver.reconcileTasks(statuses);
+    }
+
+    private List<Protos.OfferID> expand(Collection<Protos.OfferID> offerIds) {
+        List<Protos.OfferID> expandedOfferIds = new ArrayList<>();
+        for (Protos.OfferID offerId : offerIds) {
+            expandedOfferIds.addAll(offerQueue.getCoalescedOfferIds(offerId));
+        }
+        return expandedOfferIds;
+    }
+}
@@ -1,27 +1,87 @@
 package com.mesosphere.sdk.queue;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.mesosphere.sdk.offer.Constants;
 import org.apache.mesos.Protos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * This class acts as a buffer of Offers from Mesos.  By default it holds a maximum of 100 Offers.
+ *
+ * <p>Queued offers are indexed by their {@link Protos.OfferID}, so that a rescinded offer may be removed without
+ * scanning the queue. When the queue is full, the configured {@link OverflowPolicy} determines which offer is declined.
+ * Offers which have waited in the queue for longer than the configured maximum age may be removed via
+ * {@link #removeExpired()}, so that they can be declined rather than evaluated after Mesos may have rescinded them.
+ *
+ * <p>If coalescing is enabled, offers from the same agent (and for the same role) which are taken together are merged
+ * into a single logical offer containing the resources of all of them. The merged offer has the ID of the first of its
+ * offers, and {@link #getCoalescedOfferIds(Protos.OfferID)} returns the IDs of all the offers which it represents. See
+ * {@link CoalescedOfferDriver} for translating operations on the merged offer back into operations on those offers.
  */
 public class OfferQueue {
+
+    /**
+     * The behavior of the queue when an offer is received while the queue is at capacity.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The newly received offer is declined, leaving the queue unchanged.
+         */
+        DECLINE_NEWEST(Constants.SHORT_DECLINE_SECONDS),
+
+        /**
+         * The offer which has been queued the longest is declined to make room for the newly received offer.
+         */
+        DECLINE_OLDEST(Constants.SHORT_DECLINE_SECONDS),
+
+        /**
+         * The newly received offer is declined with the shortest possible refuse filter, so that Mesos may offer its
+         * resources again as soon as possible.
+         */
+        DECLINE_SHORTEST_FILTER(0);
+
+        private final int declineSeconds;
+
+        OverflowPolicy(int declineSeconds) {
+            this.declineSeconds = declineSeconds;
+        }
+
+        /**
+         * Returns the refuse duration in seconds to use when declining offers which were rejected by this policy.
+         */
+        public int getDeclineSeconds() {
+            return declineSeconds;
+        }
+    }
+
     private static final int DEFAULT_CAPACITY = 100;
     private static final Duration DEFAULT_OFFER_WAIT = Duration.ofSeconds(5);
+    private static final Duration RESCIND_RATE_WINDOW = Duration.ofMinutes(1);
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
-    private final BlockingQueue<Protos.Offer> queue;
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration maxAge;
+    private final boolean coalesceByAgent;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final LinkedHashMap<Protos.OfferID, QueuedOffer> queue = new LinkedHashMap<>();
+    // Merged offer ID => IDs of the offers which were merged, for the offers returned by the last takeAll():
+    private final Map<Protos.OfferID, List<Protos.OfferID>> coalescedOfferIds = new HashMap<>();
+    private final Deque<Long> recentRescindTimesMs = new ArrayDeque<>();
+    private long rescindCount = 0;
+    private long expiredCount = 0;
+    private long overflowCount = 0;
 
     public OfferQueue() {
         this(DEFAULT_CAPACITY);
@@ -33,7 +93,26 @@ public class OfferQueue {
      * @param capacity the maximum size of the queue, or zero for unlimited queue size
      */
     public OfferQueue(int capacity) {
-        this.queue = capacity == 0 ? new LinkedBlockingQueue<>() : new LinkedBlockingQueue<>(capacity);
+        this(capacity, OverflowPolicy.DECLINE_NEWEST, Duration.ZERO, false);
+    }
+
+    /**
+     * Creates a new queue with the provided settings.
+     *
+     * @param capacity the maximum size of the queue, or zero for unlimited queue size
+     * @param overflowPolicy which offer to decline when an offer is received while the queue is full
+     * @param maxAge the maximum duration an offer may be queued before it's returned by {@link #removeExpired()}, or
+     *     zero for no expiry
+     * @param coalesceByAgent whether offers from the same agent should be merged when they are taken from the queue
+     */
+    public OfferQueue(int capacity, OverflowPolicy overflowPolicy, Duration maxAge, boolean coalesceByAgent) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(String.format("Invalid offer queue capacity: %d", capacity));
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.maxAge = maxAge;
+        this.coalesceByAgent = coalesceByAgent;
     }
 
     /**
@@ -41,18 +120,25 @@ public class OfferQueue {
      * It returns all Offers currently in the queue if any are present and none otherwise.
      */
     public List<Protos.Offer> takeAll(Duration duration) {
-        List<Protos.Offer> offers = new LinkedList<>();
+        List<Protos.Offer> offers = new ArrayList<>();
+        lock.lock();
         try {
-            // The poll() waits for one Offer or returns null if none is present within the timeout.  The following
-            // drainTo() call will pull the following Offers (if any) off the queue and return.
-            Protos.Offer offer = queue.poll(duration.getSeconds(), TimeUnit.SECONDS);
-            if (offer != null) {
-                offers.add(offer);
+            long remainingNanos = duration.toNanos();
+            while (queue.isEmpty() && remainingNanos > 0) {
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            for (QueuedOffer queuedOffer : queue.values()) {
+                offers.add(queuedOffer.offer);
+            }
+            queue.clear();
+            coalescedOfferIds.clear();
+            if (coalesceByAgent) {
+                offers = coalesce(offers);
             }
-
-            queue.drainTo(offers);
         } catch (InterruptedException e) {
             logger.warn("Interrupted while waiting for offer in queue.");
+        } finally {
+            lock.unlock();
         }
 
         return offers;
@@ -68,43 +154,198 @@ public class OfferQueue {
     }
 
     /**
-     * This method enqueues an Offer from Mesos if there is capacity. If there is not capacity the Offer is not added
-     * to the queue.
-     * @return true if the Offer was successfully put in the queue, false otherwise
+     * This method enqueues an Offer from Mesos if there is capacity. If there is not capacity, the configured
+     * {@link OverflowPolicy} determines whether the Offer or an already queued Offer is rejected. Any rejected Offers
+     * should be declined by the caller, using {@link OverflowPolicy#getDeclineSeconds()}.
+     *
+     * @return the Offers which were rejected from the queue, or an empty list if the Offer was queued without rejecting
+     *     any Offers
      */
-    public boolean offer(Protos.Offer offer) {
-        return queue.offer(offer);
+    public List<Protos.Offer> enqueue(Protos.Offer offer) {
+        lock.lock();
+        try {
+            if (capacity != 0 && queue.size() >= capacity && !queue.containsKey(offer.getId())) {
+                ++overflowCount;
+                if (overflowPolicy != OverflowPolicy.DECLINE_OLDEST) {
+                    return Collections.singletonList(offer);
+                }
+                Iterator<QueuedOffer> iter = queue.values().iterator();
+                Protos.Offer oldestOffer = iter.next().offer;
+                iter.remove();
+                queue.put(offer.getId(), new QueuedOffer(offer));
+                notEmpty.signal();
+                return Collections.singletonList(oldestOffer);
+            }
+            queue.put(offer.getId(), new QueuedOffer(offer));
+            notEmpty.signal();
+            return Collections.emptyList();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * This method removes an offer from the queue based on its OfferID.
+     *
+     * @return whether the offer was present in the queue
      */
-    public void remove(Protos.OfferID offerID) {
-        Collection<Protos.Offer> offers = queue.parallelStream()
-                .filter(offer -> offer.getId().equals(offerID))
-                .collect(Collectors.toList());
+    public boolean remove(Protos.OfferID offerID) {
+        boolean removed;
+        lock.lock();
+        try {
+            ++rescindCount;
+            long nowMs = System.currentTimeMillis();
+            recentRescindTimesMs.addLast(nowMs);
+            trimRescindTimes(nowMs);
+            removed = queue.remove(offerID) != null;
+        } finally {
+            lock.unlock();
+        }
 
-        boolean removed = queue.removeAll(offers);
         if (!removed) {
             logger.warn("Attempted to remove offer: '{}' but it was not present in the queue.", offerID.getValue());
         } else {
             logger.info("Removed offer: {}", offerID.getValue());
         }
+        return removed;
+    }
+
+    /**
+     * Removes and returns any offers which have been queued for longer than the configured maximum age. The returned
+     * offers should be declined by the caller.
+     */
+    public List<Protos.Offer> removeExpired() {
+        if (maxAge.isZero()) {
+            return Collections.emptyList();
+        }
+        List<Protos.Offer> expiredOffers = new ArrayList<>();
+        lock.lock();
+        try {
+            long minEnqueueTimeMs = System.currentTimeMillis() - maxAge.toMillis();
+            Iterator<QueuedOffer> iter = queue.values().iterator();
+            while (iter.hasNext()) {
+                QueuedOffer queuedOffer = iter.next();
+                if (queuedOffer.enqueueTimeMs >= minEnqueueTimeMs) {
+                    // Offers are in the order they were enqueued, so all remaining offers are newer.
+                    break;
+                }
+                expiredOffers.add(queuedOffer.offer);
+                iter.remove();
+            }
+            expiredCount += expiredOffers.size();
+        } finally {
+            lock.unlock();
+        }
+        if (!expiredOffers.isEmpty()) {
+            logger.info("Removed {} offer{} queued for longer than {}ms: {}",
+                    expiredOffers.size(),
+                    expiredOffers.size() == 1 ? "" : "s",
+                    maxAge.toMillis(),
+                    expiredOffers.stream().map(offer -> offer.getId().getValue()).collect(Collectors.toList()));
+        }
+        return expiredOffers;
+    }
+
+    /**
+     * Returns the IDs of the offers which are represented by the provided offer ID. If the ID is of an offer which was
+     * coalesced by the last call to {@link #takeAll(Duration)}, this returns the IDs of all the offers which were
+     * merged into it. Otherwise this returns the provided ID.
+     */
+    public List<Protos.OfferID> getCoalescedOfferIds(Protos.OfferID offerId) {
+        lock.lock();
+        try {
+            List<Protos.OfferID> offerIds = coalescedOfferIds.get(offerId);
+            return offerIds == null ? Collections.singletonList(offerId) : offerIds;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * This method specifies whether any offers are in the queue.
      */
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return getSize() == 0;
     }
 
     /**
      * This method returns the number of elements in the queue.
      */
-    @VisibleForTesting
-    int getSize() {
-        return queue.size();
+    public int getSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how long the oldest offer in the queue has been waiting, or zero if the queue is empty.
+     */
+    public long getOldestOfferAgeMs() {
+        lock.lock();
+        try {
+            if (queue.isEmpty()) {
+                return 0;
+            }
+            return System.currentTimeMillis() - queue.values().iterator().next().enqueueTimeMs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of offers which have been rescinded over the last minute.
+     */
+    public int getRescindRatePerMinute() {
+        lock.lock();
+        try {
+            trimRescindTimes(System.currentTimeMillis());
+            return recentRescindTimesMs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of offers which have been rescinded.
+     */
+    public long getRescindCount() {
+        lock.lock();
+        try {
+            return rescindCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of offers which have been removed from the queue after exceeding the maximum age.
+     */
+    public long getExpiredCount() {
+        lock.lock();
+        try {
+            return expiredCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of offers which have been received while the queue was full.
+     */
+    public long getOverflowCount() {
+        lock.lock();
+        try {
+            return overflowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
     }
 
     /**
@@ -112,6 +353,61 @@ public class OfferQueue {
      */
     @VisibleForTesting
     int getRemainingCapacity() {
-        return queue.remainingCapacity();
+        return capacity == 0 ? Integer.MAX_VALUE : capacity - getSize();
+    }
+
+    /**
+     * Merges offers for the same agent and role into a single offer, recording the IDs of the merged offers. Must be
+     * called while holding the lock.
+     */
+    private List<Protos.Offer> coalesce(List<Protos.Offer> offers) {
+        Map<String, List<Protos.Offer>> offersByAgentRole = new LinkedHashMap<>();
+        for (Protos.Offer offer : offers) {
+            String key = offer.getSlaveId().getValue() + "/" + offer.getAllocationInfo().getRole();
+            offersByAgentRole.computeIfAbsent(key, k -> new ArrayList<>()).add(offer);
+        }
+
+        List<Protos.Offer> coalescedOffers = new ArrayList<>();
+        for (List<Protos.Offer> agentOffers : offersByAgentRole.values()) {
+            Protos.Offer firstOffer = agentOffers.get(0);
+            if (agentOffers.size() == 1) {
+                coalescedOffers.add(firstOffer);
+                continue;
+            }
+            Protos.Offer.Builder mergedOffer = firstOffer.toBuilder();
+            List<Protos.OfferID> offerIds = new ArrayList<>();
+            offerIds.add(firstOffer.getId());
+            for (Protos.Offer offer : agentOffers.subList(1, agentOffers.size())) {
+                mergedOffer.addAllResources(offer.getResourcesList());
+                offerIds.add(offer.getId());
+            }
+            coalescedOfferIds.put(firstOffer.getId(), offerIds);
+            coalescedOffers.add(mergedOffer.build());
+            logger.info("Coalesced {} offers from agent {}: {}",
+                    offerIds.size(),
+                    firstOffer.getSlaveId().getValue(),
+                    offerIds.stream().map(Protos.OfferID::getValue).collect(Collectors.toList()));
+        }
+        return coalescedOffers;
+    }
+
+    /**
+     * Drops rescind times which have fallen out of the rate window. Must be called while holding the lock.
+     */
+    private void trimRescindTimes(long nowMs) {
+        long minTimeMs = nowMs - RESCIND_RATE_WINDOW.toMillis();
+        while (!recentRescindTimesMs.isEmpty() && recentRescindTimesMs.peekFirst() < minTimeMs) {
+            recentRescindTimesMs.removeFirst();
+        }
+    }
+
+    private static class QueuedOffer {
+        private final Protos.Offer offer;
+        private final long enqueueTimeMs;
+
+        private QueuedOffer(Protos.Offer offer) {
+            this.offer = offer;
+            this.enqueueTimeMs = System.currentTimeMillis();
+        }
     }
 }
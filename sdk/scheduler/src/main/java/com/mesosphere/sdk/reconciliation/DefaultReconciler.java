@@ -8,6 +8,7 @@ import com.google.inject.Singleton;
 import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.TaskStatus;
 import org.apache.mesos.SchedulerDriver;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.TaskUtils;
 import com.mesosphere.sdk.state.StateStore;
 import org.slf4j.Logger;
@@ -41,6 +42,11 @@ public class DefaultReconciler implements Reconciler {
     public DefaultReconciler(StateStore stateStore) {
         this.stateStore = stateStore;
         resetTimerValues();
+        Metrics.setGauge(Metrics.RECONCILE_UNRECONCILED_TASKS, () -> {
+            synchronized (unreconciled) {
+                return unreconciled.size();
+            }
+        });
     }
 
     @Override
@@ -102,6 +108,7 @@ public class DefaultReconciler implements Reconciler {
                             unreconciled.size(), backOffMs);
                     // pass a COPY of the list, in case driver is doing anything with it..:
                     driver.reconcileTasks(ImmutableList.copyOf(unreconciled.values()));
+                    Metrics.incrementCounter(Metrics.RECONCILE_EXPLICIT);
                 } else {
                     // timer has not expired yet, do nothing for this call
                     LOGGER.info("Too soon since last explicit reconciliation trigger. Waiting at "
@@ -113,6 +120,7 @@ public class DefaultReconciler implements Reconciler {
                 // where we get the list of all tasks currently known to Mesos.
                 LOGGER.info("Triggering implicit final reconciliation of all tasks");
                 driver.reconcileTasks(Collections.emptyList());
+                Metrics.incrementCounter(Metrics.RECONCILE_IMPLICIT);
 
                 // reset the timer values in case we're started again in the future
                 resetTimerValues();
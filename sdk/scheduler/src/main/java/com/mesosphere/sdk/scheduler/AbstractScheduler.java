@@ -2,8 +2,10 @@ package com.mesosphere.sdk.scheduler;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.TextFormat;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.OfferUtils;
+import com.mesosphere.sdk.queue.CoalescedOfferDriver;
 import com.mesosphere.sdk.queue.OfferQueue;
 import com.mesosphere.sdk.reconciliation.DefaultReconciler;
 import com.mesosphere.sdk.reconciliation.Reconciler;
@@ -13,6 +15,8 @@ import com.mesosphere.sdk.scheduler.plan.Step;
 import com.mesosphere.sdk.specification.ServiceSpec;
 import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreException;
+import com.mesosphere.sdk.storage.StorageError.Reason;
 
 import org.apache.mesos.Protos;
 import org.apache.mesos.Scheduler;
@@ -22,9 +26,11 @@ import org.eclipse.jetty.util.component.LifeCycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -35,6 +41,7 @@ import java.util.stream.Collectors;
 public abstract class AbstractScheduler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractScheduler.class);
+    private static final Duration STATUS_UPDATE_WAIT = Duration.ofSeconds(5);
 
     protected final StateStore stateStore;
     protected final ConfigStore<ServiceSpec> configStore;
@@ -51,13 +58,18 @@ public abstract class AbstractScheduler {
     private final MesosScheduler mesosScheduler = new MesosScheduler();
 
     private final Object inProgressLock = new Object();
-    private final Set<Protos.OfferID> offersInProgress = new HashSet<>();
+    // Maps the offers which have been enqueued but not yet processed to the time that they were enqueued.
+    private final Map<Protos.OfferID, Long> offersInProgress = new HashMap<>();
 
     /**
-     * Executor for handling TaskStatus updates in {@link #statusUpdate(SchedulerDriver, Protos.TaskStatus)}.
+     * Executor for applying TaskStatus updates which were enqueued by
+     * {@link MesosScheduler#statusUpdate(SchedulerDriver, Protos.TaskStatus)}.
      */
     protected final ExecutorService statusExecutor = Executors.newSingleThreadExecutor();
 
+    private final StatusUpdateQueue statusQueue;
+    private final StageMetrics offerStageMetrics;
+
     /**
      * Executor for processing offers off the queue in {@link #executePlansLoop()}.
      */
@@ -73,6 +85,27 @@ public abstract class AbstractScheduler {
         this.stateStore = stateStore;
         this.configStore = configStore;
         this.schedulerConfig = schedulerConfig;
+        this.statusQueue = new StatusUpdateQueue(
+                schedulerConfig.getStatusUpdateBatchSize(),
+                statuses -> mesosScheduler.applyStatusUpdates(mesosScheduler.driver, statuses));
+        this.offerStageMetrics = new StageMetrics("offers", () -> mesosScheduler.offerQueue.getSize());
+        this.mesosScheduler.offerQueue = new OfferQueue(
+                schedulerConfig.getOfferQueueCapacity(),
+                schedulerConfig.getOfferQueueOverflowPolicy(),
+                schedulerConfig.getOfferQueueMaxAge(),
+                schedulerConfig.isOfferQueueCoalescingEnabled());
+        Metrics.setGauge(Metrics.OFFERS_QUEUE_DEPTH, () -> offerStageMetrics.getQueueDepth());
+        // The queue may be replaced before the scheduler is started, see setOfferQueueSize():
+        Metrics.setGauge(Metrics.OFFERS_QUEUE_OLDEST_AGE,
+                () -> mesosScheduler.offerQueue.getOldestOfferAgeMs());
+        Metrics.setGauge(Metrics.OFFERS_QUEUE_RESCIND_RATE,
+                () -> mesosScheduler.offerQueue.getRescindRatePerMinute());
+        Metrics.setGauge(Metrics.OFFERS_QUEUE_EXPIRED,
+                () -> mesosScheduler.offerQueue.getExpiredCount());
+        Metrics.setGauge(Metrics.OFFERS_QUEUE_OVERFLOWED,
+                () -> mesosScheduler.offerQueue.getOverflowCount());
+        Metrics.setGauge(Metrics.TASK_STATUS_QUEUE_DEPTH,
+                () -> statusQueue.getMetrics().getQueueDepth());
     }
 
     /**
@@ -111,6 +144,19 @@ public abstract class AbstractScheduler {
                     }
                 }
             });
+            // Start consumption of the status update queue. This is separate from offer processing so that a burst of
+            // status updates doesn't delay offers, and vice versa.
+            statusExecutor.execute(() -> {
+                while (true) {
+                    try {
+                        statusQueue.processBatch(STATUS_UPDATE_WAIT);
+                    } catch (Exception e) {
+                        LOGGER.error("Error encountered when processing status updates, exiting to avoid zombie state",
+                                e);
+                        SchedulerUtils.hardExit(SchedulerErrorCode.ERROR);
+                    }
+                }
+            });
         }
 
         return this;
@@ -142,7 +188,7 @@ public abstract class AbstractScheduler {
                     return;
                 }
                 LOGGER.warn("Offers in progress {} is non-empty, sleeping for {}ms ...",
-                        offersInProgress, sleepDurationMs);
+                        offersInProgress.keySet(), sleepDurationMs);
             }
             Thread.sleep(sleepDurationMs);
         }
@@ -185,6 +231,13 @@ public abstract class AbstractScheduler {
         return this;
     }
 
+    /**
+     * Returns the queue depth and latency metrics for each stage of offer and status update processing.
+     */
+    public Collection<StageMetrics> getStageMetrics() {
+        return Arrays.asList(offerStageMetrics, statusQueue.getMetrics());
+    }
+
     /**
      * Returns the plans defined for this scheduler. Useful for scheduler tests.
      */
@@ -231,8 +284,8 @@ public abstract class AbstractScheduler {
         // Avoid attempting to process offers until initialization has completed via the first call to registered().
         private final AtomicBoolean isInitialized = new AtomicBoolean(false);
 
-        // May be overridden in tests:
-        private OfferQueue offerQueue = new OfferQueue();
+        // Assigned by the AbstractScheduler constructor, may be overridden in tests:
+        private OfferQueue offerQueue;
 
         // These are all (re)assigned when the scheduler has (re)registered:
         private SchedulerDriver driver;
@@ -263,6 +316,8 @@ public abstract class AbstractScheduler {
 
             try {
                 stateStore.storeFrameworkId(frameworkId);
+                // The ID must be durable before we proceed, or a restarted scheduler would register a new framework:
+                stateStore.flush();
             } catch (Exception e) {
                 LOGGER.error(String.format(
                         "Unable to store registered framework ID '%s'", frameworkId.getValue()), e);
@@ -276,6 +331,7 @@ public abstract class AbstractScheduler {
 
         @Override
         public void resourceOffers(SchedulerDriver driver, List<Protos.Offer> offers) {
+            Metrics.incrementCounter(Metrics.OFFERS_RECEIVED, offers.size());
             if (!apiServerStarted.get()) {
                 LOGGER.info("Declining {} offer{}: Waiting for API Server to start.",
                         offers.size(), offers.size() == 1 ? "" : "s");
@@ -296,29 +352,30 @@ public abstract class AbstractScheduler {
             }
 
             synchronized (inProgressLock) {
-                offersInProgress.addAll(
-                        offers.stream()
-                                .map(offer -> offer.getId())
-                                .collect(Collectors.toList()));
+                long enqueueTimeMs = System.currentTimeMillis();
+                for (Protos.Offer offer : offers) {
+                    offersInProgress.put(offer.getId(), enqueueTimeMs);
+                }
 
                 LOGGER.info("Enqueuing {} offer{}. Updated offers in progress: {}",
                         offers.size(),
                         offers.size() == 1 ? "" : "s",
-                        offersInProgress.stream()
+                        offersInProgress.keySet().stream()
                                 .map(offerID -> offerID.getValue())
                                 .collect(Collectors.toList()));
             }
 
             for (Protos.Offer offer : offers) {
-                boolean queued = offerQueue.offer(offer);
-                if (!queued) {
-                    LOGGER.warn("Offer queue is full: Declining offer and removing from in progress: '{}'",
-                            offer.getId().getValue());
-                    OfferUtils.declineOffers(driver, Arrays.asList(offer), Constants.SHORT_DECLINE_SECONDS);
+                List<Protos.Offer> rejectedOffers = offerQueue.enqueue(offer);
+                if (!rejectedOffers.isEmpty()) {
+                    LOGGER.warn("Offer queue is full ({}): Declining offer{} and removing from in progress: {}",
+                            offerQueue.getOverflowPolicy(),
+                            rejectedOffers.size() == 1 ? "" : "s",
+                            rejectedOffers.stream().map(o -> o.getId().getValue()).collect(Collectors.toList()));
+                    OfferUtils.declineOffers(
+                            driver, rejectedOffers, offerQueue.getOverflowPolicy().getDeclineSeconds());
                     // Remove AFTER decline: Avoid race where we haven't declined yet but appear to be done
-                    synchronized (inProgressLock) {
-                        offersInProgress.remove(offer.getId());
-                    }
+                    removeOffersInProgress(rejectedOffers);
                 }
             }
 
@@ -334,12 +391,60 @@ public abstract class AbstractScheduler {
                     status.getState().toString(),
                     status.getMessage(),
                     TextFormat.shortDebugString(status));
+            Metrics.recordTaskStatus(status.getState());
+            if (multithreaded) {
+                statusQueue.enqueue(status);
+            } else {
+                applyStatusUpdates(driver, Collections.singletonList(status));
+            }
+        }
+
+        /**
+         * Applies status updates which were received from Mesos, in the order provided, then acknowledges them to
+         * Mesos. In multithreaded mode, this is invoked by the status update stage with each batch of updates in the
+         * order that they were received.
+         *
+         * <p>The task writes made while applying the updates are stored in a single transaction, and the updates are
+         * only acknowledged once that transaction is durable. If storing fails, none of the updates are acknowledged,
+         * so that Mesos resends them. Updates which were rejected as stale are still acknowledged.
+         */
+        private void applyStatusUpdates(SchedulerDriver driver, List<Protos.TaskStatus> statuses) {
+            List<Protos.TaskStatus> acknowledgeable = new ArrayList<>();
+            stateStore.beginTaskWriteBatch();
             try {
-                processStatusUpdate(status);
-                reconciler.update(status);
-            } catch (Exception e) {
-                LOGGER.warn("Failed to update TaskStatus received from Mesos. "
-                        + "This may be expected if Mesos sent stale status information: " + status, e);
+                for (Protos.TaskStatus status : statuses) {
+                    try {
+                        processStatusUpdate(status);
+                        reconciler.update(status);
+                    } catch (StateStoreException e) {
+                        if (e.getReason() == Reason.STORAGE_ERROR) {
+                            LOGGER.error("Failed to store TaskStatus received from Mesos, leaving it unacknowledged: "
+                                    + status, e);
+                            continue;
+                        }
+                        LOGGER.warn("Failed to update TaskStatus received from Mesos. "
+                                + "This may be expected if Mesos sent stale status information: " + status, e);
+                    } catch (Exception e) {
+                        LOGGER.warn("Failed to update TaskStatus received from Mesos. "
+                                + "This may be expected if Mesos sent stale status information: " + status, e);
+                    }
+                    acknowledgeable.add(status);
+                }
+                stateStore.commitTaskWriteBatch();
+                stateStore.flush();
+            } catch (StateStoreException e) {
+                LOGGER.error(String.format("Failed to store %d status update%s, leaving them unacknowledged",
+                        statuses.size(), statuses.size() == 1 ? "" : "s"), e);
+                return;
+            } finally {
+                stateStore.abortTaskWriteBatch();
+            }
+
+            for (Protos.TaskStatus status : acknowledgeable) {
+                // Only updates which carry a UUID expect an acknowledgement, e.g. not those sent for reconciliation:
+                if (status.hasUuid()) {
+                    driver.acknowledgeStatusUpdate(status);
+                }
             }
         }
 
@@ -352,7 +457,12 @@ public abstract class AbstractScheduler {
         @Override
         public void offerRescinded(SchedulerDriver driver, Protos.OfferID offerId) {
             LOGGER.info("Rescinding offer: {}", offerId.getValue());
-            offerQueue.remove(offerId);
+            Metrics.incrementCounter(Metrics.OFFERS_RESCINDED);
+            if (offerQueue.remove(offerId)) {
+                synchronized (inProgressLock) {
+                    offersInProgress.remove(offerId);
+                }
+            }
         }
 
         @Override
@@ -392,6 +502,13 @@ public abstract class AbstractScheduler {
          * appear.
          */
         private void processQueuedOffers() {
+            // Decline any offers which have waited too long, rather than evaluating offers which may be rescinded:
+            List<Protos.Offer> expiredOffers = offerQueue.removeExpired();
+            if (!expiredOffers.isEmpty()) {
+                OfferUtils.declineOffers(driver, expiredOffers, Constants.SHORT_DECLINE_SECONDS);
+                removeOffersInProgress(expiredOffers);
+            }
+
             LOGGER.info("Waiting for queued offers...");
             List<Protos.Offer> offers = offerQueue.takeAll();
             if (offers.isEmpty() && !isInitialized.get()) {
@@ -401,8 +518,19 @@ public abstract class AbstractScheduler {
                 return;
             }
 
+            long startTimeMs = System.currentTimeMillis();
+            synchronized (inProgressLock) {
+                for (Protos.OfferID offerId : getCoalescedOfferIds(offers)) {
+                    Long enqueueTimeMs = offersInProgress.get(offerId);
+                    if (enqueueTimeMs != null) {
+                        offerStageMetrics.recordWait(startTimeMs - enqueueTimeMs);
+                    }
+                }
+            }
+
             // Get the current work
             Collection<Step> steps = planCoordinator.getCandidates();
+            long candidatesTimeMs = System.currentTimeMillis();
 
             LOGGER.info("Processing {} offer{} against {} step{}:",
                     offers.size(), offers.size() == 1 ? "" : "s",
@@ -411,23 +539,62 @@ public abstract class AbstractScheduler {
                 LOGGER.info("  {}: {}", i + 1, TextFormat.shortDebugString(offers.get(i)));
             }
 
-            // Match offers with work (call into implementation)
-            processOffers(driver, offers, steps);
+            // Match offers with work (call into implementation). If offers were merged by the queue, operations on
+            // the merged offers are translated back to the original offers.
+            processOffers(
+                    schedulerConfig.isOfferQueueCoalescingEnabled()
+                            ? new CoalescedOfferDriver(driver, offerQueue)
+                            : driver,
+                    offers,
+                    steps);
+            long evaluationTimeMs = System.currentTimeMillis();
 
             // Revive previously suspended offers, if necessary
             reviveManager.revive(steps);
+            long endTimeMs = System.currentTimeMillis();
+            offerStageMetrics.recordBatch(offers.size(), endTimeMs - startTimeMs);
+            Metrics.incrementCounter(Metrics.OFFERS_PROCESSED, offers.size());
+            Metrics.getHistogram(Metrics.OFFERS_PROCESS_BATCH_SIZE).update(offers.size());
+            Metrics.getTimer(Metrics.OFFERS_PROCESS_DURATION).update(endTimeMs - startTimeMs, TimeUnit.MILLISECONDS);
 
             synchronized (inProgressLock) {
-                offersInProgress.removeAll(
-                        offers.stream()
-                                .map(offer -> offer.getId())
-                                .collect(Collectors.toList()));
-                LOGGER.info("Processed {} queued offer{}. {} {} in progress: {}",
+                for (Protos.OfferID offerId : getCoalescedOfferIds(offers)) {
+                    offersInProgress.remove(offerId);
+                }
+                LOGGER.info("Processed {} queued offer{} in {}ms (candidates: {}ms, evaluation: {}ms, revive: {}ms). "
+                        + "{} {} in progress: {}",
                         offers.size(),
                         offers.size() == 1 ? "" : "s",
+                        endTimeMs - startTimeMs,
+                        candidatesTimeMs - startTimeMs,
+                        evaluationTimeMs - candidatesTimeMs,
+                        endTimeMs - evaluationTimeMs,
                         offersInProgress.size(),
                         offersInProgress.size() == 1 ? "offer remains" : "offers remain",
-                        offersInProgress.stream().map(Protos.OfferID::getValue).collect(Collectors.toList()));
+                        offersInProgress.keySet().stream()
+                                .map(Protos.OfferID::getValue)
+                                .collect(Collectors.toList()));
+            }
+            LOGGER.info("Pipeline stages: {}; {}", offerStageMetrics, statusQueue.getMetrics());
+        }
+
+        /**
+         * Returns the IDs of all offers received from Mesos which are represented by the provided offers, some of which
+         * may have been merged by the offer queue.
+         */
+        private List<Protos.OfferID> getCoalescedOfferIds(List<Protos.Offer> offers) {
+            List<Protos.OfferID> offerIds = new ArrayList<>();
+            for (Protos.Offer offer : offers) {
+                offerIds.addAll(offerQueue.getCoalescedOfferIds(offer.getId()));
+            }
+            return offerIds;
+        }
+
+        private void removeOffersInProgress(List<Protos.Offer> offers) {
+            synchronized (inProgressLock) {
+                for (Protos.Offer offer : offers) {
+                    offersInProgress.remove(offer.getId());
+                }
             }
         }
 
@@ -5,6 +5,7 @@ import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.api.*;
 import com.mesosphere.sdk.api.types.EndpointProducer;
 import com.mesosphere.sdk.api.types.StringPropertyDeserializer;
+import com.mesosphere.sdk.config.ServiceSpecDiffCache;
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
@@ -84,6 +85,7 @@ public class DefaultScheduler extends AbstractScheduler {
             Collection<Plan> plans,
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
+            ServiceSpecDiffCache configDiffs,
             Map<String, EndpointProducer> customEndpointProducers,
             Optional<RecoveryPlanOverriderFactory> recoveryPlanOverriderFactory) {
         super(stateStore, configStore, schedulerConfig);
@@ -97,7 +99,7 @@ public class DefaultScheduler extends AbstractScheduler {
         this.resources = new ArrayList<>();
         this.resources.addAll(customResources);
         this.resources.add(new ArtifactResource(configStore));
-        this.resources.add(new ConfigResource<>(configStore));
+        this.resources.add(new ConfigResource<>(configStore, configDiffs));
         EndpointsResource endpointsResource = new EndpointsResource(stateStore, serviceSpec.getName());
         for (Map.Entry<String, EndpointProducer> entry : customEndpointProducers.entrySet()) {
             endpointsResource.setCustomEndpoint(entry.getKey(), entry.getValue());
@@ -108,6 +110,7 @@ public class DefaultScheduler extends AbstractScheduler {
         this.podResource = new PodResource(stateStore);
         this.resources.add(podResource);
         this.resources.add(new StateResource(stateStore, new StringPropertyDeserializer()));
+        this.resources.add(new MetricsResource());
     }
 
     @Override
@@ -131,7 +134,8 @@ public class DefaultScheduler extends AbstractScheduler {
                                 schedulerConfig,
                                 Capabilities.getInstance().supportsDefaultExecutor()),
                         stateStore,
-                        taskKiller);
+                        taskKiller,
+                        schedulerConfig.isOfferAcceptBatchingEnabled());
         killUnneededTasks(stateStore, taskKiller, PlanUtils.getLaunchableTasks(plans));
 
         plansResource.setPlanManagers(planCoordinator.getPlanManagers());
@@ -264,6 +268,7 @@ public class DefaultScheduler extends AbstractScheduler {
         Optional<Protos.TaskStatus> lastStatus = stateStore.fetchStatus(taskName);
 
         stateStore.storeStatus(taskName, status);
+        // Each phase only passes the status to the steps which own its task, see StepTaskIndex:
         planCoordinator.getPlanManagers().forEach(planManager -> planManager.update(status));
 
         if (lastStatus.isPresent() &&
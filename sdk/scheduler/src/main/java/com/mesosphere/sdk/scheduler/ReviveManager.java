@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
 import com.mesosphere.sdk.scheduler.plan.Status;
 import com.mesosphere.sdk.scheduler.plan.Step;
@@ -77,8 +78,10 @@ public class ReviveManager {
             if (tokenBucket.tryAcquire()) {
                 logger.info("Reviving offers.");
                 driver.reviveOffers();
+                Metrics.incrementCounter(Metrics.REVIVES);
             } else {
                 logger.warn("Revive attempt has been throttled.");
+                Metrics.incrementCounter(Metrics.REVIVE_THROTTLES);
                 return;
             }
         }
@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.scheduler;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -17,6 +18,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.mesosphere.sdk.api.types.EndpointProducer;
 import com.mesosphere.sdk.config.ConfigurationUpdater;
 import com.mesosphere.sdk.config.DefaultConfigurationUpdater;
+import com.mesosphere.sdk.config.ServiceSpecDiffCache;
 import com.mesosphere.sdk.config.validate.ConfigValidationError;
 import com.mesosphere.sdk.config.validate.ConfigValidator;
 import com.mesosphere.sdk.config.validate.DefaultConfigValidators;
@@ -42,6 +44,11 @@ import com.mesosphere.sdk.state.StateStoreUtils;
 import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.PersisterCache;
 import com.mesosphere.sdk.storage.PersisterException;
+import com.mesosphere.sdk.storage.SnapshotPersisterCache;
+import com.mesosphere.sdk.storage.VersionedPersister;
+import com.mesosphere.sdk.storage.WatchablePersister;
+import com.mesosphere.sdk.storage.WatchingPersisterCache;
+import com.mesosphere.sdk.storage.WriteBehindPersister;
 
 /**
  * Creates a new {@link DefaultScheduler}.
@@ -67,12 +74,7 @@ public class SchedulerBuilder {
     private RecoveryPlanOverriderFactory recoveryPlanOverriderFactory;
 
     SchedulerBuilder(ServiceSpec serviceSpec, SchedulerConfig schedulerConfig) throws PersisterException {
-        this(
-                serviceSpec,
-                schedulerConfig,
-                schedulerConfig.isStateCacheEnabled() ?
-                        new PersisterCache(CuratorPersister.newBuilder(serviceSpec).build()) :
-                        CuratorPersister.newBuilder(serviceSpec).build());
+        this(serviceSpec, schedulerConfig, createPersister(serviceSpec, schedulerConfig));
     }
 
     SchedulerBuilder(ServiceSpec serviceSpec, SchedulerConfig schedulerConfig, Persister persister) {
@@ -81,6 +83,44 @@ public class SchedulerBuilder {
         this.persister = persister;
     }
 
+    private static Persister createPersister(ServiceSpec serviceSpec, SchedulerConfig schedulerConfig)
+            throws PersisterException {
+        Persister persister = CuratorPersister.newBuilder(serviceSpec).build();
+        long writeBehindMs = schedulerConfig.getStateWriteBehindWindow().toMillis();
+        if (writeBehindMs > 0) {
+            LOGGER.info("Deferring ZK writes by up to {}ms", writeBehindMs);
+            persister = new WriteBehindPersister(persister, writeBehindMs);
+        }
+        if (!schedulerConfig.isStateCacheEnabled()) {
+            return persister;
+        }
+        Optional<Path> snapshotPath = schedulerConfig.getStateCacheSnapshotPath();
+        if (schedulerConfig.isStateCacheWatchEnabled()) {
+            if (persister instanceof WatchablePersister) {
+                if (snapshotPath.isPresent()) {
+                    LOGGER.warn("Not snapshotting ZK cache to {}: snapshots are not used when watching ZK",
+                            snapshotPath.get());
+                }
+                LOGGER.info("Watching ZK for changes to cached data");
+                return new WatchingPersisterCache(
+                        (WatchablePersister) persister, schedulerConfig.getStateCacheWatchInitTimeout());
+            }
+            LOGGER.warn("Not watching ZK for changes: watches are not supported with deferred ZK writes");
+        }
+        if (snapshotPath.isPresent()) {
+            if (persister instanceof VersionedPersister) {
+                LOGGER.info("Snapshotting ZK cache to {}", snapshotPath.get());
+                return new SnapshotPersisterCache(
+                        (VersionedPersister) persister,
+                        snapshotPath.get(),
+                        schedulerConfig.getStateCacheSnapshotInterval());
+            }
+            LOGGER.warn("Not snapshotting ZK cache to {}: snapshots are not supported with deferred ZK writes",
+                    snapshotPath.get());
+        }
+        return new PersisterCache(persister);
+    }
+
     /**
      * Returns the {@link ServiceSpec} which was provided via the constructor.
      */
@@ -235,6 +275,7 @@ public class SchedulerBuilder {
         // Get custom or default config and state stores (defaults handled by getStateStore()/getConfigStore()):
         final StateStore stateStore = getStateStore();
         final ConfigStore<ServiceSpec> configStore = getConfigStore();
+        configStore.registerCacheMetrics();
 
         if (schedulerConfig.isUninstallEnabled()) {
             if (!StateStoreUtils.isUninstalling(stateStore)) {
@@ -262,6 +303,8 @@ public class SchedulerBuilder {
      * @throws IllegalArgumentException if config validation failed when updating the target config.
      */
     private DefaultScheduler getDefaultScheduler(StateStore stateStore, ConfigStore<ServiceSpec> configStore) {
+        ServiceSpecDiffCache configDiffs = new ServiceSpecDiffCache(configStore);
+
         // Determine whether deployment had previously completed BEFORE we update the config.
         // Plans may be generated from the config content.
         boolean hasCompletedDeployment = StateStoreUtils.getDeploymentWasCompleted(stateStore);
@@ -271,7 +314,7 @@ public class SchedulerBuilder {
                 // nodes, then we want to check that the prior n nodes had successfully deployed.
                 ServiceSpec lastServiceSpec = configStore.fetch(configStore.getTargetConfig());
                 Optional<Plan> deployPlan = SchedulerUtils.getDeployPlan(
-                        getPlans(stateStore, configStore, lastServiceSpec, manualPlans, yamlPlans));
+                        getPlans(stateStore, configStore, configDiffs, lastServiceSpec, manualPlans, yamlPlans));
                 if (deployPlan.isPresent() && deployPlan.get().isComplete()) {
                     LOGGER.info("Marking deployment as having been previously completed");
                     StateStoreUtils.setDeploymentWasCompleted(stateStore);
@@ -288,7 +331,7 @@ public class SchedulerBuilder {
         configValidators.addAll(DefaultConfigValidators.getValidators(schedulerConfig));
         configValidators.addAll(customConfigValidators);
         final ConfigurationUpdater.UpdateResult configUpdateResult =
-                updateConfig(serviceSpec, stateStore, configStore, configValidators);
+                updateConfig(serviceSpec, stateStore, configStore, configDiffs, configValidators);
         if (!configUpdateResult.getErrors().isEmpty()) {
             LOGGER.warn("Failed to update configuration due to errors with configuration {}: {}",
                     configUpdateResult.getTargetId(), configUpdateResult.getErrors());
@@ -303,7 +346,7 @@ public class SchedulerBuilder {
         }
 
         // Now that a ServiceSpec has been chosen, generate the plans.
-        Collection<Plan> plans = getPlans(stateStore, configStore, serviceSpec, manualPlans, yamlPlans);
+        Collection<Plan> plans = getPlans(stateStore, configStore, configDiffs, serviceSpec, manualPlans, yamlPlans);
         plans = selectDeployPlan(plans, hasCompletedDeployment);
         Optional<Plan> deployPlan = SchedulerUtils.getDeployPlan(plans);
         if (!deployPlan.isPresent()) {
@@ -324,6 +367,7 @@ public class SchedulerBuilder {
                 plans,
                 stateStore,
                 configStore,
+                configDiffs,
                 endpointProducers,
                 Optional.ofNullable(recoveryPlanOverriderFactory));
     }
@@ -333,11 +377,13 @@ public class SchedulerBuilder {
      *
      * @param stateStore The state store to use for plan generation.
      * @param configStore The config store to use for plan generation.
+     * @param configDiffs The diffs between configurations, used to detect tasks which are unaffected by config changes
      * @return a collection of plans
      */
     private static Collection<Plan> getPlans(
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
+            ServiceSpecDiffCache configDiffs,
             ServiceSpec serviceSpec,
             List<Plan> manualPlans,
             Map<String, RawPlan> yamlPlans) {
@@ -354,7 +400,8 @@ public class SchedulerBuilder {
             plansType = "YAML";
             // Note: Any internal Plan generation must only be AFTER updating/validating the config. Otherwise plans
             // may look at the old config and mistakenly think they're COMPLETE.
-            DefaultPlanGenerator planGenerator = new DefaultPlanGenerator(configStore, stateStore);
+            DefaultPlanGenerator planGenerator =
+                    new DefaultPlanGenerator(new DefaultStepFactory(configStore, stateStore, configDiffs));
             plans = yamlPlans.entrySet().stream()
                     .map(e -> planGenerator.generate(e.getValue(), e.getKey(), serviceSpec.getPods()))
                     .collect(Collectors.toList());
@@ -363,7 +410,7 @@ public class SchedulerBuilder {
             try {
                 if (!configStore.list().isEmpty()) {
                     PlanFactory planFactory = new DeployPlanFactory(
-                            new DefaultPhaseFactory(new DefaultStepFactory(configStore, stateStore)));
+                            new DefaultPhaseFactory(new DefaultStepFactory(configStore, stateStore, configDiffs)));
                     plans = Arrays.asList(planFactory.getPlan(configStore.fetch(configStore.getTargetConfig())));
                 } else {
                     plans = Collections.emptyList();
@@ -449,6 +496,7 @@ public class SchedulerBuilder {
      * @param serviceSpec the service specification to use
      * @param stateStore the state store to pass to the updater
      * @param configStore the config store to pass to the updater
+     * @param configDiffs the cache of config diffs to pass to the updater
      * @param configValidators the list of config validators, see {@link SchedulerBuilder#defaultConfigValidators()}
      *     for reasonable defaults
      * @return the config update result, which may contain one or more validation errors produced by
@@ -458,10 +506,11 @@ public class SchedulerBuilder {
             ServiceSpec serviceSpec,
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
+            ServiceSpecDiffCache configDiffs,
             Collection<ConfigValidator<ServiceSpec>> configValidators) {
         LOGGER.info("Updating config with {} validators...", configValidators.size());
         ConfigurationUpdater<ServiceSpec> configurationUpdater = new DefaultConfigurationUpdater(
-                stateStore, configStore, DefaultServiceSpec.getComparatorInstance(), configValidators);
+                stateStore, configStore, DefaultServiceSpec.getComparatorInstance(), configValidators, configDiffs);
         try {
             return configurationUpdater.updateConfiguration(serviceSpec);
         } catch (ConfigStoreException e) {
@@ -11,9 +11,12 @@ import com.mesosphere.sdk.dcos.DcosHttpExecutor;
 import com.mesosphere.sdk.dcos.auth.CachedTokenProvider;
 import com.mesosphere.sdk.dcos.auth.TokenProvider;
 import com.mesosphere.sdk.dcos.clients.ServiceAccountIAMTokenClient;
+import com.mesosphere.sdk.queue.OfferQueue;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.RSAPrivateKey;
@@ -22,7 +25,9 @@ import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.RSAPublicKeySpec;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * This class encapsulates global Scheduler settings retrieved from the environment. Presented as a non-static object
@@ -101,6 +106,108 @@ public class SchedulerConfig {
      */
     private static final String DISABLE_STATE_CACHE_ENV = "DISABLE_STATE_CACHE";
 
+    /**
+     * Envvar to specify the number of threads to use when evaluating a step against the offers received in a cycle.
+     * When this is greater than one, all candidate offers are evaluated concurrently on a bounded pool. By default,
+     * offers are evaluated sequentially.
+     */
+    private static final String OFFER_EVALUATION_PARALLELISM_ENV = "OFFER_EVALUATION_PARALLELISM";
+    /** The default offer evaluation parallelism, which results in sequential evaluation. */
+    private static final int DEFAULT_OFFER_EVALUATION_PARALLELISM = 1;
+
+    /**
+     * Controls whether the offers accepted for all steps in an offer cycle are recorded in a single ZK transaction and
+     * then accepted together (disabled by default). If this envvar is set (to anything at all), batching is enabled.
+     */
+    private static final String BATCH_OFFER_ACCEPTS_ENV = "BATCH_OFFER_ACCEPTS";
+
+    /**
+     * Envvar to specify the maximum number of task status updates to apply in a single batch. Status updates are
+     * queued as they are received from Mesos, and are then applied in batches by a dedicated thread.
+     */
+    private static final String STATUS_UPDATE_BATCH_SIZE_ENV = "STATUS_UPDATE_BATCH_SIZE";
+    /** The default maximum number of status updates to apply in a single batch. */
+    private static final int DEFAULT_STATUS_UPDATE_BATCH_SIZE = 100;
+
+    /**
+     * Envvar to specify the maximum number of offers which may be queued for processing, or zero for no limit.
+     */
+    private static final String OFFER_QUEUE_CAPACITY_ENV = "OFFER_QUEUE_CAPACITY";
+    /** The default offer queue capacity. */
+    private static final int DEFAULT_OFFER_QUEUE_CAPACITY = 100;
+
+    /**
+     * Envvar to specify which offer is declined when an offer is received while the offer queue is full. Must be the
+     * name of an {@link OfferQueue.OverflowPolicy}. By default, the newly received offer is declined.
+     */
+    private static final String OFFER_QUEUE_OVERFLOW_POLICY_ENV = "OFFER_QUEUE_OVERFLOW_POLICY";
+
+    /**
+     * Envvar to specify the maximum number of seconds an offer may wait in the offer queue before it is declined
+     * rather than processed, or zero for no limit. By default, offers do not expire.
+     */
+    private static final String OFFER_QUEUE_MAX_AGE_S_ENV = "OFFER_QUEUE_MAX_AGE_S";
+
+    /**
+     * Controls whether multiple queued offers from the same agent are merged into a single offer before they're
+     * processed (disabled by default). If this envvar is set (to anything at all), merging is enabled.
+     */
+    private static final String OFFER_QUEUE_COALESCE_BY_AGENT_ENV = "OFFER_QUEUE_COALESCE_BY_AGENT";
+
+    /**
+     * Controls whether dynamic host ports are selected randomly from the offered port ranges, rather than always
+     * selecting the lowest available port (disabled by default). If this envvar is set (to anything at all), random
+     * selection is enabled.
+     */
+    private static final String RANDOMIZE_DYNAMIC_PORTS_ENV = "RANDOMIZE_DYNAMIC_PORTS";
+
+    /**
+     * Envvar to specify the window in milliseconds within which ZK writes are deferred and coalesced into a single
+     * transaction, or zero to write synchronously. Deferred writes are always flushed before launching tasks. By
+     * default, writes are synchronous.
+     */
+    private static final String STATE_WRITE_BEHIND_MS_ENV = "STATE_WRITE_BEHIND_MS";
+
+    /**
+     * Envvar to specify a local file which the ZK cache is periodically snapshotted to, so that a restarted scheduler
+     * only needs to fetch nodes which have changed since the snapshot was written. This should refer to a location
+     * which is retained across scheduler restarts. By default, no snapshot is written.
+     */
+    private static final String STATE_CACHE_SNAPSHOT_PATH_ENV = "STATE_CACHE_SNAPSHOT_PATH";
+
+    /**
+     * Envvar to specify the interval in seconds between snapshots of the ZK cache, when a snapshot path is provided.
+     */
+    private static final String STATE_CACHE_SNAPSHOT_INTERVAL_S_ENV = "STATE_CACHE_SNAPSHOT_INTERVAL_S";
+    private static final int DEFAULT_STATE_CACHE_SNAPSHOT_INTERVAL_S = 60;
+
+    /**
+     * Envvar to enable keeping the ZK cache up to date by watching ZK, so that changes made to ZK by other clients are
+     * reflected without refreshing the cache or restarting the scheduler. Takes precedence over
+     * {@link #STATE_CACHE_SNAPSHOT_PATH_ENV}. By default, ZK is not watched.
+     */
+    private static final String ENABLE_STATE_CACHE_WATCH_ENV = "ENABLE_STATE_CACHE_WATCH";
+
+    /**
+     * Envvar to specify the time in seconds to wait for the initial content of ZK to be loaded when watching ZK.
+     */
+    private static final String STATE_CACHE_WATCH_INIT_TIMEOUT_S_ENV = "STATE_CACHE_WATCH_INIT_TIMEOUT_S";
+    private static final int DEFAULT_STATE_CACHE_WATCH_INIT_TIMEOUT_S = 300;
+
+    /**
+     * Envvars which DC/OS injects into the scheduler environment to advertise the StatsD endpoint that metrics may be
+     * pushed to. If these are not present, metrics are only available via the {@code /v1/metrics} API.
+     */
+    private static final String STATSD_UDP_HOST_ENV = "STATSD_UDP_HOST";
+    private static final String STATSD_UDP_PORT_ENV = "STATSD_UDP_PORT";
+
+    /**
+     * Envvar to specify the interval in seconds between pushes of metrics to StatsD.
+     */
+    private static final String STATSD_POLL_INTERVAL_S_ENV = "STATSD_POLL_INTERVAL_S";
+    /** The default interval between pushes of metrics to StatsD. */
+    private static final int DEFAULT_STATSD_POLL_INTERVAL_S = 10;
+
     /**
      * When a port named {@code api} is added to the Marathon app definition for the scheduler, marathon should create
      * an envvar with this name in the scheduler env. This is preferred over using e.g. the {@code PORT0} envvar which
@@ -205,6 +312,121 @@ public class SchedulerConfig {
         return !envStore.isPresent(DISABLE_STATE_CACHE_ENV);
     }
 
+    /**
+     * Returns the maximum number of offers to evaluate concurrently for a step, using the common ForkJoinPool. A value
+     * of one or less indicates that offers should be evaluated sequentially.
+     */
+    public int getOfferEvaluationParallelism() {
+        return envStore.getOptionalInt(OFFER_EVALUATION_PARALLELISM_ENV, DEFAULT_OFFER_EVALUATION_PARALLELISM);
+    }
+
+    public boolean isOfferAcceptBatchingEnabled() {
+        return envStore.isPresent(BATCH_OFFER_ACCEPTS_ENV);
+    }
+
+    public int getStatusUpdateBatchSize() {
+        return envStore.getOptionalInt(STATUS_UPDATE_BATCH_SIZE_ENV, DEFAULT_STATUS_UPDATE_BATCH_SIZE);
+    }
+
+    /**
+     * Returns the maximum number of offers which may be queued for processing, or zero for no limit.
+     */
+    public int getOfferQueueCapacity() {
+        return envStore.getOptionalInt(OFFER_QUEUE_CAPACITY_ENV, DEFAULT_OFFER_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Returns which offer should be declined when an offer is received while the offer queue is full.
+     */
+    public OfferQueue.OverflowPolicy getOfferQueueOverflowPolicy() {
+        String value = envStore.getOptional(
+                OFFER_QUEUE_OVERFLOW_POLICY_ENV, OfferQueue.OverflowPolicy.DECLINE_NEWEST.name());
+        try {
+            return OfferQueue.OverflowPolicy.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw ConfigException.invalidValue(String.format(
+                    "Failed to parse configured environment variable '%s' as one of %s: %s",
+                    OFFER_QUEUE_OVERFLOW_POLICY_ENV, Arrays.asList(OfferQueue.OverflowPolicy.values()), value));
+        }
+    }
+
+    /**
+     * Returns the maximum duration that an offer may wait in the offer queue before it's declined, or zero for no
+     * limit.
+     */
+    public Duration getOfferQueueMaxAge() {
+        return Duration.ofSeconds(envStore.getOptionalInt(OFFER_QUEUE_MAX_AGE_S_ENV, 0));
+    }
+
+    public boolean isOfferQueueCoalescingEnabled() {
+        return envStore.isPresent(OFFER_QUEUE_COALESCE_BY_AGENT_ENV);
+    }
+
+    public boolean isDynamicPortRandomizationEnabled() {
+        return envStore.isPresent(RANDOMIZE_DYNAMIC_PORTS_ENV);
+    }
+
+    /**
+     * Returns the window within which ZK writes are deferred and coalesced, or zero if writes should be synchronous.
+     */
+    public Duration getStateWriteBehindWindow() {
+        return Duration.ofMillis(envStore.getOptionalInt(STATE_WRITE_BEHIND_MS_ENV, 0));
+    }
+
+    /**
+     * Returns the local file which the ZK cache should be snapshotted to, or an empty {@link Optional} if snapshots are
+     * disabled.
+     */
+    public Optional<Path> getStateCacheSnapshotPath() {
+        String value = envStore.getOptional(STATE_CACHE_SNAPSHOT_PATH_ENV, null);
+        return value == null || value.isEmpty() ? Optional.empty() : Optional.of(Paths.get(value));
+    }
+
+    /**
+     * Returns the interval between snapshots of the ZK cache, see {@link #getStateCacheSnapshotPath()}.
+     */
+    public Duration getStateCacheSnapshotInterval() {
+        return Duration.ofSeconds(envStore.getOptionalInt(
+                STATE_CACHE_SNAPSHOT_INTERVAL_S_ENV, DEFAULT_STATE_CACHE_SNAPSHOT_INTERVAL_S));
+    }
+
+    /**
+     * Returns whether the ZK cache should be kept up to date by watching ZK.
+     */
+    public boolean isStateCacheWatchEnabled() {
+        return envStore.isPresent(ENABLE_STATE_CACHE_WATCH_ENV);
+    }
+
+    /**
+     * Returns the time to wait for the initial content of ZK to be loaded, see {@link #isStateCacheWatchEnabled()}.
+     */
+    public Duration getStateCacheWatchInitTimeout() {
+        return Duration.ofSeconds(envStore.getOptionalInt(
+                STATE_CACHE_WATCH_INIT_TIMEOUT_S_ENV, DEFAULT_STATE_CACHE_WATCH_INIT_TIMEOUT_S));
+    }
+
+    /**
+     * Returns whether a StatsD endpoint has been advertised in the scheduler environment.
+     */
+    public boolean isStatsdEnabled() {
+        return envStore.isPresent(STATSD_UDP_HOST_ENV) && envStore.isPresent(STATSD_UDP_PORT_ENV);
+    }
+
+    public String getStatsdHost() {
+        return envStore.getRequired(STATSD_UDP_HOST_ENV);
+    }
+
+    public int getStatsdPort() {
+        return envStore.getRequiredInt(STATSD_UDP_PORT_ENV);
+    }
+
+    /**
+     * Returns the interval between pushes of metrics to StatsD.
+     */
+    public Duration getStatsdPollInterval() {
+        return Duration.ofSeconds(envStore.getOptionalInt(STATSD_POLL_INTERVAL_S_ENV, DEFAULT_STATSD_POLL_INTERVAL_S));
+    }
+
     public boolean isUninstallEnabled() {
         return envStore.isPresent(SDK_UNINSTALL);
     }
@@ -87,6 +87,9 @@ public class SchedulerDriverFactory {
 
     /**
      * Broken out into a separate function to allow testing with custom SchedulerDrivers.
+     *
+     * <p>Status updates are acknowledged explicitly by the scheduler once they have been stored, see
+     * {@link AbstractScheduler}, so that Mesos resends any update which was lost before it was stored.
      */
     protected SchedulerDriver createInternal(
             final Scheduler scheduler,
@@ -94,9 +97,9 @@ public class SchedulerDriverFactory {
             final String masterUrl,
             final Credential credential) {
         if (credential == null) {
-            return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, true);
+            return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, false);
         } else {
-            return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, true, credential);
+            return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, false, credential);
         }
     }
 
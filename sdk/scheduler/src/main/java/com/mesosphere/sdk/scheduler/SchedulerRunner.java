@@ -5,6 +5,7 @@ import com.mesosphere.sdk.config.validate.PodSpecsCannotUseUnsupportedFeatures;
 import com.mesosphere.sdk.curator.CuratorLocker;
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.generated.SDKBuildInfo;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.scheduler.plan.Plan;
 import com.mesosphere.sdk.specification.DefaultServiceSpec;
@@ -103,6 +104,7 @@ public class SchedulerRunner implements Runnable {
         locker.lock();
         try {
             AbstractScheduler scheduler = schedulerBuilder.build();
+            Metrics.configureStatsd(schedulerBuilder.getSchedulerConfig());
             scheduler.start();
             Optional<Scheduler> mesosScheduler = scheduler.getMesosScheduler();
             if (mesosScheduler.isPresent()) {
@@ -0,0 +1,122 @@
+package com.mesosphere.sdk.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Tracks the queue depth and latency of a stage in the scheduler's processing pipeline. Each stage takes work off of
+ * an input queue and processes it in batches. The time that items spent waiting in the queue and the time spent
+ * processing each batch are tracked separately.
+ *
+ * <p>This class is thread-safe.
+ */
+public class StageMetrics {
+
+    private final String name;
+    private final IntSupplier queueDepth;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong itemCount = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong maxWaitMs = new AtomicLong();
+    private final AtomicLong totalProcessingMs = new AtomicLong();
+    private final AtomicLong maxProcessingMs = new AtomicLong();
+    private final AtomicLong lastProcessingMs = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name the name of the stage, used in logging
+     * @param queueDepth returns the number of items currently waiting to be processed by the stage
+     */
+    public StageMetrics(String name, IntSupplier queueDepth) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Records that an item waited the provided duration in the stage's queue before being processed.
+     */
+    public void recordWait(long waitMs) {
+        totalWaitMs.addAndGet(waitMs);
+        maxWaitMs.accumulateAndGet(waitMs, Math::max);
+    }
+
+    /**
+     * Records that a batch containing the provided number of items was processed in the provided duration.
+     */
+    public void recordBatch(int itemsInBatch, long processingMs) {
+        batchCount.incrementAndGet();
+        itemCount.addAndGet(itemsInBatch);
+        totalProcessingMs.addAndGet(processingMs);
+        maxProcessingMs.accumulateAndGet(processingMs, Math::max);
+        lastProcessingMs.set(processingMs);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of items which are currently waiting to be processed.
+     */
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /**
+     * Returns the number of batches which have been processed.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Returns the number of items which have been processed across all batches.
+     */
+    public long getItemCount() {
+        return itemCount.get();
+    }
+
+    /**
+     * Returns the mean time that processed items spent waiting in the queue, or zero if no items have been processed.
+     */
+    public double getMeanWaitMs() {
+        long items = itemCount.get();
+        return items == 0 ? 0 : (double) totalWaitMs.get() / items;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs.get();
+    }
+
+    /**
+     * Returns the mean time spent processing a batch, or zero if no batches have been processed.
+     */
+    public double getMeanProcessingMs() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0 : (double) totalProcessingMs.get() / batches;
+    }
+
+    public long getMaxProcessingMs() {
+        return maxProcessingMs.get();
+    }
+
+    public long getLastProcessingMs() {
+        return lastProcessingMs.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: depth=%d batches=%d items=%d wait(mean=%.1fms max=%dms) processing(mean=%.1fms max=%dms)",
+                name,
+                getQueueDepth(),
+                getBatchCount(),
+                getItemCount(),
+                getMeanWaitMs(),
+                getMaxWaitMs(),
+                getMeanProcessingMs(),
+                getMaxProcessingMs());
+    }
+}
@@ -0,0 +1,104 @@
+package com.mesosphere.sdk.scheduler;
+
+import org.apache.mesos.Protos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The status update stage of the scheduler's processing pipeline. {@link Protos.TaskStatus} updates received from Mesos
+ * are enqueued by the driver callback thread, which then immediately returns to deliver any further callbacks such as
+ * offers. A separate thread dequeues the updates in batches and applies each batch in the order the updates were
+ * received, allowing the updates in a batch to be stored in a single write.
+ *
+ * <p>This keeps a burst of status updates, e.g. thousands of TASK_RUNNING updates during a rolling restart, from
+ * stalling the delivery of offers to the offer processing stage.
+ */
+public class StatusUpdateQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatusUpdateQueue.class);
+
+    private final BlockingQueue<QueuedStatus> queue = new LinkedBlockingQueue<>();
+    private final int maxBatchSize;
+    private final Consumer<List<Protos.TaskStatus>> batchHandler;
+    private final StageMetrics metrics;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxBatchSize the maximum number of updates to apply in a single batch
+     * @param batchHandler applies a batch of status updates in the provided order, must not throw
+     */
+    public StatusUpdateQueue(int maxBatchSize, Consumer<List<Protos.TaskStatus>> batchHandler) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchHandler = batchHandler;
+        this.metrics = new StageMetrics("status-updates", queue::size);
+    }
+
+    /**
+     * Enqueues the provided status update to be applied by a later call to {@link #processBatch(Duration)}.
+     */
+    public void enqueue(Protos.TaskStatus status) {
+        queue.add(new QueuedStatus(status));
+    }
+
+    /**
+     * Waits up to the provided duration for a status update to arrive, then applies it along with any other updates
+     * which are already queued, up to the maximum batch size.
+     *
+     * @return the number of status updates which were applied
+     */
+    public int processBatch(Duration wait) {
+        List<QueuedStatus> batch = new ArrayList<>();
+        try {
+            QueuedStatus first = queue.poll(wait.toMillis(), TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return 0;
+            }
+            batch.add(first);
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for status updates.");
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        queue.drainTo(batch, maxBatchSize - 1);
+
+        long startTimeMs = System.currentTimeMillis();
+        List<Protos.TaskStatus> statuses = new ArrayList<>();
+        for (QueuedStatus queuedStatus : batch) {
+            metrics.recordWait(startTimeMs - queuedStatus.enqueueTimeMs);
+            statuses.add(queuedStatus.status);
+        }
+        batchHandler.accept(statuses);
+        long processingMs = System.currentTimeMillis() - startTimeMs;
+        metrics.recordBatch(batch.size(), processingMs);
+
+        LOGGER.info("Applied {} status update{} in {}ms, {} remaining",
+                batch.size(), batch.size() == 1 ? "" : "s", processingMs, queue.size());
+        return batch.size();
+    }
+
+    /**
+     * Returns the queue depth and latency metrics for this stage.
+     */
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static class QueuedStatus {
+        private final Protos.TaskStatus status;
+        private final long enqueueTimeMs;
+
+        private QueuedStatus(Protos.TaskStatus status) {
+            this.status = status;
+            this.enqueueTimeMs = System.currentTimeMillis();
+        }
+    }
+}
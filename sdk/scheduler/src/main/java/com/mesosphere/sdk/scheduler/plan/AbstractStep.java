@@ -5,8 +5,10 @@ import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Provides a default implementation of commonly-used {@link Step} logic.
@@ -25,6 +27,11 @@ public abstract class AbstractStep implements Step {
     private Status status;
     private boolean interrupted;
 
+    /**
+     * Transient to be excluded from {@link #equals(Object)} and {@link #toString()}.
+     */
+    private final transient Collection<StatusListener> statusListeners = new CopyOnWriteArrayList<>();
+
     protected AbstractStep(String name, Status status) {
         this.name = name;
         this.status = status;
@@ -65,19 +72,29 @@ public abstract class AbstractStep implements Step {
             logger.info("{}: changed status from: {} to: {} (interrupted={})",
                     getName(), oldStatus, newStatus, interrupted);
         }
+        if (oldStatus != newStatus) {
+            notifyStatusListeners();
+        }
     }
 
     @Override
     public void interrupt() {
-        synchronized (statusLock) {
-            interrupted = true;
-        }
+        setInterrupted(true);
     }
 
     @Override
     public void proceed() {
+        setInterrupted(false);
+    }
+
+    private void setInterrupted(boolean newInterrupted) {
+        boolean oldInterrupted;
         synchronized (statusLock) {
-            interrupted = false;
+            oldInterrupted = interrupted;
+            interrupted = newInterrupted;
+        }
+        if (oldInterrupted != newInterrupted) {
+            notifyStatusListeners();
         }
     }
 
@@ -88,6 +105,27 @@ public abstract class AbstractStep implements Step {
         }
     }
 
+    @Override
+    public boolean addStatusListener(StatusListener listener) {
+        statusListeners.add(listener);
+        return true;
+    }
+
+    @Override
+    public void removeStatusListener(StatusListener listener) {
+        statusListeners.remove(listener);
+    }
+
+    /**
+     * Notifies any registered {@link StatusListener}s of a change. Listeners are notified outside of the status lock,
+     * so that they may safely query other elements.
+     */
+    protected void notifyStatusListeners() {
+        for (StatusListener listener : statusListeners) {
+            listener.statusChanged(this);
+        }
+    }
+
     @Override
     public void restart() {
         logger.warn("Restarting step: '{} [{}]'", getName(), getId());
@@ -2,7 +2,9 @@ package com.mesosphere.sdk.scheduler.plan;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.scheduler.plan.strategy.Strategy;
+import org.apache.mesos.Protos;
 
 import java.util.List;
 import java.util.Objects;
@@ -21,11 +23,19 @@ public class DefaultPhase implements Phase {
     private final List<String> errors;
     private final List<Step> steps;
 
+    /**
+     * Transient to be excluded from {@link #equals(Object)} and {@link #toString()}.
+     */
+    private final transient ParentStatusTracker<Step> statusTracker;
+    private final transient StepTaskIndex taskIndex;
+
     public DefaultPhase(String name, List<Step> steps, Strategy<Step> strategy, List<String> errors) {
         this.name = name;
         this.steps = steps;
         this.strategy = strategy;
         this.errors = errors;
+        this.statusTracker = new ParentStatusTracker<>(this, () -> this.errors, true);
+        this.taskIndex = new StepTaskIndex(this);
     }
 
     @Override
@@ -53,6 +63,49 @@ public class DefaultPhase implements Phase {
         return steps;
     }
 
+    @Override
+    public Status getStatus() {
+        return statusTracker.getStatus();
+    }
+
+    @Override
+    public boolean addStatusListener(StatusListener listener) {
+        statusTracker.addStatusListener(listener);
+        return true;
+    }
+
+    @Override
+    public void removeStatusListener(StatusListener listener) {
+        statusTracker.removeStatusListener(listener);
+    }
+
+    @Override
+    public void unsubscribeFromChildren() {
+        statusTracker.unsubscribeFromChildren();
+        taskIndex.unsubscribeFromSteps();
+    }
+
+    /**
+     * Only passes the update to the steps which are waiting on its task, rather than to every step.
+     */
+    @Override
+    public void update(Protos.TaskStatus taskStatus) {
+        LOGGER.debug("Updated {} with TaskStatus: {}", getName(), TextFormat.shortDebugString(taskStatus));
+        taskIndex.getSteps(taskStatus.getTaskId()).forEach(step -> step.update(taskStatus));
+    }
+
+    @Override
+    public void interrupt() {
+        Phase.super.interrupt();
+        statusTracker.invalidate();
+    }
+
+    @Override
+    public void proceed() {
+        Phase.super.proceed();
+        statusTracker.invalidate();
+    }
+
     @Override
     public String toString() {
         return ReflectionToStringBuilder.toString(this);
@@ -25,6 +25,11 @@ public class DefaultPlan implements Plan {
     private final List<String> errors;
     private final String name;
 
+    /**
+     * Transient to be excluded from {@link #equals(Object)} and {@link #toString()}.
+     */
+    private final transient ParentStatusTracker<Phase> statusTracker;
+
     public DefaultPlan(
             final String name,
             final List<Phase> phases,
@@ -34,6 +39,7 @@ public class DefaultPlan implements Plan {
         this.strategy = strategy;
         this.phases = phases;
         this.errors = errors;
+        this.statusTracker = new ParentStatusTracker<>(this, () -> this.errors, true);
     }
 
     public DefaultPlan(String name, List<Phase> phases) {
@@ -69,6 +75,39 @@ public class DefaultPlan implements Plan {
         return getErrors(errors);
     }
 
+    @Override
+    public Status getStatus() {
+        return statusTracker.getStatus();
+    }
+
+    @Override
+    public boolean addStatusListener(StatusListener listener) {
+        statusTracker.addStatusListener(listener);
+        return true;
+    }
+
+    @Override
+    public void removeStatusListener(StatusListener listener) {
+        statusTracker.removeStatusListener(listener);
+    }
+
+    @Override
+    public void unsubscribeFromChildren() {
+        statusTracker.unsubscribeFromChildren();
+    }
+
+    @Override
+    public void interrupt() {
+        Plan.super.interrupt();
+        statusTracker.invalidate();
+    }
+
+    @Override
+    public void proceed() {
+        Plan.super.proceed();
+        statusTracker.invalidate();
+    }
+
     @Override
     public String toString() {
         // Provide a nicely formatted tree -- mainly for developer use in e.g. unit tests
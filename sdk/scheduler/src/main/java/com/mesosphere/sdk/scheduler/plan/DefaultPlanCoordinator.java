@@ -91,19 +91,27 @@ public class DefaultPlanCoordinator implements PlanCoordinator {
         LOGGER.info("Input dirty assets: {}", dirtyAssets);
         LOGGER.info("Plan's dirty assets: {}", planManager.getDirtyAssets());
 
-        Plan plan = planManager.getPlan();
-        return dirtyAssets.stream()
-                .filter(podInstanceRequirement -> assetIsRelevant(podInstanceRequirement, plan))
-                .collect(Collectors.toList());
-    }
+        if (dirtyAssets.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-    private boolean assetIsRelevant(PodInstanceRequirement podInstanceRequirement, Plan plan) {
-        return plan.getChildren().stream()
+        // Collect the plan's in-progress assets once, rather than re-walking every step for each dirty asset.
+        // Phases which are complete cannot contain any in-progress steps.
+        List<PodInstanceRequirement> inProgressAssets = planManager.getPlan().getChildren().stream()
+                .filter(phase -> !phase.isComplete())
                 .flatMap(phase -> phase.getChildren().stream())
                 .filter(step -> step.getPodInstanceRequirement().isPresent())
                 .filter(step -> step.isInProgress())
                 .map(step -> step.getPodInstanceRequirement().get())
-                .filter(podRequirement -> podRequirement.conflictsWith(podInstanceRequirement))
-                .count() == 0;
+                .collect(Collectors.toList());
+        return dirtyAssets.stream()
+                .filter(podInstanceRequirement -> assetIsRelevant(podInstanceRequirement, inProgressAssets))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean assetIsRelevant(
+            PodInstanceRequirement podInstanceRequirement, Collection<PodInstanceRequirement> inProgressAssets) {
+        return inProgressAssets.stream()
+                .noneMatch(podRequirement -> podRequirement.conflictsWith(podInstanceRequirement));
     }
 }
@@ -30,16 +30,34 @@ public class DefaultPlanScheduler implements PlanScheduler {
     private final OfferEvaluator offerEvaluator;
     private final StateStore stateStore;
     private final TaskKiller taskKiller;
+    private final boolean batchAccepts;
 
     public DefaultPlanScheduler(
             OfferAccepter offerAccepter,
             OfferEvaluator offerEvaluator,
             StateStore stateStore,
             TaskKiller taskKiller) {
+        this(offerAccepter, offerEvaluator, stateStore, taskKiller, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param batchAccepts whether the recommendations for all steps in a {@link #resourceOffers} call should be
+     *     recorded in a single storage transaction and then accepted together, rather than recording and accepting
+     *     them separately for each step
+     */
+    public DefaultPlanScheduler(
+            OfferAccepter offerAccepter,
+            OfferEvaluator offerEvaluator,
+            StateStore stateStore,
+            TaskKiller taskKiller,
+            boolean batchAccepts) {
         this.offerAccepter = offerAccepter;
         this.offerEvaluator = offerEvaluator;
         this.stateStore = stateStore;
         this.taskKiller = taskKiller;
+        this.batchAccepts = batchAccepts;
     }
 
     @Override
@@ -53,6 +71,10 @@ public class DefaultPlanScheduler implements PlanScheduler {
             return Collections.emptyList();
         }
 
+        if (batchAccepts) {
+            return resourceOffersBatched(driver, offers, steps);
+        }
+
         List<OfferID> acceptedOfferIds = new ArrayList<>();
         List<Offer> availableOffers = new ArrayList<>(offers);
 
@@ -65,6 +87,87 @@ public class DefaultPlanScheduler implements PlanScheduler {
     }
 
     private Collection<OfferID> resourceOffers(SchedulerDriver driver, List<Offer> offers, Step step) {
+        List<OfferRecommendation> recommendations = getRecommendations(driver, offers, step, Optional.empty());
+        if (recommendations.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<OfferID> acceptedOffers = offerAccepter.accept(driver, recommendations);
+
+        // Notify step of offer outcome:
+        if (acceptedOffers.isEmpty()) {
+            // If no Operations occurred it may be of interest to the Step.  For example it may want to set its state
+            // to Pending to ensure it will be reattempted on the next Offer cycle.
+            step.updateOfferStatus(Collections.emptyList());
+        } else {
+            step.updateOfferStatus(getNonTransientRecommendations(recommendations));
+        }
+
+        return acceptedOffers;
+    }
+
+    /**
+     * Evaluates all steps before accepting any offers. The recommendations for each step are recorded as the step is
+     * processed, so that later steps see the tasks launched by earlier steps, but the resulting task writes are only
+     * sent to storage in a single transaction once all steps have been evaluated. The offers are then accepted with
+     * one call per offer.
+     *
+     * <p>Because no offer is accepted until all steps have been evaluated, an offer which was used by one step remains
+     * available to later steps: the resources consumed from each offer are tracked across steps, and later steps are
+     * evaluated against whatever is left over. This allows several pods to be launched from a single large offer.
+     */
+    private Collection<OfferID> resourceOffersBatched(
+            SchedulerDriver driver, List<Offer> offers, Collection<? extends Step> steps) {
+        Map<Step, List<OfferRecommendation>> recordedSteps = new LinkedHashMap<>();
+        List<OfferRecommendation> recordedRecommendations = new ArrayList<>();
+        OfferResourcePools resourcePools = new OfferResourcePools();
+
+        stateStore.beginTaskWriteBatch();
+        try {
+            for (Step step : steps) {
+                resourcePools.mark();
+                List<OfferRecommendation> recommendations =
+                        getRecommendations(driver, offers, step, Optional.of(resourcePools));
+                if (recommendations.isEmpty()) {
+                    continue;
+                }
+                stateStore.markTaskWriteBatch();
+                if (!offerAccepter.record(recommendations)) {
+                    // Drop any writes which were recorded before the failure, so that they aren't committed below, and
+                    // return the resources which the step would have used to the offers for later steps:
+                    stateStore.rollbackTaskWriteBatch();
+                    resourcePools.rollback();
+                    step.updateOfferStatus(Collections.emptyList());
+                    continue;
+                }
+                recordedSteps.put(step, recommendations);
+                recordedRecommendations.addAll(recommendations);
+            }
+            stateStore.commitTaskWriteBatch();
+        } catch (RuntimeException e) {
+            logger.error(String.format("Failed to store recommendations for %d steps", recordedSteps.size()), e);
+            stateStore.abortTaskWriteBatch();
+            for (Step step : recordedSteps.keySet()) {
+                step.updateOfferStatus(Collections.emptyList());
+            }
+            return Collections.emptyList();
+        }
+
+        List<OfferID> acceptedOfferIds = offerAccepter.acceptRecorded(driver, recordedRecommendations);
+        for (Map.Entry<Step, List<OfferRecommendation>> entry : recordedSteps.entrySet()) {
+            entry.getKey().updateOfferStatus(getNonTransientRecommendations(entry.getValue()));
+        }
+        return acceptedOfferIds;
+    }
+
+    /**
+     * Returns the recommendations for launching the provided step against the provided offers, or an empty list if
+     * the step has nothing to launch or no suitable offer was found. In the latter case, the step is notified that no
+     * operations will be performed. If {@code resourcePools} is provided, the step is evaluated against the resources
+     * remaining in each offer, and the resources used by the step are consumed from it.
+     */
+    private List<OfferRecommendation> getRecommendations(
+            SchedulerDriver driver, List<Offer> offers, Step step, Optional<OfferResourcePools> resourcePools) {
 
         if (driver == null || offers == null) {
             logger.error("Unexpected null argument encountered: driver='{}' offers='{}'", driver, offers);
@@ -99,7 +202,9 @@ public class DefaultPlanScheduler implements PlanScheduler {
         // requirement and accept them, if any are found:
         List<OfferRecommendation> recommendations = null;
         try {
-            recommendations = offerEvaluator.evaluate(podInstanceRequirement, offers);
+            recommendations = resourcePools.isPresent()
+                    ? offerEvaluator.evaluate(podInstanceRequirement, offers, resourcePools.get())
+                    : offerEvaluator.evaluate(podInstanceRequirement, offers);
         } catch (InvalidRequirementException | IOException e) {
             logger.error("Failed generate OfferRecommendations.", e);
             return Collections.emptyList();
@@ -114,23 +219,10 @@ public class DefaultPlanScheduler implements PlanScheduler {
             return Collections.emptyList();
         }
 
-        List<OfferID> acceptedOffers = offerAccepter.accept(driver, recommendations);
-
-        // Notify step of offer outcome:
-        if (acceptedOffers.isEmpty()) {
-            // If no Operations occurred it may be of interest to the Step.  For example it may want to set its state
-            // to Pending to ensure it will be reattempted on the next Offer cycle.
-            step.updateOfferStatus(Collections.emptyList());
-        } else {
-            step.updateOfferStatus(getNonTransientRecommendations(recommendations));
-        }
-
-        return acceptedOffers;
+        return recommendations;
     }
 
     private void killTasks(PodInstanceRequirement podInstanceRequirement) {
-        Map<String, TaskInfo> taskInfoMap = new HashMap<>();
-        stateStore.fetchTasks().forEach(taskInfo -> taskInfoMap.put(taskInfo.getName(), taskInfo));
         logger.info("Killing tasks for pod instance requirement: {}:{}",
                 podInstanceRequirement.getPodInstance().getName(),
                 podInstanceRequirement.getTasksToLaunch());
@@ -156,8 +248,9 @@ public class DefaultPlanScheduler implements PlanScheduler {
         logger.info("Tasks to kill: {}", tasksToKill);
 
         for (String taskName : tasksToKill) {
-            TaskInfo taskInfo = taskInfoMap.get(taskName);
-            if (taskInfo != null) {
+            Optional<TaskInfo> taskInfoOptional = stateStore.fetchTask(taskName);
+            if (taskInfoOptional.isPresent()) {
+                TaskInfo taskInfo = taskInfoOptional.get();
                 Optional<Protos.TaskStatus> taskStatusOptional = stateStore.fetchStatus(taskInfo.getName());
 
                 Protos.TaskState state = Protos.TaskState.TASK_RUNNING;
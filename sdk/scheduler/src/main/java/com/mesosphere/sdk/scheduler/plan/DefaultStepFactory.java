@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.scheduler.plan;
 
+import com.mesosphere.sdk.config.ServiceSpecDiffCache;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 import com.mesosphere.sdk.scheduler.recovery.FailureUtils;
@@ -24,12 +25,32 @@ public class DefaultStepFactory implements StepFactory {
 
     private final ConfigTargetStore configTargetStore;
     private final StateStore stateStore;
+    private final Optional<ServiceSpecDiffCache> configDiffs;
 
     public DefaultStepFactory(
             ConfigTargetStore configTargetStore,
             StateStore stateStore) {
+        this(configTargetStore, stateStore, Optional.empty());
+    }
+
+    /**
+     * Creates a new instance which uses the provided diffs to treat tasks as being on the target configuration if
+     * their pods weren't changed between the task's configuration and the target.
+     */
+    public DefaultStepFactory(
+            ConfigTargetStore configTargetStore,
+            StateStore stateStore,
+            ServiceSpecDiffCache configDiffs) {
+        this(configTargetStore, stateStore, Optional.of(configDiffs));
+    }
+
+    private DefaultStepFactory(
+            ConfigTargetStore configTargetStore,
+            StateStore stateStore,
+            Optional<ServiceSpecDiffCache> configDiffs) {
         this.configTargetStore = configTargetStore;
         this.stateStore = stateStore;
+        this.configDiffs = configDiffs;
     }
 
     @Override
@@ -119,7 +140,7 @@ public class DefaultStepFactory implements StepFactory {
     private Status getStatus(PodInstance podInstance, Protos.TaskInfo taskInfo, UUID targetConfigId)
             throws TaskException, Step.InvalidStepException {
 
-        boolean isOnTarget = isOnTarget(taskInfo, targetConfigId);
+        boolean isOnTarget = isOnTarget(podInstance, taskInfo, targetConfigId);
         boolean hasReachedGoal = hasReachedGoalState(podInstance, taskInfo);
 
         if (hasReachedGoal) {
@@ -144,9 +165,20 @@ public class DefaultStepFactory implements StepFactory {
 
     }
 
-    private static boolean isOnTarget(Protos.TaskInfo taskInfo, UUID targetConfigId) throws TaskException {
+    private boolean isOnTarget(PodInstance podInstance, Protos.TaskInfo taskInfo, UUID targetConfigId)
+            throws TaskException {
         UUID taskConfigId = new TaskLabelReader(taskInfo).getTargetConfiguration();
-        return targetConfigId.equals(taskConfigId);
+        if (targetConfigId.equals(taskConfigId) || !configDiffs.isPresent()) {
+            return targetConfigId.equals(taskConfigId);
+        }
+        try {
+            return !configDiffs.get().getDiff(taskConfigId, targetConfigId)
+                    .isPodUpdateNeeded(podInstance.getPod().getType());
+        } catch (ConfigStoreException e) {
+            LOGGER.warn(String.format("Unable to compare configuration %s of task '%s' against target %s, " +
+                    "assuming that the task needs to be updated", taskConfigId, taskInfo.getName(), targetConfigId), e);
+            return false;
+        }
     }
 
     private boolean hasReachedGoalState(PodInstance podInstance, Protos.TaskInfo taskInfo)
@@ -57,6 +57,8 @@ public class DeploymentStep extends AbstractStep {
         }
 
         logger.info("Step '{} [{}]' is now waiting for updates for task IDs: {}", getName(), getId(), tasks);
+        // Allow the parent phase to route updates for the new task IDs to this step:
+        notifyStatusListeners();
     }
 
     @Override
@@ -117,6 +119,14 @@ public class DeploymentStep extends AbstractStep {
         return errors;
     }
 
+    /**
+     * Synchronized to ensure consistency with {@link #updateOfferStatus(Collection)}.
+     */
+    @Override
+    public synchronized Optional<Collection<Protos.TaskID>> getTaskIds() {
+        return Optional.of(new ArrayList<>(tasks.keySet()));
+    }
+
     /**
      * Synchronized to ensure consistency between this and {@link #updateOfferStatus(Collection)}.
      */
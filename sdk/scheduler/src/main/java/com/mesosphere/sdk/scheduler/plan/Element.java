@@ -112,6 +112,22 @@ public interface Element {
      */
     default void updateParameters(Map<String, String> parameters) { }
 
+    /**
+     * Registers a listener to be notified whenever this Element's status or interruption state may have changed.
+     *
+     * @return true if the listener was registered, or false if this Element does not support notifications, in which
+     *     case callers must re-query {@link #getStatus()} rather than relying on a previously returned value
+     */
+    default boolean addStatusListener(StatusListener listener) {
+        return false;
+    }
+
+    /**
+     * Unregisters a listener which was previously registered via {@link #addStatusListener(StatusListener)}. Does
+     * nothing if the listener isn't registered.
+     */
+    default void removeStatusListener(StatusListener listener) { }
+
     /**
      * Returns a reasonable user-visible status message.
      */
@@ -8,9 +8,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
-import static com.mesosphere.sdk.scheduler.plan.PlanUtils.allHaveStatus;
-import static com.mesosphere.sdk.scheduler.plan.PlanUtils.anyHaveStatus;
-
 
 /**
  * A type of {@link Element} which itself is a collection of child {@link Element}s.
@@ -96,71 +93,21 @@ public interface ParentElement<C extends Element> extends Element, Interruptible
         return errors;
     }
 
+    /**
+     * Unregisters any listeners which this element registered with its children in order to track its own status.
+     * This should be called when the element is discarded while its children remain in use, e.g. when a plan is
+     * rebuilt around its existing phases, so that the children don't keep the discarded element reachable. If the
+     * element is used again afterwards, it registers with its children again.
+     */
+    default void unsubscribeFromChildren() { }
+
+    /**
+     * Computes this element's status from a full scan of its children. Implementations which support
+     * {@link #addStatusListener(StatusListener)} on their children may cache this result, see
+     * {@link ParentStatusTracker}.
+     */
     @Override
     default Status getStatus() {
-        // Ordering matters throughout this method.  Modify with care.
-        // Also note that this function MUST NOT call parent.getStatus() as that creates a circular call.
-
-        final List<C> children = getChildren();
-        if (children == null) {
-            LOGGER.error("Parent element returned null list of children: {}", getName());
-            return Status.ERROR;
-        }
-
-        final Collection<? extends Element> candidateChildren =
-                getStrategy().getCandidates(children, Collections.emptyList());
-
-        Status result;
-        if (!getErrors().isEmpty() || anyHaveStatus(Status.ERROR, children)) {
-            result = Status.ERROR;
-            LOGGER.debug("({} status={}) Elements contain errors.", getName(), result);
-        } else if (allHaveStatus(Status.COMPLETE, children)) {
-            result = Status.COMPLETE;
-            LOGGER.debug("({} status={}) All elements have status: {}",
-                    getName(), result, Status.COMPLETE);
-        } else if (isInterrupted()) {
-            result = Status.WAITING;
-            LOGGER.debug("({} status={}) Parent element is interrupted", getName(), result);
-        } else if (anyHaveStatus(Status.PREPARED, children)) {
-            result = Status.IN_PROGRESS;
-            LOGGER.debug("({} status={}) At least one phase has status: {}",
-                    getName(), result, Status.PREPARED);
-        }  else if (anyHaveStatus(Status.WAITING, candidateChildren)) {
-            result = Status.WAITING;
-            LOGGER.debug("({} status={}) At least one element has status: {}",
-                    getName(), result, Status.WAITING);
-        } else if (anyHaveStatus(Status.IN_PROGRESS, candidateChildren)) {
-            result = Status.IN_PROGRESS;
-            LOGGER.debug("({} status={}) At least one phase has status: {}",
-                    getName(), result, Status.IN_PROGRESS);
-        } else if (anyHaveStatus(Status.COMPLETE, children) &&
-                anyHaveStatus(Status.PENDING, candidateChildren)) {
-            result = Status.IN_PROGRESS;
-            LOGGER.debug("({} status={}) At least one element has status '{}' and one has status '{}'",
-                    getName(), result, Status.COMPLETE, Status.PENDING);
-        } else if (anyHaveStatus(Status.COMPLETE, children) &&
-                anyHaveStatus(Status.STARTING, candidateChildren)) {
-            result = Status.IN_PROGRESS;
-            LOGGER.debug("({} status={}) At least one element has status '{}' and one has status '{}'",
-                    getName(), result, Status.COMPLETE, Status.STARTING);
-        } else if (!candidateChildren.isEmpty() && anyHaveStatus(Status.PENDING, candidateChildren)) {
-            result = Status.PENDING;
-            LOGGER.debug("({} status={}) At least one element has status: {}",
-                    getName(), result, Status.PENDING);
-        } else if (anyHaveStatus(Status.WAITING, children)) {
-            result = Status.WAITING;
-            LOGGER.debug("({} status={}) At least one element has status: {}",
-                    getName(), result, Status.WAITING);
-        } else if (anyHaveStatus(Status.STARTING, candidateChildren)) {
-            result = Status.STARTING;
-            LOGGER.debug("({} status={}) At least one element has status '{}'",
-                    getName(), result, Status.STARTING);
-        } else {
-            result = Status.ERROR;
-            LOGGER.warn("({} status={}) Unexpected state. children: {}",
-                    getName(), result, children);
-        }
-
-        return result;
+        return ParentStatusTracker.getUncachedStatus(this);
     }
 }
@@ -0,0 +1,296 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Computes the {@link Status} of a {@link ParentElement} from the statuses of its children.
+ * <p>
+ * When constructed with {@code observeChildren} enabled, this keeps a count of children in each {@link Status} and
+ * subscribes to changes from every child which supports {@link Element#addStatusListener(StatusListener)}. The
+ * parent's status is then only recomputed after a child has reported a change, and only the children which changed
+ * are re-queried, making repeated lookups O(1) rather than a walk of the whole tree. Children which don't support
+ * notifications are re-queried on every lookup and disable caching of the result. Changes to the parent's own status
+ * are forwarded to any listeners registered via {@link #addStatusListener(StatusListener)}.
+ * <p>
+ * The cached status assumes that a child's errors only change along with its status, and that the parent's
+ * {@link com.mesosphere.sdk.scheduler.plan.strategy.Strategy} selects candidates based only on the state of the
+ * children and on whether the parent is interrupted. Callers which interrupt or proceed the parent should do so via
+ * the parent element rather than its strategy, so that {@link #invalidate()} is invoked.
+ *
+ * @param <C> the type of the child elements
+ */
+class ParentStatusTracker<C extends Element> implements StatusListener {
+
+    private final ParentElement<C> parent;
+    private final Supplier<List<String>> parentErrors;
+    private final boolean observeChildren;
+    private final Collection<StatusListener> statusListeners = new CopyOnWriteArrayList<>();
+
+    // All of the following are guarded by 'this':
+
+    private List<C> children;
+    private Status[] childStatuses;
+    private boolean[] childHasErrors;
+    private final int[] statusCounts = new int[Status.values().length];
+    private int childrenWithErrors;
+    private final Map<Element, List<Integer>> childIndices = new IdentityHashMap<>();
+    private final BitSet dirtyChildren = new BitSet();
+    private final List<Integer> unobservedChildren = new ArrayList<>();
+
+    private boolean valid;
+    private boolean cachedInterrupted;
+    private Status cachedStatus;
+
+    /**
+     * Returns the status of the provided parent, computed from scratch without subscribing to its children.
+     */
+    static <C extends Element> Status getUncachedStatus(ParentElement<C> parent) {
+        return new ParentStatusTracker<>(parent, () -> parent.getErrors(), false).getStatus();
+    }
+
+    /**
+     * @param parent the element whose status is being tracked
+     * @param parentErrors returns the errors of the parent itself, excluding any errors of its children
+     * @param observeChildren whether to subscribe to changes in the children and cache the resulting status
+     */
+    ParentStatusTracker(ParentElement<C> parent, Supplier<List<String>> parentErrors, boolean observeChildren) {
+        this.parent = parent;
+        this.parentErrors = parentErrors;
+        this.observeChildren = observeChildren;
+    }
+
+    /**
+     * Returns the current status of the parent, recomputing it only if a child has changed since the last call.
+     */
+    synchronized Status getStatus() {
+        final List<C> currentChildren = parent.getChildren();
+        if (currentChildren == null) {
+            ParentElement.LOGGER.error("Parent element returned null list of children: {}", parent.getName());
+            valid = false;
+            return Status.ERROR;
+        }
+        final boolean interrupted = parent.isInterrupted();
+        if (currentChildren != children || currentChildren.size() != childStatuses.length) {
+            initialize(currentChildren);
+        } else if (valid && interrupted == cachedInterrupted) {
+            return cachedStatus;
+        }
+
+        for (int i = dirtyChildren.nextSetBit(0); i >= 0; i = dirtyChildren.nextSetBit(i + 1)) {
+            refresh(i);
+        }
+        dirtyChildren.clear();
+        for (int i : unobservedChildren) {
+            refresh(i);
+        }
+
+        cachedStatus = computeStatus(interrupted);
+        cachedInterrupted = interrupted;
+        valid = unobservedChildren.isEmpty();
+        return cachedStatus;
+    }
+
+    /**
+     * Forces the status to be recomputed on the next lookup, and notifies any listeners of a possible change. This
+     * should be called whenever the parent is interrupted or proceeded.
+     */
+    void invalidate() {
+        synchronized (this) {
+            valid = false;
+        }
+        notifyStatusListeners();
+    }
+
+    /**
+     * Registers a listener to be notified when the parent's status may have changed.
+     */
+    void addStatusListener(StatusListener listener) {
+        statusListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener which was registered via {@link #addStatusListener(StatusListener)}.
+     */
+    void removeStatusListener(StatusListener listener) {
+        statusListeners.remove(listener);
+    }
+
+    /**
+     * Unsubscribes from all of the parent's children, see {@link ParentElement#unsubscribeFromChildren()}. The
+     * status is recomputed from scratch, subscribing to the children again, if it's looked up afterwards.
+     */
+    synchronized void unsubscribeFromChildren() {
+        unsubscribe();
+        children = null;
+        valid = false;
+    }
+
+    @Override
+    public void statusChanged(Element child) {
+        boolean wasValid;
+        synchronized (this) {
+            List<Integer> indices = childIndices.get(child);
+            if (indices != null) {
+                indices.forEach(dirtyChildren::set);
+            }
+            wasValid = valid;
+            valid = false;
+        }
+        // If the cached status was already invalid, then our listeners have already been notified since it was last
+        // computed. Notify outside of the lock, as listeners may query us in turn.
+        if (wasValid) {
+            notifyStatusListeners();
+        }
+    }
+
+    private void notifyStatusListeners() {
+        for (StatusListener listener : statusListeners) {
+            listener.statusChanged(parent);
+        }
+    }
+
+    private void initialize(List<C> currentChildren) {
+        // Drop our subscriptions to the previous children, some of which may no longer be present:
+        unsubscribe();
+        children = currentChildren;
+        childStatuses = new Status[currentChildren.size()];
+        childHasErrors = new boolean[currentChildren.size()];
+        Arrays.fill(statusCounts, 0);
+        childrenWithErrors = 0;
+        childIndices.clear();
+        dirtyChildren.clear();
+        unobservedChildren.clear();
+
+        for (int i = 0; i < currentChildren.size(); ++i) {
+            C child = currentChildren.get(i);
+            List<Integer> indices = childIndices.get(child);
+            // Subscribe before querying the child, so that no changes are missed in between:
+            if (indices == null && observeChildren && child.addStatusListener(this)) {
+                indices = new ArrayList<>();
+                childIndices.put(child, indices);
+            }
+            if (indices == null) {
+                unobservedChildren.add(i);
+            } else {
+                indices.add(i);
+            }
+            refresh(i);
+        }
+    }
+
+    private void unsubscribe() {
+        for (Element child : childIndices.keySet()) {
+            child.removeStatusListener(this);
+        }
+        childIndices.clear();
+    }
+
+    private void refresh(int index) {
+        C child = children.get(index);
+        Status status = child.getStatus();
+        boolean hasErrors = !child.getErrors().isEmpty();
+
+        Status previousStatus = childStatuses[index];
+        if (previousStatus != null) {
+            --statusCounts[previousStatus.ordinal()];
+        }
+        if (childHasErrors[index]) {
+            --childrenWithErrors;
+        }
+
+        childStatuses[index] = status;
+        childHasErrors[index] = hasErrors;
+        if (status != null) {
+            ++statusCounts[status.ordinal()];
+        }
+        if (hasErrors) {
+            ++childrenWithErrors;
+        }
+    }
+
+    private boolean anyHaveStatus(Status status) {
+        return statusCounts[status.ordinal()] > 0;
+    }
+
+    /**
+     * Follows the same rules as {@link ParentElement#getStatus()} originally applied to a full scan of the children,
+     * but using the per-status counts. The strategy's candidates are only computed if a rule needs them.
+     */
+    private Status computeStatus(boolean interrupted) {
+        // Ordering matters throughout this method.  Modify with care.
+        // Also note that this function MUST NOT call parent.getStatus() as that creates a circular call.
+        final String name = parent.getName();
+        final Supplier<Collection<C>> candidateChildren =
+                Suppliers.memoize(() -> parent.getStrategy().getCandidates(children, Collections.emptyList()));
+
+        Status result;
+        if (!parentErrors.get().isEmpty() || childrenWithErrors > 0 || anyHaveStatus(Status.ERROR)) {
+            result = Status.ERROR;
+            ParentElement.LOGGER.debug("({} status={}) Elements contain errors.", name, result);
+        } else if (statusCounts[Status.COMPLETE.ordinal()] == children.size()) {
+            result = Status.COMPLETE;
+            ParentElement.LOGGER.debug("({} status={}) All elements have status: {}",
+                    name, result, Status.COMPLETE);
+        } else if (interrupted) {
+            result = Status.WAITING;
+            ParentElement.LOGGER.debug("({} status={}) Parent element is interrupted", name, result);
+        } else if (anyHaveStatus(Status.PREPARED)) {
+            result = Status.IN_PROGRESS;
+            ParentElement.LOGGER.debug("({} status={}) At least one phase has status: {}",
+                    name, result, Status.PREPARED);
+        } else if (anyCandidateHasStatus(Status.WAITING, candidateChildren)) {
+            result = Status.WAITING;
+            ParentElement.LOGGER.debug("({} status={}) At least one element has status: {}",
+                    name, result, Status.WAITING);
+        } else if (anyCandidateHasStatus(Status.IN_PROGRESS, candidateChildren)) {
+            result = Status.IN_PROGRESS;
+            ParentElement.LOGGER.debug("({} status={}) At least one phase has status: {}",
+                    name, result, Status.IN_PROGRESS);
+        } else if (anyHaveStatus(Status.COMPLETE) &&
+                anyCandidateHasStatus(Status.PENDING, candidateChildren)) {
+            result = Status.IN_PROGRESS;
+            ParentElement.LOGGER.debug("({} status={}) At least one element has status '{}' and one has status '{}'",
+                    name, result, Status.COMPLETE, Status.PENDING);
+        } else if (anyHaveStatus(Status.COMPLETE) &&
+                anyCandidateHasStatus(Status.STARTING, candidateChildren)) {
+            result = Status.IN_PROGRESS;
+            ParentElement.LOGGER.debug("({} status={}) At least one element has status '{}' and one has status '{}'",
+                    name, result, Status.COMPLETE, Status.STARTING);
+        } else if (anyCandidateHasStatus(Status.PENDING, candidateChildren)) {
+            result = Status.PENDING;
+            ParentElement.LOGGER.debug("({} status={}) At least one element has status: {}",
+                    name, result, Status.PENDING);
+        } else if (anyHaveStatus(Status.WAITING)) {
+            result = Status.WAITING;
+            ParentElement.LOGGER.debug("({} status={}) At least one element has status: {}",
+                    name, result, Status.WAITING);
+        } else if (anyCandidateHasStatus(Status.STARTING, candidateChildren)) {
+            result = Status.STARTING;
+            ParentElement.LOGGER.debug("({} status={}) At least one element has status '{}'",
+                    name, result, Status.STARTING);
+        } else {
+            result = Status.ERROR;
+            ParentElement.LOGGER.warn("({} status={}) Unexpected state. children: {}",
+                    name, result, children);
+        }
+
+        return result;
+    }
+
+    private boolean anyCandidateHasStatus(Status status, Supplier<Collection<C>> candidateChildren) {
+        // Skip computing the candidates entirely when no child at all has the status:
+        return anyHaveStatus(status)
+                && candidateChildren.get().stream().anyMatch(candidate -> candidate.getStatus() == status);
+    }
+}
@@ -0,0 +1,14 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+/**
+ * Receives notifications when the {@link Status} or interruption state of an {@link Element} may have changed. Parent
+ * elements use these notifications to keep their own status up to date without re-scanning all of their children.
+ */
+public interface StatusListener {
+
+    /**
+     * Invoked after the provided {@link Element}'s status or interruption state may have changed. Implementations
+     * must be cheap and must not call back into the element, as this may be invoked from any thread.
+     */
+    void statusChanged(Element element);
+}
@@ -1,6 +1,7 @@
 package com.mesosphere.sdk.scheduler.plan;
 
 import com.mesosphere.sdk.offer.OfferRecommendation;
+import org.apache.mesos.Protos;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -41,6 +42,16 @@ public interface Step extends Element, Interruptible {
      */
     Optional<PodInstanceRequirement> getAsset();
 
+    /**
+     * Returns the IDs of the tasks whose {@link Protos.TaskStatus} updates are relevant to this Step, or an empty
+     * Optional if this Step should be provided with every update. When a collection is returned, the Step must notify
+     * its {@link StatusListener}s whenever the collection changes, and {@link #update(Protos.TaskStatus)} will only be
+     * invoked for the returned tasks.
+     */
+    default Optional<Collection<Protos.TaskID>> getTaskIds() {
+        return Optional.empty();
+    }
+
     /**
      * Reports whether the Asset associated with this Step is dirty.
      */
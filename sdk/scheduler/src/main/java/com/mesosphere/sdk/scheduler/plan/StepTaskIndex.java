@@ -0,0 +1,159 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import org.apache.mesos.Protos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes {@link Protos.TaskStatus} updates to the {@link Step}s within a {@link Phase} which are waiting on the
+ * update's {@link Protos.TaskID}, so that an update doesn't need to be passed to every step in the phase.
+ * <p>
+ * Steps which report their task IDs via {@link Step#getTaskIds()} and which support
+ * {@link Element#addStatusListener(StatusListener)} are indexed by task ID, and are re-indexed after notifying a
+ * change. All other steps receive every update, as they would without the index.
+ * <p>
+ * The index is kept per phase rather than for the whole scheduler, because updates must still pass through each
+ * {@link PlanManager} and {@link Plan}: the recovery plan manager serializes updates with its replacement of the
+ * recovery plan, and custom plans, phases and steps may act on every update. An update is therefore still offered to
+ * each phase of each plan, at the cost of one lookup per phase, but only reaches the steps which own its task.
+ */
+class StepTaskIndex implements StatusListener {
+
+    private final Phase phase;
+
+    /**
+     * Steps which have notified a change since they were last indexed. This is updated without holding the lock on
+     * {@code this}, as steps may notify while holding their own locks, which we take in turn when re-indexing.
+     */
+    private final Set<Step> changedSteps = ConcurrentHashMap.newKeySet();
+
+    // All of the following are guarded by 'this':
+
+    private List<Step> steps;
+    private final Map<Step, List<Integer>> stepIndices = new IdentityHashMap<>();
+    private final Map<Step, Collection<Protos.TaskID>> indexedTaskIds = new IdentityHashMap<>();
+    private final Map<Protos.TaskID, Set<Integer>> taskIdIndices = new HashMap<>();
+    private final List<Integer> unindexedSteps = new ArrayList<>();
+
+    StepTaskIndex(Phase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Returns the steps which should be notified of a status update for the provided task, in the order that they
+     * appear in the phase.
+     */
+    synchronized List<Step> getSteps(Protos.TaskID taskId) {
+        final List<Step> currentSteps = phase.getChildren();
+        if (currentSteps != steps) {
+            initialize(currentSteps);
+        } else {
+            for (Step step : changedSteps) {
+                // Remove before re-indexing, so that any change which happens in between is not lost:
+                changedSteps.remove(step);
+                List<Integer> indices = stepIndices.get(step);
+                if (indices != null) {
+                    index(step, indices);
+                }
+            }
+        }
+
+        Set<Integer> indices = taskIdIndices.get(taskId);
+        if (indices == null && unindexedSteps.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Integer> sortedIndices = new TreeSet<>(unindexedSteps);
+        if (indices != null) {
+            sortedIndices.addAll(indices);
+        }
+        List<Step> result = new ArrayList<>(sortedIndices.size());
+        for (int i : sortedIndices) {
+            result.add(steps.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public void statusChanged(Element step) {
+        changedSteps.add((Step) step);
+    }
+
+    /**
+     * Unsubscribes from all of the phase's steps, see {@link ParentElement#unsubscribeFromChildren()}. The steps are
+     * indexed again, subscribing to them again, if the index is used afterwards.
+     */
+    synchronized void unsubscribeFromSteps() {
+        unsubscribe();
+        steps = null;
+    }
+
+    private void initialize(List<Step> currentSteps) {
+        // Drop our subscriptions to the previous steps, some of which may no longer be present:
+        unsubscribe();
+        steps = currentSteps;
+        stepIndices.clear();
+        indexedTaskIds.clear();
+        taskIdIndices.clear();
+        unindexedSteps.clear();
+
+        for (int i = 0; i < currentSteps.size(); ++i) {
+            Step step = currentSteps.get(i);
+            List<Integer> indices = stepIndices.get(step);
+            // Subscribe before indexing the step, so that no changes are missed in between:
+            if (indices == null && step.addStatusListener(this)) {
+                indices = new ArrayList<>();
+                stepIndices.put(step, indices);
+            }
+            if (indices == null) {
+                unindexedSteps.add(i);
+            } else {
+                indices.add(i);
+            }
+        }
+        for (Map.Entry<Step, List<Integer>> entry : stepIndices.entrySet()) {
+            index(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void unsubscribe() {
+        for (Step step : stepIndices.keySet()) {
+            step.removeStatusListener(this);
+        }
+        stepIndices.clear();
+        changedSteps.clear();
+    }
+
+    private void index(Step step, List<Integer> indices) {
+        Collection<Protos.TaskID> previousTaskIds = indexedTaskIds.remove(step);
+        if (previousTaskIds != null) {
+            for (Protos.TaskID taskId : previousTaskIds) {
+                Set<Integer> taskIndices = taskIdIndices.get(taskId);
+                taskIndices.removeAll(indices);
+                if (taskIndices.isEmpty()) {
+                    taskIdIndices.remove(taskId);
+                }
+            }
+        }
+        unindexedSteps.removeAll(indices);
+
+        Optional<Collection<Protos.TaskID>> taskIds = step.getTaskIds();
+        if (taskIds == null || !taskIds.isPresent()) {
+            unindexedSteps.addAll(indices);
+            return;
+        }
+        indexedTaskIds.put(step, taskIds.get());
+        for (Protos.TaskID taskId : taskIds.get()) {
+            taskIdIndices.computeIfAbsent(taskId, id -> new TreeSet<>()).addAll(indices);
+        }
+    }
+}
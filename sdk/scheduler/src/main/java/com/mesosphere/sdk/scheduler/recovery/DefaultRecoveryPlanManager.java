@@ -74,7 +74,17 @@ public class DefaultRecoveryPlanManager implements PlanManager {
 
     protected void setPlan(Plan plan) {
         synchronized (planLock) {
+            Plan previousPlan = this.plan;
             this.plan = plan;
+            if (previousPlan != null && previousPlan != plan) {
+                // The new plan reuses the previous plan's phases, which would otherwise keep notifying it:
+                previousPlan.unsubscribeFromChildren();
+                Set<Phase> phases = Collections.newSetFromMap(new IdentityHashMap<>());
+                phases.addAll(plan.getChildren());
+                previousPlan.getChildren().stream()
+                        .filter(phase -> !phases.contains(phase))
+                        .forEach(phase -> phase.unsubscribeFromChildren());
+            }
             List<String> stepNames = plan.getChildren().stream()
                     .flatMap(phase -> phase.getChildren().stream())
                     .map(step -> step.getName())
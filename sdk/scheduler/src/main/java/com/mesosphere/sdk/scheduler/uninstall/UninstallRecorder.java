@@ -65,6 +65,11 @@ public class UninstallRecorder implements OperationRecorder {
         }
     }
 
+    @Override
+    public void flush() throws Exception {
+        stateStore.flush();
+    }
+
     private Collection<Protos.TaskInfo> updateResources(
             Protos.Resource resource, List<Protos.TaskInfo> tasksToUpdate) {
         // create new copies of taskinfos with updated resources
@@ -41,6 +41,7 @@ public class DefaultPodSpec implements PodSpec {
     private final List<TaskSpec> tasks;
     @Valid
     private final PlacementRule placementRule;
+    private final String offerScorer;
     @Valid
     private final Collection<URI> uris;
     @Valid
@@ -62,6 +63,7 @@ public class DefaultPodSpec implements PodSpec {
             @JsonProperty("uris") Collection<URI> uris,
             @JsonProperty("task-specs") List<TaskSpec> tasks,
             @JsonProperty("placement-rule") PlacementRule placementRule,
+            @JsonProperty("offer-scorer") String offerScorer,
             @JsonProperty("volumes") Collection<VolumeSpec> volumes,
             @JsonProperty("pre-reserved-role") String preReservedRole,
             @JsonProperty("secrets") Collection<SecretSpec> secrets,
@@ -77,6 +79,7 @@ public class DefaultPodSpec implements PodSpec {
                         .uris(uris)
                         .tasks(tasks)
                         .placementRule(placementRule)
+                        .offerScorer(offerScorer)
                         .volumes(volumes)
                         .preReservedRole(preReservedRole)
                         .secrets(secrets)
@@ -88,6 +91,7 @@ public class DefaultPodSpec implements PodSpec {
         this.image = builder.image;
         this.networks = builder.networks;
         this.placementRule = builder.placementRule;
+        this.offerScorer = builder.offerScorer;
         this.preReservedRole = builder.preReservedRole;
         this.rlimits = builder.rlimits;
         this.secrets = builder.secrets;
@@ -110,6 +114,7 @@ public class DefaultPodSpec implements PodSpec {
         builder.image = copy.getImage().isPresent() ? copy.getImage().get() : null;
         builder.networks = copy.getNetworks();
         builder.placementRule = copy.getPlacementRule().isPresent() ? copy.getPlacementRule().get() : null;
+        builder.offerScorer = copy.getOfferScorer().isPresent() ? copy.getOfferScorer().get() : null;
         builder.preReservedRole = copy.getPreReservedRole();
         builder.rlimits = copy.getRLimits();
         builder.secrets = copy.getSecrets();
@@ -167,6 +172,11 @@ public class DefaultPodSpec implements PodSpec {
         return Optional.ofNullable(placementRule);
     }
 
+    @Override
+    public Optional<String> getOfferScorer() {
+        return Optional.ofNullable(offerScorer);
+    }
+
     @Override
     public Collection<VolumeSpec> getVolumes() {
         return volumes;
@@ -213,6 +223,7 @@ public class DefaultPodSpec implements PodSpec {
         private Integer count;
         private String image;
         private PlacementRule placementRule;
+        private String offerScorer;
         public String preReservedRole = Constants.ANY_ROLE;
         private Collection<NetworkSpec> networks = new ArrayList<>();
         private Collection<RLimitSpec> rlimits =  new ArrayList<>();
@@ -372,6 +383,18 @@ public class DefaultPodSpec implements PodSpec {
             return this;
         }
 
+        /**
+         * Sets the name of the {@code offerScorer} and returns a reference to this Builder so that the methods can be
+         * chained together.
+         *
+         * @param offerScorer the name of the {@code offerScorer} to set
+         * @return a reference to this Builder
+         */
+        public Builder offerScorer(String offerScorer) {
+            this.offerScorer = offerScorer;
+            return this;
+        }
+
         /**
          * Sets the {@code volumes} and returns a reference to this Builder so that the methods can be
          * chained together.
@@ -42,6 +42,9 @@ public interface PodSpec {
     @JsonProperty("placement-rule")
     Optional<PlacementRule> getPlacementRule();
 
+    @JsonProperty("offer-scorer")
+    Optional<String> getOfferScorer();
+
     @JsonProperty("volumes")
     Collection<VolumeSpec> getVolumes();
 
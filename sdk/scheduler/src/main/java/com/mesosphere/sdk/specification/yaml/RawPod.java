@@ -16,6 +16,7 @@ import java.util.LinkedHashMap;
 public class RawPod implements RawContainerInfoProvider {
 
     private final String placement;
+    private final String offerScorer;
     private final Integer count;
     private final RawContainer container;
     private final String image;
@@ -33,6 +34,7 @@ public class RawPod implements RawContainerInfoProvider {
     private RawPod(
             @JsonProperty("resource-sets") WriteOnceLinkedHashMap<String, RawResourceSet> resourceSets,
             @JsonProperty("placement") String placement,
+            @JsonProperty("offer-scorer") String offerScorer,
             @JsonProperty("count") Integer count,
             @JsonProperty("container") RawContainer container,
             @JsonProperty("image") String image,
@@ -46,6 +48,7 @@ public class RawPod implements RawContainerInfoProvider {
             @JsonProperty("secrets") WriteOnceLinkedHashMap<String, RawSecret> secrets,
             @JsonProperty("share-pid-namespace") Boolean sharePidNamespace) {
         this.placement = placement;
+        this.offerScorer = offerScorer;
         this.count = count;
         this.container = container;
         this.image = image;
@@ -65,6 +68,10 @@ public class RawPod implements RawContainerInfoProvider {
         return placement;
     }
 
+    public String getOfferScorer() {
+        return offerScorer;
+    }
+
     public Integer getCount() {
         return count;
     }
@@ -12,6 +12,7 @@ import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.evaluate.placement.MarathonConstraintParser;
 import com.mesosphere.sdk.offer.evaluate.placement.PassthroughRule;
 import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.offer.evaluate.scoring.OfferScorers;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
 import com.mesosphere.sdk.scheduler.SchedulerUtils;
 import com.mesosphere.sdk.specification.*;
@@ -308,6 +309,15 @@ public class YAMLToInternalMappers {
             builder.placementRule(placementRule);
         }
 
+        if (rawPod.getOfferScorer() != null) {
+            if (!OfferScorers.get(rawPod.getOfferScorer()).isPresent()) {
+                throw new IllegalArgumentException(String.format(
+                        "Unknown offer-scorer '%s' for pod '%s', expected one of: %s",
+                        rawPod.getOfferScorer(), podName, OfferScorers.getNames()));
+            }
+            builder.offerScorer(rawPod.getOfferScorer());
+        }
+
         return builder.build();
     }
 
@@ -0,0 +1,198 @@
+package com.mesosphere.sdk.state;
+
+import com.mesosphere.sdk.config.Configuration;
+import com.mesosphere.sdk.metrics.Metrics;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A thread-safe cache of parsed configurations for {@link ConfigStore}, bounded by both the number of configurations
+ * and their total weight, where the weight of each configuration is the size of its serialized form. Once either bound
+ * is exceeded, the least recently used configurations are evicted, except for the pinned configuration (the current
+ * target), which is retained regardless of how recently it was used and doesn't count towards the bounds.
+ *
+ * <p>Loads are single-flight: if several threads miss on the same configuration at once, only the first loads and
+ * parses it, and the others wait for its result. The cache lock is not held while loading, so loads of different
+ * configurations proceed in parallel, and hits are never blocked by a load.
+ *
+ * @param <T> the type of the cached configurations
+ */
+class ConfigCache<T extends Configuration> {
+
+    /**
+     * Loads and parses a configuration which wasn't found in the cache.
+     */
+    interface Loader<T> {
+        Weighted<T> load() throws ConfigStoreException;
+    }
+
+    /**
+     * A configuration along with its weight in the cache.
+     */
+    static final class Weighted<T> {
+        private final T config;
+        private final long weight;
+
+        Weighted(T config, long weight) {
+            this.config = config;
+            this.weight = weight;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    // All access is guarded by 'this':
+    private final Map<UUID, Weighted<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<UUID, CompletableFuture<T>> loads = new HashMap<>();
+    private long totalWeight = 0;
+    private UUID pinnedId = null;
+
+    ConfigCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached configuration with the provided ID, or loads it using the provided {@link Loader}.
+     *
+     * @throws ConfigStoreException if the configuration wasn't cached and loading it failed
+     */
+    T get(UUID id, Loader<T> loader) throws ConfigStoreException {
+        CompletableFuture<T> load;
+        boolean isLoader = false;
+        synchronized (this) {
+            Weighted<T> entry = entries.get(id);
+            if (entry != null) {
+                Metrics.incrementCounter(Metrics.CONFIG_CACHE_HITS);
+                return entry.config;
+            }
+            Metrics.incrementCounter(Metrics.CONFIG_CACHE_MISSES);
+            load = loads.get(id);
+            if (load == null) {
+                load = new CompletableFuture<>();
+                loads.put(id, load);
+                isLoader = true;
+            }
+        }
+
+        if (isLoader) {
+            return load(id, load, loader);
+        }
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigStoreException(Reason.UNKNOWN, String.format(
+                    "Interrupted while waiting for configuration '%s' to be loaded", id), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConfigStoreException) {
+                throw (ConfigStoreException) e.getCause();
+            }
+            throw new ConfigStoreException(Reason.UNKNOWN, String.format(
+                    "Failed to load configuration '%s'", id), e.getCause());
+        }
+    }
+
+    /**
+     * Adds the provided configuration to the cache, replacing any existing entry.
+     */
+    synchronized void put(UUID id, T config, long weight) {
+        Weighted<T> previous = entries.put(id, new Weighted<>(config, weight));
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += weight;
+        evict();
+    }
+
+    /**
+     * Removes the configuration with the provided ID from the cache. Any load of the configuration which is in
+     * progress will not add its result to the cache.
+     */
+    synchronized void remove(UUID id) {
+        Weighted<T> previous = entries.remove(id);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        loads.remove(id);
+    }
+
+    /**
+     * Pins the configuration with the provided ID, so that it isn't evicted. Any previously pinned configuration may
+     * then be evicted as usual.
+     */
+    synchronized void pin(UUID id) {
+        if (id.equals(pinnedId)) {
+            return;
+        }
+        pinnedId = id;
+        evict();
+    }
+
+    /**
+     * Returns whether the configuration with the provided ID is cached, without affecting its eviction order.
+     */
+    synchronized boolean contains(UUID id) {
+        return entries.containsKey(id);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return totalWeight;
+    }
+
+    private T load(UUID id, CompletableFuture<T> load, Loader<T> loader) throws ConfigStoreException {
+        Weighted<T> entry;
+        try {
+            entry = loader.load();
+        } catch (Throwable e) {
+            // Errors must also fail the load, or any callers waiting for it would wait forever:
+            synchronized (this) {
+                if (loads.get(id) == load) {
+                    loads.remove(id);
+                }
+            }
+            load.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            // Only cache the result if the configuration wasn't removed while it was being loaded:
+            if (loads.get(id) == load) {
+                loads.remove(id);
+                put(id, entry.config, entry.weight);
+            }
+        }
+        load.complete(entry.config);
+        return entry.config;
+    }
+
+    private void evict() {
+        // The pinned configuration doesn't count towards the bounds:
+        Weighted<T> pinned = pinnedId == null ? null : entries.get(pinnedId);
+        int unpinnedCount = pinned == null ? entries.size() : entries.size() - 1;
+        long unpinnedWeight = pinned == null ? totalWeight : totalWeight - pinned.weight;
+        Iterator<Map.Entry<UUID, Weighted<T>>> iter = entries.entrySet().iterator();
+        while ((unpinnedCount > maxEntries || unpinnedWeight > maxWeight) && iter.hasNext()) {
+            Map.Entry<UUID, Weighted<T>> entry = iter.next();
+            if (entry.getKey().equals(pinnedId)) {
+                continue;
+            }
+            iter.remove();
+            --unpinnedCount;
+            unpinnedWeight -= entry.getValue().weight;
+            totalWeight -= entry.getValue().weight;
+            Metrics.incrementCounter(Metrics.CONFIG_CACHE_EVICTIONS);
+        }
+    }
+}
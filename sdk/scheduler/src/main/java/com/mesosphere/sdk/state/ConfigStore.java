@@ -1,7 +1,10 @@
 package com.mesosphere.sdk.state;
 
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.mesosphere.sdk.config.Configuration;
 import com.mesosphere.sdk.config.ConfigurationFactory;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.PersisterException;
 import com.mesosphere.sdk.storage.PersisterUtils;
@@ -9,8 +12,10 @@ import com.mesosphere.sdk.storage.StorageError.Reason;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * An implementation of {@link ConfigStore} which relies on the provided {@link Persister} for data persistence.
@@ -19,9 +24,18 @@ import java.util.*;
  * <br>rootPath/
  * <br>&nbsp;-> ConfigTarget (contains UUID)
  * <br>&nbsp;-> Configurations/
- * <br>&nbsp;&nbsp;-> [Config-ID-0] (contains serialized config)
- * <br>&nbsp;&nbsp;-> [Config-ID-1] (contains serialized config)
+ * <br>&nbsp;&nbsp;-> [Config-ID-0] (contains compressed config, see {@link StoredConfig})
+ * <br>&nbsp;&nbsp;-> [Config-ID-1] (contains compressed config, see {@link StoredConfig})
  * <br>&nbsp;&nbsp;-> ...
+ * <br>&nbsp;-> ConfigBlobs/
+ * <br>&nbsp;&nbsp;-> [Blob-hash-0] (contains compressed string value shared between configs)
+ * <br>&nbsp;&nbsp;-> ...
+ * <p>
+ * <p>Config IDs are derived from the content of the config, so storing an identical config returns the ID of the
+ * existing copy. Blobs are deleted once no remaining config references them.
+ * <p>
+ * <p>Parsed configs are held in a bounded cache, see {@link ConfigCache}, in which the current target config is
+ * pinned. Instances are thread-safe.
  *
  * @param <T> The {@code Configuration} object to be serialized and deserialized in the
  *            implementation of this interface
@@ -34,24 +48,48 @@ public class ConfigStore<T extends Configuration> implements ConfigTargetStore {
      * @see SchemaVersionStore#CURRENT_SCHEMA_VERSION
      */
     private static final int MIN_SUPPORTED_SCHEMA_VERSION = 1;
-    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 1;
+    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 2;
 
     private static final String TARGET_PATH_NAME = "ConfigTarget";
     private static final String CONFIGURATIONS_PATH_NAME = "Configurations";
+    private static final String BLOBS_PATH_NAME = "ConfigBlobs";
+
+    /**
+     * The default maximum size of a ZooKeeper request ({@code jute.maxbuffer}). A config and its blobs are written in
+     * a single transaction, so their combined size must fit within this limit, along with the encoding of each write
+     * (such as its full path beneath the service's root node) and the framing of the request itself.
+     */
+    private static final int MAX_REQUEST_BYTES = 1024 * 1024;
+    private static final int PER_WRITE_OVERHEAD_BYTES = 512;
+    private static final int REQUEST_MARGIN_BYTES = 64 * 1024;
+
+    /**
+     * The default bounds of the parsed config cache. The target config and a few prior configs are typically in use
+     * at a time, while deployments may bring in more, so the weight bound is the main limit.
+     */
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 50;
+    private static final long DEFAULT_CACHE_MAX_WEIGHT_BYTES = 32 * 1024 * 1024;
 
     private final ConfigurationFactory<T> factory;
     private final Persister persister;
-    private final Map<UUID, T> cache = new HashMap<>();
+    private final ConfigCache<T> cache;
 
     /**
      * Creates a new {@link ConfigStore} which uses the provided {@link Persister} to access configuration data.
      */
     public ConfigStore(ConfigurationFactory<T> factory, Persister persister) {
+        this(factory, persister, DEFAULT_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_WEIGHT_BYTES);
+    }
+
+    @VisibleForTesting
+    ConfigStore(ConfigurationFactory<T> factory, Persister persister, int cacheMaxEntries, long cacheMaxWeightBytes) {
         this.factory = factory;
         this.persister = persister;
+        this.cache = new ConfigCache<>(cacheMaxEntries, cacheMaxWeightBytes);
 
         // Check version up-front:
-        int currentVersion = new SchemaVersionStore(persister).fetch();
+        SchemaVersionStore schemaVersionStore = new SchemaVersionStore(persister);
+        int currentVersion = schemaVersionStore.fetch();
         if (!SchemaVersionStore.isSupported(
                 currentVersion, MIN_SUPPORTED_SCHEMA_VERSION, MAX_SUPPORTED_SCHEMA_VERSION)) {
             throw new IllegalStateException(String.format(
@@ -59,26 +97,63 @@ public class ConfigStore<T extends Configuration> implements ConfigTargetStore {
                             "(support: min=%d, max=%d)",
                     currentVersion, MIN_SUPPORTED_SCHEMA_VERSION, MAX_SUPPORTED_SCHEMA_VERSION));
         }
+        if (currentVersion < SchemaVersionStore.CURRENT_SCHEMA_VERSION) {
+            // Configs stored in older versions are still readable as-is, so only the version needs to be updated:
+            logger.info("Migrating storage schema version from {} to {}",
+                    currentVersion, SchemaVersionStore.CURRENT_SCHEMA_VERSION);
+            schemaVersionStore.store(SchemaVersionStore.CURRENT_SCHEMA_VERSION);
+        }
     }
 
     /**
      * Serializes the provided {@link Configuration} using its {@link Configuration#getBytes()}
-     * function, writes it to storage, and returns the UUID which it was stored against.
+     * function, writes it to storage, and returns the UUID which it was stored against. The UUID is
+     * derived from the serialized config, so if an identical config has already been stored, then
+     * its UUID is returned without writing anything.
      *
      * @throws ConfigStoreException if serialization or writing fails
      */
     public UUID store(T config) throws ConfigStoreException {
-        UUID id = UUID.randomUUID();
+        byte[] content = config.getBytes();
+        StoredConfig storedConfig;
+        try {
+            storedConfig = StoredConfig.encode(content);
+        } catch (IOException e) {
+            throw new ConfigStoreException(Reason.SERIALIZATION_ERROR, String.format(
+                    "Failed to encode configuration for storage: %s", config), e);
+        }
+        UUID id = storedConfig.getId();
         String path = getConfigPath(id);
-        byte[] data = config.getBytes();
+        if (cache.contains(id) || exists(path)) {
+            logger.info("Configuration with ID={} is already stored at {}", id, path);
+            cache.put(id, config, content.length);
+            return id;
+        }
+
+        // Write the blobs along with the config, so that the config is never present without its blobs:
+        Map<String, byte[]> data = new TreeMap<>();
+        for (Map.Entry<String, byte[]> blob : storedConfig.getBlobs().entrySet()) {
+            data.put(getBlobPath(blob.getKey()), blob.getValue());
+        }
+        data.put(path, storedConfig.getData());
+        long requestBytes = REQUEST_MARGIN_BYTES;
+        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
+            requestBytes += entry.getKey().length() + entry.getValue().length + PER_WRITE_OVERHEAD_BYTES;
+        }
+        if (requestBytes > MAX_REQUEST_BYTES) {
+            throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
+                    "Compressed configuration data for path '%s' and its %d blobs would take %d bytes to write, " +
+                            "exceeding the limit of %d bytes",
+                    path, storedConfig.getBlobs().size(), requestBytes, MAX_REQUEST_BYTES));
+        }
         try {
-            persister.set(path, data);
+            persister.setMany(data);
         } catch (PersisterException e) {
             throw new ConfigStoreException(e, String.format(
                     "Failed to store configuration to path '%s': %s", path, config));
         }
 
-        cache.put(id, config);
+        cache.put(id, config, content.length);
         return id;
     }
 
@@ -92,33 +167,13 @@ public class ConfigStore<T extends Configuration> implements ConfigTargetStore {
      *                              config is missing
      */
     public T fetch(UUID id) throws ConfigStoreException {
-        if (cache.containsKey(id)) {
-            return cache.get(id);
-        }
-
-        String path = getConfigPath(id);
-        logger.info("Fetching configuration with ID={} from {}", id, path);
-        byte[] data;
-        try {
-            data = persister.get(path);
-        } catch (PersisterException e) {
-            if (e.getReason() == Reason.NOT_FOUND) {
-                throw new ConfigStoreException(Reason.NOT_FOUND, String.format(
-                        "Configuration '%s' was not found at path '%s'", id, path), e);
-            } else {
-                throw new ConfigStoreException(e, String.format(
-                        "Failed to retrieve configuration '%s' from path '%s'", id, path));
-            }
-        }
-
-        T config = factory.parse(data);
-        cache.put(id, config);
-        return config;
+        return cache.get(id, () -> load(id));
     }
 
     /**
      * Deletes the configuration with the provided UUID, or does nothing if no matching
-     * configuration is found.
+     * configuration is found. Any blobs which are no longer referenced by a remaining
+     * configuration are also deleted.
      *
      * @param id The UUID of the configuration to be deleted
      * @throws ConfigStoreException if the configuration is found but deletion fails
@@ -139,6 +194,58 @@ public class ConfigStore<T extends Configuration> implements ConfigTargetStore {
         }
 
         cache.remove(id);
+        clearUnreferencedBlobs();
+    }
+
+    /**
+     * Deletes all configurations other than those with the provided UUIDs, followed by any blobs
+     * which are no longer referenced by a remaining configuration. Configurations which fail to be
+     * read or decompressed, such as those written by a different version of the scheduler, are left
+     * as-is. Neither those nor the remaining configurations are parsed: blob references are counted
+     * from the headers of the remaining configurations.
+     *
+     * @param retainedIds The UUIDs of the configurations to be kept
+     * @return The UUIDs of the configurations which were deleted
+     * @throws ConfigStoreException if list retrieval or deletion fails
+     */
+    public Collection<UUID> clearAllExcept(Collection<UUID> retainedIds) throws ConfigStoreException {
+        Set<UUID> clearedIds = new TreeSet<>(list());
+        clearedIds.removeAll(retainedIds);
+        Iterator<UUID> iter = clearedIds.iterator();
+        while (iter.hasNext()) {
+            UUID id = iter.next();
+            String path = getConfigPath(id);
+            if (!cache.contains(id)) {
+                try {
+                    StoredConfig.checkReadable(persister.get(path));
+                } catch (PersisterException | IOException e) {
+                    logger.info("Failed to read unused configuration {}, leaving as-is: {}", id, e.getMessage());
+                    iter.remove();
+                    continue;
+                }
+            }
+            try {
+                persister.deleteAll(path);
+            } catch (PersisterException e) {
+                if (e.getReason() != Reason.NOT_FOUND) {
+                    throw new ConfigStoreException(e, String.format(
+                            "Failed to delete configuration '%s' at path '%s'", id, path));
+                }
+            }
+            cache.remove(id);
+        }
+        clearUnreferencedBlobs();
+        return clearedIds;
+    }
+
+    /**
+     * Registers gauges for the number and total weight of the parsed configurations in this store's cache, replacing
+     * those of any store which registered them before. This should only be invoked for the store which is used by the
+     * running scheduler, as the gauges keep the store's cache reachable.
+     */
+    public void registerCacheMetrics() {
+        Metrics.setGauge(Metrics.CONFIG_CACHE_SIZE, cache::size);
+        Metrics.setGauge(Metrics.CONFIG_CACHE_WEIGHT, cache::weight);
     }
 
     /**
@@ -180,6 +287,7 @@ public class ConfigStore<T extends Configuration> implements ConfigTargetStore {
                     "Failed to assign current target configuration to '%s' at path '%s'",
                     id, TARGET_PATH_NAME));
         }
+        cache.pin(id);
     }
 
     @Override
@@ -196,15 +304,147 @@ public class ConfigStore<T extends Configuration> implements ConfigTargetStore {
                         "Failed to retrieve current target configuration from path '%s'", TARGET_PATH_NAME));
             }
         }
+        UUID id;
         try {
-            return UUID.fromString(uuidStr);
+            id = UUID.fromString(uuidStr);
         } catch (IllegalArgumentException e) {
             throw new ConfigStoreException(Reason.SERIALIZATION_ERROR, String.format(
                     "Failed to parse '%s' as a UUID", uuidStr));
         }
+        // The target may have been set by a prior scheduler process:
+        cache.pin(id);
+        return id;
+    }
+
+    /**
+     * Retrieves, decodes, and parses the configuration with the provided UUID.
+     */
+    private ConfigCache.Weighted<T> load(UUID id) throws ConfigStoreException {
+        String path = getConfigPath(id);
+        logger.info("Fetching configuration with ID={} from {}", id, path);
+        byte[] data;
+        try {
+            data = persister.get(path);
+        } catch (PersisterException e) {
+            if (e.getReason() == Reason.NOT_FOUND) {
+                throw new ConfigStoreException(Reason.NOT_FOUND, String.format(
+                        "Configuration '%s' was not found at path '%s'", id, path), e);
+            } else {
+                throw new ConfigStoreException(e, String.format(
+                        "Failed to retrieve configuration '%s' from path '%s'", id, path));
+            }
+        }
+
+        try {
+            data = StoredConfig.decode(data, this::fetchBlobs);
+        } catch (IOException e) {
+            throw new ConfigStoreException(Reason.SERIALIZATION_ERROR, String.format(
+                    "Failed to decode configuration '%s' from path '%s'", id, path), e);
+        }
+
+        T config;
+        Timer.Context context = Metrics.time(Metrics.CONFIG_PARSE_DURATION);
+        try {
+            config = factory.parse(data);
+        } finally {
+            context.stop();
+        }
+        return new ConfigCache.Weighted<>(config, data.length);
+    }
+
+    /**
+     * Deletes any blobs which aren't referenced by a stored configuration.
+     */
+    private void clearUnreferencedBlobs() throws ConfigStoreException {
+        Collection<String> blobHashes;
+        Map<String, byte[]> configs;
+        try {
+            blobHashes = getChildren(BLOBS_PATH_NAME);
+            if (blobHashes.isEmpty()) {
+                return;
+            }
+            configs = PersisterUtils.getMany(persister, getChildren(CONFIGURATIONS_PATH_NAME).stream()
+                    .map(id -> PersisterUtils.join(CONFIGURATIONS_PATH_NAME, id))
+                    .collect(Collectors.toList()));
+        } catch (PersisterException e) {
+            throw new ConfigStoreException(e, "Failed to retrieve configurations for blob cleanup");
+        }
+
+        Map<String, Integer> refCounts = new HashMap<>();
+        for (Map.Entry<String, byte[]> config : configs.entrySet()) {
+            try {
+                for (String hash : StoredConfig.getBlobHashes(config.getValue())) {
+                    refCounts.merge(hash, 1, Integer::sum);
+                }
+            } catch (IOException e) {
+                // Can't tell which blobs a corrupt config references, so keep them all:
+                logger.error(String.format(
+                        "Failed to read blob references of configuration at '%s', skipping blob cleanup",
+                        config.getKey()), e);
+                return;
+            }
+        }
+
+        List<String> unreferencedHashes = blobHashes.stream()
+                .filter(hash -> !refCounts.containsKey(hash))
+                .collect(Collectors.toList());
+        if (!unreferencedHashes.isEmpty()) {
+            logger.info("Cleaning up {} unreferenced config blobs", unreferencedHashes.size());
+        }
+        for (String hash : unreferencedHashes) {
+            try {
+                persister.deleteAll(getBlobPath(hash));
+            } catch (PersisterException e) {
+                if (e.getReason() != Reason.NOT_FOUND) {
+                    throw new ConfigStoreException(e, String.format("Failed to delete config blob '%s'", hash));
+                }
+            }
+        }
+    }
+
+    private Map<String, byte[]> fetchBlobs(Collection<String> hashes) throws IOException {
+        try {
+            Map<String, byte[]> blobs = new HashMap<>();
+            for (Map.Entry<String, byte[]> entry : PersisterUtils.getMany(persister, hashes.stream()
+                    .map(ConfigStore::getBlobPath)
+                    .collect(Collectors.toList())).entrySet()) {
+                blobs.put(entry.getKey().substring(entry.getKey().lastIndexOf(PersisterUtils.PATH_DELIM) + 1),
+                        entry.getValue());
+            }
+            return blobs;
+        } catch (PersisterException e) {
+            throw new IOException("Failed to retrieve config blobs", e);
+        }
+    }
+
+    private Collection<String> getChildren(String path) throws PersisterException {
+        try {
+            return persister.getChildren(path);
+        } catch (PersisterException e) {
+            if (e.getReason() == Reason.NOT_FOUND) {
+                return Collections.emptyList();
+            }
+            throw e;
+        }
+    }
+
+    private boolean exists(String path) throws ConfigStoreException {
+        try {
+            persister.get(path);
+            return true;
+        } catch (PersisterException e) {
+            if (e.getReason() == Reason.NOT_FOUND) {
+                return false;
+            }
+            throw new ConfigStoreException(e, String.format("Failed to check for configuration at path '%s'", path));
+        }
     }
 
     private static String getConfigPath(UUID id) {
         return PersisterUtils.join(CONFIGURATIONS_PATH_NAME, id.toString());
     }
+
+    private static String getBlobPath(String hash) {
+        return PersisterUtils.join(BLOBS_PATH_NAME, hash);
+    }
 }
@@ -89,6 +89,11 @@ public class PersistentLaunchRecorder implements OperationRecorder {
         }
     }
 
+    @Override
+    public void flush() throws Exception {
+        stateStore.flush();
+    }
+
     @VisibleForTesting
     Optional<PodInstance> getPodInstance(Protos.TaskInfo taskInfo) throws TaskException {
         Optional<PodSpec> podSpecOptional = TaskUtils.getPodSpec(serviceSpec, taskInfo);
@@ -30,15 +30,20 @@ public class SchemaVersionStore {
      * Increment this whenever CuratorStateStore or CuratorConfigStore change in a way that
      * requires explicit migration.
      *
-     * The migration implementation itself is not yet defined (let's wait until we need to actually
-     * do it..)
+     * <ul>
+     * <li>1: Initial version.</li>
+     * <li>2: Configurations are stored compressed and content-addressed, with shared blobs, see
+     * {@link StoredConfig}. Configurations stored in version 1 are still readable as-is, so
+     * {@link ConfigStore} migrates from version 1 by only updating the version. This prevents
+     * older schedulers, which can't read the new format, from starting against the data.</li>
+     * </ul>
      *
      * @see ConfigStore#MIN_SUPPORTED_SCHEMA_VERSION
      * @see ConfigStore#MAX_SUPPORTED_SCHEMA_VERSION
      * @see StateStore#MIN_SUPPORTED_SCHEMA_VERSION
      * @see StateStore#MAX_SUPPORTED_SCHEMA_VERSION
      */
-    private static final int CURRENT_SCHEMA_VERSION = 1;
+    static final int CURRENT_SCHEMA_VERSION = 2;
 
     /**
      * This name/path must remain the same forever. It's the basis of all other migrations.
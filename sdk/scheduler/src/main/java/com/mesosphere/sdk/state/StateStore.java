@@ -3,10 +3,13 @@ package com.mesosphere.sdk.state;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.mesosphere.sdk.offer.TaskUtils;
 import com.mesosphere.sdk.offer.taskdata.TaskPackingUtils;
+import com.mesosphere.sdk.storage.AsyncPersister;
 import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
 import com.mesosphere.sdk.storage.PersisterException;
 import com.mesosphere.sdk.storage.PersisterUtils;
 import com.mesosphere.sdk.storage.StorageError.Reason;
+import com.mesosphere.sdk.storage.WriteBehindPersister;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.mesos.Protos;
@@ -14,6 +17,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
 
 /**
  * A {@code StateStore} stores the state of a service, including tasks' TaskInfo and TaskStatus objects. Each
@@ -38,6 +50,16 @@ import java.util.*;
  * <br>&nbsp;&nbsp;&nbsp;-> TaskInfo
  * <br>&nbsp;&nbsp;&nbsp;-> TaskStatus
  * <br>&nbsp;&nbsp;-> ...
+ *
+ * <p>Task data is additionally held in an in-memory index which is loaded from the underlying persister on first access
+ * and then updated as tasks are written through this instance. Reads of TaskInfos and TaskStatuses are therefore served
+ * from already-parsed objects. As a consequence, task data should only be modified via a single {@link StateStore}
+ * instance per persister; writes made to the persister through other means will not be visible to this instance,
+ * unless the persister is a {@link PersisterCache} which reports such changes, in which case the index is reloaded.
+ *
+ * <p>When the persister defers its writes, such as a {@link WriteBehindPersister}, writes are only durable once
+ * {@link #flush()} has returned, and callers which depend on their durability must flush before relying on them. If
+ * deferred data later fails to be written to storage, the index is reloaded.
  */
 public class StateStore {
 
@@ -47,7 +69,8 @@ public class StateStore {
      * @see SchemaVersionStore#CURRENT_SCHEMA_VERSION
      */
     private static final int MIN_SUPPORTED_SCHEMA_VERSION = 1;
-    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 1;
+    // Task data is unchanged in version 2:
+    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 2;
 
     private static final int MAX_VALUE_LENGTH_BYTES = 1024 * 1024; // 1MB
 
@@ -57,8 +80,60 @@ public class StateStore {
     private static final String PROPERTIES_PATH_NAME = "Properties";
     private static final String TASKS_ROOT_NAME = "Tasks";
 
+    /**
+     * Deserializes task data which has been read from the underlying persister, so that parsing of large numbers of
+     * tasks doesn't hold up the storage client thread which is delivering the results of reads.
+     */
+    private static final ExecutorService PARSE_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "state-store-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     protected final Persister persister;
 
+    private final ReadWriteLock internalLock = new ReentrantReadWriteLock();
+    private final Lock rlock = internalLock.readLock();
+    private final Lock rwlock = internalLock.writeLock();
+    private final TaskIndex taskIndex = new TaskIndex();
+    private volatile boolean taskIndexLoaded = false;
+    // Incremented whenever loaded task data may have become stale, see loadTaskIndexAsync():
+    private volatile long taskIndexGeneration = 0;
+
+    // Task writes which have been applied to the index but not yet to the persister, by the thread which deferred
+    // them, see beginTaskWriteBatch():
+    private final Map<Thread, TaskWriteBatch> taskWriteBatches = new HashMap<>();
+    // Orders the writes deferred across all batches, so that they're reapplied in order when tasks are reloaded:
+    private long taskWriteSequence = 0;
+    // Whether task data changed externally while a batch was in progress, see onPersisterChanged():
+    private boolean taskIndexInvalidatedDuringBatch = false;
+
+    // Incremented whenever task data or properties may have changed, see getDataVersion():
+    private final Object dataVersionMonitor = new Object();
+    private long dataVersion = 0;
+    private final List<DataVersionListener> dataVersionListeners = new CopyOnWriteArrayList<>();
+
+    // Registered against the persister when it reports changes to its content, see close():
+    private final PersisterCache.ChangeListener changeListener = this::onPersisterChanged;
+    private final WriteBehindPersister.FailureListener failureListener =
+            paths -> paths.forEach(path -> onPersisterChanged(
+                    PersisterUtils.join(PersisterUtils.PATH_DELIM_STR, path)));
+
+    /**
+     * Receives notifications that the {@link StateStore}'s data may have changed, see
+     * {@link #addDataVersionListener(DataVersionListener)}.
+     */
+    public interface DataVersionListener {
+
+        /**
+         * Invoked after {@link StateStore#getDataVersion()} has advanced. This may be invoked while the state store's
+         * locks are held, so implementations must return promptly and must not access the state store.
+         */
+        void onDataVersionChanged();
+    }
+
     /**
      * Creates a new {@link StateStore} which uses the provided {@link Persister} to access state data.
      *
@@ -77,7 +152,28 @@ public class StateStore {
                     currentVersion, MIN_SUPPORTED_SCHEMA_VERSION, MAX_SUPPORTED_SCHEMA_VERSION));
         }
 
+        long startMs = System.currentTimeMillis();
         StateStoreUtils.repairTaskIDs(this);
+        logger.info("Loaded and checked task data in {}ms", System.currentTimeMillis() - startMs);
+
+        if (persister instanceof PersisterCache) {
+            ((PersisterCache) persister).addChangeListener(changeListener);
+        } else if (persister instanceof WriteBehindPersister) {
+            ((WriteBehindPersister) persister).addFailureListener(failureListener);
+        }
+    }
+
+    /**
+     * Stops this instance from tracking changes reported by the underlying persister, so that it may be discarded while
+     * the persister remains in use. The underlying persister itself is not closed. The task index is not updated
+     * following changes reported after this call, so this instance should no longer be used.
+     */
+    public void close() {
+        if (persister instanceof PersisterCache) {
+            ((PersisterCache) persister).removeChangeListener(changeListener);
+        } else if (persister instanceof WriteBehindPersister) {
+            ((WriteBehindPersister) persister).removeFailureListener(failureListener);
+        }
     }
 
     // Framework ID
@@ -156,10 +252,29 @@ public class StateStore {
         for (Protos.TaskInfo taskInfo : tasks) {
             taskBytesMap.put(getTaskInfoPath(taskInfo.getName()), taskInfo.toByteArray());
         }
+        lockTaskWrites();
         try {
-            persister.setMany(taskBytesMap);
+            TaskWriteBatch batch = taskWriteBatches.get(Thread.currentThread());
+            if (batch != null) {
+                for (Protos.TaskInfo taskInfo : tasks) {
+                    String path = getTaskInfoPath(taskInfo.getName());
+                    batch.defer(path, new PendingTaskWrite(
+                            taskInfo.getName(), false, taskBytesMap.get(path), ++taskWriteSequence));
+                }
+            } else {
+                persister.setMany(taskBytesMap);
+                // This write supersedes any older write still batched by another thread:
+                discardPendingTaskWrites(taskBytesMap.keySet());
+            }
+            for (Protos.TaskInfo taskInfo : tasks) {
+                // Match the result of a read from storage, see parseTask():
+                taskIndex.putTask(TaskPackingUtils.unpack(taskInfo));
+            }
+            onDataChanged();
         } catch (PersisterException e) {
             throw new StateStoreException(e, String.format("Failed to store %d TaskInfos", tasks.size()));
+        } finally {
+            rwlock.unlock();
         }
     }
 
@@ -173,22 +288,34 @@ public class StateStore {
      *                             TaskInfo wasn't stored first
      */
     public void storeStatus(String taskName, Protos.TaskStatus status) throws StateStoreException {
-        Optional<Protos.TaskStatus> currentStatusOptional = fetchStatus(taskName);
-        if (currentStatusOptional.isPresent()
-                && status.getState().equals(Protos.TaskState.TASK_LOST)
-                && TaskUtils.isTerminal(currentStatusOptional.get())) {
-            throw new StateStoreException(Reason.LOGIC_ERROR,
-                    String.format("Ignoring TASK_LOST for Task already in a terminal state %s: %s",
-                            currentStatusOptional.get().getState(), taskName));
-        }
+        lockTaskWrites();
+        try {
+            Optional<Protos.TaskStatus> currentStatusOptional = taskIndex.getStatus(taskName);
+            if (currentStatusOptional.isPresent()
+                    && status.getState().equals(Protos.TaskState.TASK_LOST)
+                    && TaskUtils.isTerminal(currentStatusOptional.get())) {
+                throw new StateStoreException(Reason.LOGIC_ERROR,
+                        String.format("Ignoring TASK_LOST for Task already in a terminal state %s: %s",
+                                currentStatusOptional.get().getState(), taskName));
+            }
 
-        String path = getTaskStatusPath(taskName);
-        logger.info("Storing status '{}' for '{}' in '{}'", status.getState(), taskName, path);
+            String path = getTaskStatusPath(taskName);
+            logger.info("Storing status '{}' for '{}' in '{}'", status.getState(), taskName, path);
 
-        try {
-            persister.set(path, status.toByteArray());
+            TaskWriteBatch batch = taskWriteBatches.get(Thread.currentThread());
+            if (batch != null) {
+                batch.defer(path, new PendingTaskWrite(taskName, true, status.toByteArray(), ++taskWriteSequence));
+            } else {
+                persister.set(path, status.toByteArray());
+                // This write supersedes any older write still batched by another thread:
+                discardPendingTaskWrites(Collections.singleton(path));
+            }
+            taskIndex.putStatus(taskName, status);
+            onDataChanged();
         } catch (PersisterException e) {
             throw new StateStoreException(e);
+        } finally {
+            rwlock.unlock();
         }
     }
 
@@ -199,15 +326,165 @@ public class StateStore {
      * @throws StateStoreException when clearing the indicated Task's information fails
      */
     public void clearTask(String taskName) throws StateStoreException {
+        lockTaskWrites();
         try {
+            // Drop any batched writes for this task, so that committing or rolling back a batch doesn't resurrect it:
+            discardPendingTaskWrites(Arrays.asList(getTaskInfoPath(taskName), getTaskStatusPath(taskName)));
             persister.deleteAll(getTaskPath(taskName));
+            taskIndex.removeTask(taskName);
+            onDataChanged();
         } catch (PersisterException e) {
             if (e.getReason() == Reason.NOT_FOUND) {
                 // Clearing a non-existent Task should not result in an exception from us.
                 logger.warn("Cleared nonexistent Task, continuing silently: {}", taskName, e);
+                taskIndex.removeTask(taskName);
+                onDataChanged();
             } else {
                 throw new StateStoreException(e);
             }
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    // Batched Task Writes
+
+    /**
+     * Starts deferring the TaskInfo and TaskStatus writes made by the calling thread, so that they may be sent to the
+     * underlying storage in a single transaction via {@link #commitTaskWriteBatch()}. Deferred writes are immediately
+     * visible to task reads made through this instance. Writes made by other threads are not deferred, though other
+     * threads may each have a batch of their own in progress.
+     *
+     * <p>Every call to this method must be followed by a call to {@link #commitTaskWriteBatch()} or
+     * {@link #abortTaskWriteBatch()} from the same thread.
+     *
+     * @throws StateStoreException if a batch is already in progress in this thread
+     */
+    public void beginTaskWriteBatch() throws StateStoreException {
+        rwlock.lock();
+        try {
+            if (taskWriteBatches.containsKey(Thread.currentThread())) {
+                throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
+                        "A task write batch is already in progress in thread %s", Thread.currentThread().getName()));
+            }
+            taskWriteBatches.put(Thread.currentThread(), new TaskWriteBatch());
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Marks the current point in the calling thread's task write batch, such that the writes deferred after this point
+     * may be discarded via {@link #rollbackTaskWriteBatch()} without discarding those deferred before it. Beginning a
+     * batch implicitly marks it.
+     *
+     * @throws StateStoreException if no batch was started by this thread
+     */
+    public void markTaskWriteBatch() throws StateStoreException {
+        rwlock.lock();
+        try {
+            getCurrentTaskWriteBatch().writesBeforeMark.clear();
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Discards the task data deferred since the last call to {@link #beginTaskWriteBatch()} or
+     * {@link #markTaskWriteBatch()} by the calling thread, restoring the task reads made through this instance to
+     * what they returned at that point, aside from any writes made by other threads in the meantime. The batch remains
+     * in progress, and the writes deferred before the mark are unaffected. This allows a failed operation to be dropped
+     * from a batch without discarding the whole batch.
+     *
+     * @throws StateStoreException if no batch was started by this thread
+     */
+    public void rollbackTaskWriteBatch() throws StateStoreException {
+        rwlock.lock();
+        try {
+            TaskWriteBatch batch = getCurrentTaskWriteBatch();
+            if (batch.writesBeforeMark.isEmpty()) {
+                return;
+            }
+            logger.warn("Discarding {} batched task writes made since the last mark", batch.writesBeforeMark.size());
+            Set<String> taskNames = new HashSet<>();
+            for (Map.Entry<String, Optional<PendingTaskWrite>> entry : batch.writesBeforeMark.entrySet()) {
+                PendingTaskWrite discarded = entry.getValue().isPresent()
+                        ? batch.writes.put(entry.getKey(), entry.getValue().get())
+                        : batch.writes.remove(entry.getKey());
+                if (discarded != null) {
+                    taskNames.add(discarded.taskName);
+                }
+            }
+            batch.writesBeforeMark.clear();
+            reloadTasks(taskNames);
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Writes all task data deferred since {@link #beginTaskWriteBatch()} by the calling thread to the underlying
+     * storage in a single transaction, and ends the batch. If the write fails, the deferred data is discarded as if
+     * {@link #abortTaskWriteBatch()} had been called.
+     *
+     * @throws StateStoreException if no batch was started by this thread, or if writing the data fails
+     */
+    public void commitTaskWriteBatch() throws StateStoreException {
+        rwlock.lock();
+        try {
+            TaskWriteBatch batch = getCurrentTaskWriteBatch();
+            try {
+                if (!batch.writes.isEmpty()) {
+                    logger.info("Storing {} batched task writes", batch.writes.size());
+                    persister.setMany(batch.getBytes());
+                }
+            } catch (PersisterException e) {
+                endTaskWriteBatch();
+                reloadTasks(batch.getTaskNames());
+                throw new StateStoreException(e, String.format(
+                        "Failed to store %d batched task writes", batch.writes.size()));
+            }
+            endTaskWriteBatch();
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Discards all task data deferred since {@link #beginTaskWriteBatch()} by the calling thread, and ends the batch.
+     * Task reads will subsequently reflect the content of the underlying storage, along with any writes still deferred
+     * by other threads. Does nothing if no batch was started by this thread.
+     */
+    public void abortTaskWriteBatch() {
+        rwlock.lock();
+        try {
+            TaskWriteBatch batch = taskWriteBatches.get(Thread.currentThread());
+            if (batch == null) {
+                return;
+            }
+            endTaskWriteBatch();
+            if (!batch.writes.isEmpty()) {
+                logger.warn("Discarding {} batched task writes", batch.writes.size());
+                reloadTasks(batch.getTaskNames());
+            }
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until all data previously stored through this instance has been durably written to the underlying
+     * storage. This only has an effect when the underlying {@link Persister} defers its writes, see
+     * {@link Persister#flush()}. Any in-progress task write batch is not affected.
+     *
+     * @throws StateStoreException if writing the outstanding data fails, or if data previously stored by the calling
+     *                             thread failed to be written
+     */
+    public void flush() throws StateStoreException {
+        try {
+            persister.flush();
+        } catch (PersisterException e) {
+            throw new StateStoreException(e, "Failed to flush outstanding writes");
         }
     }
 
@@ -221,18 +498,11 @@ public class StateStore {
      * @throws StateStoreException when fetching the data fails
      */
     public Collection<String> fetchTaskNames() throws StateStoreException {
+        lockTaskReads();
         try {
-            Collection<String> taskNames = new ArrayList<>();
-            taskNames.addAll(persister.getChildren(TASKS_ROOT_NAME));
-            return taskNames;
-        } catch (PersisterException e) {
-            if (e.getReason() == Reason.NOT_FOUND) {
-                // Root path doesn't exist yet. Treat as an empty list of tasks. This scenario is
-                // expected to commonly occur when the Framework is being run for the first time.
-                return Collections.emptyList();
-            } else {
-                throw new StateStoreException(e);
-            }
+            return taskIndex.getTaskNames();
+        } finally {
+            rlock.unlock();
         }
     }
 
@@ -244,18 +514,23 @@ public class StateStore {
      * @throws StateStoreException if fetching the TaskInfo information otherwise fails
      */
     public Collection<Protos.TaskInfo> fetchTasks() throws StateStoreException {
-        Collection<Protos.TaskInfo> taskInfos = new ArrayList<>();
-        for (String taskName : fetchTaskNames()) {
-            Optional<Protos.TaskInfo> taskInfoOptional = fetchTask(taskName);
-            if (taskInfoOptional.isPresent()) {
-                taskInfos.add(taskInfoOptional.get());
-            } else {
-                // We should always have a TaskInfo for every name entry we just got
-                throw new StateStoreException(Reason.NOT_FOUND,
-                        String.format("Expected task named %s to be present when retrieving all tasks", taskName));
+        lockTaskReads();
+        try {
+            Collection<Protos.TaskInfo> taskInfos = new ArrayList<>();
+            for (String taskName : taskIndex.getTaskNames()) {
+                Optional<Protos.TaskInfo> taskInfoOptional = taskIndex.getTask(taskName);
+                if (taskInfoOptional.isPresent()) {
+                    taskInfos.add(taskInfoOptional.get());
+                } else {
+                    // We should always have a TaskInfo for every name entry we just got
+                    throw new StateStoreException(Reason.NOT_FOUND,
+                            String.format("Expected task named %s to be present when retrieving all tasks", taskName));
+                }
             }
+            return taskInfos;
+        } finally {
+            rlock.unlock();
         }
-        return taskInfos;
     }
 
     /**
@@ -267,27 +542,99 @@ public class StateStore {
      *                             fails
      */
     public Optional<Protos.TaskInfo> fetchTask(String taskName) throws StateStoreException {
-        String path = getTaskInfoPath(taskName);
+        lockTaskReads();
         try {
-            byte[] bytes = persister.get(path);
-            if (bytes.length > 0) {
-                // TODO(nick): This unpack operation is no longer needed, but it doesn't hurt anything to leave it in
-                // place to support reading older data. Remove this unpack call after services have had time to stop
-                // storing packed TaskInfos in zk (after June 2017 or so?).
-                return Optional.of(TaskPackingUtils.unpack(Protos.TaskInfo.parseFrom(bytes)));
-            } else {
-                throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
-                        "Empty TaskInfo for TaskName: %s", taskName));
-            }
-        } catch (PersisterException e) {
-            if (e.getReason() == Reason.NOT_FOUND) {
-                logger.warn("No TaskInfo found for the requested name: {} at: {}", taskName, path);
-                return Optional.empty();
-            } else {
-                throw new StateStoreException(e, String.format("Failed to retrieve task named %s", taskName));
+            Optional<Protos.TaskInfo> taskInfo = taskIndex.getTask(taskName);
+            if (!taskInfo.isPresent()) {
+                logger.warn("No TaskInfo found for the requested name: {} at: {}", taskName, getTaskInfoPath(taskName));
             }
-        } catch (InvalidProtocolBufferException e) {
-            throw new StateStoreException(Reason.SERIALIZATION_ERROR, e);
+            return taskInfo;
+        } finally {
+            rlock.unlock();
+        }
+    }
+
+    /**
+     * Fetches all TaskInfos whose TaskID matches the provided value. In practice this should return at most one
+     * TaskInfo, unless TaskIDs have been duplicated across tasks.
+     *
+     * @param taskId The TaskID to search for
+     * @return The matching TaskInfos, or an empty list if none were found
+     * @throws StateStoreException if loading task data from the underlying storage fails
+     */
+    public Collection<Protos.TaskInfo> fetchTasksForTaskId(Protos.TaskID taskId) throws StateStoreException {
+        lockTaskReads();
+        try {
+            return taskIndex.getTasksWithTaskId(taskId);
+        } finally {
+            rlock.unlock();
+        }
+    }
+
+    /**
+     * Fetches all TaskInfos which belong to the pod instance with the provided name, as determined by the type and
+     * index labels of each TaskInfo.
+     *
+     * @param podInstanceName The name of the pod instance, e.g. "hello-0"
+     * @return The TaskInfos in the pod instance, or an empty list if none were found
+     * @throws StateStoreException if loading task data from the underlying storage fails
+     * @see com.mesosphere.sdk.specification.PodInstance#getName()
+     */
+    public Collection<Protos.TaskInfo> fetchTasksForPod(String podInstanceName) throws StateStoreException {
+        lockTaskReads();
+        try {
+            return taskIndex.getTasksInPodInstance(podInstanceName);
+        } finally {
+            rlock.unlock();
+        }
+    }
+
+    /**
+     * Fetches all TaskInfos which were last launched on the agent with the provided ID.
+     *
+     * @param agentId The ID of the agent
+     * @return The TaskInfos on the agent, or an empty list if none were found
+     * @throws StateStoreException if loading task data from the underlying storage fails
+     */
+    public Collection<Protos.TaskInfo> fetchTasksForAgent(Protos.SlaveID agentId) throws StateStoreException {
+        lockTaskReads();
+        try {
+            return taskIndex.getTasksOnAgent(agentId);
+        } finally {
+            rlock.unlock();
+        }
+    }
+
+    /**
+     * Fetches all TaskInfos which have a task or executor resource reserved with the provided resource ID. Multiple
+     * TaskInfos may be returned when tasks share a resource set.
+     *
+     * @param resourceId The resource ID found in the resource's reservation labels
+     * @return The TaskInfos using the resource, or an empty list if none were found
+     * @throws StateStoreException if loading task data from the underlying storage fails
+     */
+    public Collection<Protos.TaskInfo> fetchTasksForResourceId(String resourceId) throws StateStoreException {
+        lockTaskReads();
+        try {
+            return taskIndex.getTasksWithResourceId(resourceId);
+        } finally {
+            rlock.unlock();
+        }
+    }
+
+    /**
+     * Fetches all TaskInfos which have a persistent volume with the provided persistence ID.
+     *
+     * @param persistenceId The persistence ID of the volume
+     * @return The TaskInfos using the volume, or an empty list if none were found
+     * @throws StateStoreException if loading task data from the underlying storage fails
+     */
+    public Collection<Protos.TaskInfo> fetchTasksForPersistenceId(String persistenceId) throws StateStoreException {
+        lockTaskReads();
+        try {
+            return taskIndex.getTasksWithPersistenceId(persistenceId);
+        } finally {
+            rlock.unlock();
         }
     }
 
@@ -299,24 +646,13 @@ public class StateStore {
      * @throws StateStoreException if fetching the TaskStatus information fails
      */
     public Collection<Protos.TaskStatus> fetchStatuses() throws StateStoreException {
-        Collection<Protos.TaskStatus> taskStatuses = new ArrayList<>();
-        for (String taskName : fetchTaskNames()) {
-            try {
-                byte[] bytes = persister.get(getTaskStatusPath(taskName));
-                taskStatuses.add(Protos.TaskStatus.parseFrom(bytes));
-            } catch (PersisterException e) {
-                if (e.getReason() == Reason.NOT_FOUND) {
-                    // The task node exists, but it doesn't contain a TaskStatus node. This may occur if
-                    // the only contents are a TaskInfo.
-                    continue;
-                } else {
-                    throw new StateStoreException(e);
-                }
-            } catch (InvalidProtocolBufferException e) {
-                throw new StateStoreException(Reason.SERIALIZATION_ERROR, e);
-            }
+        lockTaskReads();
+        try {
+            // Tasks which lack a TaskStatus (e.g. only have a TaskInfo) are omitted.
+            return taskIndex.getStatuses();
+        } finally {
+            rlock.unlock();
         }
-        return taskStatuses;
     }
 
     /**
@@ -329,27 +665,39 @@ public class StateStore {
      *                             information otherwise fails
      */
     public Optional<Protos.TaskStatus> fetchStatus(String taskName) throws StateStoreException {
-        String path = getTaskStatusPath(taskName);
+        lockTaskReads();
         try {
-            byte[] bytes = persister.get(path);
-            if (bytes.length > 0) {
-                return Optional.of(Protos.TaskStatus.parseFrom(bytes));
-            } else {
-                throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
-                        "Empty TaskStatus for TaskName: %s", taskName));
+            Optional<Protos.TaskStatus> taskStatus = taskIndex.getStatus(taskName);
+            if (!taskStatus.isPresent()) {
+                logger.warn("No TaskStatus found for the requested name: {} at: {}",
+                        taskName, getTaskStatusPath(taskName));
             }
-        } catch (PersisterException e) {
-            if (e.getReason() == Reason.NOT_FOUND) {
-                logger.warn("No TaskStatus found for the requested name: {} at: {}", taskName, path);
-                return Optional.empty();
-            } else {
-                throw new StateStoreException(e);
-            }
-        } catch (InvalidProtocolBufferException e) {
-            throw new StateStoreException(Reason.SERIALIZATION_ERROR, e);
+            return taskStatus;
+        } finally {
+            rlock.unlock();
         }
     }
 
+    // Async Task Reads
+
+    /**
+     * Asynchronously fetches all {@link TaskInfo}s, see {@link #fetchTasks()}. If task data hasn't been loaded from the
+     * underlying storage yet, the data for all tasks is read in parallel. The returned future completes exceptionally
+     * with a {@link StateStoreException} if the data couldn't be fetched.
+     */
+    public CompletableFuture<Collection<Protos.TaskInfo>> fetchTasksAsync() {
+        return loadTaskIndexAsync().thenApply(ignored -> fetchTasks());
+    }
+
+    /**
+     * Asynchronously fetches all {@link TaskStatus}es, see {@link #fetchStatuses()}. If task data hasn't been loaded
+     * from the underlying storage yet, the data for all tasks is read in parallel. The returned future completes
+     * exceptionally with a {@link StateStoreException} if the data couldn't be fetched.
+     */
+    public CompletableFuture<Collection<Protos.TaskStatus>> fetchStatusesAsync() {
+        return loadTaskIndexAsync().thenApply(ignored -> fetchStatuses());
+    }
+
     // Read/Write properties
 
     /**
@@ -368,6 +716,7 @@ public class StateStore {
             final String path = PersisterUtils.join(PROPERTIES_PATH_NAME, key);
             logger.debug("Storing property key: {} into path: {}", key, path);
             persister.set(path, value);
+            onDataChanged();
         } catch (PersisterException e) {
             throw new StateStoreException(e);
         }
@@ -423,6 +772,7 @@ public class StateStore {
             final String path = PersisterUtils.join(PROPERTIES_PATH_NAME, key);
             logger.debug("Removing property key: {} from path: {}", key, path);
             persister.deleteAll(path);
+            onDataChanged();
         } catch (PersisterException e) {
             if (e.getReason() == Reason.NOT_FOUND) {
                 // Clearing a non-existent Property should not result in an exception from us.
@@ -439,14 +789,72 @@ public class StateStore {
      * Clears the root service node, leaving just the root node behind.
      */
     public void clearAllData() throws StateStoreException {
+        rwlock.lock();
         try {
+            for (TaskWriteBatch batch : taskWriteBatches.values()) {
+                batch.writes.clear();
+                batch.writesBeforeMark.clear();
+            }
+            ++taskIndexGeneration;
             persister.deleteAll(PersisterUtils.PATH_DELIM_STR);
+            taskIndex.clear();
         } catch (PersisterException e) {
             if (e.getReason() == Reason.NOT_FOUND) {
                 // Nothing to delete, apparently. Treat as a no-op
+                taskIndex.clear();
             } else {
                 throw new StateStoreException(e);
             }
+        } finally {
+            onDataChanged();
+            rwlock.unlock();
+        }
+    }
+
+    // Change Tracking
+
+    /**
+     * Returns a number which changes whenever the task data or properties held by this instance may have changed,
+     * including changes reported by an underlying {@link PersisterCache}. Callers which derive data from the state
+     * store may compare this against the value seen when their data was derived, to determine whether it's still
+     * current. Changes made directly to the underlying {@link Persister} are not reflected.
+     */
+    public long getDataVersion() {
+        synchronized (dataVersionMonitor) {
+            return dataVersion;
+        }
+    }
+
+    /**
+     * Adds a listener which is notified whenever {@link #getDataVersion()} advances.
+     */
+    public void addDataVersionListener(DataVersionListener listener) {
+        dataVersionListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener which was previously added via {@link #addDataVersionListener(DataVersionListener)}, or does
+     * nothing if it isn't present.
+     */
+    public void removeDataVersionListener(DataVersionListener listener) {
+        dataVersionListeners.remove(listener);
+    }
+
+    /**
+     * Waits until {@link #getDataVersion()} differs from the provided version, or until the provided timeout has
+     * passed, and returns the current version.
+     *
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public long awaitDataVersion(long version, long timeoutMs) throws InterruptedException {
+        long deadlineMs = System.currentTimeMillis() + timeoutMs;
+        synchronized (dataVersionMonitor) {
+            long remainingMs = timeoutMs;
+            while (dataVersion == version && remainingMs > 0) {
+                dataVersionMonitor.wait(remainingMs);
+                remainingMs = deadlineMs - System.currentTimeMillis();
+            }
+            return dataVersion;
         }
     }
 
@@ -460,6 +868,410 @@ public class StateStore {
 
     // Internals
 
+    /**
+     * Acquires the read lock, first populating the task index from the underlying storage if needed. The index is
+     * only invalidated while holding the write lock, so it remains loaded for as long as the read lock is held.
+     */
+    private void lockTaskReads() throws StateStoreException {
+        rlock.lock();
+        if (taskIndexLoaded) {
+            return;
+        }
+        rlock.unlock();
+        rwlock.lock();
+        try {
+            loadTaskIndex();
+            // Downgrade to the read lock without releasing it in between, so that the index cannot be invalidated
+            // before it's read:
+            rlock.lock();
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the write lock, first populating the task index from the underlying storage if needed. Writes are
+     * applied to the index only after they have succeeded against the underlying storage.
+     */
+    private void lockTaskWrites() throws StateStoreException {
+        rwlock.lock();
+        try {
+            loadTaskIndex();
+        } catch (RuntimeException e) {
+            rwlock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the task write batch which was started by the calling thread. Must be called while holding the write
+     * lock.
+     *
+     * @throws StateStoreException if no batch was started by this thread
+     */
+    private TaskWriteBatch getCurrentTaskWriteBatch() throws StateStoreException {
+        TaskWriteBatch batch = taskWriteBatches.get(Thread.currentThread());
+        if (batch == null) {
+            throw new StateStoreException(Reason.LOGIC_ERROR, "No task write batch is in progress in this thread");
+        }
+        return batch;
+    }
+
+    /**
+     * Drops any writes to the provided paths which are deferred in any thread's batch, and any record of them which
+     * would allow them to be restored by a rollback. Must be called while holding the write lock.
+     */
+    private void discardPendingTaskWrites(Collection<String> paths) {
+        for (TaskWriteBatch batch : taskWriteBatches.values()) {
+            batch.writes.keySet().removeAll(paths);
+            batch.writesBeforeMark.keySet().removeAll(paths);
+        }
+    }
+
+    /**
+     * Ends the calling thread's task write batch, applying any invalidation of the task index which was deferred while
+     * batches were in progress once no batches remain. Must be called while holding the write lock.
+     */
+    private void endTaskWriteBatch() {
+        taskWriteBatches.remove(Thread.currentThread());
+        if (taskWriteBatches.isEmpty() && taskIndexInvalidatedDuringBatch) {
+            taskIndexInvalidatedDuringBatch = false;
+            invalidateTaskIndex();
+        }
+    }
+
+    /**
+     * Reloads the provided tasks in the task index from the underlying storage, then reapplies any writes to them which
+     * are still deferred in a batch. This discards writes to those tasks which were applied to the index but will not
+     * reach the underlying storage, without affecting writes made to other tasks in the meantime. If the tasks can't be
+     * read, the whole index is invalidated instead. Must be called while holding the write lock.
+     */
+    private void reloadTasks(Collection<String> taskNames) {
+        if (!taskIndexLoaded || taskNames.isEmpty()) {
+            return;
+        }
+        AsyncPersister asyncPersister = PersisterUtils.toAsync(persister);
+        List<LoadedTask> loadedTasks = new ArrayList<>();
+        try {
+            for (String taskName : taskNames) {
+                loadedTasks.add(join(readTask(asyncPersister, taskName)));
+            }
+        } catch (StateStoreException e) {
+            logger.error("Failed to reload {} tasks, reloading task index on next access", taskNames.size(), e);
+            invalidateTaskIndex();
+            return;
+        }
+        for (LoadedTask loadedTask : loadedTasks) {
+            taskIndex.removeTask(loadedTask.taskName);
+            if (loadedTask.taskInfo.isPresent() || loadedTask.taskStatus.isPresent()) {
+                populateTaskIndex(Collections.singletonList(loadedTask));
+            }
+        }
+        applyPendingTaskWrites(new HashSet<>(taskNames));
+        onDataChanged();
+    }
+
+    /**
+     * Applies the writes which are deferred in any thread's batch to the task index, in the order they were made.
+     * Must be called while holding the write lock, after the index has been (re)populated from the underlying storage.
+     *
+     * @param taskNames the tasks whose writes should be applied, or {@code null} for all tasks
+     */
+    private void applyPendingTaskWrites(Set<String> taskNames) {
+        List<PendingTaskWrite> writes = new ArrayList<>();
+        for (TaskWriteBatch batch : taskWriteBatches.values()) {
+            for (PendingTaskWrite write : batch.writes.values()) {
+                if (taskNames == null || taskNames.contains(write.taskName)) {
+                    writes.add(write);
+                }
+            }
+        }
+        writes.sort(Comparator.comparingLong(write -> write.sequence));
+        for (PendingTaskWrite write : writes) {
+            if (write.isStatus) {
+                taskIndex.putStatus(write.taskName, parseStatus(write.taskName, write.bytes));
+            } else {
+                taskIndex.putTask(parseTask(write.taskName, write.bytes));
+            }
+        }
+    }
+
+    /**
+     * Invalidates the task index when task data has been changed in the underlying storage by someone other than this
+     * instance. If any task write batch is in progress, invalidation is deferred until all batches have ended, so that
+     * the batches' deferred writes remain visible in the meantime.
+     */
+    private void onPersisterChanged(String path) {
+        onDataChanged();
+        String tasksRoot = PersisterUtils.join(PersisterUtils.PATH_DELIM_STR, TASKS_ROOT_NAME);
+        if (!path.equals(PersisterUtils.PATH_DELIM_STR)
+                && !path.equals(tasksRoot)
+                && !path.startsWith(tasksRoot + PersisterUtils.PATH_DELIM)) {
+            return;
+        }
+        rwlock.lock();
+        try {
+            if (!taskWriteBatches.isEmpty()) {
+                taskIndexInvalidatedDuringBatch = true;
+            } else {
+                logger.info("Task data at {} was changed externally, reloading task index", path);
+                invalidateTaskIndex();
+            }
+        } finally {
+            rwlock.unlock();
+        }
+    }
+
+    /**
+     * Drops the content of the task index, such that it is reloaded from the underlying storage on the next access.
+     * Must be called while holding the write lock.
+     */
+    private void invalidateTaskIndex() {
+        taskIndexLoaded = false;
+        ++taskIndexGeneration;
+        taskIndex.clear();
+        onDataChanged();
+    }
+
+    /**
+     * Advances the data version and wakes any callers which are waiting for it to change, see
+     * {@link #awaitDataVersion(long, long)}, then notifies any listeners.
+     */
+    private void onDataChanged() {
+        synchronized (dataVersionMonitor) {
+            ++dataVersion;
+            dataVersionMonitor.notifyAll();
+        }
+        for (DataVersionListener listener : dataVersionListeners) {
+            listener.onDataVersionChanged();
+        }
+    }
+
+    /**
+     * Populates the task index with the content of the underlying storage, if this hasn't been done already. Must be
+     * called while holding the write lock.
+     */
+    private void loadTaskIndex() throws StateStoreException {
+        if (taskIndexLoaded) {
+            return;
+        }
+        taskIndex.clear();
+        try {
+            long startMs = System.currentTimeMillis();
+            List<LoadedTask> loadedTasks = join(readAllTasks());
+            long readMs = System.currentTimeMillis();
+            populateTaskIndex(loadedTasks);
+            applyPendingTaskWrites(null);
+            logger.info("Loaded {} tasks: read and parsed in {}ms, indexed in {}ms",
+                    loadedTasks.size(), readMs - startMs, System.currentTimeMillis() - readMs);
+        } catch (RuntimeException e) {
+            // Leave the index unloaded so that the load is retried on the next access.
+            taskIndex.clear();
+            throw e;
+        }
+        taskIndexLoaded = true;
+    }
+
+    /**
+     * Populates the task index with the content of the underlying storage without blocking the calling thread, if
+     * this hasn't been done already. The data is discarded if the index was loaded or invalidated while it was being
+     * read, in which case it may be stale.
+     */
+    private CompletableFuture<Void> loadTaskIndexAsync() {
+        if (taskIndexLoaded) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final long generation = taskIndexGeneration;
+        // Switch away from any storage client thread before locking:
+        return readAllTasks().thenAcceptAsync(loadedTasks -> {
+            rwlock.lock();
+            try {
+                if (!taskIndexLoaded && generation == taskIndexGeneration) {
+                    taskIndex.clear();
+                    populateTaskIndex(loadedTasks);
+                    applyPendingTaskWrites(null);
+                    taskIndexLoaded = true;
+                }
+            } finally {
+                rwlock.unlock();
+            }
+        });
+    }
+
+    private void populateTaskIndex(Collection<LoadedTask> loadedTasks) {
+        for (LoadedTask loadedTask : loadedTasks) {
+            taskIndex.addTaskName(loadedTask.taskName);
+            if (loadedTask.taskInfo.isPresent()) {
+                taskIndex.putTask(loadedTask.taskInfo.get());
+            }
+            if (loadedTask.taskStatus.isPresent()) {
+                taskIndex.putStatus(loadedTask.taskName, loadedTask.taskStatus.get());
+            }
+        }
+    }
+
+    /**
+     * The data for a single task which was read from the underlying storage.
+     */
+    private static class LoadedTask {
+        private final String taskName;
+        private final Optional<Protos.TaskInfo> taskInfo;
+        private final Optional<Protos.TaskStatus> taskStatus;
+
+        private LoadedTask(
+                String taskName, Optional<Protos.TaskInfo> taskInfo, Optional<Protos.TaskStatus> taskStatus) {
+            this.taskName = taskName;
+            this.taskInfo = taskInfo;
+            this.taskStatus = taskStatus;
+        }
+    }
+
+    /**
+     * The task writes which have been deferred by a single thread, see {@link #beginTaskWriteBatch()}.
+     */
+    private static class TaskWriteBatch {
+        // The deferred writes, by path:
+        private final Map<String, PendingTaskWrite> writes = new HashMap<>();
+        // The deferred writes which were replaced since the batch was last marked, or empty for paths which had no
+        // deferred write at the time, see markTaskWriteBatch():
+        private final Map<String, Optional<PendingTaskWrite>> writesBeforeMark = new HashMap<>();
+
+        private void defer(String path, PendingTaskWrite write) {
+            PendingTaskWrite previous = writes.put(path, write);
+            if (!writesBeforeMark.containsKey(path)) {
+                writesBeforeMark.put(path, Optional.ofNullable(previous));
+            }
+        }
+
+        private Map<String, byte[]> getBytes() {
+            Map<String, byte[]> bytes = new HashMap<>();
+            for (Map.Entry<String, PendingTaskWrite> entry : writes.entrySet()) {
+                bytes.put(entry.getKey(), entry.getValue().bytes);
+            }
+            return bytes;
+        }
+
+        private Set<String> getTaskNames() {
+            return writes.values().stream().map(write -> write.taskName).collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * A single deferred write of a TaskInfo or TaskStatus.
+     */
+    private static class PendingTaskWrite {
+        private final String taskName;
+        private final boolean isStatus;
+        private final byte[] bytes;
+        private final long sequence;
+
+        private PendingTaskWrite(String taskName, boolean isStatus, byte[] bytes, long sequence) {
+            this.taskName = taskName;
+            this.isStatus = isStatus;
+            this.bytes = bytes;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Reads the TaskInfo and TaskStatus of every task directly from the underlying storage, bypassing the in-memory
+     * index. The reads for all tasks are issued at once, rather than waiting for each read in turn, and the results are
+     * parsed using {@link #PARSE_EXECUTOR}.
+     */
+    private CompletableFuture<List<LoadedTask>> readAllTasks() {
+        AsyncPersister asyncPersister = PersisterUtils.toAsync(persister);
+        return readIfPresent(asyncPersister.getChildrenAsync(TASKS_ROOT_NAME), "Failed to retrieve task names")
+                .thenCompose(taskNames -> {
+                    // Root path doesn't exist yet. Treat as an empty list of tasks. This scenario is expected to
+                    // commonly occur when the Framework is being run for the first time.
+                    List<CompletableFuture<LoadedTask>> futures = new ArrayList<>();
+                    for (String taskName : taskNames.orElse(Collections.emptyList())) {
+                        futures.add(readTask(asyncPersister, taskName));
+                    }
+                    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                            .thenApply(ignored -> futures.stream()
+                                    .map(CompletableFuture::join)
+                                    .collect(Collectors.toList()));
+                });
+    }
+
+    private static CompletableFuture<LoadedTask> readTask(AsyncPersister asyncPersister, String taskName) {
+        CompletableFuture<Optional<byte[]>> taskInfoBytes = readIfPresent(
+                asyncPersister.getAsync(getTaskInfoPath(taskName)),
+                String.format("Failed to retrieve task named %s", taskName));
+        CompletableFuture<Optional<byte[]>> taskStatusBytes = readIfPresent(
+                asyncPersister.getAsync(getTaskStatusPath(taskName)),
+                String.format("Failed to retrieve status of task named %s", taskName));
+        return taskInfoBytes.thenCombineAsync(taskStatusBytes, (infoBytes, statusBytes) -> new LoadedTask(
+                taskName,
+                infoBytes.map(bytes -> parseTask(taskName, bytes)),
+                statusBytes.map(bytes -> parseStatus(taskName, bytes))),
+                PARSE_EXECUTOR);
+    }
+
+    /**
+     * Returns a future which completes with the result of the provided read, or with an empty {@link Optional} if the
+     * requested path doesn't exist. Any other {@link PersisterException} is converted to a
+     * {@link StateStoreException}.
+     */
+    private static <T> CompletableFuture<Optional<T>> readIfPresent(CompletableFuture<T> read, String errorMessage) {
+        return read.handle((result, throwable) -> {
+            if (throwable == null) {
+                return Optional.ofNullable(result);
+            }
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause instanceof PersisterException) {
+                PersisterException e = (PersisterException) cause;
+                if (e.getReason() == Reason.NOT_FOUND) {
+                    return Optional.empty();
+                }
+                throw new CompletionException(new StateStoreException(e, errorMessage));
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Waits for the provided future, rethrowing any {@link StateStoreException} which it failed with.
+     */
+    private static <T> T join(CompletableFuture<T> future) throws StateStoreException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof StateStoreException) {
+                throw (StateStoreException) e.getCause();
+            }
+            throw new StateStoreException(Reason.UNKNOWN, "Failed to read task data", e.getCause());
+        }
+    }
+
+    private static Protos.TaskInfo parseTask(String taskName, byte[] bytes) throws StateStoreException {
+        if (bytes.length == 0) {
+            throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
+                    "Empty TaskInfo for TaskName: %s", taskName));
+        }
+        try {
+            // TODO(nick): This unpack operation is no longer needed, but it doesn't hurt anything to leave it in
+            // place to support reading older data. Remove this unpack call after services have had time to stop
+            // storing packed TaskInfos in zk (after June 2017 or so?).
+            return TaskPackingUtils.unpack(Protos.TaskInfo.parseFrom(bytes));
+        } catch (InvalidProtocolBufferException e) {
+            throw new StateStoreException(Reason.SERIALIZATION_ERROR, e);
+        }
+    }
+
+    private static Protos.TaskStatus parseStatus(String taskName, byte[] bytes) throws StateStoreException {
+        if (bytes.length == 0) {
+            throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
+                    "Empty TaskStatus for TaskName: %s", taskName));
+        }
+        try {
+            return Protos.TaskStatus.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new StateStoreException(Reason.SERIALIZATION_ERROR, e);
+        }
+    }
+
     protected static String getTaskInfoPath(String taskName) {
         return PersisterUtils.join(getTaskPath(taskName), TASK_INFO_PATH_NAME);
     }
@@ -129,27 +129,23 @@ public class StateStoreUtils {
      */
     public static String getTaskName(StateStore stateStore, Protos.TaskStatus taskStatus)
             throws StateStoreException {
-        Optional<Protos.TaskInfo> taskInfoOptional = Optional.empty();
-
-        for (Protos.TaskInfo taskInfo : stateStore.fetchTasks()) {
-            if (taskInfo.getTaskId().getValue().equals(taskStatus.getTaskId().getValue())) {
-                if (taskInfoOptional.isPresent()) {
-                    LOGGER.error("Found duplicate TaskIDs in Task{} and Task {}",
-                            taskInfoOptional.get(), taskInfo.getName());
-                    throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
-                            "There are more than one tasks with TaskID: %s", taskStatus));
-                } else {
-                    taskInfoOptional = Optional.of(taskInfo);
-                }
-            }
+        Collection<Protos.TaskInfo> taskInfos = taskStatus == null
+                ? Collections.emptyList()
+                : stateStore.fetchTasksForTaskId(taskStatus.getTaskId());
+
+        if (taskInfos.size() > 1) {
+            LOGGER.error("Found duplicate TaskIDs in Tasks {}",
+                    taskInfos.stream().map(Protos.TaskInfo::getName).collect(Collectors.toList()));
+            throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
+                    "There are more than one tasks with TaskID: %s", taskStatus));
         }
 
-        if (!taskInfoOptional.isPresent()) {
+        if (taskInfos.isEmpty()) {
             throw new StateStoreException(Reason.NOT_FOUND, String.format(
                     "Failed to find a task with TaskID: %s", taskStatus));
         }
 
-        return taskInfoOptional.get().getName();
+        return taskInfos.iterator().next().getName();
     }
 
     /**
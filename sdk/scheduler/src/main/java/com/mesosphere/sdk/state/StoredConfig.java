@@ -0,0 +1,320 @@
+package com.mesosphere.sdk.state;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The stored form of a {@link com.mesosphere.sdk.config.Configuration}, as written by {@link ConfigStore}.
+ *
+ * <p>Each configuration is stored against an ID which is derived from a SHA-256 hash of its serialized content, so
+ * that storing an identical configuration again reuses the existing copy. If the content is a JSON object, then any
+ * string values of at least {@link #BLOB_MIN_LENGTH} characters, such as inline config templates, are moved out into
+ * separately stored blobs. Blobs are also named by the hash of their content, so a blob is shared by every
+ * configuration which contains it. The configuration and its blobs are each compressed.
+ *
+ * <p>The stored configuration is a sequence of big-endian values: a magic number (int), the format version (int), the
+ * number of referenced blobs (int), the hash of each blob (UTF), and then the compressed content. As the referenced
+ * blobs are listed up-front, the references to each blob may be counted without decompressing or parsing any
+ * configurations. Configurations which were stored before this format was introduced lack the header, and are
+ * returned as-is.
+ */
+final class StoredConfig {
+
+    /**
+     * The minimum length of string values which are stored as separate blobs.
+     */
+    static final int BLOB_MIN_LENGTH = 1024;
+
+    private static final int MAGIC = 0x53444b43; // "SDKC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * The key of the object which replaces an extracted string value within the stored JSON.
+     */
+    private static final String BLOB_REF_KEY = "$blob";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final UUID id;
+    private final byte[] data;
+    private final Map<String, byte[]> blobs;
+
+    private StoredConfig(UUID id, byte[] data, Map<String, byte[]> blobs) {
+        this.id = id;
+        this.data = data;
+        this.blobs = blobs;
+    }
+
+    /**
+     * Returns the stored form of the provided serialized configuration.
+     *
+     * @throws IOException if compression fails
+     */
+    static StoredConfig encode(byte[] content) throws IOException {
+        Map<String, String> blobContent = new TreeMap<>();
+        byte[] body = content;
+        JsonNode json = parseJsonObject(content);
+        if (json != null) {
+            extractBlobs(json, blobContent);
+            if (!blobContent.isEmpty()) {
+                body = MAPPER.writeValueAsBytes(json);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(blobContent.size());
+        for (String hash : blobContent.keySet()) {
+            out.writeUTF(hash);
+        }
+        out.flush();
+        compress(body, bytes);
+
+        Map<String, byte[]> blobs = new TreeMap<>();
+        for (Map.Entry<String, String> entry : blobContent.entrySet()) {
+            ByteArrayOutputStream blobBytes = new ByteArrayOutputStream();
+            compress(entry.getValue().getBytes(StandardCharsets.UTF_8), blobBytes);
+            blobs.put(entry.getKey(), blobBytes.toByteArray());
+        }
+        return new StoredConfig(getId(content), bytes.toByteArray(), blobs);
+    }
+
+    /**
+     * Returns the serialized configuration from the provided stored form, using {@code blobs} to retrieve the
+     * compressed content of each referenced blob.
+     *
+     * @throws IOException if the stored data is corrupt or a referenced blob is unavailable
+     */
+    static byte[] decode(byte[] data, BlobFetcher blobs) throws IOException {
+        if (!hasHeader(data)) {
+            return data;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        List<String> hashes = readHeader(in);
+        byte[] body = decompress(in);
+        if (hashes.isEmpty()) {
+            return body;
+        }
+
+        Map<String, byte[]> compressedBlobs = blobs.fetch(hashes);
+        Map<String, String> blobContent = new TreeMap<>();
+        for (String hash : hashes) {
+            byte[] compressedBlob = compressedBlobs.get(hash);
+            if (compressedBlob == null) {
+                throw new IOException(String.format("Referenced blob %s is missing", hash));
+            }
+            blobContent.put(hash, new String(
+                    decompress(new ByteArrayInputStream(compressedBlob)), StandardCharsets.UTF_8));
+        }
+        JsonNode json = MAPPER.readTree(body);
+        restoreBlobs(json, blobContent);
+        return MAPPER.writeValueAsBytes(json);
+    }
+
+    /**
+     * Returns the hashes of the blobs which are referenced by the provided stored configuration, without decompressing
+     * its content.
+     *
+     * @throws IOException if the stored data is corrupt
+     */
+    static Collection<String> getBlobHashes(byte[] data) throws IOException {
+        if (!hasHeader(data)) {
+            return new ArrayList<>();
+        }
+        return readHeader(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    /**
+     * Checks that the provided stored configuration can be decoded, by reading its header and decompressing its
+     * content, without retrieving its blobs or parsing the result. Configurations which were stored before this format
+     * was introduced are returned as-is by {@link #decode(byte[], BlobFetcher)}, so they always pass.
+     *
+     * @throws IOException if the stored data is corrupt
+     */
+    static void checkReadable(byte[] data) throws IOException {
+        if (!hasHeader(data)) {
+            return;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        readHeader(in);
+        try (GZIPInputStream gzip = new GZIPInputStream(in)) {
+            ByteStreams.exhaust(gzip);
+        }
+    }
+
+    /**
+     * Returns the ID of the configuration, derived from the hash of its serialized content.
+     */
+    UUID getId() {
+        return id;
+    }
+
+    /**
+     * Returns the stored form of the configuration, which references any blobs by their hash.
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns the compressed content of each blob which is referenced by the configuration, keyed by hash.
+     */
+    Map<String, byte[]> getBlobs() {
+        return blobs;
+    }
+
+    /**
+     * Retrieves the compressed content of blobs by their hash.
+     */
+    interface BlobFetcher {
+        /**
+         * Returns the content of each of the provided blobs, omitting any which couldn't be found.
+         */
+        Map<String, byte[]> fetch(Collection<String> hashes) throws IOException;
+    }
+
+    private static UUID getId(byte[] content) {
+        ByteBuffer hash = ByteBuffer.wrap(Hashing.sha256().hashBytes(content).asBytes());
+        // Mark the UUID as a custom (version 8) UUID with the standard variant:
+        long mostSigBits = (hash.getLong() & ~0xF000L) | 0x8000L;
+        long leastSigBits = (hash.getLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static boolean hasHeader(byte[] data) {
+        if (data.length < HEADER_BYTES) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        return buffer.getInt() == MAGIC && buffer.getInt() == FORMAT_VERSION;
+    }
+
+    private static List<String> readHeader(DataInputStream in) throws IOException {
+        in.skipBytes(HEADER_BYTES);
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException(String.format("Invalid blob count: %d", count));
+        }
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            hashes.add(in.readUTF());
+        }
+        return hashes;
+    }
+
+    private static JsonNode parseJsonObject(byte[] content) {
+        try {
+            JsonNode json = MAPPER.readTree(content);
+            return json != null && json.isObject() ? json : null;
+        } catch (IOException e) {
+            // Not JSON: store the content as-is.
+            return null;
+        }
+    }
+
+    private static void extractBlobs(JsonNode node, Map<String, String> blobContent) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode replacement = toBlobRef(field.getValue(), blobContent);
+                if (replacement != null) {
+                    field.setValue(replacement);
+                } else {
+                    extractBlobs(field.getValue(), blobContent);
+                }
+            }
+        } else if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); ++i) {
+                JsonNode replacement = toBlobRef(array.get(i), blobContent);
+                if (replacement != null) {
+                    array.set(i, replacement);
+                } else {
+                    extractBlobs(array.get(i), blobContent);
+                }
+            }
+        }
+    }
+
+    private static JsonNode toBlobRef(JsonNode node, Map<String, String> blobContent) {
+        if (!node.isTextual() || node.textValue().length() < BLOB_MIN_LENGTH) {
+            return null;
+        }
+        String hash = Hashing.sha256().hashString(node.textValue(), StandardCharsets.UTF_8).toString();
+        blobContent.put(hash, node.textValue());
+        return MAPPER.createObjectNode().put(BLOB_REF_KEY, hash);
+    }
+
+    private static void restoreBlobs(JsonNode node, Map<String, String> blobContent) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String content = getBlobContent(field.getValue(), blobContent);
+                if (content != null) {
+                    field.setValue(new TextNode(content));
+                } else {
+                    restoreBlobs(field.getValue(), blobContent);
+                }
+            }
+        } else if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); ++i) {
+                String content = getBlobContent(array.get(i), blobContent);
+                if (content != null) {
+                    array.set(i, new TextNode(content));
+                } else {
+                    restoreBlobs(array.get(i), blobContent);
+                }
+            }
+        }
+    }
+
+    private static String getBlobContent(JsonNode node, Map<String, String> blobContent) {
+        if (!node.isObject() || node.size() != 1) {
+            return null;
+        }
+        JsonNode hash = ((ObjectNode) node).get(BLOB_REF_KEY);
+        return hash != null && hash.isTextual() ? blobContent.get(hash.textValue()) : null;
+    }
+
+    private static void compress(byte[] content, OutputStream out) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+    }
+
+    private static byte[] decompress(InputStream in) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(in)) {
+            return ByteStreams.toByteArray(gzip);
+        }
+    }
+}
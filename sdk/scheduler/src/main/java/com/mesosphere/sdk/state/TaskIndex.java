@@ -0,0 +1,208 @@
+package com.mesosphere.sdk.state;
+
+import com.mesosphere.sdk.offer.ResourceUtils;
+import com.mesosphere.sdk.offer.TaskException;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
+import com.mesosphere.sdk.specification.PodInstance;
+
+import org.apache.mesos.Protos;
+
+import java.util.*;
+
+/**
+ * An in-memory view of the tasks stored in a {@link StateStore}. Holds parsed {@link Protos.TaskInfo} and
+ * {@link Protos.TaskStatus} objects along with secondary indexes keyed by TaskID, pod instance, agent ID, resource ID,
+ * and persistence ID, so that lookups do not require a scan over all stored tasks.
+ *
+ * <p>This class is not thread-safe. {@link StateStore} is responsible for locking access to the index, and for only
+ * updating the index after the underlying write has succeeded.
+ */
+class TaskIndex {
+
+    private final Set<String> taskNames = new TreeSet<>(); // consistent ordering, to match Persister.getChildren()
+    private final Map<String, Protos.TaskInfo> tasksByName = new HashMap<>();
+    private final Map<String, Protos.TaskStatus> statusesByName = new HashMap<>();
+
+    private final Map<String, Set<String>> namesByTaskId = new HashMap<>();
+    private final Map<String, Set<String>> namesByPodInstance = new HashMap<>();
+    private final Map<String, Set<String>> namesByAgentId = new HashMap<>();
+    private final Map<String, Set<String>> namesByResourceId = new HashMap<>();
+    private final Map<String, Set<String>> namesByPersistenceId = new HashMap<>();
+
+    /**
+     * Records that a task node with the provided name exists, whether or not it has a TaskInfo or TaskStatus.
+     */
+    void addTaskName(String taskName) {
+        taskNames.add(taskName);
+    }
+
+    /**
+     * Adds or replaces the TaskInfo for the task with the matching name, updating all secondary indexes.
+     */
+    void putTask(Protos.TaskInfo taskInfo) {
+        String taskName = taskInfo.getName();
+        Protos.TaskInfo previousTaskInfo = tasksByName.put(taskName, taskInfo);
+        if (previousTaskInfo != null) {
+            unindexTask(previousTaskInfo);
+        }
+        taskNames.add(taskName);
+        indexTask(taskInfo);
+    }
+
+    /**
+     * Adds or replaces the TaskStatus for the task with the provided name.
+     */
+    void putStatus(String taskName, Protos.TaskStatus taskStatus) {
+        statusesByName.put(taskName, taskStatus);
+        taskNames.add(taskName);
+    }
+
+    /**
+     * Removes the TaskInfo and TaskStatus (if any) for the task with the provided name.
+     */
+    void removeTask(String taskName) {
+        Protos.TaskInfo previousTaskInfo = tasksByName.remove(taskName);
+        if (previousTaskInfo != null) {
+            unindexTask(previousTaskInfo);
+        }
+        statusesByName.remove(taskName);
+        taskNames.remove(taskName);
+    }
+
+    /**
+     * Removes all content from the index.
+     */
+    void clear() {
+        taskNames.clear();
+        tasksByName.clear();
+        statusesByName.clear();
+        namesByTaskId.clear();
+        namesByPodInstance.clear();
+        namesByAgentId.clear();
+        namesByResourceId.clear();
+        namesByPersistenceId.clear();
+    }
+
+    Collection<String> getTaskNames() {
+        return new ArrayList<>(taskNames);
+    }
+
+    Optional<Protos.TaskInfo> getTask(String taskName) {
+        return Optional.ofNullable(tasksByName.get(taskName));
+    }
+
+    Optional<Protos.TaskStatus> getStatus(String taskName) {
+        return Optional.ofNullable(statusesByName.get(taskName));
+    }
+
+    Collection<Protos.TaskStatus> getStatuses() {
+        Collection<Protos.TaskStatus> statuses = new ArrayList<>();
+        for (String taskName : taskNames) {
+            Protos.TaskStatus status = statusesByName.get(taskName);
+            if (status != null) {
+                statuses.add(status);
+            }
+        }
+        return statuses;
+    }
+
+    Collection<Protos.TaskInfo> getTasksWithTaskId(Protos.TaskID taskId) {
+        return getTasks(namesByTaskId, taskId.getValue());
+    }
+
+    Collection<Protos.TaskInfo> getTasksInPodInstance(String podInstanceName) {
+        return getTasks(namesByPodInstance, podInstanceName);
+    }
+
+    Collection<Protos.TaskInfo> getTasksOnAgent(Protos.SlaveID agentId) {
+        return getTasks(namesByAgentId, agentId.getValue());
+    }
+
+    Collection<Protos.TaskInfo> getTasksWithResourceId(String resourceId) {
+        return getTasks(namesByResourceId, resourceId);
+    }
+
+    Collection<Protos.TaskInfo> getTasksWithPersistenceId(String persistenceId) {
+        return getTasks(namesByPersistenceId, persistenceId);
+    }
+
+    private Collection<Protos.TaskInfo> getTasks(Map<String, Set<String>> index, String key) {
+        Set<String> names = index.get(key);
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        List<Protos.TaskInfo> taskInfos = new ArrayList<>();
+        for (String name : names) {
+            taskInfos.add(tasksByName.get(name));
+        }
+        return taskInfos;
+    }
+
+    private void indexTask(Protos.TaskInfo taskInfo) {
+        String taskName = taskInfo.getName();
+        add(namesByTaskId, taskInfo.getTaskId().getValue(), taskName);
+        add(namesByAgentId, taskInfo.getSlaveId().getValue(), taskName);
+        Optional<String> podInstanceName = getPodInstanceName(taskInfo);
+        if (podInstanceName.isPresent()) {
+            add(namesByPodInstance, podInstanceName.get(), taskName);
+        }
+        for (Protos.Resource resource : ResourceUtils.getAllResources(taskInfo)) {
+            Optional<String> resourceId = ResourceUtils.getResourceId(resource);
+            if (resourceId.isPresent()) {
+                add(namesByResourceId, resourceId.get(), taskName);
+            }
+            Optional<String> persistenceId = ResourceUtils.getPersistenceId(resource);
+            if (persistenceId.isPresent()) {
+                add(namesByPersistenceId, persistenceId.get(), taskName);
+            }
+        }
+    }
+
+    private void unindexTask(Protos.TaskInfo taskInfo) {
+        String taskName = taskInfo.getName();
+        remove(namesByTaskId, taskInfo.getTaskId().getValue(), taskName);
+        remove(namesByAgentId, taskInfo.getSlaveId().getValue(), taskName);
+        Optional<String> podInstanceName = getPodInstanceName(taskInfo);
+        if (podInstanceName.isPresent()) {
+            remove(namesByPodInstance, podInstanceName.get(), taskName);
+        }
+        for (Protos.Resource resource : ResourceUtils.getAllResources(taskInfo)) {
+            Optional<String> resourceId = ResourceUtils.getResourceId(resource);
+            if (resourceId.isPresent()) {
+                remove(namesByResourceId, resourceId.get(), taskName);
+            }
+            Optional<String> persistenceId = ResourceUtils.getPersistenceId(resource);
+            if (persistenceId.isPresent()) {
+                remove(namesByPersistenceId, persistenceId.get(), taskName);
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the pod instance which the task belongs to, or an empty Optional if the task lacks the
+     * labels needed to determine this.
+     */
+    private static Optional<String> getPodInstanceName(Protos.TaskInfo taskInfo) {
+        TaskLabelReader labelReader = new TaskLabelReader(taskInfo);
+        try {
+            return Optional.of(PodInstance.getName(labelReader.getType(), labelReader.getIndex()));
+        } catch (TaskException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String taskName) {
+        index.computeIfAbsent(key, k -> new TreeSet<>()).add(taskName);
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String taskName) {
+        Set<String> names = index.get(key);
+        if (names == null) {
+            return;
+        }
+        names.remove(taskName);
+        if (names.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
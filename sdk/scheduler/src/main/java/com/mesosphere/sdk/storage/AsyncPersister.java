@@ -0,0 +1,46 @@
+package com.mesosphere.sdk.storage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking companion to the {@link Persister} interface. Each operation has the same semantics as its blocking
+ * {@link Persister} equivalent, except that it returns immediately with a {@link CompletableFuture} which is completed
+ * once the operation has finished. Failed operations complete exceptionally with a {@link PersisterException}, which
+ * may be wrapped in a {@link java.util.concurrent.CompletionException} by dependent stages.
+ *
+ * <p>This allows callers to issue many reads at once, rather than waiting on the storage latency of each read in turn.
+ * No ordering is guaranteed between operations which are in flight at the same time. Callbacks attached to the returned
+ * futures may be run by the storage client's own threads, and so should not block.
+ *
+ * <p>Persisters which don't implement this interface may still be accessed asynchronously via
+ * {@link PersisterUtils#toAsync(Persister)}.
+ */
+public interface AsyncPersister {
+
+    /**
+     * @see Persister#get(String)
+     */
+    CompletableFuture<byte[]> getAsync(String path);
+
+    /**
+     * @see Persister#getChildren(String)
+     */
+    CompletableFuture<Collection<String>> getChildrenAsync(String path);
+
+    /**
+     * @see Persister#set(String, byte[])
+     */
+    CompletableFuture<Void> setAsync(String path, byte[] bytes);
+
+    /**
+     * @see Persister#setMany(Map)
+     */
+    CompletableFuture<Void> setManyAsync(Map<String, byte[]> pathBytesMap);
+
+    /**
+     * @see Persister#deleteAll(String)
+     */
+    CompletableFuture<Void> deleteAllAsync(String path);
+}
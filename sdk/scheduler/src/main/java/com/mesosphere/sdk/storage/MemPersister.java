@@ -1,6 +1,5 @@
 package com.mesosphere.sdk.storage;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -8,9 +7,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.common.base.Splitter;
 import com.mesosphere.sdk.storage.StorageError.Reason;
@@ -18,28 +17,40 @@ import com.mesosphere.sdk.storage.StorageError.Reason;
 /**
  * Implementation of {@link Persister} which stores the data in local memory. Mirrors the behavior of
  * {@link CuratorPersister}.
+ *
+ * <p>The data is held in a copy-on-write tree: nodes are never modified once they're visible to readers, and each write
+ * instead replaces the modified node and its ancestors with updated copies. Reads therefore never lock, and each read
+ * sees a consistent snapshot of the tree. Writes are serialized with each other, unless locking is disabled by the
+ * caller.
+ *
+ * <p>Each write copies the child map of every node along the written path, so it costs time proportional to the number
+ * of siblings along that path, e.g. the number of tasks when writing a task's status. This makes uncontended writes
+ * slower than updating the tree in place. It's accepted because when this is used as a {@link PersisterCache}, each
+ * write to the cache follows a write to the underlying storage, which takes far longer, while the far more frequent
+ * reads no longer wait on writes at all.
  */
-public class MemPersister implements Persister {
+public class MemPersister implements Persister, AsyncPersister {
 
     private static class Node {
-        private final Map<String, Node> children;
-        private Optional<byte[]> data;
+        private static final Node EMPTY = new Node(new TreeMap<>(), Optional.empty());
 
-        private Node() {
-            this.children = new TreeMap<>();
-            this.data = Optional.empty();
+        // Only modified before the node is visible to readers, see build():
+        private final TreeMap<String, Node> children;
+        private final Optional<byte[]> data;
+
+        private Node(TreeMap<String, Node> children, Optional<byte[]> data) {
+            this.children = children;
+            this.data = data;
         }
     }
 
     // We use a tree structure to simplify getChildren() and (recursive) delete():
-    private final Node root;
+    private volatile Node root;
 
-    private final Optional<ReadWriteLock> internalLock;
-    private final Optional<Lock> rlock;
-    private final Optional<Lock> rwlock;
+    private final Optional<Lock> writeLock;
 
     /**
-     * Whether to enable or disable thread-safe locking.
+     * Whether to enable or disable thread-safe locking of writes. Reads never lock.
      * Locking may be disabled if the parent implements its own locking.
      */
     public enum LockMode {
@@ -57,113 +68,127 @@ public class MemPersister implements Persister {
     /**
      * Creates a new instance with the provided options.
      *
-     * @param mode Allows enabling or disabling internal thread-safe locking. Disable in cases where the caller is
-     *     already performing their own locking
+     * @param mode Allows enabling or disabling internal thread-safe locking of writes. Disable in cases where the
+     *     caller is already serializing its writes
      * @param data The initial data to be stored in the instance, or an empty map if none is applicable
      */
     public MemPersister(LockMode mode, Map<String, byte[]> data) {
-        this.root = new Node();
-        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
-            getNode(root, entry.getKey(), true).data = Optional.of(entry.getValue());
-        }
-        if (mode == LockMode.ENABLED) {
-            internalLock = Optional.of(new ReentrantReadWriteLock());
-            rlock = Optional.of(internalLock.get().readLock());
-            rwlock = Optional.of(internalLock.get().writeLock());
-        } else {
-            internalLock = Optional.empty();
-            rlock = Optional.empty();
-            rwlock = Optional.empty();
-        }
+        this.root = build(data);
+        this.writeLock = mode == LockMode.ENABLED ? Optional.of(new ReentrantLock()) : Optional.empty();
     }
 
     @Override
     public byte[] get(String path) throws PersisterException {
-        lockR();
-        try {
-            Node node = getNode(root, path, false);
-            if (node == null) {
-                throw new PersisterException(Reason.NOT_FOUND, path); // node not found at all
-            }
-            return node.data.orElse(null); // support case where node exists but doesn't have data
-        } finally {
-            unlockR();
+        Node node = getNode(root, getPathElements(path));
+        if (node == null) {
+            throw new PersisterException(Reason.NOT_FOUND, path); // node not found at all
         }
+        return node.data.orElse(null); // support case where node exists but doesn't have data
     }
 
     @Override
     public Collection<String> getChildren(String path) throws PersisterException {
-        lockR();
-        try {
-            Node node = getNode(root, path, false);
-            if (node == null) {
-                throw new PersisterException(Reason.NOT_FOUND, path);
-            }
-            return new TreeSet<>(node.children.keySet()); // return consistent ordering (mainly to simplify testing)
-        } finally {
-            unlockR();
+        Node node = getNode(root, getPathElements(path));
+        if (node == null) {
+            throw new PersisterException(Reason.NOT_FOUND, path);
         }
+        return new TreeSet<>(node.children.keySet()); // return consistent ordering (mainly to simplify testing)
     }
 
     @Override
     public void set(String path, byte[] bytes) throws PersisterException {
-        lockRW();
+        lockW();
         try {
-            getNode(root, path, true).data = Optional.of(bytes);
+            root = withData(root, getPathElements(path), 0, bytes);
         } finally {
-            unlockRW();
+            unlockW();
         }
     }
 
     @Override
     public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
-        lockRW();
+        lockW();
         try {
+            // Readers see either none or all of the changes:
+            Node newRoot = root;
             for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
-                getNode(root, entry.getKey(), true).data = Optional.of(entry.getValue());
+                newRoot = withData(newRoot, getPathElements(entry.getKey()), 0, entry.getValue());
             }
+            root = newRoot;
         } finally {
-            unlockRW();
+            unlockW();
         }
     }
 
     @Override
     public void deleteAll(String path) throws PersisterException {
-        List<String> elements = new ArrayList<>();
-        elements.addAll(getPathElements(path)); // make editable version
+        List<String> elements = getPathElements(path);
         if (elements.isEmpty()) {
             // treat this as a reset operation:
             close();
             return;
         }
-        String nodeName = elements.remove(elements.size() - 1);
 
-        lockRW();
+        lockW();
         try {
-            Node parent = getNode(root, elements, false);
+            Node parent = getNode(root, elements.subList(0, elements.size() - 1));
             if (parent == null) {
                 // Parent node didn't exist.
                 throw new PersisterException(Reason.NOT_FOUND, path);
             }
-
-            Node removed = parent.children.remove(nodeName);
-            if (removed == null) {
+            if (!parent.children.containsKey(elements.get(elements.size() - 1))) {
                 // Node to remove didn't exist.
                 throw new PersisterException(Reason.NOT_FOUND, path);
             }
+            root = without(root, elements, 0);
         } finally {
-            unlockRW();
+            unlockW();
         }
     }
 
+    // AsyncPersister: data is in memory, so operations are performed immediately and return completed futures.
+
+    @Override
+    public CompletableFuture<byte[]> getAsync(String path) {
+        return PersisterUtils.complete(() -> get(path));
+    }
+
+    @Override
+    public CompletableFuture<Collection<String>> getChildrenAsync(String path) {
+        return PersisterUtils.complete(() -> getChildren(path));
+    }
+
+    @Override
+    public CompletableFuture<Void> setAsync(String path, byte[] bytes) {
+        return PersisterUtils.complete(() -> {
+            set(path, bytes);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setManyAsync(Map<String, byte[]> pathBytesMap) {
+        return PersisterUtils.complete(() -> {
+            setMany(pathBytesMap);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllAsync(String path) {
+        return PersisterUtils.complete(() -> {
+            deleteAll(path);
+            return null;
+        });
+    }
+
     @Override
     public void close() {
-        lockRW();
+        lockW();
         try {
-            root.children.clear();
-            root.data = Optional.empty();
+            root = Node.EMPTY;
         } finally {
-            unlockRW();
+            unlockW();
         }
     }
 
@@ -176,27 +201,15 @@ public class MemPersister implements Persister {
         return sb.toString();
     }
 
-    private void lockRW() {
-        if (rwlock.isPresent()) {
-            rwlock.get().lock();
+    private void lockW() {
+        if (writeLock.isPresent()) {
+            writeLock.get().lock();
         }
     }
 
-    private void unlockRW() {
-        if (rwlock.isPresent()) {
-            rwlock.get().unlock();
-        }
-    }
-
-    private void lockR() {
-        if (rlock.isPresent()) {
-            rlock.get().lock();
-        }
-    }
-
-    private void unlockR() {
-        if (rlock.isPresent()) {
-            rlock.get().unlock();
+    private void unlockW() {
+        if (writeLock.isPresent()) {
+            writeLock.get().unlock();
         }
     }
 
@@ -223,28 +236,84 @@ public class MemPersister implements Persister {
         }
     }
 
-    private static Node getNode(Node root, String path, boolean createIfMissing) {
-        return getNode(root, getPathElements(path), createIfMissing);
+    /**
+     * Returns a new tree containing the provided data. The tree is built in place, as it isn't yet visible to readers.
+     */
+    private static Node build(Map<String, byte[]> data) {
+        Node root = new Node(new TreeMap<>(), Optional.empty());
+        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
+            List<String> elements = getPathElements(entry.getKey());
+            if (elements.isEmpty()) {
+                root = new Node(root.children, Optional.of(entry.getValue()));
+                continue;
+            }
+            Node parent = root;
+            for (String element : elements.subList(0, elements.size() - 1)) {
+                Node child = parent.children.get(element);
+                if (child == null) {
+                    child = new Node(new TreeMap<>(), Optional.empty());
+                    parent.children.put(element, child);
+                }
+                parent = child;
+            }
+            String name = elements.get(elements.size() - 1);
+            Node existing = parent.children.get(name);
+            parent.children.put(name, new Node(
+                    existing == null ? new TreeMap<>() : existing.children, Optional.of(entry.getValue())));
+        }
+        return root;
     }
 
-    private static Node getNode(Node root, List<String> pathElements, boolean createIfMissing) {
-        Node lastNode = null;
+    private static Node getNode(Node root, List<String> pathElements) {
         Node curNode = root;
         for (String element : pathElements) {
-            lastNode = curNode;
             curNode = curNode.children.get(element);
             if (curNode == null) {
-                if (createIfMissing) {
-                    curNode = new Node();
-                    lastNode.children.put(element, curNode);
-                } else {
-                    return null;
-                }
+                return null;
             }
         }
         return curNode;
     }
 
+    /**
+     * Returns a copy of the provided node (or of an empty node, if {@code null}) where the node at the provided path
+     * beneath it has the provided data, creating any missing nodes along the way.
+     */
+    private static Node withData(Node node, List<String> pathElements, int index, byte[] data) {
+        if (index == pathElements.size()) {
+            return new Node(node == null ? new TreeMap<>() : node.children, Optional.of(data));
+        }
+        String element = pathElements.get(index);
+        Node child = node == null ? null : node.children.get(element);
+        return withChild(node, element, withData(child, pathElements, index + 1, data)); // RECURSE
+    }
+
+    /**
+     * Returns a copy of the provided node where the node at the provided path beneath it has been removed. The path
+     * must exist.
+     */
+    private static Node without(Node node, List<String> pathElements, int index) {
+        String element = pathElements.get(index);
+        if (index == pathElements.size() - 1) {
+            return withChild(node, element, null);
+        }
+        return withChild(node, element, without(node.children.get(element), pathElements, index + 1)); // RECURSE
+    }
+
+    /**
+     * Returns a copy of the provided node (or of an empty node, if {@code null}) where the named child has been
+     * replaced with the provided child, or removed if the provided child is {@code null}.
+     */
+    private static Node withChild(Node node, String name, Node child) {
+        TreeMap<String, Node> children = node == null ? new TreeMap<>() : new TreeMap<>(node.children);
+        if (child == null) {
+            children.remove(name);
+        } else {
+            children.put(name, child);
+        }
+        return new Node(children, node == null ? Optional.empty() : node.data);
+    }
+
     private static List<String> getPathElements(String path) {
         // use this instead of String.split(): avoid problems with paths that look like regexes
         return Splitter.on(PersisterUtils.PATH_DELIM).omitEmptyStrings().splitToList(path);
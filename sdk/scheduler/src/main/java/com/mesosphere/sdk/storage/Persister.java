@@ -60,6 +60,19 @@ public interface Persister {
      */
     void deleteAll(String path) throws PersisterException;
 
+    /**
+     * Blocks until any writes which were previously accepted by this instance have been durably written to the
+     * underlying storage. Callers which are about to take an action that depends on previously written data, such as
+     * launching a task which was just recorded, should invoke this first.
+     *
+     * <p>Implementations which write synchronously have nothing to flush, which is the default.
+     *
+     * @throws PersisterException if writing the outstanding data failed, in which case the data remains outstanding
+     */
+    default void flush() throws PersisterException {
+        // No-op by default: writes are already durable when set()/setMany() return.
+    }
+
     /**
      * Closes this storage and cleans up any local client resources. No other operations should be performed against the
      * instance after calling this.
@@ -1,136 +1,591 @@
 package com.mesosphere.sdk.storage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Splitter;
+
 /**
  * A transparent write-through cache for an underlying {@link Persister} instance. Each cache instance is thread-safe,
  * but there is no guarantee of consistent behavior across multiple cache instances.
+ *
+ * <p>Asynchronous reads are served from the cache and complete immediately. Asynchronous writes are performed
+ * synchronously, as the cache may only be updated once the write has succeeded against the underlying persister.
+ *
+ * <p>Reads never lock: the cache is a copy-on-write {@link MemPersister}, so each read sees a consistent view even
+ * while writes are being applied. Writes are serialized per top-level node (e.g. all writes under {@code Tasks}), using
+ * a fixed set of lock stripes which are held for the duration of the write to the underlying persister. This ensures
+ * that writes to a given path are applied to the cache in the same order as in the underlying persister, while writes
+ * to unrelated nodes may proceed in parallel. The lock which guards changes to the cache itself is never held during
+ * calls to the underlying persister.
+ *
+ * <p>Loads and refreshes read the underlying persister's data without holding any locks, and then replace the content
+ * of the cache unless writes made via the cache in the meantime mean that the data may be stale, in which case the
+ * data is read again. After repeated conflicts, writes are blocked while the data is read.
+ *
+ * <p>Subclasses may customize how the data is loaded and track the writes made via the cache, see
+ * {@link SnapshotPersisterCache} and {@link WatchingPersisterCache}.
  */
-public class PersisterCache implements Persister {
+public class PersisterCache implements Persister, AsyncPersister {
 
     private static final Logger logger = LoggerFactory.getLogger(PersisterCache.class);
 
-    private final AtomicBoolean inited = new AtomicBoolean(false);
-    private final ReadWriteLock internalLock = new ReentrantReadWriteLock();
-    private final Lock rlock = internalLock.readLock();
-    private final Lock rwlock = internalLock.writeLock();
+    private static final int WRITE_STRIPES = 16;
+    private static final int OPTIMISTIC_LOAD_ATTEMPTS = 3;
+
+    // Serializes loads of the cache. Locks are ordered: initLock, write stripes, cacheLock.
+    private final Object initLock = new Object();
+    private volatile boolean inited = false;
+    // Whether the cache may hold data which failed to be written by an underlying WriteBehindPersister, see getCache():
+    private volatile boolean reloadRequired = false;
+    // Held by writes for their full duration, see lockStripes():
+    private final Lock[] writeStripes = createStripes();
+    /**
+     * Guards changes to the cache, and to any state which is kept alongside the cached data. Never held during calls to
+     * the underlying persister.
+     */
+    protected final Lock cacheLock = new ReentrantLock();
+    // The number of writes which have started and finished, see load(). Guarded by the cache lock:
+    private long writesStarted = 0;
+    private long writesFinished = 0;
+
+    protected final Persister persister;
+    private volatile MemPersister cache;
+
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Receives notifications of changes to the content of a {@link PersisterCache} which weren't made via the cache,
+     * see {@link #addChangeListener(ChangeListener)}.
+     */
+    public interface ChangeListener {
+
+        /**
+         * Invoked after the data at or beneath the provided path has changed, where the path is in the format returned
+         * by {@link PersisterUtils#getAllKeys(Persister)}. The cache's locks are not held while this is invoked.
+         */
+        void onChanged(String path);
+    }
+
+    /**
+     * Data which has been read from the underlying persister to replace the content of the cache, see
+     * {@link PersisterCache#readData()}. Subclasses may extend this to carry any state which should only take effect
+     * if the data is placed in the cache.
+     */
+    protected static class LoadedData {
+        private final Map<String, byte[]> data;
+
+        protected LoadedData(Map<String, byte[]> data) {
+            this.data = data;
+        }
+
+        /**
+         * Invoked while holding the cache lock, after the data has been placed in the cache.
+         */
+        protected void onApplied() {
+            // No state by default.
+        }
 
-    private final Persister persister;
-    private MemPersister cache;
+        /**
+         * Invoked without holding the cache lock, after the data has been discarded because it may be stale.
+         */
+        protected void onDiscarded() {
+            // No state by default.
+        }
+    }
 
     public PersisterCache(Persister persister) throws PersisterException {
         this.persister = persister;
+        if (persister instanceof WriteBehindPersister) {
+            // Writes are applied to the cache once accepted, before they're sent to storage. Failed writes are discarded
+            // by the underlying persister, so they must be dropped from the cache as well:
+            ((WriteBehindPersister) persister).addFailureListener(paths -> {
+                reloadRequired = true;
+                paths.forEach(path -> notifyChanged(toKey(path)));
+            });
+        }
+    }
+
+    /**
+     * Adds a listener which is notified when the content of the cache changes other than via writes made to the cache
+     * itself: when the cache is explicitly refreshed, when writes made via the cache fail to be sent to storage by an
+     * underlying {@link WriteBehindPersister}, and when subclasses receive changes made by other clients. When writes
+     * fail, the cache is reloaded from storage on its next access, so that the failed data is no longer visible.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener which was previously added via {@link #addChangeListener(ChangeListener)}, or does nothing if
+     * it isn't present.
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
     }
 
     @Override
     public byte[] get(String path) throws PersisterException {
-        MemPersister cache = getCache();
-        rlock.lock();
-        try {
-            return cache.get(path);
-        } finally {
-            rlock.unlock();
-        }
+        return getCache().get(path);
     }
 
     @Override
     public Collection<String> getChildren(String path) throws PersisterException {
-        MemPersister cache = getCache();
-        rlock.lock();
-        try {
-            return cache.getChildren(path);
-        } finally {
-            rlock.unlock();
-        }
+        return getCache().getChildren(path);
     }
 
     @Override
     public void set(String path, byte[] bytes) throws PersisterException {
-        MemPersister cache = getCache();
-        rwlock.lock();
+        getCache();
+        String key = toKey(path);
+        List<Lock> stripes = lockStripes(Collections.singleton(path));
         try {
-            persister.set(path, bytes);
-            cache.set(path, bytes);
+            cacheLock.lock();
+            try {
+                ++writesStarted;
+                onWriting(key, bytes);
+            } finally {
+                cacheLock.unlock();
+            }
+            try {
+                persister.set(path, bytes);
+            } catch (PersisterException | RuntimeException e) {
+                finishFailedWrite();
+                throw e;
+            }
+            cacheLock.lock();
+            try {
+                if (onWritten(key, bytes)) {
+                    cache.set(path, bytes);
+                }
+                ++writesFinished;
+            } finally {
+                cacheLock.unlock();
+            }
         } finally {
-            rwlock.unlock();
+            unlockStripes(stripes);
         }
     }
 
     @Override
     public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
-        MemPersister cache = getCache();
-        rwlock.lock();
+        getCache();
+        List<Lock> stripes = lockStripes(pathBytesMap.keySet());
         try {
-            persister.setMany(pathBytesMap);
-            cache.setMany(pathBytesMap);
+            cacheLock.lock();
+            try {
+                ++writesStarted;
+                for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                    onWriting(toKey(entry.getKey()), entry.getValue());
+                }
+            } finally {
+                cacheLock.unlock();
+            }
+            try {
+                persister.setMany(pathBytesMap);
+            } catch (PersisterException | RuntimeException e) {
+                finishFailedWrite();
+                throw e;
+            }
+            cacheLock.lock();
+            try {
+                Map<String, byte[]> writtenMap = new HashMap<>();
+                for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                    if (onWritten(toKey(entry.getKey()), entry.getValue())) {
+                        writtenMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                cache.setMany(writtenMap);
+                ++writesFinished;
+            } finally {
+                cacheLock.unlock();
+            }
         } finally {
-            rwlock.unlock();
+            unlockStripes(stripes);
         }
     }
 
     @Override
     public void deleteAll(String path) throws PersisterException {
-        MemPersister cache = getCache();
-        rwlock.lock();
+        getCache();
+        String key = toKey(path);
+        List<Lock> stripes = lockStripes(Collections.singleton(path));
         try {
-            persister.deleteAll(path);
+            cacheLock.lock();
+            try {
+                ++writesStarted;
+                onDeleting(key);
+            } finally {
+                cacheLock.unlock();
+            }
+            try {
+                persister.deleteAll(path);
+            } catch (PersisterException | RuntimeException e) {
+                finishFailedWrite();
+                throw e;
+            }
+            cacheLock.lock();
             try {
-                cache.deleteAll(path);
+                ++writesFinished;
+                if (onDeleted(key)) {
+                    cache.deleteAll(path);
+                }
             } catch (PersisterException e) {
                 // We don't throw an exception here if our 'data' cache lacks the value. In theory 'persister' should've
                 // thrown in that case anyway -- so we're effectively replicating what the underlying persister does.
                 // This shouldn't happen assuming a well-behaved Persisters, but just in case...
                 logger.error("Didn't find value {} in cache to delete, but underlying storage had the value", path);
+            } finally {
+                cacheLock.unlock();
             }
         } finally {
-            rwlock.unlock();
+            unlockStripes(stripes);
         }
     }
 
+    // AsyncPersister: reads are served from memory, while writes must wait for the underlying persister to accept them.
+
+    @Override
+    public CompletableFuture<byte[]> getAsync(String path) {
+        return PersisterUtils.complete(() -> get(path));
+    }
+
+    @Override
+    public CompletableFuture<Collection<String>> getChildrenAsync(String path) {
+        return PersisterUtils.complete(() -> getChildren(path));
+    }
+
+    @Override
+    public CompletableFuture<Void> setAsync(String path, byte[] bytes) {
+        return PersisterUtils.complete(() -> {
+            set(path, bytes);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setManyAsync(Map<String, byte[]> pathBytesMap) {
+        return PersisterUtils.complete(() -> {
+            setMany(pathBytesMap);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllAsync(String path) {
+        return PersisterUtils.complete(() -> {
+            deleteAll(path);
+            return null;
+        });
+    }
+
+    @Override
+    public void flush() throws PersisterException {
+        // Writes are applied to the cache as soon as they're accepted by the underlying persister, so there's nothing
+        // to flush locally.
+        persister.flush();
+    }
+
     @Override
     public void close() {
-        rwlock.lock();
+        cacheLock.lock();
         try {
             persister.close();
             if (cache != null) {
                 cache.close();
             }
         } finally {
-            rwlock.unlock();
+            cacheLock.unlock();
         }
     }
 
     /**
-     * Refreshes the cache with the underlying persister's data.
+     * Refreshes the cache with the underlying persister's data. Any {@link ChangeListener}s are notified once the
+     * refresh has completed.
      */
     public void refresh() throws PersisterException {
-        rwlock.lock();
+        synchronized (initLock) {
+            load(false);
+            inited = true;
+        }
+        notifyChanged(PersisterUtils.PATH_DELIM_STR);
+    }
+
+    // Extension points for subclasses.
+
+    /**
+     * Returns the data to be placed in the cache, read from the underlying persister. This is invoked without holding
+     * the cache lock, and usually without holding any write stripes, see {@link #load(boolean)}. Loads are never
+     * performed concurrently with each other.
+     *
+     * @throws PersisterException if the data couldn't be read
+     */
+    protected LoadedData readData() throws PersisterException {
+        return new LoadedData(PersisterUtils.getAllData(persister));
+    }
+
+    /**
+     * Returns whether data may be placed in the cache while writes made via the cache are in progress. Those writes are
+     * then applied on top of the data once they have completed, even if the data already reflects them. Subclasses
+     * which track the writes made via the cache may instead require that the data was read while no writes were in
+     * progress, in which case loads wait for in-progress writes to complete after repeated conflicts.
+     */
+    protected boolean allowsLoadDuringWrites() {
+        return true;
+    }
+
+    /**
+     * Invoked before the provided path is written to the underlying persister. Invoked while holding the cache lock
+     * and the path's write stripe.
+     */
+    protected void onWriting(String key, byte[] data) {
+        // Nothing to track by default.
+    }
+
+    /**
+     * Invoked after the provided path has been written to the underlying persister, returning whether the write should
+     * be applied to the cache. Invoked while holding the cache lock and the path's write stripe.
+     */
+    protected boolean onWritten(String key, byte[] data) {
+        return true;
+    }
+
+    /**
+     * Invoked before the provided path and its children are deleted from the underlying persister. Invoked while
+     * holding the cache lock and the path's write stripe.
+     */
+    protected void onDeleting(String key) {
+        // Nothing to track by default.
+    }
+
+    /**
+     * Invoked after the provided path and its children have been deleted from the underlying persister, returning
+     * whether the deletion should be applied to the cache. Invoked while holding the cache lock and the path's write
+     * stripe.
+     */
+    protected boolean onDeleted(String key) {
+        return true;
+    }
+
+    /**
+     * Returns the current content of the cache, or {@code null} if it hasn't been loaded. The content may only be
+     * modified while holding the cache lock.
+     */
+    protected MemPersister getContent() {
+        return cache;
+    }
+
+    /**
+     * Returns whether the provided path is present in the cache.
+     */
+    protected boolean isCached(String key) {
         try {
-            if (cache != null) {
-                logger.info("Cache content before refresh:\n{}", cache.getDebugString());
+            cache.get(key);
+            return true;
+        } catch (PersisterException e) {
+            return false;
+        }
+    }
+
+    protected void notifyChanged(String path) {
+        for (ChangeListener listener : changeListeners) {
+            try {
+                listener.onChanged(path);
+            } catch (RuntimeException e) {
+                logger.error(String.format("Change listener failed to handle change to %s", path), e);
+            }
+        }
+    }
+
+    /**
+     * Locks the write stripes for the top-level nodes of the provided paths, in index order to avoid deadlocking with
+     * other writers. Paths at the root lock all stripes.
+     */
+    protected List<Lock> lockStripes(Collection<String> paths) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (String path : paths) {
+            // Use this instead of String.split(): avoid problems with paths that look like regexes
+            List<String> elements =
+                    Splitter.on(PersisterUtils.PATH_DELIM).omitEmptyStrings().limit(2).splitToList(path);
+            if (elements.isEmpty()) {
+                for (int i = 0; i < writeStripes.length; ++i) {
+                    indexes.add(i);
+                }
+                break;
+            }
+            indexes.add(Math.floorMod(elements.get(0).hashCode(), writeStripes.length));
+        }
+        List<Lock> locks = new ArrayList<>();
+        for (int index : indexes) {
+            writeStripes[index].lock();
+            locks.add(writeStripes[index]);
+        }
+        return locks;
+    }
+
+    protected static void unlockStripes(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; --i) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Returns the provided path in the format returned by {@link PersisterUtils#getAllKeys(Persister)}.
+     */
+    protected static String toKey(String path) {
+        String key = PersisterUtils.join(PersisterUtils.PATH_DELIM_STR, path);
+        while (key.length() > 1 && key.endsWith(PersisterUtils.PATH_DELIM_STR)) {
+            key = key.substring(0, key.length() - 1);
+        }
+        return key;
+    }
+
+    /**
+     * Returns whether the provided path is equal to or beneath the provided parent path.
+     */
+    protected static boolean isWithin(String path, String parentKey) {
+        String childPrefix = parentKey.endsWith(PersisterUtils.PATH_DELIM_STR)
+                ? parentKey
+                : parentKey + PersisterUtils.PATH_DELIM;
+        return path.equals(parentKey) || path.startsWith(childPrefix);
+    }
+
+    // Internals
+
+    /**
+     * Replaces the content of the cache with the underlying persister's data. Reads and writes continue to be served
+     * from the previous content until the new content is in place. Must be called while holding the init lock.
+     *
+     * <p>The data is first read without holding any locks. If a write made via the cache completed while the data was
+     * being read, the data may predate that write and is discarded. When {@code quiescent} is true, or when
+     * {@link #allowsLoadDuringWrites()} is false, the data is also discarded if any write was in progress. After
+     * repeated conflicts, writes are blocked while the data is read.
+     */
+    private void load(boolean quiescent) throws PersisterException {
+        if (cache != null && logger.isDebugEnabled()) {
+            logger.debug("Cache content before refresh:\n{}", cache.getDebugString());
+        }
+        boolean allowInProgressWrites = !quiescent && allowsLoadDuringWrites();
+
+        for (int attempt = 1; attempt <= OPTIMISTIC_LOAD_ATTEMPTS; ++attempt) {
+            long startedBefore;
+            long finishedBefore;
+            cacheLock.lock();
+            try {
+                startedBefore = writesStarted;
+                finishedBefore = writesFinished;
+            } finally {
+                cacheLock.unlock();
+            }
+            long startMs = System.currentTimeMillis();
+            LoadedData loadedData = readData();
+            cacheLock.lock();
+            try {
+                boolean conflict = allowInProgressWrites
+                        // Any writes which are still in progress will be applied to the new cache:
+                        ? writesFinished != finishedBefore
+                        : writesStarted != startedBefore
+                                || writesFinished != finishedBefore
+                                || writesStarted != writesFinished;
+                if (!conflict) {
+                    replaceCache(loadedData, startMs);
+                    return;
+                }
+            } finally {
+                cacheLock.unlock();
+            }
+            loadedData.onDiscarded();
+            logger.info("Writes were made while loading data (attempt {}/{})", attempt, OPTIMISTIC_LOAD_ATTEMPTS);
+        }
+
+        // Block writes, and wait for any in-progress writes to finish. Reads are still served from the cache:
+        List<Lock> stripes = lockStripes(Collections.singleton(PersisterUtils.PATH_DELIM_STR));
+        try {
+            long startMs = System.currentTimeMillis();
+            LoadedData loadedData = readData();
+            cacheLock.lock();
+            try {
+                replaceCache(loadedData, startMs);
+            } finally {
+                cacheLock.unlock();
             }
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
 
-            // We already have our own locking, so we can disable locking in the underlying cache:
-            cache = new MemPersister(MemPersister.LockMode.DISABLED, PersisterUtils.getAllData(persister));
+    /**
+     * Replaces the cache with the provided data, which started being read at {@code startMs}. Must be called while
+     * holding the cache lock.
+     */
+    private void replaceCache(LoadedData loadedData, long startMs) {
+        long readMs = System.currentTimeMillis();
+        // Changes to the cache are already serialized by the cache lock, so we can disable locking in the cache:
+        MemPersister newCache = new MemPersister(MemPersister.LockMode.DISABLED, loadedData.data);
+        cache = newCache;
+        loadedData.onApplied();
+        logger.info("Loaded {} entries from persister: read in {}ms, cached in {}ms",
+                loadedData.data.size(), readMs - startMs, System.currentTimeMillis() - readMs);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded data from persister:\n{}", newCache.getDebugString());
+        }
+    }
 
-            logger.info("Loaded data from persister:\n{}", cache.getDebugString());
+    /**
+     * Records that a write which was started has failed against the underlying persister, and so wasn't applied to the
+     * cache.
+     */
+    private void finishFailedWrite() {
+        cacheLock.lock();
+        try {
+            ++writesFinished;
         } finally {
-            rwlock.unlock();
+            cacheLock.unlock();
         }
     }
 
     private MemPersister getCache() throws PersisterException {
-        if (!inited.getAndSet(true)) {
-            refresh();
+        if (!inited || reloadRequired) {
+            // Other callers must wait for the load to finish, rather than seeing an unloaded or stale cache:
+            synchronized (initLock) {
+                if (!inited) {
+                    load(false);
+                    inited = true;
+                } else if (reloadRequired) {
+                    logger.info("Reloading cache after writes failed to be stored");
+                    reloadRequired = false;
+                    try {
+                        // A write which failed may still be in progress, in which case it would otherwise be applied to
+                        // the reloaded cache:
+                        load(true);
+                    } catch (PersisterException e) {
+                        reloadRequired = true;
+                        throw e;
+                    }
+                }
+            }
         }
         return cache;
     }
+
+    private static Lock[] createStripes() {
+        Lock[] stripes = new Lock[WRITE_STRIPES];
+        for (int i = 0; i < stripes.length; ++i) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
 }
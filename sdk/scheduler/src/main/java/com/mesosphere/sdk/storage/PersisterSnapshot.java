@@ -0,0 +1,179 @@
+package com.mesosphere.sdk.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A copy of the data in a {@link VersionedPersister} which is stored in a local file, along with the version of each
+ * node at the time that its data was read. On restart, the snapshot allows unchanged nodes to be served from local disk
+ * rather than being fetched from the persister again.
+ *
+ * <p>The file is a sequence of big-endian values: a magic number (int), the format version (int), the number of
+ * entries (int), and then for each entry the length of its path (int), its UTF-8 path, its version (long), the length
+ * of its data (int), and its data. Nodes without data of their own, such as stub parent nodes, are recorded with a data
+ * length of -1 so that they aren't fetched again on restart. The file ends with a CRC32 checksum (long) of all of the
+ * preceding bytes. Files are replaced atomically, so a reader never sees a partially written snapshot.
+ */
+public class PersisterSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersisterSnapshot.class);
+
+    private static final int MAGIC = 0x53444b53; // "SDKS"
+    private static final int FORMAT_VERSION = 2;
+    // Format version 1 didn't support nodes without data:
+    private static final int MIN_FORMAT_VERSION = 1;
+    private static final int NO_DATA_LENGTH = -1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int CHECKSUM_BYTES = Long.BYTES;
+
+    /**
+     * The data and version of a single node within a snapshot. The data is {@code null} if the node lacks data of its
+     * own.
+     */
+    public static class Entry {
+        private final long version;
+        private final byte[] data;
+
+        public Entry(long version, byte[] data) {
+            this.version = version;
+            this.data = data;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    private PersisterSnapshot() {
+        // do not instantiate
+    }
+
+    /**
+     * Returns the entries in the provided snapshot file, or an empty {@link Optional} if the file doesn't exist or
+     * couldn't be read. The file is memory-mapped while it's being read, and its checksum is validated before any
+     * entries are returned.
+     */
+    public static Optional<Map<String, Entry>> read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES || size > Integer.MAX_VALUE) {
+                logger.warn("Ignoring snapshot {} with invalid size: {} bytes", file, size);
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            ByteBuffer content = buffer.duplicate();
+            content.limit((int) size - CHECKSUM_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            if (crc.getValue() != buffer.getLong((int) size - CHECKSUM_BYTES)) {
+                logger.warn("Ignoring snapshot {} with invalid checksum", file);
+                return Optional.empty();
+            }
+
+            buffer.limit((int) size - CHECKSUM_BYTES);
+            if (buffer.getInt() != MAGIC) {
+                logger.warn("Ignoring snapshot {} with unsupported format", file);
+                return Optional.empty();
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion < MIN_FORMAT_VERSION || formatVersion > FORMAT_VERSION) {
+                logger.warn("Ignoring snapshot {} with unsupported format version: {}", file, formatVersion);
+                return Optional.empty();
+            }
+            int count = buffer.getInt();
+            Map<String, Entry> entries = new HashMap<>();
+            for (int i = 0; i < count; ++i) {
+                String path = new String(getBytes(buffer, false), StandardCharsets.UTF_8);
+                long version = buffer.getLong();
+                entries.put(path, new Entry(version, getBytes(buffer, formatVersion > 1)));
+            }
+            return Optional.of(entries);
+        } catch (NoSuchFileException e) {
+            logger.info("No snapshot found at {}", file);
+            return Optional.empty();
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            logger.warn(String.format("Failed to read snapshot %s", file), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the provided entries to the provided snapshot file, replacing any previous snapshot once the new snapshot
+     * has been fully written to disk.
+     *
+     * @throws IOException if the snapshot couldn't be written, in which case any previous snapshot is left in place
+     */
+    public static void write(Path file, Map<String, Entry> entries) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileStream = new FileOutputStream(tmpFile.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream output =
+                    new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileStream), crc));
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                putBytes(output, entry.getKey().getBytes(StandardCharsets.UTF_8));
+                output.writeLong(entry.getValue().getVersion());
+                putBytes(output, entry.getValue().getData());
+            }
+            output.flush();
+            // The checksum itself isn't included in the checksum:
+            new DataOutputStream(fileStream).writeLong(crc.getValue());
+            fileStream.getFD().sync();
+        }
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer, boolean allowNull) {
+        int length = buffer.getInt();
+        if (allowNull && length == NO_DATA_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid length %d with %d bytes remaining", length, buffer.remaining()));
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void putBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            output.writeInt(NO_DATA_LENGTH);
+            return;
+        }
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
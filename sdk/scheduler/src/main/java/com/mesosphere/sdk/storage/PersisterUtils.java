@@ -6,6 +6,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.mesosphere.sdk.storage.StorageError.Reason;
 
 /**
  * Utilities relating to usage of {@link Persister}s.
@@ -64,31 +69,156 @@ public class PersisterUtils {
         return paths;
     }
 
+    /**
+     * A single operation against a {@link Persister}, see {@link #complete(Operation)}.
+     *
+     * @param <T> the result of the operation, or {@link Void} if it has none
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run() throws PersisterException;
+    }
+
+    /**
+     * Returns an {@link AsyncPersister} for accessing the provided {@link Persister}. If the persister doesn't
+     * implement {@link AsyncPersister} itself, the returned instance performs each operation in the calling thread and
+     * returns a future which has already been completed.
+     */
+    public static AsyncPersister toAsync(Persister persister) {
+        if (persister instanceof AsyncPersister) {
+            return (AsyncPersister) persister;
+        }
+        return new AsyncPersister() {
+            @Override
+            public CompletableFuture<byte[]> getAsync(String path) {
+                return complete(() -> persister.get(path));
+            }
+
+            @Override
+            public CompletableFuture<Collection<String>> getChildrenAsync(String path) {
+                return complete(() -> persister.getChildren(path));
+            }
+
+            @Override
+            public CompletableFuture<Void> setAsync(String path, byte[] bytes) {
+                return complete(() -> {
+                    persister.set(path, bytes);
+                    return null;
+                });
+            }
+
+            @Override
+            public CompletableFuture<Void> setManyAsync(Map<String, byte[]> pathBytesMap) {
+                return complete(() -> {
+                    persister.setMany(pathBytesMap);
+                    return null;
+                });
+            }
+
+            @Override
+            public CompletableFuture<Void> deleteAllAsync(String path) {
+                return complete(() -> {
+                    persister.deleteAll(path);
+                    return null;
+                });
+            }
+        };
+    }
+
+    /**
+     * Runs the provided operation in the calling thread, and returns a future which has been completed with its result,
+     * or with the {@link PersisterException} that it threw.
+     */
+    public static <T> CompletableFuture<T> complete(Operation<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(operation.run());
+        } catch (PersisterException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Waits for the provided future to complete, rethrowing any {@link PersisterException} which it failed with.
+     *
+     * @throws PersisterException if the future failed, with any other failures wrapped as a storage error
+     */
+    public static <T> T await(CompletableFuture<T> future) throws PersisterException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PersisterException) {
+                throw (PersisterException) e.getCause();
+            }
+            throw new PersisterException(Reason.STORAGE_ERROR, "Failed to access storage", e.getCause());
+        }
+    }
+
     /**
      * Returns all data present within the provided {@link Persister} in a flat map, omitting any stub parent entries
-     * with {@code null} data.
+     * with {@code null} data. If the persister implements {@link AsyncPersister}, the reads for all nodes are issued
+     * concurrently rather than waiting for each read in turn.
      *
      * @throws PersisterException if the underlying {@link Persister} couldn't be accessed
      */
     public static Map<String, byte[]> getAllData(Persister persister) throws PersisterException {
-        return getAllDataUnder(persister, PATH_DELIM_STR);
+        Map<String, byte[]> allData = new ConcurrentHashMap<>();
+        await(readAllDataUnder(toAsync(persister), PATH_DELIM_STR, allData));
+        return new TreeMap<>(allData); // consistent ordering (mainly for tests)
     }
 
     /**
-     * Returns all data present within the provided {@link Persister}, under the provided path.
+     * Returns the data at each of the provided paths, omitting any paths which don't exist or which lack data of their
+     * own. If the persister implements {@link AsyncPersister}, the reads are issued concurrently.
+     *
+     * @throws PersisterException if the underlying {@link Persister} couldn't be accessed
      */
-    private static Map<String, byte[]> getAllDataUnder(Persister persister, String path) throws PersisterException {
-        Map<String, byte[]> allData = new TreeMap<>(); // consistent ordering (mainly for tests)
-        for (String child : persister.getChildren(path)) {
-            String childPath = join(path, child);
-            byte[] data = persister.get(childPath);
-            // omit empty parents which lack data of their own:
-            if (data != null) {
-                allData.put(childPath, data);
-            }
-            allData.putAll(getAllDataUnder(persister, childPath)); // RECURSE
+    public static Map<String, byte[]> getMany(Persister persister, Collection<String> paths)
+            throws PersisterException {
+        AsyncPersister asyncPersister = toAsync(persister);
+        Map<String, byte[]> data = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (String path : paths) {
+            futures.add(asyncPersister.getAsync(path).handle((bytes, throwable) -> {
+                if (throwable == null) {
+                    if (bytes != null) {
+                        data.put(path, bytes);
+                    }
+                    return null;
+                }
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                if (cause instanceof PersisterException
+                        && ((PersisterException) cause).getReason() == Reason.NOT_FOUND) {
+                    return null;
+                }
+                throw new CompletionException(cause);
+            }));
         }
-        return allData;
+        await(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])));
+        return new TreeMap<>(data);
+    }
+
+    /**
+     * Reads all data present within the provided {@link AsyncPersister} under the provided path into {@code allData},
+     * returning a future which completes once all reads have completed.
+     */
+    private static CompletableFuture<Void> readAllDataUnder(
+            AsyncPersister persister, String path, Map<String, byte[]> allData) {
+        return persister.getChildrenAsync(path).thenCompose(children -> {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (String child : children) {
+                String childPath = join(path, child);
+                futures.add(persister.getAsync(childPath).thenAccept(data -> {
+                    // omit empty parents which lack data of their own:
+                    if (data != null) {
+                        allData.put(childPath, data);
+                    }
+                }));
+                futures.add(readAllDataUnder(persister, childPath, allData)); // RECURSE
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+        });
     }
 
     /**
@@ -0,0 +1,240 @@
+package com.mesosphere.sdk.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A {@link PersisterCache} which periodically writes its content to a {@link PersisterSnapshot}, tagged with the
+ * version of each node. The snapshot is loaded when the cache is first accessed, after which only the nodes whose
+ * versions have changed since the snapshot was written are fetched from the underlying persister. Subsequent refreshes
+ * likewise only fetch the nodes whose versions differ from those of the cached data.
+ *
+ * <p>Nodes without data of their own, such as stub parent nodes, are recorded in the snapshot along with their
+ * versions, so that they're only fetched again if they change.
+ */
+public class SnapshotPersisterCache extends PersisterCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotPersisterCache.class);
+
+    private final VersionedPersister versionedPersister;
+    private final Path snapshotFile;
+    private final ScheduledExecutorService snapshotExecutor;
+
+    // The following are guarded by the cache lock:
+    // Versions of cached nodes whose cached data is known to match that version:
+    private final Map<String, Long> versions = new HashMap<>();
+    // Nodes which have been written via this cache since their versions were last retrieved:
+    private final Set<String> unversionedPaths = new HashSet<>();
+    // Whether the content of the cache has changed since the last snapshot was written:
+    private boolean snapshotStale = false;
+
+    /**
+     * Creates a new cache which is initially loaded from the provided snapshot file, if it exists, and which rewrites
+     * the snapshot every {@code snapshotInterval} if the content of the cache has changed, as well as when the cache
+     * is closed.
+     */
+    public SnapshotPersisterCache(VersionedPersister persister, Path snapshotFile, Duration snapshotInterval)
+            throws PersisterException {
+        super(persister);
+        this.versionedPersister = persister;
+        this.snapshotFile = snapshotFile;
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persister-cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.snapshotExecutor.scheduleWithFixedDelay(
+                this::writeSnapshotOrLog,
+                snapshotInterval.toMillis(),
+                snapshotInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        snapshotExecutor.shutdown();
+        writeSnapshotOrLog();
+        super.close();
+    }
+
+    /**
+     * Returns all of the data in the underlying persister, reusing any previously loaded data whose versions haven't
+     * changed. On initial load the previous data is read from the snapshot file, and otherwise it's the current content
+     * of the cache. Only the previous data is copied while holding the cache lock.
+     */
+    @Override
+    protected LoadedData readData() throws PersisterException {
+        long startMs = System.currentTimeMillis();
+        Map<String, PersisterSnapshot.Entry> previousEntries = new HashMap<>();
+        boolean fromSnapshot;
+        cacheLock.lock();
+        try {
+            fromSnapshot = getContent() == null;
+            if (!fromSnapshot) {
+                for (Map.Entry<String, Long> entry : versions.entrySet()) {
+                    try {
+                        previousEntries.put(entry.getKey(),
+                                new PersisterSnapshot.Entry(entry.getValue(), getContent().get(entry.getKey())));
+                    } catch (PersisterException e) {
+                        // Not cached, so there's nothing to reuse.
+                    }
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        if (fromSnapshot) {
+            previousEntries.putAll(PersisterSnapshot.read(snapshotFile).orElse(Collections.emptyMap()));
+        }
+        long previousMs = System.currentTimeMillis();
+
+        Map<String, Long> currentVersions = versionedPersister.getAllVersions();
+        long versionsMs = System.currentTimeMillis();
+
+        Map<String, byte[]> allData = new HashMap<>();
+        Set<String> changedPaths = new HashSet<>();
+        for (Map.Entry<String, Long> entry : currentVersions.entrySet()) {
+            PersisterSnapshot.Entry previousEntry = previousEntries.get(entry.getKey());
+            if (previousEntry != null && previousEntry.getVersion() == entry.getValue()) {
+                if (previousEntry.getData() != null) {
+                    allData.put(entry.getKey(), previousEntry.getData());
+                }
+            } else {
+                changedPaths.add(entry.getKey());
+            }
+        }
+        // Nodes without data are omitted from the result, and are implicitly created as the parents of other nodes:
+        Map<String, byte[]> changedData = PersisterUtils.getMany(persister, changedPaths);
+        allData.putAll(changedData);
+
+        logger.info("Reused {} unchanged entries, fetched {} changed entries ({} without data): " +
+                "previous data read in {}ms, versions read in {}ms, changed data read in {}ms",
+                currentVersions.size() - changedPaths.size(), changedPaths.size(),
+                changedPaths.size() - changedData.size(),
+                previousMs - startMs, versionsMs - previousMs, System.currentTimeMillis() - versionsMs);
+        return new SnapshotLoad(allData, currentVersions);
+    }
+
+    @Override
+    protected boolean onWritten(String key, byte[] data) {
+        versions.remove(key);
+        unversionedPaths.add(key);
+        snapshotStale = true;
+        return true;
+    }
+
+    @Override
+    protected boolean onDeleted(String key) {
+        versions.keySet().removeIf(versionedPath -> isWithin(versionedPath, key));
+        unversionedPaths.removeIf(unversionedPath -> isWithin(unversionedPath, key));
+        snapshotStale = true;
+        return true;
+    }
+
+    /**
+     * Writes the current content of the cache to the snapshot file, if it has changed since the last snapshot was
+     * written. The versions of any nodes which were written since the last snapshot are first retrieved from the
+     * underlying persister. Nodes whose versions aren't known, because they were written again while their versions
+     * were being retrieved, are omitted from the snapshot and will instead be fetched from the persister on restart.
+     */
+    @VisibleForTesting
+    void writeSnapshot() throws PersisterException, IOException {
+        Set<String> pathsToVersion;
+        cacheLock.lock();
+        try {
+            if (getContent() == null || !snapshotStale) {
+                return;
+            }
+            pathsToVersion = new HashSet<>(unversionedPaths);
+            unversionedPaths.clear();
+            snapshotStale = false;
+        } finally {
+            cacheLock.unlock();
+        }
+
+        long startMs = System.currentTimeMillis();
+        Map<String, Long> newVersions;
+        try {
+            newVersions = versionedPersister.getVersions(pathsToVersion);
+        } catch (PersisterException e) {
+            cacheLock.lock();
+            try {
+                unversionedPaths.addAll(pathsToVersion);
+                snapshotStale = true;
+            } finally {
+                cacheLock.unlock();
+            }
+            throw e;
+        }
+
+        Map<String, PersisterSnapshot.Entry> entries = new HashMap<>();
+        cacheLock.lock();
+        try {
+            for (Map.Entry<String, Long> entry : newVersions.entrySet()) {
+                // Nodes which were written again or deleted in the meantime may now have a newer version than their
+                // cached data:
+                if (!unversionedPaths.contains(entry.getKey()) && isCached(entry.getKey())) {
+                    versions.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (Map.Entry<String, Long> entry : versions.entrySet()) {
+                try {
+                    entries.put(entry.getKey(),
+                            new PersisterSnapshot.Entry(entry.getValue(), getContent().get(entry.getKey())));
+                } catch (PersisterException e) {
+                    // Not cached: omit from the snapshot.
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+
+        PersisterSnapshot.write(snapshotFile, entries);
+        logger.info("Wrote snapshot of {} entries to {} in {}ms",
+                entries.size(), snapshotFile, System.currentTimeMillis() - startMs);
+    }
+
+    private void writeSnapshotOrLog() {
+        try {
+            writeSnapshot();
+        } catch (Throwable e) {
+            logger.error(String.format("Failed to write snapshot to %s", snapshotFile), e);
+        }
+    }
+
+    /**
+     * Data read from the underlying persister, along with the versions of all of its nodes. Data which was fetched
+     * after its version was retrieved can only be newer than that version, in which case it will be treated as changed
+     * and fetched again next time.
+     */
+    private class SnapshotLoad extends LoadedData {
+        private final Map<String, Long> loadedVersions;
+
+        private SnapshotLoad(Map<String, byte[]> data, Map<String, Long> loadedVersions) {
+            super(data);
+            this.loadedVersions = loadedVersions;
+        }
+
+        @Override
+        protected void onApplied() {
+            versions.clear();
+            versions.putAll(loadedVersions);
+            unversionedPaths.clear();
+            snapshotStale = true;
+        }
+    }
+}
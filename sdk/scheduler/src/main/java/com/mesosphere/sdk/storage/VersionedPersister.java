@@ -0,0 +1,29 @@
+package com.mesosphere.sdk.storage;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A {@link Persister} which exposes a version for each of its nodes. A node's version changes whenever the node's data
+ * is modified, and a node which is deleted and recreated doesn't reuse any of its previous versions. This allows a
+ * caller which holds a copy of some data to determine which nodes have changed since the copy was taken, without
+ * needing to fetch the data itself.
+ *
+ * <p>Paths in returned maps are in the same format as those returned by {@link PersisterUtils#getAllKeys(Persister)}.
+ */
+public interface VersionedPersister extends Persister {
+
+    /**
+     * Returns the current version of every node within the persister, including stub parent nodes.
+     *
+     * @throws PersisterException if the underlying storage couldn't be accessed
+     */
+    Map<String, Long> getAllVersions() throws PersisterException;
+
+    /**
+     * Returns the current versions of the provided nodes. Nodes which don't exist are omitted from the result.
+     *
+     * @throws PersisterException if the underlying storage couldn't be accessed
+     */
+    Map<String, Long> getVersions(Collection<String> paths) throws PersisterException;
+}
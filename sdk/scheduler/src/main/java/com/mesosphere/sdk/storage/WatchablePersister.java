@@ -0,0 +1,51 @@
+package com.mesosphere.sdk.storage;
+
+import java.io.Closeable;
+
+/**
+ * A {@link VersionedPersister} which can notify a listener of changes to its data, including changes which were made
+ * by other clients of the underlying storage.
+ */
+public interface WatchablePersister extends VersionedPersister {
+
+    /**
+     * Receives notifications of changes to a {@link WatchablePersister}'s data. Notifications for a given path are
+     * delivered in the order that the changes occurred, but intermediate changes may be skipped. As notifications are
+     * delivered asynchronously, a notification may describe a change which is older than the result of a write which
+     * has since completed.
+     */
+    interface Listener {
+
+        /**
+         * Invoked when a node has been created or its data has been modified.
+         *
+         * @param path the path of the node, in the format returned by {@link PersisterUtils#getAllKeys(Persister)}
+         * @param data the data of the node, or {@code null} if it lacks data of its own
+         * @param version the version of the provided data, see {@link VersionedPersister}
+         */
+        void onUpdated(String path, byte[] data, long version);
+
+        /**
+         * Invoked when a node has been deleted.
+         *
+         * @param path the path of the node, in the format returned by {@link PersisterUtils#getAllKeys(Persister)}
+         * @param version the last version of the node before it was deleted
+         */
+        void onRemoved(String path, long version);
+
+        /**
+         * Invoked once {@link #onUpdated(String, byte[], long)} has been invoked for every node which was present when
+         * the watch was started.
+         */
+        void onInitialized();
+    }
+
+    /**
+     * Starts watching all nodes within the persister. The listener is first notified of every node which is currently
+     * present, followed by {@link Listener#onInitialized()}, and then of any subsequent changes.
+     *
+     * @return a handle which stops the watch when closed
+     * @throws PersisterException if the watch couldn't be started
+     */
+    Closeable watch(Listener listener) throws PersisterException;
+}
@@ -0,0 +1,526 @@
+package com.mesosphere.sdk.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+/**
+ * A {@link PersisterCache} which is loaded and kept up to date by watching the underlying persister, so that changes
+ * made by other clients of the underlying storage are visible without a {@link #refresh()}.
+ *
+ * <p>Watch events may lag behind writes made via this cache, so each write is recorded until its own event is received.
+ * Any event for that path which doesn't match the recorded write is resolved by reading the path's current version and
+ * data from the underlying persister, such that a write made via this cache is never reverted by a stale event. Events
+ * which are older than the cached version of a path are ignored.
+ *
+ * <p>Loading the cache starts a new watch, and the previous watch continues to update the previous content of the cache
+ * until the new watch has reported the initial content of the persister. Writes made via the cache in the meantime
+ * aren't tracked by the new watch, so the new content is discarded and the watch is restarted if any writes were made.
+ */
+public class WatchingPersisterCache extends PersisterCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchingPersisterCache.class);
+
+    private final WatchablePersister watchablePersister;
+    private final Duration watchInitTimeout;
+
+    // The following are guarded by the cache lock:
+    // The watch which is currently updating the cache, or null if none has been started:
+    private WatchListener currentWatch = null;
+    // Versions of cached nodes whose cached data is known to match that version:
+    private final Map<String, Long> versions = new HashMap<>();
+    // Writes made via this cache which haven't yet been confirmed by a watch event for the same path:
+    private final Map<String, PendingWrite> pendingWrites = new HashMap<>();
+
+    /**
+     * The outcome of applying a watch event to the cache.
+     */
+    private enum EventResult {
+        // The content of the cache wasn't changed by someone other than this cache:
+        UNCHANGED,
+        // The content of the cache was changed by someone other than this cache:
+        CHANGED,
+        // The event conflicts with a write made via this cache, see resolve():
+        CONFLICT
+    }
+
+    /**
+     * Creates a new cache which is loaded by starting a watch of the provided persister, and which then applies the
+     * changes reported by the watch. Loading the cache fails if the watch hasn't reported the initial content of the
+     * persister within {@code watchInitTimeout}.
+     */
+    public WatchingPersisterCache(WatchablePersister persister, Duration watchInitTimeout) throws PersisterException {
+        super(persister);
+        this.watchablePersister = persister;
+        this.watchInitTimeout = watchInitTimeout;
+    }
+
+    @Override
+    public void close() {
+        cacheLock.lock();
+        try {
+            stopWatch(currentWatch);
+            currentWatch = null;
+        } finally {
+            cacheLock.unlock();
+        }
+        super.close();
+    }
+
+    /**
+     * Starts a new watch of the underlying persister, and returns the initial content of the persister once the watch
+     * has reported it. No locks are held while waiting for the watch.
+     */
+    @Override
+    protected LoadedData readData() throws PersisterException {
+        WatchListener watch = new WatchListener();
+        watch.handle = watchablePersister.watch(watch);
+        try {
+            watch.initialized.get(watchInitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            stopWatch(watch);
+            throw new PersisterException(Reason.STORAGE_ERROR, String.format(
+                    "Watch didn't report the content of the persister within %dms", watchInitTimeout.toMillis()), e);
+        }
+        return new WatchLoad(watch);
+    }
+
+    /**
+     * Writes which were in progress while the watch was started may not be reported by the new watch as our own, so
+     * the watch must be started while no writes are in progress.
+     */
+    @Override
+    protected boolean allowsLoadDuringWrites() {
+        return false;
+    }
+
+    /**
+     * Records that the provided path is about to be written via this cache, so that the write is recognized when the
+     * watch reports it, along with any parent nodes which the write will create. This must be done before the write is
+     * sent to the underlying persister, as the watch may report the write before the call returns. If the write then
+     * fails, the recorded write is resolved against the underlying persister when the path's next event is received.
+     */
+    @Override
+    protected void onWriting(String key, byte[] data) {
+        versions.remove(key);
+        PendingWrite pendingWrite = pendingWrites.get(key);
+        if (pendingWrite != null && pendingWrite.type == PendingWrite.Type.WRITTEN) {
+            pendingWrite.data.add(data);
+        } else {
+            pendingWrites.put(key, PendingWrite.written(data));
+        }
+        for (String parent = getParent(key); parent != null && !isCached(parent); parent = getParent(parent)) {
+            pendingWrites.put(parent, PendingWrite.createdParent());
+        }
+    }
+
+    /**
+     * Applies the write to the cache only if it hasn't already been confirmed by the watch, or superseded by a later
+     * event which was resolved against the underlying persister. In either case the cache already holds this data or
+     * newer.
+     */
+    @Override
+    protected boolean onWritten(String key, byte[] data) {
+        PendingWrite pendingWrite = pendingWrites.get(key);
+        return pendingWrite != null
+                && pendingWrite.type == PendingWrite.Type.WRITTEN
+                && pendingWrite.data.stream().anyMatch(pendingData -> pendingData == data);
+    }
+
+    /**
+     * Records that the provided path and its children are about to be deleted via this cache, see
+     * {@link #onWriting(String, byte[])}.
+     */
+    @Override
+    protected void onDeleting(String key) {
+        List<String> deletedKeys = getCachedKeysUnder(key);
+        deletedKeys.add(key);
+        for (String deletedKey : deletedKeys) {
+            Long version = versions.get(deletedKey);
+            pendingWrites.put(deletedKey, PendingWrite.deleted(version == null ? 0 : version));
+        }
+    }
+
+    /**
+     * Applies the deletion to the cache unless the watch has already reported it, or it has since been resolved against
+     * the underlying persister.
+     */
+    @Override
+    protected boolean onDeleted(String key) {
+        if (!pendingWrites.containsKey(key)) {
+            return false;
+        }
+        versions.keySet().removeIf(versionedPath -> isWithin(versionedPath, key));
+        return true;
+    }
+
+    /**
+     * Stops the provided watch, if any.
+     */
+    private static void stopWatch(WatchListener watch) {
+        if (watch == null) {
+            return;
+        }
+        watch.stopped = true;
+        try {
+            watch.handle.close();
+        } catch (IOException e) {
+            logger.warn("Failed to stop watching persister", e);
+        }
+    }
+
+    /**
+     * Applies a watch event for a node which has been created or modified. Must be called while holding the cache lock.
+     */
+    private EventResult applyUpdate(String key, byte[] data, long version) throws PersisterException {
+        Long cachedVersion = versions.get(key);
+        if (cachedVersion != null && version <= cachedVersion) {
+            // Stale event: the cache already has this data or newer.
+            return EventResult.UNCHANGED;
+        }
+        PendingWrite pendingWrite = pendingWrites.get(key);
+        if (pendingWrite == null) {
+            return putCached(key, data, version);
+        }
+        switch (pendingWrite.type) {
+        case WRITTEN:
+            for (int i = 0; i < pendingWrite.data.size(); ++i) {
+                if (Arrays.equals(pendingWrite.data.get(i), data)) {
+                    // Our own write, and any earlier writes which were superseded before they were reported:
+                    pendingWrite.data.subList(0, i + 1).clear();
+                    if (pendingWrite.data.isEmpty()) {
+                        pendingWrites.remove(key);
+                        putCached(key, data, version);
+                    }
+                    return EventResult.UNCHANGED;
+                }
+            }
+            return EventResult.CONFLICT;
+        case CREATED_PARENT:
+            // Our own creation: any earlier instance of the node would've been reported as removed before this.
+            pendingWrites.remove(key);
+            putCached(key, data, version);
+            return EventResult.UNCHANGED;
+        case DELETED:
+            if (version <= pendingWrite.deletedVersion) {
+                // Stale event which preceded our own deletion.
+                return EventResult.UNCHANGED;
+            }
+            return EventResult.CONFLICT;
+        default:
+            throw new IllegalStateException("Unsupported pending write type: " + pendingWrite.type);
+        }
+    }
+
+    /**
+     * Applies a watch event for a node which has been deleted. Must be called while holding the cache lock.
+     */
+    private EventResult applyRemoval(String key, long version) {
+        Long cachedVersion = versions.get(key);
+        if (cachedVersion != null && version < cachedVersion) {
+            // Stale event for an earlier instance of the node.
+            return EventResult.UNCHANGED;
+        }
+        PendingWrite pendingWrite = pendingWrites.get(key);
+        if (pendingWrite == null) {
+            // If we've since written beneath this node, then our writes may have recreated it:
+            return pendingWrites.keySet().stream().anyMatch(path -> !path.equals(key) && isWithin(path, key))
+                    ? EventResult.CONFLICT
+                    : removeCached(key);
+        }
+        switch (pendingWrite.type) {
+        case WRITTEN:
+            return EventResult.CONFLICT;
+        case CREATED_PARENT:
+            // Stale event for an earlier instance of the node: our own creation would've been reported before this.
+            return EventResult.UNCHANGED;
+        case DELETED:
+            if (version >= pendingWrite.deletedVersion) {
+                // Our own deletion, which may have been reported before the delete call returned:
+                pendingWrites.remove(key);
+                removeCached(key);
+            }
+            return EventResult.UNCHANGED;
+        default:
+            throw new IllegalStateException("Unsupported pending write type: " + pendingWrite.type);
+        }
+    }
+
+    /**
+     * Replaces the cached data for the provided path with its current data in the underlying persister, for use when a
+     * watch event can't be reconciled with the writes made via this cache. The version is read before the data, so the
+     * recorded version is never newer than the cached data. Returns whether the cached data was changed.
+     *
+     * <p>The path's write stripe is held while reading from the underlying persister, so that no write to the path can
+     * be in progress, but the cache lock isn't: reads, and writes to other top-level nodes, are unaffected.
+     */
+    private boolean resolve(WatchListener watch, String key) throws PersisterException {
+        logger.info("Reading {} from persister to resolve a watch event which conflicts with a local write", key);
+        List<Lock> stripes = lockStripes(Collections.singleton(key));
+        try {
+            Long version = watchablePersister.getVersions(Collections.singleton(key)).get(key);
+            byte[] data = null;
+            boolean found = true;
+            try {
+                data = persister.get(key);
+            } catch (PersisterException e) {
+                if (e.getReason() != Reason.NOT_FOUND) {
+                    throw e;
+                }
+                found = false;
+            }
+            cacheLock.lock();
+            try {
+                if (currentWatch != watch) {
+                    // The cache has since been reloaded by a new watch.
+                    return false;
+                }
+                pendingWrites.remove(key);
+                return (found ? putCached(key, data, version) : removeCached(key)) == EventResult.CHANGED;
+            } finally {
+                cacheLock.unlock();
+            }
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    /**
+     * Stores the provided data and version in the cache. A {@code null} version indicates that the version of the data
+     * isn't known. Must be called while holding the cache lock.
+     */
+    private EventResult putCached(String key, byte[] data, Long version) throws PersisterException {
+        if (version == null) {
+            versions.remove(key);
+        } else {
+            versions.put(key, version);
+        }
+        if (data == null || (isCached(key) && Arrays.equals(getContent().get(key), data))) {
+            return EventResult.UNCHANGED;
+        }
+        getContent().set(key, data);
+        return EventResult.CHANGED;
+    }
+
+    /**
+     * Removes the provided path and its children from the cache. Must be called while holding the cache lock.
+     */
+    private EventResult removeCached(String key) {
+        versions.remove(key);
+        try {
+            getContent().deleteAll(key);
+            return EventResult.CHANGED;
+        } catch (PersisterException e) {
+            return EventResult.UNCHANGED;
+        }
+    }
+
+    /**
+     * Returns the paths of all cached nodes beneath the provided path.
+     */
+    private List<String> getCachedKeysUnder(String key) {
+        List<String> keys = new ArrayList<>();
+        Collection<String> children;
+        try {
+            children = getContent().getChildren(key);
+        } catch (PersisterException e) {
+            return keys;
+        }
+        for (String child : children) {
+            String childKey = PersisterUtils.join(key, child);
+            keys.add(childKey);
+            keys.addAll(getCachedKeysUnder(childKey)); // RECURSE
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the parent of the provided path, or {@code null} if the path is at the top level.
+     */
+    private static String getParent(String key) {
+        int index = key.lastIndexOf(PersisterUtils.PATH_DELIM);
+        return index > 0 ? key.substring(0, index) : null;
+    }
+
+    /**
+     * The initial content reported by a new watch, which replaces the current watch if the content is placed in the
+     * cache.
+     */
+    private class WatchLoad extends LoadedData {
+        private final WatchListener watch;
+
+        private WatchLoad(WatchListener watch) {
+            // Events received before the data is placed in the cache continue to be collected into the initial data,
+            // while holding the cache lock:
+            super(watch.initialData);
+            this.watch = watch;
+        }
+
+        @Override
+        protected void onApplied() {
+            stopWatch(currentWatch);
+            currentWatch = watch;
+            versions.clear();
+            versions.putAll(watch.initialVersions);
+            pendingWrites.clear();
+        }
+
+        @Override
+        protected void onDiscarded() {
+            stopWatch(watch);
+        }
+    }
+
+    /**
+     * A write made via this cache which hasn't yet been reported by the watch, see {@link #pendingWrites}.
+     */
+    private static class PendingWrite {
+
+        private enum Type {
+            // The node was written with each of the provided data in turn:
+            WRITTEN,
+            // The node wasn't cached, and was created as the parent of a written node:
+            CREATED_PARENT,
+            // The node was deleted, having last been reported with the provided version:
+            DELETED
+        }
+
+        private final Type type;
+        private final List<byte[]> data;
+        private final long deletedVersion;
+
+        private static PendingWrite written(byte[] data) {
+            return new PendingWrite(Type.WRITTEN, new ArrayList<>(Collections.singletonList(data)), 0);
+        }
+
+        private static PendingWrite createdParent() {
+            return new PendingWrite(Type.CREATED_PARENT, Collections.emptyList(), 0);
+        }
+
+        private static PendingWrite deleted(long deletedVersion) {
+            return new PendingWrite(Type.DELETED, Collections.emptyList(), deletedVersion);
+        }
+
+        private PendingWrite(Type type, List<byte[]> data, long deletedVersion) {
+            this.type = type;
+            this.data = data;
+            this.deletedVersion = deletedVersion;
+        }
+    }
+
+    /**
+     * Receives the events of a single watch of the underlying persister. Until the watch has reported the initial
+     * content of the persister, events are collected for loading into a new cache, including while the new content is
+     * waiting to be placed in the cache. After that, events are applied to the cache, unless the watch has since been
+     * replaced or stopped.
+     */
+    private class WatchListener implements WatchablePersister.Listener {
+
+        // Only accessed by the watch's thread until initialized is completed, and then while holding the cache lock:
+        private final Map<String, byte[]> initialData = new HashMap<>();
+        private final Map<String, Long> initialVersions = new HashMap<>();
+        private final CompletableFuture<Void> initialized = new CompletableFuture<>();
+        private volatile Closeable handle;
+        private volatile boolean stopped = false;
+
+        @Override
+        public void onUpdated(String path, byte[] data, long version) {
+            if (!initialized.isDone()) {
+                collectUpdate(path, data, version);
+                return;
+            }
+            EventResult result = EventResult.UNCHANGED;
+            cacheLock.lock();
+            try {
+                if (currentWatch == this) {
+                    result = applyUpdate(path, data, version);
+                } else if (!stopped) {
+                    collectUpdate(path, data, version);
+                }
+            } catch (PersisterException | RuntimeException e) {
+                logger.error(String.format("Failed to apply update of %s to cache", path), e);
+            } finally {
+                cacheLock.unlock();
+            }
+            handleResult(path, result);
+        }
+
+        @Override
+        public void onRemoved(String path, long version) {
+            if (!initialized.isDone()) {
+                collectRemoval(path);
+                return;
+            }
+            EventResult result = EventResult.UNCHANGED;
+            cacheLock.lock();
+            try {
+                if (currentWatch == this) {
+                    result = applyRemoval(path, version);
+                } else if (!stopped) {
+                    collectRemoval(path);
+                }
+            } catch (RuntimeException e) {
+                logger.error(String.format("Failed to apply removal of %s to cache", path), e);
+            } finally {
+                cacheLock.unlock();
+            }
+            handleResult(path, result);
+        }
+
+        @Override
+        public void onInitialized() {
+            initialized.complete(null);
+        }
+
+        private void collectUpdate(String path, byte[] data, long version) {
+            if (data == null) {
+                initialData.remove(path);
+            } else {
+                initialData.put(path, data);
+            }
+            initialVersions.put(path, version);
+        }
+
+        private void collectRemoval(String path) {
+            initialData.keySet().removeIf(initialPath -> isWithin(initialPath, path));
+            initialVersions.keySet().removeIf(initialPath -> isWithin(initialPath, path));
+        }
+
+        /**
+         * Resolves any conflict without holding the cache lock, and notifies listeners if the cache was changed.
+         */
+        private void handleResult(String path, EventResult result) {
+            boolean changed = result == EventResult.CHANGED;
+            if (result == EventResult.CONFLICT) {
+                try {
+                    changed = resolve(this, path);
+                } catch (PersisterException | RuntimeException e) {
+                    logger.error(String.format("Failed to resolve event for %s against persister", path), e);
+                }
+            }
+            if (changed) {
+                notifyChanged(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.mesosphere.sdk.storage;
+
+import com.mesosphere.sdk.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Persister} which defers writes to an underlying {@link Persister}, so that many small writes arriving within
+ * a short window are sent to storage as a single {@link Persister#setMany(Map)} transaction. Repeated writes to the
+ * same path within a window are coalesced, with the last write winning.
+ *
+ * <p>Writes which have been accepted but not yet sent are written by a background thread once the window has elapsed,
+ * or immediately by {@link #flush()}. Callers which depend on the durability of their writes, such as the
+ * {@link com.mesosphere.sdk.state.StateStore}, must invoke {@link #flush()} before relying on them. When several
+ * threads write and flush concurrently, their writes are sent together in a single transaction, so that the cost of
+ * each transaction is shared between them. Reads and deletes flush any outstanding writes before they are performed,
+ * so that they are always ordered after previous writes.
+ *
+ * <p>If a write fails, its data is discarded rather than retried, as the failure may already have been reported to a
+ * caller which then acted on the data not having been stored. Any {@link FailureListener}s are notified of the paths
+ * which failed to be written, so that readers which have already observed the data may reload it. The failure is also
+ * reported by the next {@link #flush()} of each thread whose writes were discarded, including when the write failed in
+ * the background, so that no caller sees a successful flush after its data has been dropped.
+ *
+ * <p>This is thread-safe.
+ */
+public class WriteBehindPersister implements Persister {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindPersister.class);
+
+    /**
+     * The number of outstanding bytes beyond which writers flush synchronously, rather than waiting for the window to
+     * elapse. This keeps each transaction well below the default 1MB ZK request limit.
+     */
+    private static final int MAX_OUTSTANDING_BYTES = 512 * 1024;
+
+    private final Persister persister;
+    private final long windowMs;
+    private final ScheduledExecutorService executor;
+
+    // Guards the outstanding writes:
+    private final Object pendingLock = new Object();
+    // Serializes writes to the underlying persister, so that batches are written in the order they were accepted:
+    private final Object flushLock = new Object();
+
+    private Map<String, byte[]> pendingWrites = new HashMap<>();
+    // The thread which made the latest outstanding write to each path:
+    private Map<String, Thread> pendingWriters = new HashMap<>();
+    private int pendingBytes = 0;
+    private boolean flushScheduled = false;
+    // Failed writes which haven't yet been reported to the threads which made them, see flush():
+    private final Map<Thread, PersisterException> unreportedFailures = new WeakHashMap<>();
+
+    private final List<FailureListener> failureListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Receives notifications of writes which failed to be sent to the underlying persister, see
+     * {@link #addFailureListener(FailureListener)}.
+     */
+    public interface FailureListener {
+
+        /**
+         * Invoked after a write of the provided paths to the underlying persister has failed, where the paths are in
+         * the format they were written with. The data has been discarded, so the underlying persister still holds
+         * whatever it held before the write. The persister's locks are not held while this is invoked.
+         */
+        void onWriteFailed(Collection<String> paths);
+    }
+
+    /**
+     * Creates a new instance which defers writes to the provided persister by up to {@code windowMs} milliseconds.
+     */
+    public WriteBehindPersister(Persister persister, long windowMs) {
+        this.persister = persister;
+        this.windowMs = windowMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persister-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a listener which is notified whenever outstanding writes fail to be sent to the underlying persister,
+     * whether by a background flush or by an explicit {@link #flush()}.
+     */
+    public void addFailureListener(FailureListener listener) {
+        failureListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener which was previously added via {@link #addFailureListener(FailureListener)}, or does nothing
+     * if it isn't present.
+     */
+    public void removeFailureListener(FailureListener listener) {
+        failureListeners.remove(listener);
+    }
+
+    @Override
+    public byte[] get(String path) throws PersisterException {
+        writeOutstandingOrThrow();
+        return persister.get(path);
+    }
+
+    @Override
+    public Collection<String> getChildren(String path) throws PersisterException {
+        writeOutstandingOrThrow();
+        return persister.getChildren(path);
+    }
+
+    @Override
+    public void set(String path, byte[] bytes) throws PersisterException {
+        boolean overLimit;
+        synchronized (pendingLock) {
+            overLimit = putPending(path, bytes);
+        }
+        if (overLimit) {
+            writeOutstandingOrThrow();
+        }
+    }
+
+    @Override
+    public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+        if (pathBytesMap.isEmpty()) {
+            return;
+        }
+        // All of the entries are added within the same lock, so they're always written in the same transaction:
+        boolean overLimit = false;
+        synchronized (pendingLock) {
+            for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                overLimit = putPending(entry.getKey(), entry.getValue());
+            }
+        }
+        if (overLimit) {
+            writeOutstandingOrThrow();
+        }
+    }
+
+    @Override
+    public void deleteAll(String path) throws PersisterException {
+        FailedWrite failedWrite;
+        synchronized (flushLock) {
+            failedWrite = writeOutstanding();
+            if (failedWrite == null) {
+                persister.deleteAll(path);
+                return;
+            }
+        }
+        throw failedWrite.notifyListeners();
+    }
+
+    /**
+     * Writes all outstanding data to the underlying persister in a single transaction, returning once it has been
+     * written.
+     *
+     * @throws PersisterException if the write fails, in which case the outstanding data is discarded, or if any data
+     *                            previously written by the calling thread was discarded by an earlier failed write
+     */
+    @Override
+    public void flush() throws PersisterException {
+        FailedWrite failedWrite;
+        synchronized (flushLock) {
+            failedWrite = writeOutstanding();
+        }
+        PersisterException unreportedFailure;
+        synchronized (pendingLock) {
+            unreportedFailure = unreportedFailures.remove(Thread.currentThread());
+        }
+        if (failedWrite != null) {
+            throw failedWrite.notifyListeners();
+        }
+        if (unreportedFailure != null) {
+            throw unreportedFailure;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            flush();
+        } catch (PersisterException e) {
+            logger.error("Failed to write outstanding data before closing", e);
+        }
+        persister.close();
+    }
+
+    /**
+     * Writes all outstanding data to the underlying persister, throwing if the write fails. Unlike {@link #flush()},
+     * failures of earlier writes remain unreported, so that they're still reported by the next flush.
+     */
+    private void writeOutstandingOrThrow() throws PersisterException {
+        FailedWrite failedWrite;
+        synchronized (flushLock) {
+            failedWrite = writeOutstanding();
+        }
+        if (failedWrite != null) {
+            // Notified outside of the flush lock, as listeners may wait on writers which are themselves flushing:
+            throw failedWrite.notifyListeners();
+        }
+    }
+
+    /**
+     * Adds a write to the outstanding data and schedules a background flush if needed. Must be invoked while holding
+     * {@link #pendingLock}.
+     *
+     * @return whether the outstanding data now exceeds {@link #MAX_OUTSTANDING_BYTES}
+     */
+    private boolean putPending(String path, byte[] bytes) {
+        if (pendingWrites.containsKey(path)) {
+            Metrics.incrementCounter(Metrics.PERSISTER_WRITE_BEHIND_COALESCED);
+        }
+        pendingBytes += getLength(bytes) - getLength(pendingWrites.put(path, bytes));
+        pendingWriters.put(path, Thread.currentThread());
+        if (!flushScheduled && !executor.isShutdown()) {
+            flushScheduled = true;
+            executor.schedule(this::backgroundFlush, windowMs, TimeUnit.MILLISECONDS);
+        }
+        return pendingBytes > MAX_OUTSTANDING_BYTES;
+    }
+
+    /**
+     * Writes all outstanding data to the underlying persister. Must be invoked while holding {@link #flushLock}.
+     *
+     * @return {@code null} if the write succeeded or there was nothing to write, or the failed write otherwise, in
+     *         which case the data has been discarded
+     */
+    private FailedWrite writeOutstanding() {
+        Map<String, byte[]> batch;
+        Map<String, Thread> writers;
+        synchronized (pendingLock) {
+            if (pendingWrites.isEmpty()) {
+                return null;
+            }
+            batch = pendingWrites;
+            writers = pendingWriters;
+            pendingWrites = new HashMap<>();
+            pendingWriters = new HashMap<>();
+            pendingBytes = 0;
+        }
+        logger.debug("Writing {} outstanding entries: {}", batch.size(), batch.keySet());
+        Metrics.getHistogram(Metrics.PERSISTER_WRITE_BEHIND_BATCH_SIZE).update(batch.size());
+        try {
+            persister.setMany(batch);
+            return null;
+        } catch (PersisterException e) {
+            Metrics.incrementCounter(Metrics.PERSISTER_WRITE_BEHIND_FAILURES);
+            logger.error(String.format("Failed to write %d outstanding entries, discarding them: %s",
+                    batch.size(), batch.keySet()), e);
+            synchronized (pendingLock) {
+                // Each writer is told of the failure by its next flush, even if it's the thread which is writing now:
+                for (Thread writer : writers.values()) {
+                    unreportedFailures.put(writer, e);
+                }
+            }
+            return new FailedWrite(batch.keySet(), e);
+        }
+    }
+
+    private void backgroundFlush() {
+        synchronized (pendingLock) {
+            flushScheduled = false;
+        }
+        FailedWrite failedWrite;
+        synchronized (flushLock) {
+            failedWrite = writeOutstanding();
+        }
+        if (failedWrite != null) {
+            // Already logged, and reported to the writers by their next flush:
+            failedWrite.notifyListeners();
+        }
+    }
+
+    /**
+     * A write of outstanding data which failed, whose listeners are notified once the flush lock has been released.
+     */
+    private final class FailedWrite {
+        private final Collection<String> paths;
+        private final PersisterException exception;
+
+        private FailedWrite(Collection<String> paths, PersisterException exception) {
+            this.paths = paths;
+            this.exception = exception;
+        }
+
+        /**
+         * Notifies any {@link FailureListener}s of the failed write.
+         *
+         * @return the exception which caused the write to fail
+         */
+        private PersisterException notifyListeners() {
+            for (FailureListener listener : failureListeners) {
+                try {
+                    listener.onWriteFailed(paths);
+                } catch (RuntimeException e) {
+                    logger.error(String.format("Failure listener failed to handle %d failed writes", paths.size()), e);
+                }
+            }
+            return exception;
+        }
+    }
+
+    private static int getLength(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mesosphere.sdk.api;
+
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ChangeLog}.
+ */
+public class ChangeLogTest {
+
+    @Test
+    public void testEventsSinceVersion() {
+        ChangeLog log = new ChangeLog(10);
+        long initialVersion = log.getVersion();
+        assertTrue(log.getSince(initialVersion).get().isEmpty());
+
+        log.append(new JSONObject().put("name", "a"));
+        log.append(new JSONObject().put("name", "b"));
+        assertEquals(initialVersion + 2, log.getVersion());
+
+        List<JSONObject> events = log.getSince(initialVersion).get();
+        assertEquals(2, events.size());
+        assertEquals("a", events.get(0).get("name"));
+        assertEquals(initialVersion + 1, events.get(0).getLong(ChangeLog.VERSION_KEY));
+        assertEquals("b", events.get(1).get("name"));
+        assertEquals(initialVersion + 2, events.get(1).getLong(ChangeLog.VERSION_KEY));
+
+        events = log.getSince(initialVersion + 1).get();
+        assertEquals(1, events.size());
+        assertEquals("b", events.get(0).get("name"));
+        assertTrue(log.getSince(initialVersion + 2).get().isEmpty());
+
+        // Versions which weren't produced by the log:
+        assertFalse(log.getSince(initialVersion + 3).isPresent());
+        assertFalse(log.getSince(initialVersion - 1).isPresent());
+    }
+
+    @Test
+    public void testDiscardedEvents() {
+        ChangeLog log = new ChangeLog(2);
+        long initialVersion = log.getVersion();
+        for (int i = 0; i < 3; ++i) {
+            log.append(new JSONObject().put("index", i));
+        }
+
+        // The first event was discarded, so clients which haven't seen it must start over:
+        assertFalse(log.getSince(initialVersion).isPresent());
+        List<JSONObject> events = log.getSince(initialVersion + 1).get();
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(0).getInt("index"));
+        assertEquals(2, events.get(1).getInt("index"));
+    }
+}
@@ -1,10 +1,13 @@
 package com.mesosphere.sdk.api;
 
 import com.mesosphere.sdk.config.StringConfiguration;
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.specification.TestPodFactory;
 import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.ConfigStoreException;
 import com.mesosphere.sdk.storage.StorageError.Reason;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -24,6 +27,7 @@ public class ConfigResourceTest {
     private static final StringConfiguration CONFIG1 = new StringConfiguration("one");
 
     @Mock private ConfigStore<StringConfiguration> mockConfigStore;
+    @Mock private ConfigStore<ServiceSpec> mockServiceSpecConfigStore;
 
     private ConfigResource<ConfigStore<StringConfiguration>> resource;
 
@@ -141,4 +145,46 @@ public class ConfigResourceTest {
         Response response = resource.getTarget();
         assertEquals(500, response.getStatus());
     }
+
+    @Test
+    public void testGetDiff() throws ConfigStoreException {
+        when(mockServiceSpecConfigStore.getTargetConfig()).thenReturn(ID2);
+        when(mockServiceSpecConfigStore.fetch(ID1)).thenReturn(TestPodFactory.getServiceSpec(
+                TestPodFactory.getPodSpec("pod-a", 1, "echo a"), TestPodFactory.getPodSpec("pod-b", 1, "echo b")));
+        when(mockServiceSpecConfigStore.fetch(ID2)).thenReturn(TestPodFactory.getServiceSpec(
+                TestPodFactory.getPodSpec("pod-a", 1, "echo updated"),
+                TestPodFactory.getPodSpec("pod-c", 1, "echo c")));
+        Response response = new ConfigResource<>(mockServiceSpecConfigStore).getDiff(ID1.toString(), null);
+        assertEquals(200, response.getStatus());
+        JSONObject json = new JSONObject((String) response.getEntity());
+        assertEquals(ID1.toString(), json.getString("from"));
+        assertEquals(ID2.toString(), json.getString("to"));
+        assertEquals("[\"pod-c\"]", json.getJSONArray("addedPods").toString());
+        assertEquals("[\"pod-b\"]", json.getJSONArray("removedPods").toString());
+        assertEquals(1, json.getJSONObject("changedPods").length());
+        assertEquals("[\"server\"]", json.getJSONObject("changedPods").getJSONArray("pod-a").toString());
+    }
+
+    @Test
+    public void testGetDiffBadId() throws ConfigStoreException {
+        assertEquals(400, resource.getDiff("hello", ID2.toString()).getStatus());
+        assertEquals(400, resource.getDiff(null, ID2.toString()).getStatus());
+        assertEquals(400, resource.getDiff(ID1.toString(), "hello").getStatus());
+    }
+
+    @Test
+    public void testGetDiffNotFound() throws ConfigStoreException {
+        when(mockConfigStore.fetch(ID1)).thenThrow(new ConfigStoreException(Reason.NOT_FOUND, "hi"));
+        when(mockConfigStore.fetch(ID2)).thenThrow(new ConfigStoreException(Reason.NOT_FOUND, "hi"));
+        Response response = resource.getDiff(ID1.toString(), ID2.toString());
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    public void testGetDiffNotServiceSpec() throws ConfigStoreException {
+        when(mockConfigStore.fetch(ID1)).thenReturn(CONFIG1);
+        when(mockConfigStore.fetch(ID2)).thenReturn(CONFIG1);
+        Response response = resource.getDiff(ID1.toString(), ID2.toString());
+        assertEquals(500, response.getStatus());
+    }
 }
@@ -5,6 +5,7 @@ import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
 import com.mesosphere.sdk.state.ConfigStoreException;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.TaskTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
@@ -20,13 +21,26 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class EndpointsResourceTest {
@@ -183,7 +197,7 @@ public class EndpointsResourceTest {
     @SuppressWarnings("PMD.AvoidUsingHardCodedIP")
     private void testEndpoint(String expectedHostname) throws ConfigStoreException {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getEndpoint("porta");
+        Response response = getEndpoint("porta", null);
         assertEquals(200, response.getStatus());
         JSONObject json = new JSONObject((String) response.getEntity());
         assertEquals(json.toString(), 3, json.length());
@@ -216,7 +230,7 @@ public class EndpointsResourceTest {
     private void allEndpointsTest(String serviceName, String serviceNetworkName) {
         resource = buildResource(mockStateStore, serviceName);
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getEndpoints();
+        Response response = getEndpoints(null);
         assertEquals(200, response.getStatus());
         JSONArray json = new JSONArray((String) response.getEntity());
         assertEquals(json.toString(), 4, json.length());
@@ -226,10 +240,10 @@ public class EndpointsResourceTest {
         assertEquals("porta", json.get(2));
         assertEquals("portb", json.get(3));
 
-        assertEquals(CUSTOM_VALUE, resource.getEndpoint(CUSTOM_KEY).getEntity());
+        assertEquals(CUSTOM_VALUE, getEndpoint(CUSTOM_KEY, null).getEntity());
 
         // 'novip' port is listed across the two 'vips-' tasks
-        JSONObject endpointNoVip = new JSONObject((String) resource.getEndpoint("novip").getEntity());
+        JSONObject endpointNoVip = new JSONObject((String) getEndpoint("novip", null).getEntity());
         assertEquals(2, endpointNoVip.length());
         JSONArray dns = endpointNoVip.getJSONArray("dns");
         assertEquals(2, dns.length());
@@ -241,7 +255,7 @@ public class EndpointsResourceTest {
         assertEquals(TestConstants.HOSTNAME + ":3459", address.get(1));
 
         // 'porta' is listed across the two 'ports-' tasks and the two 'vips-' tasks
-        JSONObject endpointPortA = new JSONObject((String) resource.getEndpoint("porta").getEntity());
+        JSONObject endpointPortA = new JSONObject((String) getEndpoint("porta", null).getEntity());
         assertEquals(3, endpointPortA.length());
         assertEquals("vip1." + serviceNetworkName + ".l4lb.thisdcos.directory:5432", endpointPortA.get("vip"));
         dns = endpointPortA.getJSONArray("dns");
@@ -258,7 +272,7 @@ public class EndpointsResourceTest {
         assertEquals(TestConstants.HOSTNAME + ":3456", address.get(3));
 
         // 'portb' is just listed in the 'ports-1' and 'vips-2' tasks
-        JSONObject endpointPortB = new JSONObject((String) resource.getEndpoint("portb").getEntity());
+        JSONObject endpointPortB = new JSONObject((String) getEndpoint("portb", null).getEntity());
         assertEquals(3, endpointPortB.length());
         dns = endpointPortB.getJSONArray("dns");
         assertEquals(2, dns.length());
@@ -288,6 +302,7 @@ public class EndpointsResourceTest {
             when(mockStateStore.fetchStatus(taskInfo.getName())).thenReturn(Optional.of(TASK_STATUS));
             when(mockStateStore.fetchProperty(taskInfo.getName() + ":task-status")).thenReturn(TASK_STATUS.toByteArray());
         }
+        when(mockStateStore.getDataVersion()).thenReturn(1L);
 
         testEndpoint(TestConstants.OVERLAY_HOSTNAME);
 
@@ -297,12 +312,14 @@ public class EndpointsResourceTest {
             when(mockStateStore.fetchProperty(taskInfo.getName() + ":task-status"))
                     .thenReturn(TASK_STATUS_2.toByteArray());
         }
+        when(mockStateStore.getDataVersion()).thenReturn(2L);
 
         testEndpoint(TestConstants.OVERLAY_HOSTNAME);
 
         for (TaskInfo taskInfo : TASK_INFOS) {
             when(mockStateStore.fetchStatus(taskInfo.getName())).thenReturn(Optional.empty());
         }
+        when(mockStateStore.getDataVersion()).thenReturn(3L);
 
         testEndpoint("otherHost");
     }
@@ -319,8 +336,128 @@ public class EndpointsResourceTest {
     @Test
     public void testGetOneCustomEndpoint() throws ConfigStoreException {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getEndpoint(CUSTOM_KEY);
+        Response response = getEndpoint(CUSTOM_KEY, null);
         assertEquals(200, response.getStatus());
         assertEquals(CUSTOM_VALUE, response.getEntity());
     }
+
+    @Test
+    public void testEndpointsOnlyRecomputedWhenDataChanges() {
+        when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
+        getEndpoint("porta", null);
+        getEndpoint("portb", null);
+        getEndpoints(null);
+        verify(mockStateStore, times(1)).fetchTasks();
+
+        when(mockStateStore.getDataVersion()).thenReturn(1L);
+        when(mockStateStore.fetchTasks()).thenReturn(Collections.singletonList(TASK_WITH_PORTS_1));
+        assertEquals(200, getEndpoint("porta", null).getStatus());
+        assertEquals(404, getEndpoint("novip", null).getStatus());
+        verify(mockStateStore, times(2)).fetchTasks();
+    }
+
+    @Test
+    public void testNotModified() {
+        when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
+        for (String name : Arrays.asList("porta", CUSTOM_KEY)) {
+            Response response = getEndpoint(name, null);
+            assertEquals(200, response.getStatus());
+            EntityTag tag = response.getEntityTag();
+            assertFalse(tag.isWeak());
+
+            response = getEndpoint(name, tag.toString());
+            assertEquals(304, response.getStatus());
+            assertEquals(tag, response.getEntityTag());
+            assertEquals(304, getEndpoint(name, "\"other\", W/" + tag.toString()).getStatus());
+            assertEquals(304, getEndpoint(name, "*").getStatus());
+            assertEquals(200, getEndpoint(name, "\"other\"").getStatus());
+        }
+
+        Response response = getEndpoints(null);
+        assertEquals(200, response.getStatus());
+        assertEquals(304, getEndpoints(response.getEntityTag().toString()).getStatus());
+
+        // The tag changes along with the content:
+        when(mockStateStore.getDataVersion()).thenReturn(1L);
+        when(mockStateStore.fetchTasks()).thenReturn(Collections.singletonList(TASK_WITH_PORTS_1));
+        assertEquals(200, getEndpoints(response.getEntityTag().toString()).getStatus());
+    }
+
+    @Test
+    public void testWaitForChange() throws Exception {
+        StateStore stateStore = new StateStore(new MemPersister());
+        stateStore.storeTasks(Collections.singletonList(TASK_WITH_PORTS_1));
+        resource = buildResource(stateStore, "svc-name");
+        String tag = getEndpoint("porta", null).getEntityTag().toString();
+
+        // No change within the wait:
+        TestResponse response = startGetEndpoint("porta", tag, 1);
+        assertFalse(response.isDone());
+        response.timeOut();
+        assertEquals(304, response.get(10, TimeUnit.SECONDS).getStatus());
+
+        // Changes which don't affect the endpoint don't end the wait:
+        response = startGetEndpoint("porta", tag, 30);
+        stateStore.storeProperty("unrelated", new byte[0]);
+        Thread.sleep(100);
+        assertFalse(response.isDone());
+
+        stateStore.storeTasks(Collections.singletonList(TASK_WITH_PORTS_2));
+        Response changedResponse = response.get(10, TimeUnit.SECONDS);
+        assertEquals(200, changedResponse.getStatus());
+        assertNotEquals(tag, changedResponse.getEntityTag().toString());
+        assertEquals(2, new JSONObject((String) changedResponse.getEntity()).getJSONArray("dns").length());
+    }
+
+    @Test
+    public void testCustomEndpointDoesntWait() throws Exception {
+        StateStore stateStore = new StateStore(new MemPersister());
+        resource = buildResource(stateStore, "svc-name");
+        String tag = getEndpoint(CUSTOM_KEY, null).getEntityTag().toString();
+
+        TestResponse response = startGetEndpoint(CUSTOM_KEY, tag, 30);
+        assertTrue(response.isDone());
+        assertEquals(304, response.get().getStatus());
+    }
+
+    private Response getEndpoint(String name, String ifNoneMatch) {
+        TestResponse response = startGetEndpoint(name, ifNoneMatch, null);
+        assertTrue(response.isDone());
+        return response.join();
+    }
+
+    private TestResponse startGetEndpoint(String name, String ifNoneMatch, Integer waitSeconds) {
+        TestResponse response = new TestResponse();
+        resource.getEndpoint(name, ifNoneMatch, waitSeconds, response.asyncResponse);
+        return response;
+    }
+
+    private Response getEndpoints(String ifNoneMatch) {
+        TestResponse response = new TestResponse();
+        resource.getEndpoints(ifNoneMatch, null, response.asyncResponse);
+        assertTrue(response.isDone());
+        return response.join();
+    }
+
+    /**
+     * Completes with the {@link Response} which its {@link AsyncResponse} is resumed with. Timeouts of the
+     * {@link AsyncResponse} are triggered by the test via {@link #timeOut()}.
+     */
+    private static class TestResponse extends CompletableFuture<Response> {
+        private final AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        private TimeoutHandler timeoutHandler;
+
+        private TestResponse() {
+            when(asyncResponse.resume(any(Object.class)))
+                    .thenAnswer(invocation -> complete((Response) invocation.getArguments()[0]));
+            doAnswer(invocation -> {
+                timeoutHandler = (TimeoutHandler) invocation.getArguments()[0];
+                return null;
+            }).when(asyncResponse).setTimeoutHandler(any(TimeoutHandler.class));
+        }
+
+        private void timeOut() {
+            timeoutHandler.handleTimeout(asyncResponse);
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package com.mesosphere.sdk.api;
+
+import com.codahale.metrics.MetricRegistry;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+public class MetricsResourceTest {
+
+    private MetricRegistry registry;
+    private MetricsResource resource;
+
+    @Before
+    public void beforeEach() {
+        registry = new MetricRegistry();
+        registry.counter("offers.received").inc(3);
+        resource = new MetricsResource(registry);
+    }
+
+    @Test
+    public void testGetMetrics() {
+        Response response = resource.getMetrics();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+        JSONObject json = new JSONObject((String) response.getEntity());
+        Assert.assertEquals(3, json.getJSONObject("counters").getJSONObject("offers.received").getLong("count"));
+    }
+
+    @Test
+    public void testGetPrometheusMetrics() {
+        Response response = resource.getPrometheusMetrics();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals(MediaType.TEXT_PLAIN_TYPE, response.getMediaType());
+        Assert.assertEquals("# TYPE offers_received counter\noffers_received 3\n", response.getEntity());
+    }
+}
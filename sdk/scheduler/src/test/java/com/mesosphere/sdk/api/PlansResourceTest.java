@@ -1,11 +1,19 @@
 package com.mesosphere.sdk.api;
 
 import com.mesosphere.sdk.api.types.PlanInfo;
+import com.mesosphere.sdk.scheduler.plan.DefaultPhase;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlan;
 import com.mesosphere.sdk.scheduler.plan.DefaultPlanManager;
 import com.mesosphere.sdk.scheduler.plan.Phase;
 import com.mesosphere.sdk.scheduler.plan.Plan;
+import com.mesosphere.sdk.scheduler.plan.Status;
+import com.mesosphere.sdk.scheduler.plan.StatusListener;
 import com.mesosphere.sdk.scheduler.plan.Step;
+import com.mesosphere.sdk.scheduler.plan.TestStep;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
 import com.mesosphere.sdk.scheduler.plan.strategy.Strategy;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -15,6 +23,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.StatusType;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.mesosphere.sdk.api.ResponseUtils.alreadyReportedResponse;
@@ -73,7 +83,7 @@ public class PlansResourceTest {
     @Test
     public void testFullInfoComplete() {
         when(mockPlan.isComplete()).thenReturn(true);
-        Response response = resource.getPlanInfo(planName);
+        Response response = resource.getPlanInfo(planName, false, null, null);
         assertEquals(200, response.getStatus());
         assertTrue(response.getEntity() instanceof PlanInfo);
     }
@@ -81,7 +91,7 @@ public class PlansResourceTest {
     @Test
     public void testFullInfoError() {
         when(mockPlan.hasErrors()).thenReturn(true);
-        Response response = resource.getPlanInfo(planName);
+        Response response = resource.getPlanInfo(planName, false, null, null);
         assertEquals(417, response.getStatus());
         assertTrue(response.getEntity() instanceof PlanInfo);
     }
@@ -90,7 +100,7 @@ public class PlansResourceTest {
     public void testFullInfoErrorEvenIfComplete() {
         when(mockPlan.isComplete()).thenReturn(true);
         when(mockPlan.hasErrors()).thenReturn(true);
-        Response response = resource.getPlanInfo(planName);
+        Response response = resource.getPlanInfo(planName, false, null, null);
         assertEquals(417, response.getStatus());
         assertTrue(response.getEntity() instanceof PlanInfo);
     }
@@ -98,7 +108,7 @@ public class PlansResourceTest {
     @Test
     public void testFullInfoIncomplete() {
         when(mockPlan.isComplete()).thenReturn(false);
-        Response response = resource.getPlanInfo(planName);
+        Response response = resource.getPlanInfo(planName, false, null, null);
         assertEquals(202, response.getStatus());
         assertTrue(response.getEntity() instanceof PlanInfo);
     }
@@ -106,10 +116,96 @@ public class PlansResourceTest {
     @Test
     public void testFullInfoUnknownName() {
         when(mockPlan.isComplete()).thenReturn(false);
-        Response response = resource.getPlanInfo("bad-name");
+        Response response = resource.getPlanInfo("bad-name", false, null, null);
         assertTrue(response.getStatusInfo().equals(Response.Status.NOT_FOUND));
     }
 
+    @Test
+    public void testWatchPlan() throws Exception {
+        TestStep step0 = new TestStep(UUID.randomUUID(), "step-0", null);
+        TestStep step1 = new TestStep(UUID.randomUUID(), "step-1", null);
+        DefaultPhase phase = new DefaultPhase(
+                "phase-0", Arrays.asList(step0, step1), new SerialStrategy<>(), Collections.emptyList());
+        DefaultPlan plan = new DefaultPlan(
+                "watched-plan", Arrays.asList(phase), new SerialStrategy<>(), Collections.emptyList());
+        resource.setPlanManagers(Arrays.asList(new DefaultPlanManager(plan)));
+
+        // Without a version, the full plan is returned:
+        JSONObject json = getWatchJson("watched-plan", null, null);
+        long version = json.getLong("version");
+        assertEquals(1, json.getJSONObject("plan").getJSONArray("phases").length());
+
+        // Nothing has changed:
+        json = getWatchJson("watched-plan", version, null);
+        assertEquals(version, json.getLong("version"));
+        assertEquals(0, json.getJSONArray("events").length());
+
+        // A step's change is listed before any resulting change to its parents:
+        step0.setStatus(Status.COMPLETE);
+        json = getWatchJson("watched-plan", version, null);
+        JSONArray events = json.getJSONArray("events");
+        assertTrue(events.length() >= 1);
+        JSONObject event = events.getJSONObject(0);
+        assertEquals("step", event.get("type"));
+        assertEquals(step0.getId().toString(), event.get("id"));
+        assertEquals("step-0", event.get("name"));
+        assertEquals("phase-0", event.get("phase"));
+        assertEquals("COMPLETE", event.get("status"));
+        assertEquals(events.getJSONObject(events.length() - 1).getLong("version"), json.getLong("version"));
+        version = json.getLong("version");
+
+        // A waiting request returns once a change has occurred:
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            step1.setStatus(Status.COMPLETE);
+        });
+        thread.start();
+        json = getWatchJson("watched-plan", version, 10);
+        thread.join();
+        events = json.getJSONArray("events");
+        assertEquals("step-1", events.getJSONObject(0).get("name"));
+        assertEquals("COMPLETE", events.getJSONObject(0).get("status"));
+
+        // A version which isn't known to the scheduler results in the full plan being returned:
+        json = getWatchJson("watched-plan", version - 1000, null);
+        assertTrue(json.has("plan"));
+        assertEquals(404, resource.getPlanInfo("bad-name", true, null, null).getStatus());
+    }
+
+    @Test
+    public void testReplacedPlanIsUnsubscribed() throws Exception {
+        Set<StatusListener> listeners = new HashSet<>();
+        TestStep step = new TestStep(UUID.randomUUID(), "step-0", null) {
+            @Override
+            public boolean addStatusListener(StatusListener listener) {
+                listeners.add(listener);
+                return super.addStatusListener(listener);
+            }
+
+            @Override
+            public void removeStatusListener(StatusListener listener) {
+                listeners.remove(listener);
+                super.removeStatusListener(listener);
+            }
+        };
+        DefaultPhase phase = new DefaultPhase(
+                "phase-0", Arrays.asList(step), new SerialStrategy<>(), Collections.emptyList());
+        DefaultPlan plan = new DefaultPlan(
+                "watched-plan", Arrays.asList(phase), new SerialStrategy<>(), Collections.emptyList());
+        resource.setPlanManagers(Arrays.asList(new DefaultPlanManager(plan)));
+        getWatchJson("watched-plan", null, null);
+        int subscribedCount = listeners.size();
+        assertTrue(subscribedCount > 0);
+
+        // The feed for the old plan stops listening to its elements once the plan is replaced:
+        resource.setPlanManagers(Arrays.asList(new DefaultPlanManager(mockPlan)));
+        assertEquals(subscribedCount - 1, listeners.size());
+    }
+
     @Test
     public void testContinue() {
         Response response = resource.continueCommand(planName, null);
@@ -175,11 +271,11 @@ public class PlansResourceTest {
 
         response = resource.interruptCommand(planName, phaseId.toString());
         validateCommandResult(response, "interrupt");
-        verify(mockPhaseStrategy).interrupt();
+        verify(mockPhase).interrupt();
 
         response = resource.interruptCommand(planName, phaseName);
         validateCommandResult(response, "interrupt");
-        verify(mockPhaseStrategy, times(2)).interrupt();
+        verify(mockPhase, times(2)).interrupt();
     }
 
     @Test
@@ -365,4 +461,10 @@ public class PlansResourceTest {
     private static void validateCommandResult(Response response, String commandName) {
         assertEquals("{\"message\": \"Received cmd: " + commandName + "\"}", response.getEntity().toString());
     }
+
+    private JSONObject getWatchJson(String planName, Long sinceVersion, Integer waitSeconds) {
+        Response response = resource.getPlanInfo(planName, true, sinceVersion, waitSeconds);
+        assertEquals(200, response.getStatus());
+        return new JSONObject((String) response.getEntity());
+    }
 }
@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -138,7 +139,7 @@ public class PodResourceTest {
     public void testGetAllPodStatuses() {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
         when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
-        Response response = resource.getPodStatuses();
+        Response response = resource.getPodStatuses(false, null, null);
         assertEquals(200, response.getStatus());
         JSONObject json = new JSONObject((String) response.getEntity());
         assertEquals(json.toString(), 4, json.length());
@@ -204,6 +205,63 @@ public class PodResourceTest {
         assertEquals("TASK_RUNNING", task.getString("state"));
     }
 
+    @Test
+    public void testWatchPodStatuses() throws Exception {
+        when(mockStateStore.getDataVersion()).thenReturn(1L);
+        when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
+        when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
+
+        // Without a version, the current statuses are returned:
+        JSONObject json = getWatchJson(null, null);
+        long version = json.getLong("version");
+        assertEquals(4, json.getJSONObject("pods").length());
+        assertEquals("TASK_STAGING", json.getJSONObject("pods").getJSONArray("test-0").getJSONObject(1).get("state"));
+
+        // Tasks aren't re-read until the state store's data changes:
+        json = getWatchJson(version, null);
+        assertEquals(version, json.getLong("version"));
+        assertEquals(0, json.getJSONArray("events").length());
+        verify(mockStateStore, times(2)).fetchTasks();
+
+        // test-0 b is now running, and test-2 a has been removed:
+        TaskStatus runningStatus = POD_0_STATUS_B.toBuilder().setState(TaskState.TASK_RUNNING).build();
+        when(mockStateStore.getDataVersion()).thenReturn(2L);
+        when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS.stream()
+                .filter(task -> task != POD_2_TASK_A)
+                .collect(Collectors.toList()));
+        when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES.stream()
+                .map(status -> status == POD_0_STATUS_B ? runningStatus : status)
+                .collect(Collectors.toList()));
+        json = getWatchJson(version, null);
+        JSONArray events = json.getJSONArray("events");
+        assertEquals(events.toString(), 2, events.length());
+        assertEquals("task", events.getJSONObject(0).get("type"));
+        assertEquals("test-0", events.getJSONObject(0).get("pod"));
+        assertEquals("b", events.getJSONObject(0).get("name"));
+        assertEquals("TASK_RUNNING", events.getJSONObject(0).get("state"));
+        assertEquals("test-2", events.getJSONObject(1).get("pod"));
+        assertEquals("a", events.getJSONObject(1).get("name"));
+        assertTrue(events.getJSONObject(1).getBoolean("removed"));
+        assertEquals(events.getJSONObject(1).getLong("version"), json.getLong("version"));
+        version = json.getLong("version");
+
+        // A waiting request returns once the state store's data has changed:
+        when(mockStateStore.awaitDataVersion(eq(2L), anyLong())).thenAnswer(invocation -> {
+            when(mockStateStore.getDataVersion()).thenReturn(3L);
+            when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
+            return 3L;
+        });
+        json = getWatchJson(version, 10);
+        events = json.getJSONArray("events");
+        assertEquals(events.toString(), 1, events.length());
+        assertEquals("TASK_STAGING", events.getJSONObject(0).get("state"));
+
+        // A version which isn't known to the scheduler results in the current statuses being returned:
+        json = getWatchJson(version - 1000, null);
+        assertEquals(json.getLong("version"), events.getJSONObject(0).getLong("version"));
+        assertEquals(3, json.getJSONObject("pods").length());
+    }
+
     @Test
     public void testGetPodStatus() {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
@@ -360,4 +418,10 @@ public class PodResourceTest {
         verify(mockTaskKiller).killTask(POD_1_TASK_B.getTaskId(), RecoveryType.PERMANENT);
         verifyNoMoreInteractions(mockTaskKiller);
     }
+
+    private JSONObject getWatchJson(Long sinceVersion, Integer waitSeconds) {
+        Response response = resource.getPodStatuses(true, sinceVersion, waitSeconds);
+        assertEquals(200, response.getStatus());
+        return new JSONObject((String) response.getEntity());
+    }
 }
@@ -4,6 +4,7 @@ import com.mesosphere.sdk.storage.*;
 import org.apache.mesos.Protos.*;
 
 import com.mesosphere.sdk.api.types.StringPropertyDeserializer;
+import com.mesosphere.sdk.offer.CommonIdUtils;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.state.StateStoreException;
 import com.mesosphere.sdk.storage.StorageError.Reason;
@@ -24,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -138,6 +140,28 @@ public class StateResourceTest {
         verify(mockPersisterCache).refresh();
     }
 
+    @Test
+    public void testRefreshCacheReloadsTaskIndex() throws PersisterException {
+        PersisterCache cache = new PersisterCache(persister);
+        StateStore cachedStateStore = new StateStore(cache);
+        resource = new StateResource(cachedStateStore, new StringPropertyDeserializer());
+        TaskInfo task = createTask("a");
+        cachedStateStore.storeTasks(Collections.singletonList(task));
+
+        // ZK is edited behind the scheduler's back:
+        StateStore externalStateStore = new StateStore(persister);
+        TaskStatus status = TaskStatus.newBuilder().setTaskId(task.getTaskId()).setState(TaskState.TASK_FAILED).build();
+        externalStateStore.storeStatus("a", status);
+        externalStateStore.storeTasks(Collections.singletonList(createTask("b")));
+        assertEquals(Arrays.asList("a"), cachedStateStore.fetchTaskNames());
+        assertFalse(cachedStateStore.fetchStatus("a").isPresent());
+
+        assertEquals(200, resource.refreshCache().getStatus());
+        assertEquals(Arrays.asList("a", "b"), cachedStateStore.fetchTaskNames());
+        assertEquals(status, cachedStateStore.fetchStatus("a").get());
+        assertEquals(1, cachedStateStore.fetchTasksForTaskId(createTask("b").getTaskId()).size());
+    }
+
     @Test
     public void testRefreshCacheNotCached() {
         when(mockStateStore.getPersister()).thenReturn(mockPersister);
@@ -233,4 +257,12 @@ public class StateResourceTest {
     private static void validateCommandResult(Response response, String commandName) {
         assertEquals("{\"message\": \"Received cmd: " + commandName + "\"}", response.getEntity().toString());
     }
+
+    private static TaskInfo createTask(String taskName) {
+        return TaskInfo.newBuilder()
+                .setName(taskName)
+                .setTaskId(CommonIdUtils.toTaskId(taskName))
+                .setSlaveId(SlaveID.newBuilder().setValue("ignored")) // proto field required
+                .build();
+    }
 }
@@ -3,18 +3,24 @@ package com.mesosphere.sdk.config;
 import com.mesosphere.sdk.config.validate.DefaultConfigValidators;
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.dcos.DcosConstants;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
 import com.mesosphere.sdk.specification.*;
 import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.ConfigStoreException;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
 import org.junit.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.*;
 
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -107,6 +113,7 @@ public class ConfigurationUpdaterTest {
     @Mock private ConfigStore<ServiceSpec> mockConfigStore;
     @Mock private ServiceSpec mockUnknownConfig;
     @Mock private Capabilities mockCapabilities;
+    @Captor private ArgumentCaptor<Collection<Protos.TaskInfo>> tasksCaptor;
 
     @Before
     public void beforeEach() {
@@ -161,6 +168,8 @@ public class ConfigurationUpdaterTest {
         when(mockConfigStore.store(UPDATED_SERVICE_SPECIFICATION)).thenReturn(NEW_ID);
         ConfigurationUpdater.UpdateResult result = configurationUpdater.updateConfiguration(UPDATED_SERVICE_SPECIFICATION);
         verify(mockConfigStore).setTargetConfig(NEW_ID);
+        // No tasks refer to the prior target, so only the new target is retained:
+        verify(mockConfigStore).clearAllExcept(Collections.singleton(NEW_ID));
         Assert.assertEquals(NEW_ID, result.getTargetId());
         Assert.assertTrue(result.getErrors().isEmpty());
     }
@@ -294,4 +303,50 @@ public class ConfigurationUpdaterTest {
         Assert.assertEquals(TARGET_ID, result.getTargetId());
         Assert.assertEquals(0, result.getErrors().size());
     }
+
+    @Test
+    public void testTasksOnUnchangedPodsMoveToNewTarget() throws Exception {
+        final ConfigurationUpdater<ServiceSpec> configurationUpdater = new DefaultConfigurationUpdater(
+                mockStateStore,
+                mockConfigStore,
+                DefaultServiceSpec.getComparatorInstance(),
+                DefaultConfigValidators.getValidators(SchedulerConfigTestUtils.getTestSchedulerConfig()));
+        when(mockConfigStore.getTargetConfig()).thenReturn(TARGET_ID);
+        when(mockConfigStore.fetch(TARGET_ID)).thenReturn(ORIGINAL_SERVICE_SPECIFICATION);
+        when(mockConfigStore.store(UPDATED_SERVICE_SPECIFICATION)).thenReturn(NEW_ID);
+        when(mockConfigStore.fetch(NEW_ID)).thenReturn(UPDATED_SERVICE_SPECIFICATION);
+        when(mockStateStore.fetchTasks()).thenReturn(Arrays.asList(
+                getTaskInfo("POD-A-0-A", TASK_A_POD_NAME, TARGET_ID),
+                getTaskInfo("POD-B-0-B", TASK_B_POD_NAME, TARGET_ID),
+                getTaskInfo("POD-B-1-B", TASK_B_POD_NAME, TARGET_ID)));
+        ConfigurationUpdater.UpdateResult result =
+                configurationUpdater.updateConfiguration(UPDATED_SERVICE_SPECIFICATION);
+        Assert.assertEquals(NEW_ID, result.getTargetId());
+
+        // Only POD-A was changed, so the POD-B tasks are moved to the new target:
+        verify(mockStateStore).storeTasks(tasksCaptor.capture());
+        Assert.assertEquals(2, tasksCaptor.getValue().size());
+        for (Protos.TaskInfo taskInfo : tasksCaptor.getValue()) {
+            Assert.assertEquals(TASK_B_POD_NAME, new TaskLabelReader(taskInfo).getType());
+            Assert.assertEquals(NEW_ID, new TaskLabelReader(taskInfo).getTargetConfiguration());
+        }
+        verify(mockConfigStore).clearAllExcept(new HashSet<>(Arrays.asList(NEW_ID, TARGET_ID)));
+        // The prior target is fetched once as the target, and once to diff against the new target for all tasks:
+        verify(mockConfigStore, times(2)).fetch(TARGET_ID);
+        verify(mockConfigStore).fetch(NEW_ID);
+    }
+
+    private static Protos.TaskInfo getTaskInfo(String name, String podType, UUID configId) {
+        Protos.TaskInfo.Builder taskBuilder = Protos.TaskInfo.newBuilder()
+                .setName(name)
+                .setTaskId(TestConstants.TASK_ID)
+                .setSlaveId(TestConstants.AGENT_ID);
+        return taskBuilder
+                .setLabels(new TaskLabelWriter(taskBuilder)
+                        .setType(podType)
+                        .setIndex(0)
+                        .setTargetConfiguration(configId)
+                        .toProto())
+                .build();
+    }
 }
@@ -0,0 +1,139 @@
+package com.mesosphere.sdk.config;
+
+import com.mesosphere.sdk.offer.evaluate.placement.TestPlacementUtils;
+import com.mesosphere.sdk.specification.*;
+import com.mesosphere.sdk.state.ConfigStore;
+import com.mesosphere.sdk.state.ConfigStoreException;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link ServiceSpecDiff} and {@link ServiceSpecDiffCache}.
+ */
+public class ServiceSpecDiffTest {
+
+    private static final UUID OLD_ID = UUID.randomUUID();
+    private static final UUID NEW_ID = UUID.randomUUID();
+
+    private static final PodSpec POD_A = TestPodFactory.getPodSpec("pod-a", 1, "echo a");
+    private static final PodSpec POD_B = TestPodFactory.getPodSpec("pod-b", 2, "echo b");
+    private static final ServiceSpec SERVICE_SPEC = TestPodFactory.getServiceSpec(POD_A, POD_B);
+
+    @Mock private ConfigStore<ServiceSpec> mockConfigStore;
+    @Mock private ConfigStore<StringConfiguration> mockStringConfigStore;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testSameSpec() {
+        ServiceSpecDiff diff = ServiceSpecDiff.compute(SERVICE_SPEC, TestPodFactory.getServiceSpec(POD_A, POD_B));
+        assertTrue(diff.isEmpty());
+        assertTrue(diff.getAddedPodTypes().isEmpty());
+        assertTrue(diff.getRemovedPodTypes().isEmpty());
+        assertTrue(diff.getChangedPodTypes().isEmpty());
+        assertFalse(diff.isPodUpdateNeeded("pod-a"));
+        assertFalse(diff.isPodUpdateNeeded("pod-b"));
+        assertTrue(diff.isPodUpdateNeeded("pod-c"));
+    }
+
+    @Test
+    public void testChangedTask() {
+        PodSpec updatedPodB = TestPodFactory.getPodSpec("pod-b", 2, "echo updated");
+        ServiceSpecDiff diff = ServiceSpecDiff.compute(SERVICE_SPEC, TestPodFactory.getServiceSpec(POD_A, updatedPodB));
+        assertFalse(diff.isEmpty());
+        assertEquals(Collections.singleton("pod-b"), diff.getChangedPodTypes());
+        assertEquals(Collections.singleton("server"), diff.getChangedTaskNames("pod-b"));
+        assertTrue(diff.getChangedTaskNames("pod-a").isEmpty());
+        assertFalse(diff.isPodUpdateNeeded("pod-a"));
+        assertTrue(diff.isPodUpdateNeeded("pod-b"));
+    }
+
+    @Test
+    public void testCountAndPlacementChangesAreIgnored() {
+        PodSpec rescaledPodB = DefaultPodSpec.newBuilder(POD_B)
+                .count(5)
+                .placementRule(TestPlacementUtils.PASS)
+                .build();
+        ServiceSpecDiff diff = ServiceSpecDiff.compute(
+                SERVICE_SPEC, TestPodFactory.getServiceSpec(POD_A, rescaledPodB));
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.getChangedPodTypes().isEmpty());
+        assertFalse(diff.isPodUpdateNeeded("pod-b"));
+    }
+
+    @Test
+    public void testAddedAndRemovedPods() {
+        PodSpec podC = TestPodFactory.getPodSpec("pod-c", 1, "echo c");
+        ServiceSpecDiff diff = ServiceSpecDiff.compute(SERVICE_SPEC, TestPodFactory.getServiceSpec(POD_A, podC));
+        assertEquals(Collections.singleton("pod-c"), diff.getAddedPodTypes());
+        assertEquals(Collections.singleton("pod-b"), diff.getRemovedPodTypes());
+        assertTrue(diff.getChangedPodTypes().isEmpty());
+        assertFalse(diff.isPodUpdateNeeded("pod-a"));
+        assertTrue(diff.isPodUpdateNeeded("pod-b"));
+        assertTrue(diff.isPodUpdateNeeded("pod-c"));
+    }
+
+    @Test
+    public void testCacheComputesEachPairOnce() throws ConfigStoreException {
+        when(mockConfigStore.fetch(OLD_ID)).thenReturn(SERVICE_SPEC);
+        when(mockConfigStore.fetch(NEW_ID)).thenReturn(
+                TestPodFactory.getServiceSpec(POD_A, TestPodFactory.getPodSpec("pod-b", 2, "echo updated")));
+        ServiceSpecDiffCache cache = new ServiceSpecDiffCache(mockConfigStore);
+
+        ServiceSpecDiff diff = cache.getDiff(OLD_ID, NEW_ID);
+        assertEquals(Collections.singleton("pod-b"), diff.getChangedPodTypes());
+        assertSame(diff, cache.getDiff(OLD_ID, NEW_ID));
+        verify(mockConfigStore, times(1)).fetch(OLD_ID);
+        verify(mockConfigStore, times(1)).fetch(NEW_ID);
+
+        // The reverse direction is a separate pair:
+        assertNotSame(diff, cache.getDiff(NEW_ID, OLD_ID));
+        verify(mockConfigStore, times(2)).fetch(OLD_ID);
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() throws ConfigStoreException {
+        when(mockConfigStore.fetch(OLD_ID)).thenReturn(SERVICE_SPEC);
+        when(mockConfigStore.fetch(NEW_ID)).thenReturn(SERVICE_SPEC);
+        ServiceSpecDiffCache cache = new ServiceSpecDiffCache(mockConfigStore, 1);
+
+        ServiceSpecDiff diff = cache.getDiff(OLD_ID, NEW_ID);
+        cache.getDiff(NEW_ID, OLD_ID);
+        assertNotSame(diff, cache.getDiff(OLD_ID, NEW_ID));
+    }
+
+    @Test
+    public void testCacheMissingConfig() throws ConfigStoreException {
+        when(mockConfigStore.fetch(OLD_ID)).thenThrow(new ConfigStoreException(Reason.NOT_FOUND, "hi"));
+        when(mockConfigStore.fetch(NEW_ID)).thenReturn(SERVICE_SPEC);
+        try {
+            new ServiceSpecDiffCache(mockConfigStore).getDiff(OLD_ID, NEW_ID);
+            fail("Expected an exception");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.NOT_FOUND, e.getReason());
+        }
+    }
+
+    @Test
+    public void testCacheNotServiceSpec() throws ConfigStoreException {
+        when(mockStringConfigStore.fetch(OLD_ID)).thenReturn(new StringConfiguration("one"));
+        try {
+            new ServiceSpecDiffCache(mockStringConfigStore).getDiff(OLD_ID, OLD_ID);
+            fail("Expected an exception");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.LOGIC_ERROR, e.getReason());
+        }
+    }
+}
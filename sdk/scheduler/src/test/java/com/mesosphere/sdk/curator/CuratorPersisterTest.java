@@ -26,14 +26,24 @@ import org.mockito.MockitoAnnotations;
 
 import com.mesosphere.sdk.specification.ServiceSpec;
 import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
 import com.mesosphere.sdk.storage.PersisterException;
 import com.mesosphere.sdk.storage.PersisterUtils;
 import com.mesosphere.sdk.storage.StorageError.Reason;
+import com.mesosphere.sdk.storage.WatchablePersister;
+import com.mesosphere.sdk.storage.WatchingPersisterCache;
 import com.mesosphere.sdk.testutils.TestConstants;
 
+import java.io.Closeable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.verify;
@@ -389,6 +399,182 @@ public class CuratorPersisterTest {
         assertEquals(Collections.singleton("/lock"), PersisterUtils.getAllKeys(persister));
     }
 
+    // Uses a real ZK instance to ensure that our integration works as expected:
+    @Test
+    public void testSetManyWithParentAndChild() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        Persister persister = CuratorPersister.newBuilder(mockServiceSpec).build();
+
+        Map<String, byte[]> map = new TreeMap<>();
+        map.put("a", DATA_1);
+        map.put("a/b/c", DATA_2);
+        map.put("a-b", DATA_1);
+        persister.setMany(map);
+
+        assertArrayEquals(DATA_1, persister.get("a"));
+        assertArrayEquals(DATA_2, persister.get("a/b/c"));
+        assertArrayEquals(DATA_1, persister.get("a-b"));
+    }
+
+    // Uses a real ZK instance to ensure that our integration works as expected:
+    @Test
+    public void testWritesRecoverFromOutOfBandDeletes() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        Persister persister = CuratorPersister.newBuilder(mockServiceSpec).build();
+        Persister otherPersister = CuratorPersister.newBuilder(mockServiceSpec).build();
+
+        persister.set(PATH_1, DATA_1);
+        persister.setMany(MANY_MAP);
+
+        // Nodes which were previously seen by the persister are deleted by another client:
+        otherPersister.deleteAll(PATH_PARENT);
+        persister.set(PATH_1, DATA_2);
+        assertArrayEquals(DATA_2, persister.get(PATH_1));
+
+        otherPersister.deleteAll(PATH_PARENT);
+        persister.setMany(MANY_MAP);
+        for (Map.Entry<String, byte[]> entry : MANY_MAP.entrySet()) {
+            assertArrayEquals(entry.getValue(), persister.get(entry.getKey()));
+        }
+
+        persister.close();
+        otherPersister.close();
+    }
+
+    @Test
+    public void testBulkReadExceedingInFlightWindow() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        CuratorPersister persister = CuratorPersister.newBuilder(mockServiceSpec).build();
+
+        Map<String, byte[]> expected = new TreeMap<>();
+        for (int i = 0; i < 250; ++i) {
+            expected.put(String.format("/bulk/%d/data", i), String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+        }
+        persister.setMany(expected);
+
+        // Many more reads than the in-flight window at once:
+        Map<String, CompletableFuture<byte[]>> reads = new TreeMap<>();
+        for (String path : expected.keySet()) {
+            reads.put(path, persister.getAsync(path));
+        }
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), reads.get(entry.getKey()).get(10, TimeUnit.SECONDS));
+        }
+
+        Map<String, byte[]> allData = PersisterUtils.getAllData(persister);
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), allData.get(entry.getKey()));
+        }
+
+        persister.close();
+    }
+
+    @Test
+    public void testVersions() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        CuratorPersister persister = CuratorPersister.newBuilder(mockServiceSpec).build();
+        persister.setMany(MANY_MAP);
+
+        Map<String, Long> versions = persister.getAllVersions();
+        assertEquals(PersisterUtils.getAllKeys(persister), versions.keySet());
+        assertEquals(
+                Collections.singletonMap(PATH_1, versions.get(PATH_1)),
+                persister.getVersions(Arrays.asList(PATH_1, "/missing")));
+
+        // Only the modified node's version changes:
+        persister.set(PATH_1, DATA_2);
+        Map<String, Long> updatedVersions = persister.getAllVersions();
+        assertNotEquals(versions.get(PATH_1), updatedVersions.get(PATH_1));
+        updatedVersions.remove(PATH_1);
+        versions.remove(PATH_1);
+        assertEquals(versions, updatedVersions);
+
+        // A recreated node doesn't reuse its previous version:
+        persister.deleteAll(PATH_SUB_1);
+        persister.set(PATH_SUB_1, DATA_SUB_1);
+        assertNotEquals(versions.get(PATH_SUB_1), persister.getAllVersions().get(PATH_SUB_1));
+
+        persister.close();
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        CuratorPersister persister = CuratorPersister.newBuilder(mockServiceSpec).build();
+        persister.set(PATH_1, DATA_1);
+
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        CountDownLatch initialized = new CountDownLatch(1);
+        Closeable watch = persister.watch(new WatchablePersister.Listener() {
+            @Override
+            public void onUpdated(String path, byte[] data, long version) {
+                events.add(String.format("updated %s=%s@%d", path, new String(data, StandardCharsets.UTF_8), version));
+            }
+
+            @Override
+            public void onRemoved(String path, long version) {
+                events.add(String.format("removed %s@%d", path, version));
+            }
+
+            @Override
+            public void onInitialized() {
+                initialized.countDown();
+            }
+        });
+        assertTrue(initialized.await(10, TimeUnit.SECONDS));
+        Set<String> initialEvents = new HashSet<>();
+        events.drainTo(initialEvents);
+        long version = persister.getVersions(Collections.singleton(PATH_1)).get(PATH_1);
+        assertTrue(initialEvents.toString(),
+                initialEvents.contains(String.format("updated %s=one@%d", PATH_1, version)));
+
+        persister.set(PATH_1, DATA_2);
+        version = persister.getVersions(Collections.singleton(PATH_1)).get(PATH_1);
+        assertEquals(String.format("updated %s=two@%d", PATH_1, version), events.poll(10, TimeUnit.SECONDS));
+
+        persister.deleteAll(PATH_1);
+        assertEquals(String.format("removed %s@%d", PATH_1, version), events.poll(10, TimeUnit.SECONDS));
+
+        watch.close();
+        persister.close();
+    }
+
+    @Test
+    public void testWatchedCacheSeesExternalWrites() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        PersisterCache cache = new WatchingPersisterCache(
+                CuratorPersister.newBuilder(mockServiceSpec).build(), Duration.ofSeconds(10));
+        Persister otherPersister = CuratorPersister.newBuilder(mockServiceSpec).build();
+        cache.setMany(MANY_MAP);
+
+        // Writes by another client are applied to the cache, while the cache's own writes are visible immediately:
+        otherPersister.set(PATH_1, DATA_2);
+        otherPersister.deleteAll(PATH_SUB_2);
+        for (int i = 0; i < 10; ++i) {
+            cache.set(PATH_2, String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+            assertArrayEquals(String.valueOf(i).getBytes(StandardCharsets.UTF_8), cache.get(PATH_2));
+        }
+        for (int i = 0; i < 1000 && !Arrays.equals(DATA_2, cache.get(PATH_1)); ++i) {
+            Thread.sleep(10);
+        }
+        assertArrayEquals(DATA_2, cache.get(PATH_1));
+        for (int i = 0; i < 1000 && cache.getChildren(PATH_PARENT + "/sub").contains("2"); ++i) {
+            Thread.sleep(10);
+        }
+        assertEquals(Collections.singleton("1"), cache.getChildren(PATH_PARENT + "/sub"));
+        assertArrayEquals("9".getBytes(StandardCharsets.UTF_8), cache.get(PATH_2));
+        assertArrayEquals("9".getBytes(StandardCharsets.UTF_8), otherPersister.get(PATH_2));
+
+        cache.close();
+        otherPersister.close();
+    }
+
     @Test
     public void testWriteServiceName() throws Exception {
         CuratorTestUtils.clear(testZk);
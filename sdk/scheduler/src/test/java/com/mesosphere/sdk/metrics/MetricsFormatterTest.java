@@ -0,0 +1,75 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsFormatterTest {
+
+    private MetricRegistry registry;
+
+    @Before
+    public void beforeEach() {
+        registry = new MetricRegistry();
+        registry.register("queue.depth", (Gauge<Integer>) () -> 3);
+        registry.register("is.enabled", (Gauge<Boolean>) () -> true);
+        registry.register("name", (Gauge<String>) () -> "not-a-number");
+        registry.counter("offers.received").inc(7);
+        registry.histogram("batch.size").update(4);
+        registry.timer("offers.process").update(250, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testJson() {
+        JSONObject json = MetricsFormatter.toJson(registry);
+        Assert.assertEquals(3, json.getJSONObject("gauges").getJSONObject("queue.depth").getInt("value"));
+        Assert.assertEquals("not-a-number", json.getJSONObject("gauges").getJSONObject("name").getString("value"));
+        Assert.assertEquals(7, json.getJSONObject("counters").getJSONObject("offers.received").getLong("count"));
+
+        JSONObject histogram = json.getJSONObject("histograms").getJSONObject("batch.size");
+        Assert.assertEquals(1, histogram.getLong("count"));
+        Assert.assertEquals(4.0, histogram.getDouble("p99"), 0.001);
+
+        JSONObject timer = json.getJSONObject("timers").getJSONObject("offers.process");
+        Assert.assertEquals(1, timer.getLong("count"));
+        Assert.assertEquals(250.0, timer.getDouble("max"), 0.001);
+        Assert.assertEquals(250.0, timer.getDouble("p50"), 0.001);
+
+        Assert.assertEquals(0, json.getJSONObject("meters").length());
+    }
+
+    @Test
+    public void testPrometheus() {
+        List<String> lines = Arrays.asList(MetricsFormatter.toPrometheus(registry).split("\n"));
+        Assert.assertTrue(lines.contains("# TYPE queue_depth gauge"));
+        Assert.assertTrue(lines.contains("queue_depth 3"));
+        Assert.assertTrue(lines.contains("is_enabled 1"));
+        Assert.assertFalse(lines.stream().anyMatch(line -> line.contains("not-a-number")));
+
+        Assert.assertTrue(lines.contains("# TYPE offers_received counter"));
+        Assert.assertTrue(lines.contains("offers_received 7"));
+
+        Assert.assertTrue(lines.contains("# TYPE batch_size summary"));
+        Assert.assertTrue(lines.contains("batch_size{quantile=\"0.5\"} 4"));
+        Assert.assertTrue(lines.contains("batch_size_count 1"));
+
+        Assert.assertTrue(lines.contains("# TYPE offers_process_seconds summary"));
+        Assert.assertTrue(lines.contains("offers_process_seconds{quantile=\"0.99\"} 0.25"));
+        Assert.assertTrue(lines.contains("offers_process_seconds_count 1"));
+    }
+
+    @Test
+    public void testPrometheusNames() {
+        Assert.assertEquals("offers_received", MetricsFormatter.toPrometheusName("offers.received"));
+        Assert.assertEquals("task_status_task_running", MetricsFormatter.toPrometheusName("task_status.task_running"));
+        Assert.assertEquals("persister_set_many", MetricsFormatter.toPrometheusName("persister.set-many"));
+        Assert.assertEquals("_5xx_responses", MetricsFormatter.toPrometheusName("5xx.responses"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testSetGaugeReplacesValueSupplier() {
+        Metrics.setGauge("test.gauge", () -> 1);
+        Gauge<?> gauge = Metrics.getRegistry().getGauges().get("test.gauge");
+        Assert.assertEquals(1, gauge.getValue());
+
+        // The registered gauge is kept, and reads from the new supplier:
+        Metrics.setGauge("test.gauge", () -> 2);
+        Assert.assertSame(gauge, Metrics.getRegistry().getGauges().get("test.gauge"));
+        Assert.assertEquals(2, gauge.getValue());
+    }
+
+    @Test
+    public void testIncrementCounter() {
+        long initialCount = Metrics.getCounter("test.counter").getCount();
+        Metrics.incrementCounter("test.counter");
+        Metrics.incrementCounter("test.counter", 5);
+        Assert.assertEquals(initialCount + 6, Metrics.getCounter("test.counter").getCount());
+    }
+
+    @Test
+    public void testRecordEvaluationStage() {
+        Metrics.recordEvaluationStage("TestStage", true, TimeUnit.MILLISECONDS.toNanos(5));
+        Metrics.recordEvaluationStage("TestStage", false, TimeUnit.MILLISECONDS.toNanos(10));
+        Metrics.recordEvaluationStage("TestStage", false, TimeUnit.MILLISECONDS.toNanos(15));
+
+        Assert.assertEquals(3, Metrics.getTimer("offers.evaluate.stage.TestStage").getCount());
+        Assert.assertEquals(
+                TimeUnit.MILLISECONDS.toNanos(15),
+                Metrics.getTimer("offers.evaluate.stage.TestStage").getSnapshot().getMax());
+        Assert.assertEquals(1, Metrics.getCounter("offers.evaluate.stage.TestStage.pass").getCount());
+        Assert.assertEquals(2, Metrics.getCounter("offers.evaluate.stage.TestStage.fail").getCount());
+    }
+
+    @Test
+    public void testRecordTaskStatus() {
+        long initialCount = Metrics.getCounter("task_status.task_killing").getCount();
+        Metrics.recordTaskStatus(Protos.TaskState.TASK_KILLING);
+        Assert.assertEquals(initialCount + 1, Metrics.getCounter("task_status.task_killing").getCount());
+    }
+
+    @Test
+    public void testStatsdNotConfigured() {
+        SchedulerConfig schedulerConfig = mock(SchedulerConfig.class);
+        when(schedulerConfig.isStatsdEnabled()).thenReturn(false);
+        Metrics.configureStatsd(schedulerConfig);
+        verify(schedulerConfig, never()).getStatsdHost();
+        verify(schedulerConfig, never()).getStatsdPort();
+    }
+}
@@ -0,0 +1,99 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class StatsdReporterTest {
+
+    private DatagramSocket server;
+    private MetricRegistry registry;
+    private StatsdReporter reporter;
+
+    @Before
+    public void beforeEach() throws Exception {
+        server = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(5000);
+        registry = new MetricRegistry();
+        reporter = new StatsdReporter(registry, MetricFilter.ALL, "127.0.0.1", server.getLocalPort());
+    }
+
+    @After
+    public void afterEach() {
+        reporter.close();
+        server.close();
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        registry.register("queue.depth", (Gauge<Integer>) () -> 3);
+        registry.counter("offers.received").inc(7);
+        registry.timer("offers.process").update(250, TimeUnit.MILLISECONDS);
+
+        reporter.report();
+        List<String> lines = receive();
+        Assert.assertTrue(lines.contains("queue.depth:3|g"));
+        Assert.assertTrue(lines.contains("offers.received:7|c"));
+        Assert.assertTrue(lines.contains("offers.process.count:1|g"));
+        Assert.assertTrue(lines.contains("offers.process.max:250|g"));
+        Assert.assertTrue(lines.contains("offers.process.p99:250|g"));
+    }
+
+    @Test
+    public void testCountersAreSentAsDeltas() throws Exception {
+        registry.counter("offers.received").inc(7);
+        reporter.report();
+        Assert.assertEquals(Arrays.asList("offers.received:7|c"), receive());
+
+        registry.counter("offers.received").inc(2);
+        registry.counter("offers.declined").inc();
+        reporter.report();
+        Assert.assertEquals(Arrays.asList("offers.declined:1|c", "offers.received:2|c"), receive());
+    }
+
+    @Test
+    public void testLargeReportIsSplitAcrossPackets() throws Exception {
+        for (int i = 0; i < 200; ++i) {
+            registry.counter(String.format("counter.%03d", i)).inc();
+        }
+        reporter.report();
+
+        List<String> lines = new ArrayList<>();
+        while (lines.size() < 200) {
+            DatagramPacket packet = receivePacket();
+            Assert.assertTrue(packet.getLength() <= StatsdReporter.MAX_PACKET_BYTES);
+            lines.addAll(toLines(packet));
+        }
+        Assert.assertEquals(200, lines.size());
+        Assert.assertEquals("counter.000:1|c", lines.get(0));
+        Assert.assertEquals("counter.199:1|c", lines.get(199));
+    }
+
+    private List<String> receive() throws Exception {
+        return toLines(receivePacket());
+    }
+
+    private DatagramPacket receivePacket() throws Exception {
+        DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+        server.receive(packet);
+        return packet;
+    }
+
+    private static List<String> toLines(DatagramPacket packet) {
+        return Arrays.asList(
+                new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8).split("\n"));
+    }
+}
@@ -54,6 +54,25 @@ public class MesosResourcePoolTest extends DefaultCapabilitiesTestSuite {
         Assert.assertEquals(2, pool.getUnreservedAtomicPool().get("disk").size());
     }
 
+    @Test
+    public void testCopyIsConsumedIndependently() {
+        Resource mountResource = ResourceTestUtils.getUnreservedMountVolume(1000);
+        Offer offer = OfferTestUtils.getOffer(Arrays.asList(mountResource, ResourceTestUtils.getUnreservedCpus(2.0)));
+        MesosResourcePool pool = new MesosResourcePool(offer, Optional.of(Constants.ANY_ROLE));
+        MesosResourcePool copy = pool.copy();
+
+        Assert.assertTrue(copy.consumeAtomic("disk", ValueUtils.getValue(mountResource)).isPresent());
+        Assert.assertTrue(copy.consumeReservableMerged(
+                "cpus", ValueUtils.getValue(ResourceTestUtils.getUnreservedCpus(1.5)), Constants.ANY_ROLE)
+                .isPresent());
+
+        Assert.assertEquals(offer, copy.getOffer());
+        Assert.assertEquals(0, copy.getUnreservedAtomicPool().size());
+        Assert.assertEquals(0.5, copy.getUnreservedMergedPool().get("cpus").getScalar().getValue(), 0.0);
+        Assert.assertEquals(1, pool.getUnreservedAtomicPool().get("disk").size());
+        Assert.assertEquals(2.0, pool.getUnreservedMergedPool().get("cpus").getScalar().getValue(), 0.0);
+    }
+
     @Test
     public void testConsumeUnreservedAtomicResource() {
         Resource offerResource = ResourceTestUtils.getUnreservedMountVolume(1000);
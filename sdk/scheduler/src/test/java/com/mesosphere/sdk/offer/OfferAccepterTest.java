@@ -4,6 +4,7 @@ import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
 import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 import org.apache.mesos.Protos;
+import org.apache.mesos.Protos.Filters;
 import org.apache.mesos.Protos.Offer;
 import org.apache.mesos.Protos.Offer.Operation;
 import org.apache.mesos.Protos.OfferID;
@@ -20,6 +21,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.Mockito.*;
@@ -82,6 +84,74 @@ public class OfferAccepterTest {
                 anyObject());
     }
 
+    @Test
+    public void testAcceptRecordedGroupsByOffer() {
+        Resource resource = ResourceTestUtils.getUnreservedCpus(1.0);
+        Offer offer1 = OfferTestUtils.getOffer(resource);
+        Offer offer2 = offer1.toBuilder().setId(OfferID.newBuilder().setValue("other-offer")).build();
+        List<OfferRecommendation> recommendations = Arrays.asList(
+                new ReserveOfferRecommendation(offer1, resource),
+                new ReserveOfferRecommendation(offer2, resource),
+                new UnreserveOfferRecommendation(offer1, ResourceTestUtils.getReservedCpus(1.0, "resource-id")));
+
+        TestOperationRecorder recorder = new TestOperationRecorder();
+        OfferAccepter accepter = new OfferAccepter(Arrays.asList(recorder));
+        Assert.assertTrue(accepter.record(recommendations));
+        Assert.assertEquals(2, recorder.getReserves().size());
+        Assert.assertEquals(1, recorder.getUnreserves().size());
+        verifyZeroInteractions(driver);
+
+        List<OfferID> offerIds = accepter.acceptRecorded(driver, recommendations);
+        Assert.assertEquals(Arrays.asList(offer1.getId(), offer2.getId()), offerIds);
+        verify(driver).acceptOffers(
+                Collections.singletonList(offer1.getId()),
+                Arrays.asList(recommendations.get(0).getOperation(), recommendations.get(2).getOperation()),
+                Filters.newBuilder().setRefuseSeconds(1).build());
+        verify(driver).acceptOffers(
+                Collections.singletonList(offer2.getId()),
+                Arrays.asList(recommendations.get(1).getOperation()),
+                Filters.newBuilder().setRefuseSeconds(1).build());
+        // Recording isn't repeated:
+        Assert.assertEquals(2, recorder.getReserves().size());
+    }
+
+    @Test
+    public void testRecordFailure() {
+        OperationRecorder failingRecorder = recommendation -> {
+            throw new Exception("test failure");
+        };
+        OfferAccepter accepter = new OfferAccepter(Arrays.asList(failingRecorder));
+        Resource resource = ResourceTestUtils.getUnreservedCpus(1.0);
+        Assert.assertFalse(accepter.record(
+                Arrays.asList(new ReserveOfferRecommendation(OfferTestUtils.getOffer(resource), resource))));
+    }
+
+    @Test
+    public void testRecordersAreFlushedBeforeAccepting() {
+        List<String> calls = new ArrayList<>();
+        OperationRecorder deferringRecorder = new OperationRecorder() {
+            @Override
+            public void record(OfferRecommendation offerRecommendation) {
+                calls.add("record");
+            }
+
+            @Override
+            public void flush() throws Exception {
+                calls.add("flush");
+                throw new Exception("test failure");
+            }
+        };
+        OfferAccepter accepter = new OfferAccepter(Arrays.asList(deferringRecorder));
+        Resource resource = ResourceTestUtils.getUnreservedCpus(1.0);
+        Offer offer = OfferTestUtils.getOffer(resource);
+
+        Assert.assertTrue(accepter.accept(driver, Arrays.asList(
+                new ReserveOfferRecommendation(offer, resource),
+                new ReserveOfferRecommendation(offer, resource))).isEmpty());
+        Assert.assertEquals(Arrays.asList("record", "record", "flush"), calls);
+        verifyZeroInteractions(driver);
+    }
+
     public static class TestOperationRecorder implements OperationRecorder {
         private List<Operation> reserves = new ArrayList<>();
         private List<Operation> unreserves = new ArrayList<>();
@@ -0,0 +1,57 @@
+package com.mesosphere.sdk.offer;
+
+import com.mesosphere.sdk.testutils.DefaultCapabilitiesTestSuite;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+
+import org.apache.mesos.Protos.Offer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+
+public class OfferResourcePoolsTest extends DefaultCapabilitiesTestSuite {
+
+    private static final Optional<String> ROLE = Optional.of(Constants.ANY_ROLE);
+
+    @Test
+    public void testRollbackRestoresMarkedPools() {
+        Offer offer = OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpus(2.0));
+        OfferResourcePools resourcePools = new OfferResourcePools();
+
+        resourcePools.mark();
+        consumeCpus(resourcePools, offer, 0.5);
+        Assert.assertEquals(1.5, getRemainingCpus(resourcePools, offer), 0.0);
+
+        resourcePools.mark();
+        consumeCpus(resourcePools, offer, 1.0);
+        Assert.assertEquals(0.5, getRemainingCpus(resourcePools, offer), 0.0);
+
+        // Only the resources consumed since the last mark are returned:
+        resourcePools.rollback();
+        Assert.assertEquals(1.5, getRemainingCpus(resourcePools, offer), 0.0);
+    }
+
+    @Test
+    public void testRollbackRestoresUntrackedOffer() {
+        Offer offer = OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpus(2.0));
+        OfferResourcePools resourcePools = new OfferResourcePools();
+
+        resourcePools.mark();
+        consumeCpus(resourcePools, offer, 1.0);
+        resourcePools.rollback();
+        Assert.assertEquals(2.0, getRemainingCpus(resourcePools, offer), 0.0);
+    }
+
+    private static void consumeCpus(OfferResourcePools resourcePools, Offer offer, double cpus) {
+        MesosResourcePool pool = resourcePools.getPool(offer, ROLE);
+        Assert.assertTrue(pool.consumeReservableMerged(
+                "cpus", ValueUtils.getValue(ResourceTestUtils.getUnreservedCpus(cpus)), Constants.ANY_ROLE)
+                .isPresent());
+        resourcePools.setPool(pool, ROLE);
+    }
+
+    private static double getRemainingCpus(OfferResourcePools resourcePools, Offer offer) {
+        return resourcePools.getPool(offer, ROLE).getUnreservedMergedPool().get("cpus").getScalar().getValue();
+    }
+}
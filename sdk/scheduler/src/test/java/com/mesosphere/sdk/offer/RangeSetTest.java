@@ -0,0 +1,138 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Value.Range;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link RangeSet}.
+ */
+public class RangeSetTest {
+
+    @Test
+    public void testAddMergesOverlappingAndAdjacentRanges() {
+        RangeSet set = new RangeSet()
+                .add(10, 12)
+                .add(1, 3)
+                .add(20, 25)
+                .add(4, 5)
+                .add(11, 21);
+        assertEquals(Arrays.asList(getRange(1, 5), getRange(10, 25)), set.toRangeList());
+        assertEquals(2, set.getRangeCount());
+
+        set.add(7, 6);
+        assertEquals(2, set.getRangeCount());
+    }
+
+    @Test
+    public void testSubtractSplitsAndTrimsRanges() {
+        RangeSet set = RangeSet.of(Arrays.asList(getRange(1, 10), getRange(20, 30), getRange(40, 50)));
+
+        set.subtract(5, 6);
+        assertEquals(Arrays.asList(getRange(1, 4), getRange(7, 10), getRange(20, 30), getRange(40, 50)),
+                set.toRangeList());
+
+        set.subtract(8, 45);
+        assertEquals(Arrays.asList(getRange(1, 4), getRange(7, 7), getRange(46, 50)), set.toRangeList());
+
+        set.subtract(0, 100);
+        assertTrue(set.isEmpty());
+        assertEquals(Collections.emptyList(), set.toRangeList());
+    }
+
+    @Test
+    public void testContains() {
+        RangeSet set = RangeSet.of(Arrays.asList(getRange(1, 3), getRange(5, 7)));
+        assertFalse(set.contains(0));
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(4));
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(8));
+
+        assertTrue(set.contains(5, 7));
+        assertFalse(set.contains(3, 5));
+        assertTrue(set.containsAll(Arrays.asList(getRange(2, 3), getRange(5, 5))));
+        assertFalse(set.containsAll(Arrays.asList(getRange(2, 3), getRange(6, 8))));
+        assertTrue(set.containsAll(Collections.emptyList()));
+    }
+
+    @Test
+    public void testEquality() {
+        RangeSet set1 = RangeSet.of(Arrays.asList(getRange(1, 3), getRange(4, 6)));
+        RangeSet set2 = RangeSet.of(Arrays.asList(getRange(2, 6), getRange(1, 1)));
+        assertEquals(set1, set2);
+        assertEquals(set1.hashCode(), set2.hashCode());
+        assertEquals(RangeSet.of(set1.toRanges()), set1);
+
+        set2.subtract(6, 6);
+        assertNotEquals(set1, set2);
+    }
+
+    @Test
+    public void testValuesBeyondIntegerRange() {
+        long large = Integer.MAX_VALUE * 4L;
+        RangeSet set = new RangeSet().add(large, large + 10).add(Long.MAX_VALUE - 1, Long.MAX_VALUE);
+        set.subtract(large + 5, large + 5);
+        assertEquals(Arrays.asList(getRange(large, large + 4), getRange(large + 6, large + 10),
+                getRange(Long.MAX_VALUE - 1, Long.MAX_VALUE)), set.toRangeList());
+        assertTrue(set.contains(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testMatchesNaiveImplementation() {
+        Random random = new Random(0);
+        RangeSet set = new RangeSet();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 2000; ++i) {
+            long begin = random.nextInt(200);
+            long end = begin + random.nextInt(10);
+            if (random.nextBoolean()) {
+                set.add(begin, end);
+                for (long value = begin; value <= end; ++value) {
+                    expected.add(value);
+                }
+            } else {
+                set.subtract(begin, end);
+                for (long value = begin; value <= end; ++value) {
+                    expected.remove(value);
+                }
+            }
+            assertEquals(toRanges(expected), set.toRangeList());
+        }
+    }
+
+    private static List<Range> toRanges(TreeSet<Long> values) {
+        List<Range> ranges = new ArrayList<>();
+        Long begin = null;
+        Long previous = null;
+        for (long value : values) {
+            if (begin == null) {
+                begin = value;
+            } else if (value != previous + 1) {
+                ranges.add(getRange(begin, previous));
+                begin = value;
+            }
+            previous = value;
+        }
+        if (begin != null) {
+            ranges.add(getRange(begin, previous));
+        }
+        return ranges;
+    }
+
+    private static Range getRange(long begin, long end) {
+        return Range.newBuilder().setBegin(begin).setEnd(end).build();
+    }
+}
@@ -2,9 +2,12 @@ package com.mesosphere.sdk.offer.evaluate;
 
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.dcos.ResourceRefinementCapabilityContext;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.*;
+import com.mesosphere.sdk.offer.evaluate.scoring.OfferScorers;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
+import com.mesosphere.sdk.scheduler.SchedulerConfig;
 import com.mesosphere.sdk.scheduler.plan.DefaultPodInstance;
 import com.mesosphere.sdk.scheduler.plan.DeploymentStep;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
@@ -16,6 +19,7 @@ import com.mesosphere.sdk.specification.*;
 import com.mesosphere.sdk.state.PersistentLaunchRecorder;
 import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.*;
@@ -32,6 +36,8 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static org.mockito.Mockito.when;
+
 public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
     @Mock ServiceSpec serviceSpec;
 
@@ -71,6 +77,17 @@ public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
         Assert.assertEquals(prefix.length() + UUID.randomUUID().toString().length(), executorId.length());
     }
 
+    private static PodInstanceRequirement withOfferScorer(
+            PodInstanceRequirement podInstanceRequirement, String offerScorer) {
+        PodSpec podSpec = DefaultPodSpec.newBuilder(podInstanceRequirement.getPodInstance().getPod())
+                .offerScorer(offerScorer)
+                .build();
+        return PodInstanceRequirement.newBuilder(
+                new DefaultPodInstance(podSpec, podInstanceRequirement.getPodInstance().getIndex()),
+                podInstanceRequirement.getTasksToLaunch())
+                .build();
+    }
+
     private Collection<Resource> getExpectedExecutorResources(ExecutorInfo executorInfo) {
         String executorCpuId = executorInfo.getResourcesList().stream()
                 .filter(r -> r.getName().equals("cpus"))
@@ -381,6 +398,121 @@ public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
         Assert.assertEquals(Operation.Type.LAUNCH_GROUP, launchOperation.getType());
     }
 
+    @Test
+    public void testParallelEvaluationSelectsFirstPassingOffer() throws Exception {
+        SchedulerConfig schedulerConfig = SchedulerConfigTestUtils.getTestSchedulerConfig();
+        when(schedulerConfig.getOfferEvaluationParallelism()).thenReturn(4);
+        evaluator = new OfferEvaluator(stateStore, TestConstants.SERVICE_NAME, targetConfig, schedulerConfig, true);
+
+        PodInstanceRequirement podInstanceRequirement = PodInstanceRequirementTestUtils.getCpuRequirement(1.0);
+        List<Offer> offers = new ArrayList<>();
+        List<Offer> insufficientOffers = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            boolean sufficient = i % 3 == 2;
+            Resource resource = sufficient ?
+                    ResourceTestUtils.getUnreservedCpus(2.0) :
+                    ResourceTestUtils.getUnreservedMem(2.0);
+            Offer offer = OfferTestUtils.getCompleteOffer(resource).toBuilder()
+                    .setId(OfferID.newBuilder().setValue("offer-" + i))
+                    .build();
+            offers.add(offer);
+            if (!sufficient) {
+                insufficientOffers.add(offer);
+            }
+        }
+
+        long evaluationCount = Metrics.getTimer(Metrics.OFFERS_EVALUATE_DURATION).getCount();
+        List<OfferRecommendation> recommendations = evaluator.evaluate(podInstanceRequirement, offers);
+        Assert.assertEquals(evaluationCount + 1, Metrics.getTimer(Metrics.OFFERS_EVALUATE_DURATION).getCount());
+        Assert.assertEquals(5, recommendations.size());
+        for (OfferRecommendation recommendation : recommendations) {
+            Assert.assertEquals("offer-2", recommendation.getOffer().getId().getValue());
+        }
+        Assert.assertEquals(Operation.Type.RESERVE, recommendations.get(0).getOperation().getType());
+        Assert.assertEquals(Operation.Type.LAUNCH_GROUP, recommendations.get(4).getOperation().getType());
+
+        // No offer is sufficient:
+        recommendations = evaluator.evaluate(podInstanceRequirement, insufficientOffers);
+        Assert.assertTrue(recommendations.isEmpty());
+    }
+
+    @Test
+    public void testSharedResourcePoolsConsumeOffer() throws Exception {
+        PodInstanceRequirement podInstanceRequirement = PodInstanceRequirementTestUtils.getCpuRequirement(1.0);
+        List<Offer> offers = Arrays.asList(
+                OfferTestUtils.getCompleteOffer(ResourceTestUtils.getUnreservedCpus(2.5)));
+        OfferResourcePools resourcePools = new OfferResourcePools();
+
+        // The offer has room for two pods:
+        List<OfferRecommendation> recommendations = evaluator.evaluate(podInstanceRequirement, offers, resourcePools);
+        Assert.assertEquals(5, recommendations.size());
+        recommendations = evaluator.evaluate(podInstanceRequirement, offers, resourcePools);
+        Assert.assertEquals(5, recommendations.size());
+        Assert.assertEquals(offers.get(0).getId(), recommendations.get(0).getOffer().getId());
+        Assert.assertTrue(evaluator.evaluate(podInstanceRequirement, offers, resourcePools).isEmpty());
+
+        // The full offer is still available to evaluations which don't share the consumed pools:
+        Assert.assertEquals(5, evaluator.evaluate(podInstanceRequirement, offers).size());
+        Assert.assertEquals(5, evaluator.evaluate(podInstanceRequirement, offers, new OfferResourcePools()).size());
+    }
+
+    @Test
+    public void testOfferScorerSelectsBestOffer() throws Exception {
+        PodInstanceRequirement cpuRequirement = PodInstanceRequirementTestUtils.getCpuRequirement(1.0);
+        List<Offer> offers = Arrays.asList(
+                OfferTestUtils.getCompleteOffer(ResourceTestUtils.getUnreservedCpus(8.0)).toBuilder()
+                        .setId(OfferID.newBuilder().setValue("large-offer"))
+                        .build(),
+                OfferTestUtils.getCompleteOffer(ResourceTestUtils.getUnreservedCpus(2.0)).toBuilder()
+                        .setId(OfferID.newBuilder().setValue("small-offer"))
+                        .build());
+
+        List<OfferRecommendation> recommendations = evaluator.evaluate(
+                withOfferScorer(cpuRequirement, OfferScorers.BEST_FIT), offers);
+        Assert.assertEquals(5, recommendations.size());
+        Assert.assertEquals("small-offer", recommendations.get(0).getOffer().getId().getValue());
+
+        recommendations = evaluator.evaluate(withOfferScorer(cpuRequirement, OfferScorers.WORST_FIT), offers);
+        Assert.assertEquals(5, recommendations.size());
+        Assert.assertEquals("large-offer", recommendations.get(0).getOffer().getId().getValue());
+
+        recommendations = evaluator.evaluate(withOfferScorer(cpuRequirement, OfferScorers.FIRST_FIT), offers);
+        Assert.assertEquals(5, recommendations.size());
+        Assert.assertEquals("large-offer", recommendations.get(0).getOffer().getId().getValue());
+
+        SchedulerConfig schedulerConfig = SchedulerConfigTestUtils.getTestSchedulerConfig();
+        when(schedulerConfig.getOfferEvaluationParallelism()).thenReturn(2);
+        evaluator = new OfferEvaluator(stateStore, TestConstants.SERVICE_NAME, targetConfig, schedulerConfig, true);
+        recommendations = evaluator.evaluate(withOfferScorer(cpuRequirement, OfferScorers.BEST_FIT), offers);
+        Assert.assertEquals(5, recommendations.size());
+        Assert.assertEquals("small-offer", recommendations.get(0).getOffer().getId().getValue());
+    }
+
+    @Test
+    public void testOfferScorerUsesRemainingResources() throws Exception {
+        List<Offer> offers = Arrays.asList(
+                OfferTestUtils.getCompleteOffer(ResourceTestUtils.getUnreservedCpus(8.0)).toBuilder()
+                        .setId(OfferID.newBuilder().setValue("large-offer"))
+                        .build(),
+                OfferTestUtils.getCompleteOffer(ResourceTestUtils.getUnreservedCpus(2.0)).toBuilder()
+                        .setId(OfferID.newBuilder().setValue("small-offer"))
+                        .build());
+        OfferResourcePools resourcePools = new OfferResourcePools();
+
+        // Pack a pod into the large offer, leaving it with fewer cpus than the small offer:
+        List<OfferRecommendation> recommendations = evaluator.evaluate(
+                PodInstanceRequirementTestUtils.getCpuRequirement(6.0), offers.subList(0, 1), resourcePools);
+        Assert.assertEquals("large-offer", recommendations.get(0).getOffer().getId().getValue());
+
+        // The large offer is now the best fit, as it has the least left over:
+        recommendations = evaluator.evaluate(
+                withOfferScorer(PodInstanceRequirementTestUtils.getCpuRequirement(1.0), OfferScorers.BEST_FIT),
+                offers,
+                resourcePools);
+        Assert.assertEquals(5, recommendations.size());
+        Assert.assertEquals("large-offer", recommendations.get(0).getOffer().getId().getValue());
+    }
+
     @Test
     public void testLaunchSequencedTasksInPod() throws Exception {
         ServiceSpec serviceSpec = getServiceSpec("resource-set-seq.yml");
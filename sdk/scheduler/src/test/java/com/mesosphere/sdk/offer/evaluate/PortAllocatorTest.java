@@ -0,0 +1,120 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.ResourceBuilder;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Tests for {@link PortAllocator}.
+ */
+public class PortAllocatorTest {
+
+    @Test
+    public void testSequentialSelectsLowestUnclaimedPort() {
+        PortAllocator allocator = new PortAllocator(false);
+        Protos.Value.Ranges ranges = getRanges(10000, 10002, 10005, 10005);
+
+        Assert.assertEquals(10000, allocator.select(ranges).getAsLong());
+        // Selecting doesn't claim:
+        Assert.assertEquals(10000, allocator.select(ranges).getAsLong());
+
+        allocator.claim(10000);
+        allocator.claim(10001);
+        Assert.assertEquals(10002, allocator.select(ranges).getAsLong());
+
+        allocator.claim(10002);
+        Assert.assertEquals(10005, allocator.select(ranges).getAsLong());
+
+        allocator.claim(10005);
+        Assert.assertFalse(allocator.select(ranges).isPresent());
+    }
+
+    @Test
+    public void testRandomSelectsOnlyUnclaimedPorts() {
+        PortAllocator allocator = new PortAllocator(true);
+        Protos.Value.Ranges ranges = getRanges(10000, 10009, 20000, 20009);
+        for (long port = 10000; port <= 10009; ++port) {
+            if (port != 10004) {
+                allocator.claim(port);
+            }
+        }
+        for (long port = 20000; port <= 20009; ++port) {
+            if (port != 20007) {
+                allocator.claim(port);
+            }
+        }
+
+        Set<Long> selected = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            selected.add(allocator.select(ranges).getAsLong());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(10004L, 20007L)), selected);
+
+        allocator.claim(10004);
+        allocator.claim(20007);
+        Assert.assertFalse(allocator.select(ranges).isPresent());
+    }
+
+    @Test
+    public void testClaimNext() {
+        for (boolean randomized : Arrays.asList(false, true)) {
+            PortAllocator allocator = new PortAllocator(randomized);
+            Set<Long> claimed = new HashSet<>();
+            for (int i = 0; i < 5; ++i) {
+                OptionalLong port = allocator.claimNext(1025, 1029);
+                Assert.assertTrue(port.isPresent());
+                Assert.assertTrue(claimed.add(port.getAsLong()));
+            }
+            Assert.assertFalse(allocator.claimNext(1025, 1029).isPresent());
+            Assert.assertEquals(claimed, allocator.getClaimedPorts());
+        }
+    }
+
+    @Test
+    public void testClaimResource() {
+        PortAllocator allocator = new PortAllocator(false);
+        allocator.claim(ResourceBuilder.fromUnreservedValue("ports", Protos.Value.newBuilder()
+                .setType(Protos.Value.Type.RANGES)
+                .setRanges(getRanges(1000, 1002, 70000, 70001))
+                .build())
+                .build());
+        allocator.claim(ResourceBuilder.fromUnreservedValue("cpus", Protos.Value.newBuilder()
+                .setType(Protos.Value.Type.SCALAR)
+                .setScalar(Protos.Value.Scalar.newBuilder().setValue(1.0))
+                .build())
+                .build());
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1000L, 1001L, 1002L)), allocator.getClaimedPorts());
+        Assert.assertTrue(allocator.isClaimed(1001));
+        Assert.assertFalse(allocator.isClaimed(1));
+    }
+
+    @Test
+    public void testInvalidPortsAreIgnored() {
+        PortAllocator allocator = new PortAllocator(false);
+        allocator.claim(0);
+        allocator.claim(-1);
+        allocator.claim(PortAllocator.MAX_PORT + 1);
+        Assert.assertTrue(allocator.getClaimedPorts().isEmpty());
+        Assert.assertFalse(allocator.isClaimed(0));
+
+        Assert.assertEquals(1, allocator.select(getRanges(0, 1)).getAsLong());
+        Assert.assertFalse(allocator.select(getRanges(70000, 70010)).isPresent());
+        Assert.assertEquals(PortAllocator.MAX_PORT,
+                allocator.select(getRanges(PortAllocator.MAX_PORT, 70010)).getAsLong());
+    }
+
+    private static Protos.Value.Ranges getRanges(long... bounds) {
+        Protos.Value.Ranges.Builder builder = Protos.Value.Ranges.newBuilder();
+        for (int i = 0; i < bounds.length; i += 2) {
+            builder.addRangeBuilder().setBegin(bounds[i]).setEnd(bounds[i + 1]);
+        }
+        return builder.build();
+    }
+}
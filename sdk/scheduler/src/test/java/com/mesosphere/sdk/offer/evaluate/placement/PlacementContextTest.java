@@ -0,0 +1,160 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirementTestUtils;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.TaskTestUtils;
+import org.apache.mesos.Protos.Attribute;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.Value;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PlacementContext}.
+ */
+public class PlacementContextTest {
+
+    private static final PodInstance POD_INSTANCE =
+            PodInstanceRequirementTestUtils.getCpuRequirement(1.0).getPodInstance();
+
+    private static final TaskInfo TASK_A_1 = getTask("a-1", "other", 1, "host-1", "agent-1", "rack", "r1");
+    private static final TaskInfo TASK_A_2 = getTask("a-2", "other", 2, "host-1", "agent-1", "rack", "r2");
+    private static final TaskInfo TASK_B_1 = getTask("b-1", "other", 3, "host-2", "agent-2", "rack", "r1");
+    // A stale copy of the pod instance being placed:
+    private static final TaskInfo TASK_SELF = getTask(
+            "self", POD_INSTANCE.getPod().getType(), POD_INSTANCE.getIndex(), "host-3", "agent-3", "rack", "r3");
+    private static final Collection<TaskInfo> TASKS = Arrays.asList(TASK_A_1, TASK_A_2, TASK_B_1, TASK_SELF);
+
+    @Test
+    public void testHostnameCounts() {
+        PlacementContext context = new PlacementContext(POD_INSTANCE, TASKS);
+        assertEquals(counts("host-1", 2, "host-2", 1), context.getHostnameCounts(AnyMatcher.create()));
+        assertEquals(counts("host-1", 1), context.getHostnameCounts(RegexMatcher.create("a-1")));
+        assertEquals(Collections.emptyMap(), context.getHostnameCounts(ExactMatcher.create("self")));
+    }
+
+    @Test
+    public void testAttributeCounts() {
+        PlacementContext context = new PlacementContext(POD_INSTANCE, TASKS);
+        assertEquals(counts("rack:r1", 2, "rack:r2", 1), context.getAttributeCounts(AnyMatcher.create()));
+        assertEquals(counts("r1", 2, "r2", 1), context.getAttributeValueCounts(AnyMatcher.create(), "RACK"));
+        assertEquals(counts("r1", 1), context.getAttributeValueCounts(RegexMatcher.create("b-.*"), "rack"));
+        assertEquals(Collections.emptyMap(), context.getAttributeValueCounts(AnyMatcher.create(), "zone"));
+    }
+
+    @Test
+    public void testTaskTypes() {
+        PlacementContext context = new PlacementContext(POD_INSTANCE, TASKS);
+        TaskTypeConverter converter = new TaskTypeLabelConverter();
+        String selfType = POD_INSTANCE.getPod().getType();
+
+        assertEquals(3, context.getTaskTypeCount(converter, "other"));
+        assertTrue(context.isTaskTypeOnAgent(converter, "other", "agent-2"));
+        assertFalse(context.isTaskTypeOnAgent(converter, "other", "agent-3"));
+
+        // Stale copies of the pod instance are counted, but aren't considered to be present on their agent:
+        assertEquals(1, context.getTaskTypeCount(converter, selfType));
+        assertFalse(context.isTaskTypeOnAgent(converter, selfType, "agent-3"));
+
+        assertEquals(0, context.getTaskTypeCount(converter, "missing"));
+    }
+
+    @Test
+    public void testTaskFiltersAreOnlyAppliedOncePerTask() {
+        AtomicInteger matchCount = new AtomicInteger();
+        StringMatcher countingMatcher = value -> {
+            matchCount.incrementAndGet();
+            return true;
+        };
+        PlacementContext context = new PlacementContext(POD_INSTANCE, TASKS);
+        PlacementRule rule = new AndRule(
+                new MaxPerHostnameRule(5, countingMatcher),
+                new OrRule(
+                        new RoundRobinByHostnameRule(Optional.empty(), countingMatcher),
+                        new MaxPerAttributeRule(5, AnyMatcher.create(), countingMatcher)));
+
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(rule.filter(getOffer("host-" + i), context).isPassing());
+        }
+        // Each of the three tasks other than the stale copy is only matched once:
+        assertEquals(3, matchCount.get());
+    }
+
+    @Test
+    public void testSharedContextMatchesUnsharedEvaluation() {
+        PlacementContext context = new PlacementContext(POD_INSTANCE, TASKS);
+        Collection<PlacementRule> rules = Arrays.asList(
+                new MaxPerHostnameRule(2),
+                new MaxPerAttributeRule(2, RegexMatcher.create("rack:.*")),
+                new RoundRobinByHostnameRule(Optional.of(3)),
+                new RoundRobinByAttributeRule("rack", Optional.empty()),
+                TaskTypeRule.avoid("other"),
+                TaskTypeRule.colocateWith("other"),
+                new NotRule(new MaxPerHostnameRule(1, RegexMatcher.create("b-.*"))));
+        for (PlacementRule rule : rules) {
+            for (int i = 1; i <= 3; ++i) {
+                Offer offer = getOffer("host-" + i);
+                assertEquals(rule.toString(),
+                        rule.filter(offer, POD_INSTANCE, TASKS).isPassing(),
+                        rule.filter(offer, context).isPassing());
+            }
+        }
+    }
+
+    private static Map<String, Integer> counts(Object... keysAndValues) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            counts.put((String) keysAndValues[i], (Integer) keysAndValues[i + 1]);
+        }
+        return counts;
+    }
+
+    private static Offer getOffer(String hostname) {
+        Offer.Builder offerBuilder = OfferTestUtils.getEmptyOfferBuilder().setHostname(hostname);
+        offerBuilder.getSlaveIdBuilder().setValue(hostname.replace("host", "agent"));
+        offerBuilder.addAttributesBuilder()
+                .setName("rack")
+                .setType(Value.Type.TEXT)
+                .getTextBuilder().setValue(hostname.replace("host-", "r"));
+        return offerBuilder.build();
+    }
+
+    private static TaskInfo getTask(
+            String name,
+            String type,
+            int index,
+            String hostname,
+            String agentId,
+            String attributeName,
+            String attributeValue) {
+        Offer offer = Offer.newBuilder(OfferTestUtils.getEmptyOfferBuilder().build())
+                .setHostname(hostname)
+                .addAttributes(Attribute.newBuilder()
+                        .setName(attributeName)
+                        .setType(Value.Type.TEXT)
+                        .setText(Value.Text.newBuilder().setValue(attributeValue)))
+                .build();
+        TaskInfo.Builder taskBuilder = TaskTestUtils.getTaskInfo(Collections.emptyList()).toBuilder()
+                .setName(name);
+        taskBuilder.getSlaveIdBuilder().setValue(agentId);
+        taskBuilder.setLabels(new TaskLabelWriter(taskBuilder)
+                .setType(type)
+                .setIndex(index)
+                .setHostname(offer)
+                .setOfferAttributes(offer)
+                .toProto());
+        return taskBuilder.build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.mesosphere.sdk.offer.evaluate.scoring;
+
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.ReserveOfferRecommendation;
+import com.mesosphere.sdk.offer.TaskUtils;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirementTestUtils;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class OfferScorersTest {
+    private static final PodInstanceRequirement POD_INSTANCE_REQUIREMENT =
+            PodInstanceRequirementTestUtils.getCpuRequirement(1.0);
+
+    @Test
+    public void testDefaultScorersRegistered() {
+        Assert.assertTrue(OfferScorers.getNames().containsAll(
+                Arrays.asList("best-fit", "first-fit", "locality", "spread", "worst-fit")));
+        Assert.assertFalse(OfferScorers.get("nonsense-fit").isPresent());
+    }
+
+    @Test
+    public void testRegisterCustomScorer() {
+        OfferScorer scorer = (resourcePool, recommendations, podInstanceRequirement, allTasks) -> 1.0;
+        OfferScorers.register("test-scorer", scorer);
+        Assert.assertSame(scorer, OfferScorers.get("test-scorer").get());
+    }
+
+    @Test
+    public void testBestFitAndWorstFit() {
+        Protos.Offer smallOffer = getOffer("small", "agent-1", 2.0);
+        Protos.Offer largeOffer = getOffer("large", "agent-2", 8.0);
+        List<OfferRecommendation> smallRecommendations = getReserveCpus(smallOffer, 1.0);
+        List<OfferRecommendation> largeRecommendations = getReserveCpus(largeOffer, 1.0);
+
+        OfferScorer bestFit = OfferScorers.get(OfferScorers.BEST_FIT).get();
+        Assert.assertEquals(-0.5, score(bestFit, getPool(smallOffer, 1.0), smallRecommendations), 0.0);
+        Assert.assertEquals(-0.875, score(bestFit, getPool(largeOffer, 1.0), largeRecommendations), 0.0);
+
+        OfferScorer worstFit = OfferScorers.get(OfferScorers.WORST_FIT).get();
+        Assert.assertEquals(0.5, score(worstFit, getPool(smallOffer, 1.0), smallRecommendations), 0.0);
+        Assert.assertEquals(0.875, score(worstFit, getPool(largeOffer, 1.0), largeRecommendations), 0.0);
+    }
+
+    @Test
+    public void testFitScoresExcludeResourcesConsumedByOtherPods() {
+        // Another pod was packed into the large offer, consuming 6 cpus before this pod's 1 cpu:
+        Protos.Offer largeOffer = getOffer("large", "agent-2", 8.0);
+        List<OfferRecommendation> recommendations = getReserveCpus(largeOffer, 1.0);
+        MesosResourcePool pool = getPool(largeOffer, 7.0);
+
+        Assert.assertEquals(-0.5, score(OfferScorers.get(OfferScorers.BEST_FIT).get(), pool, recommendations), 0.0);
+        Assert.assertEquals(0.5, score(OfferScorers.get(OfferScorers.WORST_FIT).get(), pool, recommendations), 0.0);
+    }
+
+    @Test
+    public void testSpread() {
+        Protos.Offer busyOffer = getOffer("busy", "agent-1", 2.0);
+        Protos.Offer idleOffer = getOffer("idle", "agent-2", 2.0);
+        Protos.Offer otherTypeOffer = getOffer("other", "agent-3", 2.0);
+        Collection<Protos.TaskInfo> allTasks = Arrays.asList(
+                getTask("task-0", "agent-1", TestConstants.POD_TYPE),
+                getTask("task-1", "agent-3", "other-type"));
+
+        OfferScorer spread = OfferScorers.get(OfferScorers.SPREAD).get();
+        double busyScore =
+                spread.score(getPool(busyOffer, 0), Collections.emptyList(), POD_INSTANCE_REQUIREMENT, allTasks);
+        double idleScore =
+                spread.score(getPool(idleOffer, 0), Collections.emptyList(), POD_INSTANCE_REQUIREMENT, allTasks);
+        double otherTypeScore =
+                spread.score(getPool(otherTypeOffer, 0), Collections.emptyList(), POD_INSTANCE_REQUIREMENT, allTasks);
+        Assert.assertTrue(idleScore > otherTypeScore);
+        Assert.assertTrue(otherTypeScore > busyScore);
+    }
+
+    @Test
+    public void testLocality() {
+        Protos.Offer previousOffer = getOffer("previous", "agent-1", 2.0);
+        Protos.Offer otherOffer = getOffer("other", "agent-2", 2.0);
+        String podTaskName = TaskUtils.getTaskNames(POD_INSTANCE_REQUIREMENT.getPodInstance()).get(0);
+        Collection<Protos.TaskInfo> allTasks =
+                Arrays.asList(getTask(podTaskName, "agent-1", TestConstants.POD_TYPE));
+
+        OfferScorer locality = OfferScorers.get(OfferScorers.LOCALITY).get();
+        double previousScore = locality.score(
+                getPool(previousOffer, 1.0), getReserveCpus(previousOffer, 1.0), POD_INSTANCE_REQUIREMENT, allTasks);
+        double otherScore = locality.score(
+                getPool(otherOffer, 0), Collections.emptyList(), POD_INSTANCE_REQUIREMENT, allTasks);
+        Assert.assertTrue(previousScore > otherScore);
+
+        // Without prior tasks, offers needing fewer new reservations are preferred:
+        Assert.assertTrue(
+                locality.score(
+                        getPool(otherOffer, 0), Collections.emptyList(), POD_INSTANCE_REQUIREMENT,
+                        Collections.emptyList())
+                > locality.score(
+                        getPool(previousOffer, 1.0), getReserveCpus(previousOffer, 1.0), POD_INSTANCE_REQUIREMENT,
+                        Collections.emptyList()));
+    }
+
+    private static double score(
+            OfferScorer scorer, MesosResourcePool resourcePool, List<OfferRecommendation> recommendations) {
+        return scorer.score(resourcePool, recommendations, POD_INSTANCE_REQUIREMENT, Collections.emptyList());
+    }
+
+    /**
+     * Returns a pool for the provided offer, from which the provided amount of cpus has already been consumed.
+     */
+    private static MesosResourcePool getPool(Protos.Offer offer, double consumedCpus) {
+        MesosResourcePool pool = new MesosResourcePool(offer, Optional.empty());
+        if (consumedCpus > 0) {
+            Assert.assertTrue(pool.consumeReservableMerged(
+                    Constants.CPUS_RESOURCE_TYPE,
+                    Protos.Value.newBuilder()
+                            .setType(Protos.Value.Type.SCALAR)
+                            .setScalar(Protos.Value.Scalar.newBuilder().setValue(consumedCpus))
+                            .build(),
+                    Constants.ANY_ROLE).isPresent());
+        }
+        return pool;
+    }
+
+    private static Protos.Offer getOffer(String offerId, String agentId, double cpus) {
+        return OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpus(cpus)).toBuilder()
+                .setId(Protos.OfferID.newBuilder().setValue(offerId))
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId))
+                .build();
+    }
+
+    private static List<OfferRecommendation> getReserveCpus(Protos.Offer offer, double cpus) {
+        return Arrays.asList(new ReserveOfferRecommendation(offer, ResourceTestUtils.getUnreservedCpus(cpus)));
+    }
+
+    private static Protos.TaskInfo getTask(String taskName, String agentId, String type) {
+        Protos.TaskInfo.Builder taskBuilder = Protos.TaskInfo.newBuilder()
+                .setName(taskName)
+                .setTaskId(Protos.TaskID.newBuilder().setValue(taskName + "-id"))
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId));
+        taskBuilder.setLabels(new TaskLabelWriter(taskBuilder).setType(type).setIndex(0).toProto());
+        return taskBuilder.build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.mesosphere.sdk.queue;
+
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests the {@link CoalescedOfferDriver}.
+ */
+public class CoalescedOfferDriverTest {
+
+    private static final Protos.Filters FILTERS = Protos.Filters.newBuilder().setRefuseSeconds(1).build();
+
+    @Mock private SchedulerDriver mockSchedulerDriver;
+
+    private OfferQueue offerQueue;
+    private CoalescedOfferDriver driver;
+    private Protos.Offer mergedOffer;
+    private Protos.Offer otherOffer;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        offerQueue = new OfferQueue(10, OfferQueue.OverflowPolicy.DECLINE_NEWEST, Duration.ZERO, true);
+        offerQueue.enqueue(getOffer("offer-1", "agent-1"));
+        offerQueue.enqueue(getOffer("offer-2", "agent-1"));
+        offerQueue.enqueue(getOffer("offer-3", "agent-2"));
+        List<Protos.Offer> offers = offerQueue.takeAll();
+        Assert.assertEquals(2, offers.size());
+        mergedOffer = offers.get(0);
+        otherOffer = offers.get(1);
+        driver = new CoalescedOfferDriver(mockSchedulerDriver, offerQueue);
+    }
+
+    @Test
+    public void testAcceptMergedOffer() {
+        List<Protos.Offer.Operation> operations = Collections.emptyList();
+        driver.acceptOffers(Arrays.asList(mergedOffer.getId()), operations, FILTERS);
+        verify(mockSchedulerDriver).acceptOffers(
+                Arrays.asList(getOfferId("offer-1"), getOfferId("offer-2")), operations, FILTERS);
+    }
+
+    @Test
+    public void testAcceptOtherOffer() {
+        List<Protos.Offer.Operation> operations = Collections.emptyList();
+        driver.acceptOffers(Arrays.asList(otherOffer.getId()), operations, FILTERS);
+        verify(mockSchedulerDriver).acceptOffers(Arrays.asList(getOfferId("offer-3")), operations, FILTERS);
+    }
+
+    @Test
+    public void testDeclineMergedOffer() {
+        driver.declineOffer(mergedOffer.getId(), FILTERS);
+        verify(mockSchedulerDriver).declineOffer(getOfferId("offer-1"), FILTERS);
+        verify(mockSchedulerDriver).declineOffer(getOfferId("offer-2"), FILTERS);
+        verify(mockSchedulerDriver, never()).declineOffer(getOfferId("offer-3"), FILTERS);
+    }
+
+    @Test
+    public void testPassThrough() {
+        driver.reviveOffers();
+        verify(mockSchedulerDriver).reviveOffers();
+        driver.killTask(TestConstants.TASK_ID);
+        verify(mockSchedulerDriver).killTask(TestConstants.TASK_ID);
+    }
+
+    private static Protos.Offer getOffer(String id, String agentId) {
+        return Protos.Offer.newBuilder()
+                .setId(getOfferId(id))
+                .setFrameworkId(TestConstants.FRAMEWORK_ID)
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId))
+                .setHostname(TestConstants.HOSTNAME)
+                .addResources(ResourceTestUtils.getUnreservedCpus(1.0))
+                .build();
+    }
+
+    private static Protos.OfferID getOfferId(String id) {
+        return Protos.OfferID.newBuilder().setValue(id).build();
+    }
+}
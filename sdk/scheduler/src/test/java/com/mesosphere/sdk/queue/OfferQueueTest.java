@@ -1,12 +1,16 @@
 package com.mesosphere.sdk.queue;
 
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 import org.apache.mesos.Protos;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * This class tests the {@link OfferQueue}.
@@ -23,7 +27,7 @@ public class OfferQueueTest {
     @Test
     public void testEnqueueOffer() {
         OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
-        offerQueue.offer(getOffer());
+        Assert.assertTrue(offerQueue.enqueue(getOffer()).isEmpty());
         Assert.assertEquals(1, offerQueue.getSize());
         Assert.assertEquals(TEST_CAPACITY - 1, offerQueue.getRemainingCapacity());
     }
@@ -33,17 +37,101 @@ public class OfferQueueTest {
         OfferQueue offerQueue = new OfferQueue();
         int capacity = offerQueue.getRemainingCapacity();
         for (int i = 0; i < capacity; i++) {
-            Assert.assertTrue(offerQueue.offer(getOffer()));
+            Assert.assertTrue(offerQueue.enqueue(getOffer(UUID.randomUUID().toString())).isEmpty());
         }
 
         Assert.assertEquals(0, offerQueue.getRemainingCapacity());
-        Assert.assertFalse(offerQueue.offer(getOffer()));
+        Protos.Offer offer = getOffer();
+        Assert.assertEquals(Arrays.asList(offer), offerQueue.enqueue(offer));
+        Assert.assertEquals(1, offerQueue.getOverflowCount());
+    }
+
+    @Test
+    public void testExceedCapacityDeclineOldest() {
+        OfferQueue offerQueue = new OfferQueue(2, OfferQueue.OverflowPolicy.DECLINE_OLDEST, Duration.ZERO, false);
+        Protos.Offer oldestOffer = getOffer("offer-1");
+        Assert.assertTrue(offerQueue.enqueue(oldestOffer).isEmpty());
+        Assert.assertTrue(offerQueue.enqueue(getOffer("offer-2")).isEmpty());
+
+        Assert.assertEquals(Arrays.asList(oldestOffer), offerQueue.enqueue(getOffer("offer-3")));
+        Assert.assertEquals(Arrays.asList("offer-2", "offer-3"), getIds(offerQueue.takeAll()));
+    }
+
+    @Test
+    public void testExceedCapacityDeclineShortestFilter() {
+        OfferQueue offerQueue = new OfferQueue(
+                1, OfferQueue.OverflowPolicy.DECLINE_SHORTEST_FILTER, Duration.ZERO, false);
+        Assert.assertTrue(offerQueue.enqueue(getOffer("offer-1")).isEmpty());
+        Protos.Offer newestOffer = getOffer("offer-2");
+        Assert.assertEquals(Arrays.asList(newestOffer), offerQueue.enqueue(newestOffer));
+        Assert.assertEquals(0, offerQueue.getOverflowPolicy().getDeclineSeconds());
+        Assert.assertEquals(Arrays.asList("offer-1"), getIds(offerQueue.takeAll()));
+    }
+
+    @Test
+    public void testUnlimitedCapacity() {
+        OfferQueue offerQueue = new OfferQueue(0);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(offerQueue.enqueue(getOffer(UUID.randomUUID().toString())).isEmpty());
+        }
+        Assert.assertEquals(1000, offerQueue.getSize());
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        OfferQueue offerQueue = new OfferQueue(
+                TEST_CAPACITY, OfferQueue.OverflowPolicy.DECLINE_NEWEST, Duration.ofMillis(50), false);
+        Protos.Offer oldOffer = getOffer("old-offer");
+        offerQueue.enqueue(oldOffer);
+        Thread.sleep(100);
+        offerQueue.enqueue(getOffer("new-offer"));
+        Assert.assertTrue(offerQueue.getOldestOfferAgeMs() >= 100);
+
+        Assert.assertEquals(Arrays.asList(oldOffer), offerQueue.removeExpired());
+        Assert.assertEquals(1, offerQueue.getExpiredCount());
+        Assert.assertEquals(Arrays.asList("new-offer"), getIds(offerQueue.takeAll()));
+        Assert.assertEquals(0, offerQueue.getOldestOfferAgeMs());
+    }
+
+    @Test
+    public void testNoExpiry() throws InterruptedException {
+        OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
+        offerQueue.enqueue(getOffer());
+        Thread.sleep(10);
+        Assert.assertTrue(offerQueue.removeExpired().isEmpty());
+        Assert.assertEquals(1, offerQueue.getSize());
+    }
+
+    @Test
+    public void testCoalesceByAgent() {
+        OfferQueue offerQueue = new OfferQueue(
+                TEST_CAPACITY, OfferQueue.OverflowPolicy.DECLINE_NEWEST, Duration.ZERO, true);
+        offerQueue.enqueue(getOffer("agent-1-offer-1", "agent-1", ResourceTestUtils.getUnreservedCpus(1.0)));
+        offerQueue.enqueue(getOffer("agent-2-offer-1", "agent-2", ResourceTestUtils.getUnreservedCpus(1.0)));
+        offerQueue.enqueue(getOffer("agent-1-offer-2", "agent-1", ResourceTestUtils.getUnreservedMem(256)));
+
+        List<Protos.Offer> offers = offerQueue.takeAll();
+        Assert.assertEquals(Arrays.asList("agent-1-offer-1", "agent-2-offer-1"), getIds(offers));
+        Assert.assertEquals(2, offers.get(0).getResourcesCount());
+        Assert.assertEquals(1, offers.get(1).getResourcesCount());
+
+        Assert.assertEquals(Arrays.asList("agent-1-offer-1", "agent-1-offer-2"),
+                offerQueue.getCoalescedOfferIds(offers.get(0).getId()).stream()
+                        .map(Protos.OfferID::getValue)
+                        .collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(offers.get(1).getId()),
+                offerQueue.getCoalescedOfferIds(offers.get(1).getId()));
+
+        // The merged offers are forgotten once the next batch is taken:
+        offerQueue.takeAll(Duration.ZERO);
+        Assert.assertEquals(Arrays.asList(offers.get(0).getId()),
+                offerQueue.getCoalescedOfferIds(offers.get(0).getId()));
     }
 
     @Test
     public void testTakeOne() {
         OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
-        offerQueue.offer(getOffer());
+        offerQueue.enqueue(getOffer());
         List<Protos.Offer> offers = offerQueue.takeAll();
         Assert.assertEquals(1, offers.size());
         Assert.assertEquals(TEST_CAPACITY, offerQueue.getRemainingCapacity());
@@ -54,7 +142,7 @@ public class OfferQueueTest {
         OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
         int halfCapacity = offerQueue.getRemainingCapacity() / 2;
         for (int i = 0; i < halfCapacity; i++) {
-            offerQueue.offer(getOffer());
+            offerQueue.enqueue(getOffer(UUID.randomUUID().toString()));
         }
 
         List<Protos.Offer> offers = offerQueue.takeAll();
@@ -67,7 +155,7 @@ public class OfferQueueTest {
         OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
         int capacity = offerQueue.getRemainingCapacity();
         for (int i = 0; i < capacity; i++) {
-            offerQueue.offer(getOffer());
+            offerQueue.enqueue(getOffer(UUID.randomUUID().toString()));
         }
 
         List<Protos.Offer> offers = offerQueue.takeAll();
@@ -79,23 +167,25 @@ public class OfferQueueTest {
     public void testRemoveFromEmptyQueue() {
         OfferQueue offerQueue = new OfferQueue();
         Assert.assertTrue(offerQueue.isEmpty());
-        offerQueue.remove(TestConstants.OFFER_ID);
+        Assert.assertFalse(offerQueue.remove(TestConstants.OFFER_ID));
         Assert.assertTrue(offerQueue.isEmpty());
     }
 
     @Test
     public void testRemoveFromSingleOfferQueue() {
         OfferQueue offerQueue = new OfferQueue();
-        offerQueue.offer(getOffer());
+        offerQueue.enqueue(getOffer());
         Assert.assertEquals(1, offerQueue.getSize());
-        offerQueue.remove(TestConstants.OFFER_ID);
+        Assert.assertTrue(offerQueue.remove(TestConstants.OFFER_ID));
         Assert.assertTrue(offerQueue.isEmpty());
+        Assert.assertEquals(1, offerQueue.getRescindCount());
+        Assert.assertEquals(1, offerQueue.getRescindRatePerMinute());
     }
 
     @Test
     public void testRemoveUnknownOffer() {
         OfferQueue offerQueue = new OfferQueue();
-        offerQueue.offer(getOffer(UUID.randomUUID().toString()));
+        offerQueue.enqueue(getOffer(UUID.randomUUID().toString()));
         Assert.assertEquals(1, offerQueue.getSize());
         offerQueue.remove(TestConstants.OFFER_ID);
         Assert.assertEquals(1, offerQueue.getSize());
@@ -107,11 +197,11 @@ public class OfferQueueTest {
         int halfCapacity = offerQueue.getRemainingCapacity() / 2;
         // Add many offers with random ids
         for (int i = 0; i < halfCapacity; i++) {
-            offerQueue.offer(getOffer(UUID.randomUUID().toString()));
+            offerQueue.enqueue(getOffer(UUID.randomUUID().toString()));
         }
 
         // Add one offer with a known id
-        offerQueue.offer(getOffer());
+        offerQueue.enqueue(getOffer());
 
         int remainingCapacity = offerQueue.getRemainingCapacity();
         offerQueue.remove(TestConstants.OFFER_ID);
@@ -131,4 +221,15 @@ public class OfferQueueTest {
                 .setHostname(TestConstants.HOSTNAME)
                 .build();
     }
+
+    private Protos.Offer getOffer(String id, String agentId, Protos.Resource resource) {
+        return getOffer(id).toBuilder()
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId))
+                .addResources(resource)
+                .build();
+    }
+
+    private static List<String> getIds(List<Protos.Offer> offers) {
+        return offers.stream().map(offer -> offer.getId().getValue()).collect(Collectors.toList());
+    }
 }
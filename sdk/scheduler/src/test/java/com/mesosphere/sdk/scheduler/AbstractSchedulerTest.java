@@ -9,8 +9,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.junit.Assert;
@@ -23,7 +25,9 @@ import org.slf4j.LoggerFactory;
 import org.apache.mesos.Protos;
 import org.apache.mesos.SchedulerDriver;
 
+import com.google.protobuf.ByteString;
 import com.mesosphere.sdk.dcos.clients.SecretsClient;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.scheduler.plan.PlanCoordinator;
 import com.mesosphere.sdk.scheduler.plan.Step;
 import com.mesosphere.sdk.specification.ServiceSpec;
@@ -31,6 +35,7 @@ import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.PersisterException;
+import com.mesosphere.sdk.storage.StorageError.Reason;
 import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 
@@ -74,6 +79,7 @@ public class AbstractSchedulerTest {
         Assert.assertTrue(String.format("sent %d, got %d", sentOfferIds.size(), scheduler.receivedOfferIds.size()),
                 sentOfferIds.size() > scheduler.receivedOfferIds.size());
         verify(mockSchedulerDriver, atLeastOnce()).declineOffer(any(), any());
+        Assert.assertTrue((Long) Metrics.getRegistry().getGauges().get(Metrics.OFFERS_QUEUE_OVERFLOWED).getValue() > 0);
     }
 
     @Test
@@ -90,6 +96,87 @@ public class AbstractSchedulerTest {
         verify(mockSchedulerDriver, never()).declineOffer(any(), any());
     }
 
+    @Test
+    public void testAsyncStatusUpdatesAppliedInOrder() throws Exception {
+        TestScheduler scheduler = getScheduler(false, true, -1);
+
+        List<String> sentTaskIds = new ArrayList<>();
+        for (int i = 0; i < 250; ++i) {
+            String taskId = String.format("task-%d", i);
+            sentTaskIds.add(taskId);
+            scheduler.getMesosScheduler().get().statusUpdate(mockSchedulerDriver, Protos.TaskStatus.newBuilder()
+                    .setTaskId(Protos.TaskID.newBuilder().setValue(taskId))
+                    .setState(Protos.TaskState.TASK_RUNNING)
+                    .build());
+        }
+
+        // Wait for the status update stage to catch up:
+        for (int i = 0; i < 50 && scheduler.receivedTaskIds.size() < sentTaskIds.size(); ++i) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(sentTaskIds, scheduler.receivedTaskIds);
+
+        StageMetrics statusMetrics = scheduler.getStageMetrics().stream()
+                .filter(metrics -> metrics.getName().equals("status-updates"))
+                .findAny().get();
+        Assert.assertEquals(0, statusMetrics.getQueueDepth());
+        Assert.assertEquals(sentTaskIds.size(), statusMetrics.getItemCount());
+    }
+
+    @Test
+    public void testStatusUpdatesAcknowledgedOnceStored() throws Exception {
+        MemPersister persister = new MemPersister();
+        stateStore = new StateStore(persister);
+        TestScheduler scheduler = getScheduler(false, false, -1);
+        scheduler.storeStatuses = true;
+
+        Protos.TaskStatus status = getStatus("task-0").toBuilder()
+                .setUuid(ByteString.copyFromUtf8("uuid"))
+                .build();
+        doAnswer(invocation -> {
+            // The status has been written to storage by the time it's acknowledged:
+            Assert.assertEquals(status, Protos.TaskStatus.parseFrom(persister.get("Tasks/task-0/TaskStatus")));
+            return null;
+        }).when(mockSchedulerDriver).acknowledgeStatusUpdate(status);
+        scheduler.getMesosScheduler().get().statusUpdate(mockSchedulerDriver, status);
+        verify(mockSchedulerDriver, times(1)).acknowledgeStatusUpdate(status);
+
+        // Updates without a UUID, e.g. from reconciliation, aren't acknowledged:
+        scheduler.getMesosScheduler().get().statusUpdate(mockSchedulerDriver, getStatus("task-1"));
+        verify(mockSchedulerDriver, times(1)).acknowledgeStatusUpdate(any());
+    }
+
+    @Test
+    public void testStatusUpdatesNotAcknowledgedWhenStoringFails() throws Exception {
+        AtomicBoolean failWrites = new AtomicBoolean(false);
+        stateStore = new StateStore(new MemPersister() {
+            @Override
+            public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+                if (failWrites.get()) {
+                    throw new PersisterException(Reason.STORAGE_ERROR, "hi");
+                }
+                super.setMany(pathBytesMap);
+            }
+        });
+        TestScheduler scheduler = getScheduler(false, false, -1);
+        scheduler.storeStatuses = true;
+        failWrites.set(true);
+
+        scheduler.getMesosScheduler().get().statusUpdate(mockSchedulerDriver, getStatus("task-0").toBuilder()
+                .setUuid(ByteString.copyFromUtf8("uuid"))
+                .build());
+        Assert.assertEquals(Arrays.asList("task-0"), scheduler.receivedTaskIds);
+        verify(mockSchedulerDriver, never()).acknowledgeStatusUpdate(any());
+        Assert.assertFalse(stateStore.fetchStatus("task-0").isPresent());
+    }
+
+    private static Protos.TaskStatus getStatus(String taskId) {
+        return Protos.TaskStatus.newBuilder()
+                .setTaskId(Protos.TaskID.newBuilder().setValue(taskId))
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build();
+    }
+
     private Set<String> sendOffers(AbstractScheduler scheduler, int threadCount, int offersPerThread)
             throws InterruptedException {
         // Hammer scheduler with offers, and check that they were all forwarded as expected
@@ -170,6 +257,8 @@ public class AbstractSchedulerTest {
         private final PlanCoordinator mockPlanCoordinator = mock(PlanCoordinator.class);
 
         private final Set<String> receivedOfferIds = new HashSet<>();
+        private final List<String> receivedTaskIds = Collections.synchronizedList(new ArrayList<>());
+        private boolean storeStatuses = false;
 
         protected TestScheduler(
                 StateStore stateStore, ConfigStore<ServiceSpec> configStore, SchedulerConfig schedulerConfig) {
@@ -197,7 +286,10 @@ public class AbstractSchedulerTest {
 
         @Override
         protected void processStatusUpdate(Protos.TaskStatus status) throws Exception {
-            throw new UnsupportedOperationException();
+            receivedTaskIds.add(status.getTaskId().getValue());
+            if (storeStatuses) {
+                stateStore.storeStatus(status.getTaskId().getValue(), status);
+            }
         }
     }
 }
@@ -1,10 +1,12 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
 import com.mesosphere.sdk.scheduler.plan.Step;
 import com.mesosphere.sdk.scheduler.plan.TestStep;
 import com.mesosphere.sdk.testutils.PodTestUtils;
 import org.apache.mesos.SchedulerDriver;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -66,10 +68,14 @@ public class ReviveManagerTest {
 
     @Test
     public void dontReviveWhenThrottled() {
+        long revives = Metrics.getCounter(Metrics.REVIVES).getCount();
+        long throttles = Metrics.getCounter(Metrics.REVIVE_THROTTLES).getCount();
         ReviveManager manager = new ReviveManager(driver);
         manager.revive(getSteps(0));
         manager.revive(getSteps(1));
         verify(driver, times(1)).reviveOffers();
+        Assert.assertEquals(revives + 1, Metrics.getCounter(Metrics.REVIVES).getCount());
+        Assert.assertEquals(throttles + 1, Metrics.getCounter(Metrics.REVIVE_THROTTLES).getCount());
     }
 
     @Test
@@ -1,10 +1,15 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.mesosphere.sdk.queue.OfferQueue;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.EnvironmentVariables;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+
 public class SchedulerConfigTest {
 
     @Rule
@@ -26,4 +31,115 @@ public class SchedulerConfigTest {
         SchedulerConfig schedulerConfig = SchedulerConfig.fromEnv();
         Assert.assertFalse(schedulerConfig.isUninstallEnabled());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testOfferEvaluationParallelism() throws Exception {
+        environmentVariables.set("OFFER_EVALUATION_PARALLELISM", null);
+        Assert.assertEquals(1, SchedulerConfig.fromEnv().getOfferEvaluationParallelism());
+        environmentVariables.set("OFFER_EVALUATION_PARALLELISM", "8");
+        Assert.assertEquals(8, SchedulerConfig.fromEnv().getOfferEvaluationParallelism());
+    }
+
+    @Test
+    public void testStatusUpdateBatchSize() throws Exception {
+        environmentVariables.set("STATUS_UPDATE_BATCH_SIZE", null);
+        Assert.assertEquals(100, SchedulerConfig.fromEnv().getStatusUpdateBatchSize());
+        environmentVariables.set("STATUS_UPDATE_BATCH_SIZE", "500");
+        Assert.assertEquals(500, SchedulerConfig.fromEnv().getStatusUpdateBatchSize());
+    }
+
+    @Test
+    public void testOfferQueueSettings() throws Exception {
+        environmentVariables.set("OFFER_QUEUE_CAPACITY", null);
+        environmentVariables.set("OFFER_QUEUE_OVERFLOW_POLICY", null);
+        environmentVariables.set("OFFER_QUEUE_MAX_AGE_S", null);
+        environmentVariables.set("OFFER_QUEUE_COALESCE_BY_AGENT", null);
+        SchedulerConfig schedulerConfig = SchedulerConfig.fromEnv();
+        Assert.assertEquals(100, schedulerConfig.getOfferQueueCapacity());
+        Assert.assertEquals(OfferQueue.OverflowPolicy.DECLINE_NEWEST, schedulerConfig.getOfferQueueOverflowPolicy());
+        Assert.assertEquals(Duration.ZERO, schedulerConfig.getOfferQueueMaxAge());
+        Assert.assertFalse(schedulerConfig.isOfferQueueCoalescingEnabled());
+
+        environmentVariables.set("OFFER_QUEUE_CAPACITY", "0");
+        environmentVariables.set("OFFER_QUEUE_OVERFLOW_POLICY", "decline_oldest");
+        environmentVariables.set("OFFER_QUEUE_MAX_AGE_S", "30");
+        environmentVariables.set("OFFER_QUEUE_COALESCE_BY_AGENT", "");
+        schedulerConfig = SchedulerConfig.fromEnv();
+        Assert.assertEquals(0, schedulerConfig.getOfferQueueCapacity());
+        Assert.assertEquals(OfferQueue.OverflowPolicy.DECLINE_OLDEST, schedulerConfig.getOfferQueueOverflowPolicy());
+        Assert.assertEquals(Duration.ofSeconds(30), schedulerConfig.getOfferQueueMaxAge());
+        Assert.assertTrue(schedulerConfig.isOfferQueueCoalescingEnabled());
+    }
+
+    @Test
+    public void testDynamicPortRandomization() throws Exception {
+        environmentVariables.set("RANDOMIZE_DYNAMIC_PORTS", null);
+        Assert.assertFalse(SchedulerConfig.fromEnv().isDynamicPortRandomizationEnabled());
+
+        environmentVariables.set("RANDOMIZE_DYNAMIC_PORTS", "");
+        Assert.assertTrue(SchedulerConfig.fromEnv().isDynamicPortRandomizationEnabled());
+    }
+
+    @Test
+    public void testStateWriteBehindWindow() throws Exception {
+        environmentVariables.set("STATE_WRITE_BEHIND_MS", null);
+        Assert.assertEquals(Duration.ZERO, SchedulerConfig.fromEnv().getStateWriteBehindWindow());
+
+        environmentVariables.set("STATE_WRITE_BEHIND_MS", "20");
+        Assert.assertEquals(Duration.ofMillis(20), SchedulerConfig.fromEnv().getStateWriteBehindWindow());
+    }
+
+    @Test
+    public void testStateCacheSnapshot() throws Exception {
+        environmentVariables.set("STATE_CACHE_SNAPSHOT_PATH", null);
+        environmentVariables.set("STATE_CACHE_SNAPSHOT_INTERVAL_S", null);
+        Assert.assertEquals(Optional.empty(), SchedulerConfig.fromEnv().getStateCacheSnapshotPath());
+        Assert.assertEquals(Duration.ofSeconds(60), SchedulerConfig.fromEnv().getStateCacheSnapshotInterval());
+
+        environmentVariables.set("STATE_CACHE_SNAPSHOT_PATH", "state/snapshot");
+        environmentVariables.set("STATE_CACHE_SNAPSHOT_INTERVAL_S", "5");
+        Assert.assertEquals(
+                Optional.of(Paths.get("state/snapshot")), SchedulerConfig.fromEnv().getStateCacheSnapshotPath());
+        Assert.assertEquals(Duration.ofSeconds(5), SchedulerConfig.fromEnv().getStateCacheSnapshotInterval());
+    }
+
+    @Test
+    public void testStateCacheWatch() throws Exception {
+        environmentVariables.set("ENABLE_STATE_CACHE_WATCH", null);
+        environmentVariables.set("STATE_CACHE_WATCH_INIT_TIMEOUT_S", null);
+        Assert.assertFalse(SchedulerConfig.fromEnv().isStateCacheWatchEnabled());
+        Assert.assertEquals(Duration.ofSeconds(300), SchedulerConfig.fromEnv().getStateCacheWatchInitTimeout());
+
+        environmentVariables.set("ENABLE_STATE_CACHE_WATCH", "true");
+        environmentVariables.set("STATE_CACHE_WATCH_INIT_TIMEOUT_S", "30");
+        Assert.assertTrue(SchedulerConfig.fromEnv().isStateCacheWatchEnabled());
+        Assert.assertEquals(Duration.ofSeconds(30), SchedulerConfig.fromEnv().getStateCacheWatchInitTimeout());
+    }
+
+    @Test
+    public void testStatsdSettings() throws Exception {
+        environmentVariables.set("STATSD_UDP_HOST", null);
+        environmentVariables.set("STATSD_UDP_PORT", null);
+        environmentVariables.set("STATSD_POLL_INTERVAL_S", null);
+        SchedulerConfig schedulerConfig = SchedulerConfig.fromEnv();
+        Assert.assertFalse(schedulerConfig.isStatsdEnabled());
+        Assert.assertEquals(Duration.ofSeconds(10), schedulerConfig.getStatsdPollInterval());
+
+        environmentVariables.set("STATSD_UDP_HOST", "198.51.100.1");
+        Assert.assertFalse(SchedulerConfig.fromEnv().isStatsdEnabled());
+
+        environmentVariables.set("STATSD_UDP_PORT", "8125");
+        environmentVariables.set("STATSD_POLL_INTERVAL_S", "30");
+        schedulerConfig = SchedulerConfig.fromEnv();
+        Assert.assertTrue(schedulerConfig.isStatsdEnabled());
+        Assert.assertEquals("198.51.100.1", schedulerConfig.getStatsdHost());
+        Assert.assertEquals(8125, schedulerConfig.getStatsdPort());
+        Assert.assertEquals(Duration.ofSeconds(30), schedulerConfig.getStatsdPollInterval());
+    }
+
+    @Test(expected = SchedulerConfig.ConfigException.class)
+    public void testInvalidOfferQueueOverflowPolicy() throws Exception {
+        environmentVariables.set("OFFER_QUEUE_OVERFLOW_POLICY", "decline_random");
+        SchedulerConfig.fromEnv().getOfferQueueOverflowPolicy();
+    }
+}
@@ -0,0 +1,70 @@
+package com.mesosphere.sdk.scheduler;
+
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class tests the {@link StatusUpdateQueue}.
+ */
+public class StatusUpdateQueueTest {
+
+    @Test
+    public void testEmptyQueue() {
+        List<Protos.TaskStatus> applied = new ArrayList<>();
+        StatusUpdateQueue queue = new StatusUpdateQueue(10, applied::addAll);
+        Assert.assertEquals(0, queue.processBatch(Duration.ofMillis(1)));
+        Assert.assertTrue(applied.isEmpty());
+        Assert.assertEquals(0, queue.getMetrics().getBatchCount());
+    }
+
+    @Test
+    public void testBatchesAppliedInOrder() {
+        List<Protos.TaskStatus> applied = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        StatusUpdateQueue queue = new StatusUpdateQueue(2, batch -> {
+            batchSizes.add(batch.size());
+            applied.addAll(batch);
+        });
+        List<Protos.TaskStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            Protos.TaskStatus status = getStatus("task-" + i);
+            statuses.add(status);
+            queue.enqueue(status);
+        }
+        Assert.assertEquals(5, queue.getMetrics().getQueueDepth());
+
+        Assert.assertEquals(2, queue.processBatch(Duration.ofMillis(1)));
+        Assert.assertEquals(2, queue.processBatch(Duration.ofMillis(1)));
+        Assert.assertEquals(1, queue.processBatch(Duration.ofMillis(1)));
+        Assert.assertEquals(0, queue.processBatch(Duration.ofMillis(1)));
+
+        Assert.assertEquals(statuses, applied);
+        Assert.assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+        Assert.assertEquals(0, queue.getMetrics().getQueueDepth());
+        Assert.assertEquals(3, queue.getMetrics().getBatchCount());
+        Assert.assertEquals(5, queue.getMetrics().getItemCount());
+    }
+
+    @Test
+    public void testInvalidBatchSize() {
+        List<Protos.TaskStatus> applied = new ArrayList<>();
+        StatusUpdateQueue queue = new StatusUpdateQueue(0, applied::addAll);
+        queue.enqueue(getStatus("task-0"));
+        queue.enqueue(getStatus("task-1"));
+        Assert.assertEquals(1, queue.processBatch(Duration.ofMillis(1)));
+        Assert.assertEquals(1, applied.size());
+    }
+
+    private static Protos.TaskStatus getStatus(String taskId) {
+        return Protos.TaskStatus.newBuilder()
+                .setTaskId(Protos.TaskID.newBuilder().setValue(taskId))
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build();
+    }
+}
@@ -8,12 +8,16 @@ import com.mesosphere.sdk.specification.DefaultServiceSpec;
 import com.mesosphere.sdk.specification.PodInstance;
 import com.mesosphere.sdk.specification.PodSpec;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreException;
+import com.mesosphere.sdk.storage.StorageError;
 import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
 
 import org.apache.mesos.Protos.*;
 import org.apache.mesos.SchedulerDriver;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -54,6 +58,7 @@ public class DefaultPlanSchedulerTest {
     public void beforeEach() throws Exception {
         MockitoAnnotations.initMocks(this);
         mockRecommendations = Arrays.asList(mockRecommendation);
+        when(mockStateStore.fetchTask(anyString())).thenReturn(Optional.empty());
         scheduler = new DefaultPlanScheduler(mockOfferAccepter, mockOfferEvaluator, mockStateStore, mockTaskKiller);
 
         ClassLoader classLoader = getClass().getClassLoader();
@@ -128,6 +133,141 @@ public class DefaultPlanSchedulerTest {
         assertTrue(step.isStarting());
     }
 
+    @Test
+    public void testBatchedAcceptedOffers() throws InvalidRequirementException, IOException {
+        scheduler = new DefaultPlanScheduler(
+                mockOfferAccepter, mockOfferEvaluator, mockStateStore, mockTaskKiller, true);
+        Offer otherOffer = OFFERS.get(0).toBuilder().setId(OfferID.newBuilder().setValue("other-offer")).build();
+        List<Offer> offers = Arrays.asList(OFFERS.get(0), otherOffer);
+        PodInstanceRequirement otherPodInstanceRequirement = PodInstanceRequirement.newBuilder(
+                new DefaultPodInstance(podInstanceRequirement.getPodInstance().getPod(), 1),
+                podInstanceRequirement.getTasksToLaunch()).build();
+
+        OfferRecommendation otherRecommendation = mock(OfferRecommendation.class);
+        when(mockRecommendation.getOffer()).thenReturn(OFFERS.get(0));
+        when(otherRecommendation.getOffer()).thenReturn(otherOffer);
+        when(mockOfferEvaluator.evaluate(eq(podInstanceRequirement), eq(offers), any(OfferResourcePools.class)))
+                .thenReturn(mockRecommendations);
+        when(mockOfferEvaluator.evaluate(eq(otherPodInstanceRequirement), eq(offers), any(OfferResourcePools.class)))
+                .thenReturn(Arrays.asList(otherRecommendation));
+        when(mockOfferAccepter.record(anyListOf(OfferRecommendation.class))).thenReturn(true);
+        List<OfferRecommendation> allRecommendations = Arrays.asList(mockRecommendation, otherRecommendation);
+        List<OfferID> allOfferIds = Arrays.asList(OFFERS.get(0).getId(), otherOffer.getId());
+        when(mockOfferAccepter.acceptRecorded(mockSchedulerDriver, allRecommendations)).thenReturn(allOfferIds);
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        step.setStatus(Status.PENDING);
+        TestOfferStep otherStep = new TestOfferStep(otherPodInstanceRequirement);
+        otherStep.setStatus(Status.PENDING);
+
+        assertEquals(allOfferIds, scheduler.resourceOffers(mockSchedulerDriver, offers, Arrays.asList(step, otherStep)));
+        verify(mockStateStore).beginTaskWriteBatch();
+        verify(mockStateStore).commitTaskWriteBatch();
+        verify(mockOfferAccepter).acceptRecorded(mockSchedulerDriver, allRecommendations);
+        verify(mockOfferAccepter, never()).accept(any(), anyListOf(OfferRecommendation.class));
+        assertTrue(step.isStarting());
+        assertTrue(otherStep.isStarting());
+    }
+
+    @Test
+    public void testBatchedStepsShareOffer() throws InvalidRequirementException, IOException {
+        scheduler = new DefaultPlanScheduler(
+                mockOfferAccepter, mockOfferEvaluator, mockStateStore, mockTaskKiller, true);
+        PodInstanceRequirement otherPodInstanceRequirement = PodInstanceRequirement.newBuilder(
+                new DefaultPodInstance(podInstanceRequirement.getPodInstance().getPod(), 1),
+                podInstanceRequirement.getTasksToLaunch()).build();
+
+        // Both steps are placed on the same offer:
+        OfferRecommendation otherRecommendation = mock(OfferRecommendation.class);
+        when(mockRecommendation.getOffer()).thenReturn(OFFERS.get(0));
+        when(otherRecommendation.getOffer()).thenReturn(OFFERS.get(0));
+        when(mockOfferEvaluator.evaluate(eq(podInstanceRequirement), eq(OFFERS), any(OfferResourcePools.class)))
+                .thenReturn(mockRecommendations);
+        when(mockOfferEvaluator.evaluate(eq(otherPodInstanceRequirement), eq(OFFERS), any(OfferResourcePools.class)))
+                .thenReturn(Arrays.asList(otherRecommendation));
+        when(mockOfferAccepter.record(anyListOf(OfferRecommendation.class))).thenReturn(true);
+        List<OfferRecommendation> allRecommendations = Arrays.asList(mockRecommendation, otherRecommendation);
+        when(mockOfferAccepter.acceptRecorded(mockSchedulerDriver, allRecommendations)).thenReturn(ACCEPTED_IDS);
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        step.setStatus(Status.PENDING);
+        TestOfferStep otherStep = new TestOfferStep(otherPodInstanceRequirement);
+        otherStep.setStatus(Status.PENDING);
+
+        assertEquals(ACCEPTED_IDS, scheduler.resourceOffers(mockSchedulerDriver, OFFERS, Arrays.asList(step, otherStep)));
+        ArgumentCaptor<OfferResourcePools> resourcePools = ArgumentCaptor.forClass(OfferResourcePools.class);
+        verify(mockOfferEvaluator).evaluate(eq(podInstanceRequirement), eq(OFFERS), resourcePools.capture());
+        verify(mockOfferEvaluator).evaluate(eq(otherPodInstanceRequirement), eq(OFFERS), resourcePools.capture());
+        assertSame(resourcePools.getAllValues().get(0), resourcePools.getAllValues().get(1));
+        verify(mockOfferAccepter).acceptRecorded(mockSchedulerDriver, allRecommendations);
+        assertTrue(step.isStarting());
+        assertTrue(otherStep.isStarting());
+    }
+
+    @Test
+    public void testBatchedRecordFailureRollsBackStep() throws InvalidRequirementException, IOException {
+        scheduler = new DefaultPlanScheduler(
+                mockOfferAccepter, mockOfferEvaluator, mockStateStore, mockTaskKiller, true);
+        PodInstanceRequirement otherPodInstanceRequirement = PodInstanceRequirement.newBuilder(
+                new DefaultPodInstance(podInstanceRequirement.getPodInstance().getPod(), 1),
+                podInstanceRequirement.getTasksToLaunch()).build();
+
+        OfferRecommendation otherRecommendation = mock(OfferRecommendation.class);
+        when(mockRecommendation.getOffer()).thenReturn(OFFERS.get(0));
+        when(otherRecommendation.getOffer()).thenReturn(OFFERS.get(0));
+        List<OfferRecommendation> otherRecommendations = Arrays.asList(otherRecommendation);
+        when(mockOfferEvaluator.evaluate(eq(podInstanceRequirement), eq(OFFERS), any(OfferResourcePools.class)))
+                .thenReturn(mockRecommendations);
+        when(mockOfferEvaluator.evaluate(eq(otherPodInstanceRequirement), eq(OFFERS), any(OfferResourcePools.class)))
+                .thenReturn(otherRecommendations);
+        // The first step fails to be recorded, while the second succeeds:
+        when(mockOfferAccepter.record(mockRecommendations)).thenReturn(false);
+        when(mockOfferAccepter.record(otherRecommendations)).thenReturn(true);
+        when(mockOfferAccepter.acceptRecorded(mockSchedulerDriver, otherRecommendations)).thenReturn(ACCEPTED_IDS);
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        step.setStatus(Status.PENDING);
+        TestOfferStep otherStep = new TestOfferStep(otherPodInstanceRequirement);
+        otherStep.setStatus(Status.PENDING);
+
+        assertEquals(ACCEPTED_IDS, scheduler.resourceOffers(mockSchedulerDriver, OFFERS, Arrays.asList(step, otherStep)));
+        // The failed step's partial writes are rolled back before the batch is committed:
+        InOrder inOrder = inOrder(mockStateStore, mockOfferAccepter);
+        inOrder.verify(mockStateStore).beginTaskWriteBatch();
+        inOrder.verify(mockStateStore).markTaskWriteBatch();
+        inOrder.verify(mockOfferAccepter).record(mockRecommendations);
+        inOrder.verify(mockStateStore).rollbackTaskWriteBatch();
+        inOrder.verify(mockStateStore).markTaskWriteBatch();
+        inOrder.verify(mockOfferAccepter).record(otherRecommendations);
+        inOrder.verify(mockStateStore).commitTaskWriteBatch();
+        verify(mockStateStore, times(1)).rollbackTaskWriteBatch();
+        verify(mockOfferAccepter).acceptRecorded(mockSchedulerDriver, otherRecommendations);
+        assertTrue(step.recommendations.isEmpty());
+        assertTrue(step.isPrepared());
+        assertTrue(otherStep.isStarting());
+    }
+
+    @Test
+    public void testBatchedCommitFailure() throws InvalidRequirementException, IOException {
+        scheduler = new DefaultPlanScheduler(
+                mockOfferAccepter, mockOfferEvaluator, mockStateStore, mockTaskKiller, true);
+        when(mockRecommendation.getOffer()).thenReturn(OFFERS.get(0));
+        when(mockOfferEvaluator.evaluate(eq(podInstanceRequirement), eq(OFFERS), any(OfferResourcePools.class)))
+                .thenReturn(mockRecommendations);
+        when(mockOfferAccepter.record(mockRecommendations)).thenReturn(true);
+        doThrow(new StateStoreException(StorageError.Reason.STORAGE_ERROR, "test failure"))
+                .when(mockStateStore).commitTaskWriteBatch();
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        step.setStatus(Status.PENDING);
+
+        assertTrue(scheduler.resourceOffers(mockSchedulerDriver, OFFERS, Arrays.asList(step)).isEmpty());
+        verify(mockStateStore).abortTaskWriteBatch();
+        verify(mockOfferAccepter, never()).acceptRecorded(any(), anyListOf(OfferRecommendation.class));
+        assertTrue(step.recommendations.isEmpty());
+        assertTrue(step.isPrepared());
+    }
+
     private static class TestOfferStep extends TestStep {
         private final PodInstanceRequirement podInstanceRequirement;
         private Collection<OfferRecommendation> recommendations;
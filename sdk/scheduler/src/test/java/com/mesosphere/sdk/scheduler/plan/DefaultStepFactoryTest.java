@@ -1,5 +1,7 @@
 package com.mesosphere.sdk.scheduler.plan;
 
+import com.mesosphere.sdk.config.ServiceSpecDiffCache;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
 import com.mesosphere.sdk.specification.*;
 import com.mesosphere.sdk.state.ConfigStore;
@@ -8,9 +10,12 @@ import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -46,6 +51,55 @@ public class DefaultStepFactoryTest {
         stepFactory.getStep(podInstance, tasksToLaunch);
     }
 
+    @Test
+    public void testTaskOnPriorConfigWithUnchangedPod() throws Exception {
+        PodSpec podA = TestPodFactory.getPodSpec("pod-a", 1, "echo a");
+        PodSpec podB = TestPodFactory.getPodSpec("pod-b", 1, "echo b");
+        PodSpec updatedPodA = TestPodFactory.getPodSpec("pod-a", 1, "echo updated");
+        ServiceSpec priorServiceSpec = TestPodFactory.getServiceSpec(podA, podB);
+        ServiceSpec serviceSpec = TestPodFactory.getServiceSpec(updatedPodA, podB);
+
+        Persister persister = new MemPersister();
+        stateStore = new StateStore(persister);
+        configStore = new ConfigStore<>(DefaultServiceSpec.getConfigurationFactory(serviceSpec), persister);
+        UUID priorConfigId = configStore.store(priorServiceSpec);
+        configStore.setTargetConfig(configStore.store(serviceSpec));
+
+        PodInstance podInstanceA = new DefaultPodInstance(updatedPodA, 0);
+        PodInstance podInstanceB = new DefaultPodInstance(podB, 0);
+        storeRunningTask(podInstanceA, priorConfigId);
+        storeRunningTask(podInstanceB, priorConfigId);
+
+        // Without diffs, any task on a prior configuration must be updated:
+        stepFactory = new DefaultStepFactory(configStore, stateStore);
+        Assert.assertTrue(stepFactory.getStep(podInstanceA, Arrays.asList("server")).isPending());
+        Assert.assertTrue(stepFactory.getStep(podInstanceB, Arrays.asList("server")).isPending());
+
+        // With diffs, only the tasks in changed pods must be updated:
+        stepFactory = new DefaultStepFactory(configStore, stateStore, new ServiceSpecDiffCache(configStore));
+        Assert.assertTrue(stepFactory.getStep(podInstanceA, Arrays.asList("server")).isPending());
+        Assert.assertTrue(stepFactory.getStep(podInstanceB, Arrays.asList("server")).isComplete());
+    }
+
+    private void storeRunningTask(PodInstance podInstance, UUID configId) {
+        String taskName = TaskSpec.getInstanceName(podInstance, "server");
+        Protos.TaskID taskId = Protos.TaskID.newBuilder().setValue(taskName + "-id").build();
+        Protos.TaskInfo.Builder taskBuilder = Protos.TaskInfo.newBuilder()
+                .setName(taskName)
+                .setTaskId(taskId)
+                .setSlaveId(TestConstants.AGENT_ID);
+        taskBuilder.setLabels(new TaskLabelWriter(taskBuilder)
+                .setType(podInstance.getPod().getType())
+                .setIndex(podInstance.getIndex())
+                .setTargetConfiguration(configId)
+                .toProto());
+        stateStore.storeTasks(Collections.singletonList(taskBuilder.build()));
+        stateStore.storeStatus(taskName, Protos.TaskStatus.newBuilder()
+                .setTaskId(taskId)
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build());
+    }
+
     private PodInstance getPodInstanceWithSameResourceSets() throws Exception {
         TaskSpec taskSpec0 =
                 TestPodFactory.getTaskSpec(TestConstants.TASK_NAME + 0, TestConstants.RESOURCE_SET_ID);
@@ -0,0 +1,177 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import com.mesosphere.sdk.scheduler.plan.strategy.ParallelStrategy;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.when;
+
+public class ParentStatusTrackerTest {
+
+    private TestStep step0;
+    private TestStep step1;
+    private TestStep step2;
+    private Phase phase0;
+    private Phase phase1;
+    private Plan plan;
+
+    @Before
+    public void beforeEach() {
+        step0 = new TestStep();
+        step1 = new TestStep();
+        step2 = new TestStep();
+        phase0 = new DefaultPhase("phase-0", Arrays.asList(step0, step1), new SerialStrategy<>(),
+                Collections.emptyList());
+        phase1 = new DefaultPhase("phase-1", Arrays.asList(step2), new ParallelStrategy<>(),
+                Collections.emptyList());
+        plan = new DefaultPlan("plan", Arrays.asList(phase0, phase1), new SerialStrategy<>());
+    }
+
+    @Test
+    public void testStepChangesPropagateToPlan() {
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        step0.setStatus(Status.PREPARED);
+        Assert.assertEquals(Status.IN_PROGRESS, phase0.getStatus());
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+
+        step0.setStatus(Status.COMPLETE);
+        step1.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase0.getStatus());
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+
+        step2.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, plan.getStatus());
+
+        step1.restart();
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+    }
+
+    @Test
+    public void testInterruptionPropagatesToPlan() {
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        phase0.interrupt();
+        Assert.assertEquals(Status.WAITING, phase0.getStatus());
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+
+        phase0.proceed();
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        step0.interrupt();
+        Assert.assertEquals(Status.WAITING, step0.getStatus());
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+
+        step0.proceed();
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        plan.interrupt();
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+        plan.proceed();
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+    }
+
+    @Test
+    public void testUnchangedChildrenAreNotQueried() {
+        AtomicInteger queries = new AtomicInteger();
+        Step step = new TestStep() {
+            @Override
+            public Status getStatus() {
+                queries.incrementAndGet();
+                return super.getStatus();
+            }
+        };
+        Phase phase = new DefaultPhase("phase", Arrays.asList(step), new SerialStrategy<>(), Collections.emptyList());
+
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+        int initialQueries = queries.get();
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+        Assert.assertEquals(initialQueries, queries.get());
+    }
+
+    @Test
+    public void testListenersOnlyNotifiedOncePerLookup() {
+        AtomicInteger notifications = new AtomicInteger();
+        Assert.assertTrue(phase0.addStatusListener(element -> notifications.incrementAndGet()));
+
+        Assert.assertEquals(Status.PENDING, phase0.getStatus());
+        step0.setStatus(Status.PREPARED);
+        step0.setStatus(Status.STARTING);
+        Assert.assertEquals(1, notifications.get());
+
+        // Setting the same status again is not a change:
+        Assert.assertEquals(Status.STARTING, phase0.getStatus());
+        step0.setStatus(Status.STARTING);
+        Assert.assertEquals(1, notifications.get());
+
+        step0.setStatus(Status.COMPLETE);
+        Assert.assertEquals(2, notifications.get());
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() {
+        AtomicInteger notifications = new AtomicInteger();
+        StatusListener listener = element -> notifications.incrementAndGet();
+        Assert.assertTrue(phase0.addStatusListener(listener));
+        Assert.assertTrue(step0.addStatusListener(listener));
+        phase0.removeStatusListener(listener);
+        step0.removeStatusListener(listener);
+
+        Assert.assertEquals(Status.PENDING, phase0.getStatus());
+        step0.setStatus(Status.PREPARED);
+        Assert.assertEquals(0, notifications.get());
+    }
+
+    @Test
+    public void testUnsubscribedPlanIsNotNotified() {
+        AtomicInteger notifications = new AtomicInteger();
+        Assert.assertTrue(plan.addStatusListener(element -> notifications.incrementAndGet()));
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        // A replacement plan around the same phases, as with the recovery plan:
+        Plan replacementPlan = new DefaultPlan("plan", Arrays.asList(phase0, phase1), new SerialStrategy<>());
+        Assert.assertEquals(Status.PENDING, replacementPlan.getStatus());
+        plan.unsubscribeFromChildren();
+
+        step0.setStatus(Status.PREPARED);
+        Assert.assertEquals(0, notifications.get());
+        Assert.assertEquals(Status.IN_PROGRESS, replacementPlan.getStatus());
+
+        // Using the plan again resubscribes it:
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+        step0.setStatus(Status.COMPLETE);
+        Assert.assertEquals(1, notifications.get());
+    }
+
+    @Test
+    public void testChildrenWithoutNotificationsAreAlwaysQueried() {
+        Step step = Mockito.mock(Step.class);
+        Phase phase = new DefaultPhase("phase", Arrays.asList(step), new SerialStrategy<>(), Collections.emptyList());
+
+        when(step.getStatus()).thenReturn(Status.PENDING);
+        when(step.isEligible(anyCollectionOf(PodInstanceRequirement.class))).thenReturn(true);
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+
+        when(step.getStatus()).thenReturn(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase.getStatus());
+    }
+
+    @Test
+    public void testDuplicateChildren() {
+        Phase phase = new DefaultPhase("phase", Arrays.asList(step0, step0), new ParallelStrategy<>(),
+                Collections.emptyList());
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+
+        step0.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase.getStatus());
+    }
+}
@@ -0,0 +1,128 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import com.mesosphere.sdk.offer.CommonIdUtils;
+import com.mesosphere.sdk.scheduler.plan.strategy.ParallelStrategy;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+
+public class StepTaskIndexTest {
+
+    private static final Protos.TaskID TASK_A = CommonIdUtils.toTaskId("task-a");
+    private static final Protos.TaskID TASK_B = CommonIdUtils.toTaskId("task-b");
+
+    @Test
+    public void testUpdatesAreRoutedToInterestedSteps() {
+        IndexedStep stepA = new IndexedStep(TASK_A);
+        IndexedStep stepB = new IndexedStep(TASK_B);
+        Phase phase = getPhase(stepA, stepB);
+
+        phase.update(getStatus(TASK_A));
+        Assert.assertEquals(Arrays.asList(TASK_A), stepA.receivedTaskIds);
+        Assert.assertTrue(stepB.receivedTaskIds.isEmpty());
+
+        phase.update(getStatus(CommonIdUtils.toTaskId("task-c")));
+        Assert.assertEquals(1, stepA.receivedTaskIds.size());
+        Assert.assertTrue(stepB.receivedTaskIds.isEmpty());
+    }
+
+    @Test
+    public void testStepsAreReindexedAfterChange() {
+        IndexedStep stepA = new IndexedStep(TASK_A);
+        Phase phase = getPhase(stepA);
+
+        phase.update(getStatus(TASK_B));
+        Assert.assertTrue(stepA.receivedTaskIds.isEmpty());
+
+        stepA.setTaskIds(TASK_B);
+        phase.update(getStatus(TASK_A));
+        phase.update(getStatus(TASK_B));
+        Assert.assertEquals(Arrays.asList(TASK_B), stepA.receivedTaskIds);
+    }
+
+    @Test
+    public void testStepsAreReindexedAfterUnsubscribing() {
+        IndexedStep stepA = new IndexedStep(TASK_A);
+        Phase phase = getPhase(stepA);
+        phase.update(getStatus(TASK_A));
+
+        // The phase no longer hears of the change, but indexes its steps afresh when it's next used:
+        phase.unsubscribeFromChildren();
+        stepA.setTaskIds(TASK_B);
+        phase.update(getStatus(TASK_B));
+        Assert.assertEquals(Arrays.asList(TASK_A, TASK_B), stepA.receivedTaskIds);
+    }
+
+    @Test
+    public void testUnindexedStepsReceiveAllUpdates() {
+        IndexedStep stepA = new IndexedStep(TASK_A);
+        IndexedStep unindexedStep = new IndexedStep(TASK_A) {
+            @Override
+            public Optional<Collection<Protos.TaskID>> getTaskIds() {
+                return Optional.empty();
+            }
+        };
+        Step mockStep = Mockito.mock(Step.class);
+        Phase phase = getPhase(mockStep, stepA, unindexedStep);
+
+        Protos.TaskStatus status = getStatus(TASK_B);
+        phase.update(status);
+        Assert.assertTrue(stepA.receivedTaskIds.isEmpty());
+        Assert.assertEquals(Arrays.asList(TASK_B), unindexedStep.receivedTaskIds);
+        verify(mockStep).update(status);
+    }
+
+    @Test
+    public void testDuplicateSteps() {
+        IndexedStep stepA = new IndexedStep(TASK_A);
+        Phase phase = getPhase(stepA, stepA);
+
+        phase.update(getStatus(TASK_A));
+        Assert.assertEquals(Arrays.asList(TASK_A, TASK_A), stepA.receivedTaskIds);
+    }
+
+    private static Phase getPhase(Step... steps) {
+        return new DefaultPhase("phase", Arrays.asList(steps), new ParallelStrategy<>(), Collections.emptyList());
+    }
+
+    private static Protos.TaskStatus getStatus(Protos.TaskID taskId) {
+        return Protos.TaskStatus.newBuilder()
+                .setTaskId(taskId)
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build();
+    }
+
+    private static class IndexedStep extends TestStep {
+        private final List<Protos.TaskID> receivedTaskIds = new ArrayList<>();
+        private Collection<Protos.TaskID> taskIds;
+
+        private IndexedStep(Protos.TaskID taskId) {
+            this.taskIds = Arrays.asList(taskId);
+        }
+
+        private void setTaskIds(Protos.TaskID taskId) {
+            this.taskIds = Arrays.asList(taskId);
+            notifyStatusListeners();
+        }
+
+        @Override
+        public Optional<Collection<Protos.TaskID>> getTaskIds() {
+            return Optional.of(taskIds);
+        }
+
+        @Override
+        public void update(Protos.TaskStatus status) {
+            receivedTaskIds.add(status.getTaskId());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.mesosphere.sdk.specification;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.mesosphere.sdk.config.validate.PodSpecsCannotUseUnsupportedFeatures;
 import com.mesosphere.sdk.dcos.Capabilities;
@@ -67,6 +68,32 @@ public class DefaultServiceSpecTest {
                 .setConfigTemplateReader(configTemplateReader)
                 .build();
         Assert.assertNotNull(serviceSpec);
+        Assert.assertEquals("best-fit", serviceSpec.getPods().get(0).getOfferScorer().get());
+        Assert.assertFalse(serviceSpec.getPods().get(1).getOfferScorer().isPresent());
+    }
+
+    @Test
+    public void validExhaustiveStoredWithSharedTemplates() throws Exception {
+        String largeTemplate = Strings.repeat("key = {{VALUE}}\n", 1000);
+        when(configTemplateReader.read("config-one.conf.mustache")).thenReturn(largeTemplate);
+        when(configTemplateReader.read("config-two.xml.mustache")).thenReturn("hey");
+        when(configTemplateReader.read("config-three.conf.mustache")).thenReturn(largeTemplate);
+
+        File file = new File(getClass().getClassLoader().getResource("valid-exhaustive.yml").getFile());
+        DefaultServiceSpec serviceSpec = DefaultServiceSpec.newGenerator(file, SCHEDULER_CONFIG)
+                .setConfigTemplateReader(configTemplateReader)
+                .build();
+
+        Persister persister = new MemPersister();
+        UUID id = new ConfigStore<>(DefaultServiceSpec.getConfigurationFactory(serviceSpec), persister)
+                .store(serviceSpec);
+        // Both copies of the template are stored once, outside of the config:
+        Assert.assertEquals(1, persister.getChildren("ConfigBlobs").size());
+        Assert.assertTrue(persister.get("Configurations/" + id).length < largeTemplate.length());
+
+        ServiceSpec fetched = new ConfigStore<>(DefaultServiceSpec.getConfigurationFactory(serviceSpec), persister)
+                .fetch(id);
+        Assert.assertEquals(serviceSpec, fetched);
     }
 
     @Test
@@ -542,6 +569,13 @@ public class DefaultServiceSpecTest {
         DefaultServiceSpec.newGenerator(file, SCHEDULER_CONFIG).build();
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidOfferScorer() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        File file = new File(classLoader.getResource("invalid-offer-scorer.yml").getFile());
+        DefaultServiceSpec.newGenerator(file, SCHEDULER_CONFIG).build();
+    }
+
     @Test
     public void invalidTaskNamePojo() throws Exception {
         ClassLoader classLoader = getClass().getClassLoader();
@@ -7,7 +7,7 @@ import org.apache.mesos.Protos;
 import java.util.*;
 
 /**
- * This class provides TaskTypeSpecifications for testing purposes.
+ * This class provides TaskTypeSpecifications, PodSpecs, and ServiceSpecs for testing purposes.
  */
 public class TestPodFactory {
     public static final double CPU = 1.0;
@@ -151,6 +151,19 @@ public class TestPodFactory {
         return getPodSpec(type, user, count, Arrays.asList(getTaskSpec(taskName, cmd, resourceSetId, null, cpu, mem, disk)));
     }
 
+    public static PodSpec getPodSpec(String type, int count, String cmd) {
+        return getPodSpec(
+                type,
+                TestConstants.RESOURCE_SET_ID,
+                "server",
+                cmd,
+                TestConstants.SERVICE_USER,
+                count,
+                CPU,
+                MEM,
+                DISK);
+    }
+
     public static PodSpec getPodSpec(String type, String user, int count, List<TaskSpec> taskSpecs) {
         return DefaultPodSpec.newBuilder("test-executor")
                 .type(type)
@@ -159,4 +172,14 @@ public class TestPodFactory {
                 .tasks(taskSpecs)
                 .build();
     }
+
+    public static ServiceSpec getServiceSpec(PodSpec... pods) {
+        return DefaultServiceSpec.newBuilder()
+                .name(TestConstants.SERVICE_NAME)
+                .role(TestConstants.ROLE)
+                .principal(TestConstants.PRINCIPAL)
+                .zookeeperConnection("foo.bar.com")
+                .pods(Arrays.asList(pods))
+                .build();
+    }
 }
@@ -0,0 +1,196 @@
+package com.mesosphere.sdk.state;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.mesosphere.sdk.config.StringConfiguration;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ConfigCache}.
+ */
+public class ConfigCacheTest {
+
+    private static final UUID ID1 = UUID.randomUUID();
+    private static final UUID ID2 = UUID.randomUUID();
+    private static final UUID ID3 = UUID.randomUUID();
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @Test
+    public void testHitsDontLoad() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(10, 1000);
+        StringConfiguration config = cache.get(ID1, loader("one", 10));
+        assertEquals("one", new String(config.getBytes()));
+        assertSame(config, cache.get(ID1, loader("other", 10)));
+        assertEquals(1, loadCount.get());
+
+        cache.put(ID2, new StringConfiguration("two"), 10);
+        assertEquals("two", new String(cache.get(ID2, loader("other", 10)).getBytes()));
+        assertEquals(1, loadCount.get());
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.weight());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedByCount() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(2, 1000);
+        cache.put(ID1, new StringConfiguration("one"), 10);
+        cache.put(ID2, new StringConfiguration("two"), 10);
+        cache.get(ID1, loader("other", 10));
+        cache.put(ID3, new StringConfiguration("three"), 10);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(ID1));
+        assertFalse(cache.contains(ID2));
+        assertTrue(cache.contains(ID3));
+        assertEquals(0, loadCount.get());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedByWeight() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(10, 100);
+        cache.put(ID1, new StringConfiguration("one"), 40);
+        cache.put(ID2, new StringConfiguration("two"), 40);
+        cache.put(ID3, new StringConfiguration("three"), 40);
+
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.weight());
+        assertFalse(cache.contains(ID1));
+        assertTrue(cache.contains(ID2));
+        assertTrue(cache.contains(ID3));
+    }
+
+    @Test
+    public void testPinnedConfigIsNotEvicted() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(1, 1000);
+        cache.pin(ID1);
+        cache.put(ID1, new StringConfiguration("one"), 10);
+        cache.put(ID2, new StringConfiguration("two"), 10);
+        cache.put(ID3, new StringConfiguration("three"), 10);
+        // The pinned config is retained in addition to the bound of one config:
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(ID1));
+        assertFalse(cache.contains(ID2));
+        assertTrue(cache.contains(ID3));
+
+        // Once another config is pinned, the prior pinned config may be evicted:
+        cache.pin(ID3);
+        cache.put(ID2, new StringConfiguration("two"), 10);
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains(ID1));
+        assertTrue(cache.contains(ID2));
+        assertTrue(cache.contains(ID3));
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(10, 1000);
+        try {
+            cache.get(ID1, () -> {
+                throw new ConfigStoreException(Reason.NOT_FOUND, "hi");
+            });
+            fail("Expected an exception");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.NOT_FOUND, e.getReason());
+        }
+        assertEquals("one", new String(cache.get(ID1, loader("one", 10)).getBytes()));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testLoadFailingWithErrorReleasesWaiters() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(10, 1000);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch finishLoad = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StringConfiguration> first = executor.submit(() -> cache.get(ID1, () -> {
+                loadStarted.countDown();
+                Uninterruptibles.awaitUninterruptibly(finishLoad);
+                throw new StackOverflowError();
+            }));
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            Future<StringConfiguration> second = executor.submit(() -> cache.get(ID1, loader("other", 10)));
+
+            finishLoad.countDown();
+            try {
+                first.get(10, TimeUnit.SECONDS);
+                fail("Expected an exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StackOverflowError);
+            }
+            // The waiting caller fails rather than waiting forever, unless it missed after the load had failed:
+            try {
+                assertEquals("other", new String(second.get(10, TimeUnit.SECONDS).getBytes()));
+            } catch (ExecutionException e) {
+                assertEquals(Reason.UNKNOWN, ((ConfigStoreException) e.getCause()).getReason());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The failed load is no longer in progress, so later callers don't wait for it:
+        assertNotNull(cache.get(ID1, loader("one", 10)));
+    }
+
+    @Test
+    public void testRemoveDuringLoad() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(10, 1000);
+        StringConfiguration config = cache.get(ID1, () -> {
+            cache.remove(ID1);
+            return new ConfigCache.Weighted<>(new StringConfiguration("one"), 10);
+        });
+        assertEquals("one", new String(config.getBytes()));
+        assertFalse(cache.contains(ID1));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        ConfigCache<StringConfiguration> cache = new ConfigCache<>(10, 1000);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch finishLoad = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<StringConfiguration> first = executor.submit(() -> cache.get(ID1, () -> {
+                loadStarted.countDown();
+                Uninterruptibles.awaitUninterruptibly(finishLoad);
+                return loader("one", 10).load();
+            }));
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+            // These miss while the first load is in progress, and wait for its result:
+            Future<StringConfiguration> second = executor.submit(() -> cache.get(ID1, loader("other", 10)));
+            Future<StringConfiguration> third = executor.submit(() -> cache.get(ID1, loader("other", 10)));
+            // A different config isn't blocked by the load:
+            assertEquals("two", new String(cache.get(ID2, loader("two", 10)).getBytes()));
+
+            finishLoad.countDown();
+            StringConfiguration config = first.get(10, TimeUnit.SECONDS);
+            assertEquals("one", new String(config.getBytes()));
+            assertSame(config, second.get(10, TimeUnit.SECONDS));
+            assertSame(config, third.get(10, TimeUnit.SECONDS));
+            assertEquals(2, loadCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ConfigCache.Loader<StringConfiguration> loader(String content, long weight) {
+        return () -> {
+            loadCount.incrementAndGet();
+            return new ConfigCache.Weighted<>(new StringConfiguration(content), weight);
+        };
+    }
+}
@@ -1,15 +1,25 @@
 package com.mesosphere.sdk.state;
 
+import com.google.common.base.Strings;
 import com.mesosphere.sdk.config.StringConfiguration;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterUtils;
+import com.mesosphere.sdk.storage.StorageError.Reason;
 
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
@@ -28,7 +38,7 @@ public class DefaultConfigStoreTest {
         store = new ConfigStore<StringConfiguration>(new StringConfiguration.Factory(), persister);
 
         // Check that schema version was created in the correct location:
-        assertEquals("1", new String(persister.get("SchemaVersion"), StandardCharsets.UTF_8));
+        assertEquals("2", new String(persister.get("SchemaVersion"), StandardCharsets.UTF_8));
 
         testConfig = new StringConfiguration("test-config");
     }
@@ -76,8 +86,8 @@ public class DefaultConfigStoreTest {
     public void testListConfig() throws Exception {
         Collection<UUID> ids = new ArrayList<>();
         ids.add(store.store(testConfig));
-        ids.add(store.store(testConfig));
-        ids.add(store.store(testConfig));
+        ids.add(store.store(new StringConfiguration("test-config-2")));
+        ids.add(store.store(new StringConfiguration("test-config-3")));
 
         assertEquals(3, ids.size());
         assertEquals(3, store.list().size());
@@ -87,6 +97,144 @@ public class DefaultConfigStoreTest {
         }
     }
 
+    @Test
+    public void testIdenticalConfigsShareId() throws Exception {
+        UUID id = store.store(testConfig);
+        assertEquals(id, store.store(new StringConfiguration("test-config")));
+        assertEquals(1, store.list().size());
+
+        // The ID is derived from the content, and doesn't depend on what was stored before:
+        ConfigStore<StringConfiguration> store2 =
+                new ConfigStore<StringConfiguration>(new StringConfiguration.Factory(), new MemPersister());
+        assertEquals(id, store2.store(testConfig));
+        assertNotEquals(id, store2.store(new StringConfiguration("test-config-2")));
+    }
+
+    @Test
+    public void testConfigsAreCompressed() throws Exception {
+        StringConfiguration config = new StringConfiguration(Strings.repeat("test-config ", 1000));
+        UUID id = store.store(config);
+        assertTrue(persister.get("Configurations/" + id.toString()).length < config.getBytes().length / 10);
+        assertEquals(config, newStore().fetch(id));
+    }
+
+    @Test
+    public void testLargeStringsAreSharedBlobs() throws Exception {
+        String template = Strings.repeat("template-line\\n", StoredConfig.BLOB_MIN_LENGTH);
+        StringConfiguration config1 = new StringConfiguration(
+                String.format("{\"name\":\"one\",\"files\":[{\"template\":\"%s\"}]}", template));
+        StringConfiguration config2 = new StringConfiguration(
+                String.format("{\"name\":\"two\",\"template\":\"%s\",\"short\":\"x\"}", template));
+        UUID id1 = store.store(config1);
+        UUID id2 = store.store(config2);
+        assertNotEquals(id1, id2);
+        assertEquals(1, getBlobCount());
+
+        // The blob is restored when the config is read back:
+        ConfigStore<StringConfiguration> store2 = newStore();
+        assertJsonEquals(config1, store2.fetch(id1));
+        assertJsonEquals(config2, store2.fetch(id2));
+
+        // The blob is only deleted once neither config refers to it:
+        store.clear(id1);
+        assertEquals(1, getBlobCount());
+        assertJsonEquals(config2, newStore().fetch(id2));
+        store.clear(id2);
+        assertEquals(0, getBlobCount());
+    }
+
+    @Test
+    public void testClearAllExcept() throws Exception {
+        UUID id1 = store.store(testConfig);
+        UUID id2 = store.store(new StringConfiguration("test-config-2"));
+        UUID id3 = store.store(new StringConfiguration("test-config-3"));
+
+        assertEquals(new HashSet<>(Arrays.asList(id1, id3)), new HashSet<>(store.clearAllExcept(Arrays.asList(id2))));
+        assertEquals(Arrays.asList(id2), store.list());
+        assertTrue(store.clearAllExcept(Arrays.asList(id2)).isEmpty());
+    }
+
+    @Test
+    public void testClearAllExceptKeepsUnreadableConfigs() throws Exception {
+        UUID id1 = store.store(testConfig);
+        UUID id2 = store.store(new StringConfiguration("test-config-2"));
+        // A config with a valid header whose content can't be decompressed:
+        UUID unreadableId = UUID.randomUUID();
+        ByteBuffer unreadable = ByteBuffer.allocate(16).putInt(0x53444b43).putInt(1).putInt(0).putInt(42);
+        persister.set("Configurations/" + unreadableId.toString(), unreadable.array());
+
+        // Configs are checked without being parsed:
+        ConfigStore<StringConfiguration> nonParsingStore = new ConfigStore<StringConfiguration>(bytes -> {
+            throw new AssertionError("Unexpected parse");
+        }, persister);
+        assertEquals(Arrays.asList(id1), new ArrayList<>(nonParsingStore.clearAllExcept(Arrays.asList(id2))));
+        assertEquals(new HashSet<>(Arrays.asList(id2, unreadableId)), new HashSet<>(store.list()));
+    }
+
+    @Test
+    public void testStoreRejectsOversizedWrite() throws Exception {
+        // Incompressible strings, each well below the node size limit, but which exceed it in total:
+        Random random = new Random(0);
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 4; ++i) {
+            byte[] bytes = new byte[256 * 1024];
+            random.nextBytes(bytes);
+            json.append(String.format("\"file-%d\":\"%s\",", i, Base64.getEncoder().encodeToString(bytes)));
+        }
+        json.append("\"name\":\"large\"}");
+        try {
+            store.store(new StringConfiguration(json.toString()));
+            fail("Expected oversized write to be rejected");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+        assertTrue(store.list().isEmpty());
+        assertEquals(0, getBlobCount());
+    }
+
+    @Test
+    public void testCacheMetricsReflectRegisteredStore() throws Exception {
+        store.registerCacheMetrics();
+        store.store(testConfig);
+
+        // Other stores don't replace the registered gauges:
+        ConfigStore<StringConfiguration> store2 = newStore();
+        store2.store(new StringConfiguration("test-config-2"));
+        store2.store(new StringConfiguration("test-config-3"));
+        assertEquals(1, Metrics.getRegistry().getGauges().get(Metrics.CONFIG_CACHE_SIZE).getValue());
+    }
+
+    @Test
+    public void testSchemaVersionMigration() throws Exception {
+        // Data written by an older scheduler is readable, and is then marked as requiring this version:
+        persister = new MemPersister();
+        persister.set("SchemaVersion", "1".getBytes(StandardCharsets.UTF_8));
+        UUID legacyId = UUID.randomUUID();
+        persister.set("Configurations/" + legacyId.toString(), "legacy-config".getBytes(StandardCharsets.UTF_8));
+        assertEquals(new StringConfiguration("legacy-config"), newStore().fetch(legacyId));
+        assertEquals("2", new String(persister.get("SchemaVersion"), StandardCharsets.UTF_8));
+
+        persister.set("SchemaVersion", "3".getBytes(StandardCharsets.UTF_8));
+        try {
+            newStore();
+            fail("Expected newer schema version to be rejected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFetchLegacyConfig() throws Exception {
+        // Configs written before content addressing are stored uncompressed against a random UUID:
+        UUID id = UUID.randomUUID();
+        persister.set("Configurations/" + id.toString(), "legacy-config".getBytes(StandardCharsets.UTF_8));
+        assertEquals(new StringConfiguration("legacy-config"), store.fetch(id));
+        assertEquals(Arrays.asList(id), store.list());
+
+        store.clear(id);
+        assertTrue(store.list().isEmpty());
+    }
+
     @Test
     public void testStoreSetTargetConfigGetTargetConfig() throws Exception {
         UUID testId = store.store(testConfig);
@@ -105,4 +253,44 @@ public class DefaultConfigStoreTest {
     public void testGetEmptyTargetConfig() throws Exception {
         store.getTargetConfig();
     }
+
+    @Test
+    public void testTargetConfigStaysCached() throws Exception {
+        store = new ConfigStore<StringConfiguration>(new StringConfiguration.Factory(), persister, 1, 1000);
+        UUID targetId = store.store(testConfig);
+        store.setTargetConfig(targetId);
+        StringConfiguration config1 = new StringConfiguration("config-1");
+        StringConfiguration config2 = new StringConfiguration("config-2");
+        UUID id1 = store.store(config1);
+        UUID id2 = store.store(config2);
+
+        // Remove the stored data, so that only cached configs can be fetched:
+        persister.deleteAll("Configurations");
+        assertEquals(testConfig, store.fetch(targetId));
+        assertEquals(config2, store.fetch(id2));
+        try {
+            store.fetch(id1);
+            fail("Expected evicted config to be read from the persister");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.NOT_FOUND, e.getReason());
+        }
+    }
+
+    private static void assertJsonEquals(StringConfiguration expected, StringConfiguration actual) throws Exception {
+        // Configs with blobs are reformatted when they're restored:
+        assertTrue(toJson(expected).similar(toJson(actual)));
+    }
+
+    private static JSONObject toJson(StringConfiguration config) throws Exception {
+        return new JSONObject(new String(config.getBytes(), StandardCharsets.UTF_8));
+    }
+
+    private long getBlobCount() throws Exception {
+        return PersisterUtils.getAllKeys(persister).stream().filter(key -> key.startsWith("/ConfigBlobs/")).count();
+    }
+
+    private ConfigStore<StringConfiguration> newStore() {
+        // Reads from the persister rather than from the cache of the original store:
+        return new ConfigStore<StringConfiguration>(new StringConfiguration.Factory(), persister);
+    }
 }
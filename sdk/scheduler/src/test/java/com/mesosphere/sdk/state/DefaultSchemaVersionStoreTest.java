@@ -49,10 +49,10 @@ public class DefaultSchemaVersionStoreTest {
         // not initialized until first fetch:
         assertFalse(directHasVersion());
 
-        assertEquals(1, store.fetch());
+        assertEquals(2, store.fetch());
 
         // check that underlying storage now has the data:
-        assertEquals(1, getDirectVersion());
+        assertEquals(2, getDirectVersion());
     }
 
     @Test
@@ -5,15 +5,27 @@ import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.SlaveID;
 
 import com.mesosphere.sdk.offer.CommonIdUtils;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
 import com.mesosphere.sdk.offer.taskdata.TaskPackingUtils;
 import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
+import com.mesosphere.sdk.storage.PersisterException;
 import com.mesosphere.sdk.storage.PersisterUtils;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+import com.mesosphere.sdk.storage.WriteBehindPersister;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
 
 import org.junit.*;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -42,7 +54,7 @@ public class StateStoreTest {
         store = new StateStore(persister);
 
         // Check that schema version was created in the correct location:
-        assertEquals("1", new String(persister.get("SchemaVersion"), StandardCharsets.UTF_8));
+        assertEquals("2", new String(persister.get("SchemaVersion"), StandardCharsets.UTF_8));
     }
 
     @Test
@@ -230,6 +242,444 @@ public class StateStoreTest {
         assertEquals(origInfo, retrievedInfo);
     }
 
+    @Test
+    public void testFetchTasksForTaskId() throws Exception {
+        store.storeTasks(createTasks("a", "b"));
+        Protos.TaskInfo taskA = store.fetchTask("a").get();
+        assertEquals(Arrays.asList(taskA), store.fetchTasksForTaskId(taskA.getTaskId()));
+        assertTrue(store.fetchTasksForTaskId(CommonIdUtils.toTaskId("c")).isEmpty());
+
+        // Relaunching with a new TaskID replaces the old index entry:
+        Protos.TaskInfo relaunchedTaskA = taskA.toBuilder().setTaskId(CommonIdUtils.toTaskId("a")).build();
+        store.storeTasks(Arrays.asList(relaunchedTaskA));
+        assertTrue(store.fetchTasksForTaskId(taskA.getTaskId()).isEmpty());
+        assertEquals(Arrays.asList(relaunchedTaskA), store.fetchTasksForTaskId(relaunchedTaskA.getTaskId()));
+
+        store.clearTask("a");
+        assertTrue(store.fetchTasksForTaskId(relaunchedTaskA.getTaskId()).isEmpty());
+    }
+
+    @Test
+    public void testFetchTasksForPodAndAgent() throws Exception {
+        Protos.TaskInfo.Builder podTask0 = createTask("pod-0-a").toBuilder();
+        podTask0.setLabels(new TaskLabelWriter(podTask0).setType("pod").setIndex(0).toProto());
+        Protos.TaskInfo.Builder podTask1 = createTask("pod-0-b").toBuilder()
+                .setSlaveId(SlaveID.newBuilder().setValue("other-agent"));
+        podTask1.setLabels(new TaskLabelWriter(podTask1).setType("pod").setIndex(0).toProto());
+        Protos.TaskInfo.Builder otherPodTask = createTask("pod-1-a").toBuilder();
+        otherPodTask.setLabels(new TaskLabelWriter(otherPodTask).setType("pod").setIndex(1).toProto());
+        store.storeTasks(Arrays.asList(podTask0.build(), podTask1.build(), otherPodTask.build()));
+
+        assertEquals(Arrays.asList(podTask0.build(), podTask1.build()), store.fetchTasksForPod("pod-0"));
+        assertEquals(Arrays.asList(otherPodTask.build()), store.fetchTasksForPod("pod-1"));
+        assertTrue(store.fetchTasksForPod("pod-2").isEmpty());
+
+        assertEquals(Arrays.asList(podTask0.build(), otherPodTask.build()),
+                store.fetchTasksForAgent(SlaveID.newBuilder().setValue("ignored").build()));
+        assertEquals(Arrays.asList(podTask1.build()),
+                store.fetchTasksForAgent(SlaveID.newBuilder().setValue("other-agent").build()));
+    }
+
+    @Test
+    public void testFetchTasksForResourceAndPersistenceId() throws Exception {
+        Protos.Resource cpus = ResourceTestUtils.getReservedCpus(1.0, "cpus-id");
+        Protos.Resource volume = ResourceTestUtils.getReservedRootVolume(10.0, "disk-id", "persistence-id");
+        Protos.TaskInfo taskA = createTask("a").toBuilder().addResources(cpus).addResources(volume).build();
+        Protos.TaskInfo taskB = createTask("b").toBuilder().addResources(cpus).build();
+        store.storeTasks(Arrays.asList(taskA, taskB));
+
+        assertEquals(Arrays.asList(taskA, taskB), store.fetchTasksForResourceId("cpus-id"));
+        assertEquals(Arrays.asList(taskA), store.fetchTasksForResourceId("disk-id"));
+        assertEquals(Arrays.asList(taskA), store.fetchTasksForPersistenceId("persistence-id"));
+
+        // Replacing a task's resources updates the index:
+        store.storeTasks(Arrays.asList(taskA.toBuilder().clearResources().build()));
+        assertEquals(Arrays.asList(taskB), store.fetchTasksForResourceId("cpus-id"));
+        assertTrue(store.fetchTasksForResourceId("disk-id").isEmpty());
+        assertTrue(store.fetchTasksForPersistenceId("persistence-id").isEmpty());
+    }
+
+    @Test
+    public void testIndexLoadedFromPersister() throws Exception {
+        store.storeTasks(createTasks("a", "b"));
+        Protos.TaskInfo taskA = store.fetchTask("a").get();
+        store.storeStatus("a", TASK_STATUS.toBuilder().setTaskId(taskA.getTaskId()).build());
+
+        // A new instance against the same persister sees the same content:
+        StateStore newStore = new StateStore(persister);
+        assertEquals(store.fetchTaskNames(), newStore.fetchTaskNames());
+        assertEquals(taskA, newStore.fetchTask("a").get());
+        assertEquals(store.fetchStatus("a"), newStore.fetchStatus("a"));
+        assertEquals(Arrays.asList(taskA), newStore.fetchTasksForTaskId(taskA.getTaskId()));
+    }
+
+    @Test
+    public void testStoreClearAllDataClearsIndex() throws Exception {
+        store.storeTasks(createTasks("a"));
+        Protos.TaskID taskId = store.fetchTask("a").get().getTaskId();
+        store.clearAllData();
+        assertTrue(store.fetchTaskNames().isEmpty());
+        assertTrue(store.fetchTasksForTaskId(taskId).isEmpty());
+    }
+
+    @Test
+    public void testTaskWriteBatchCommit() throws Exception {
+        store.beginTaskWriteBatch();
+        Protos.TaskInfo task = createTask("a");
+        store.storeTasks(Arrays.asList(task));
+        Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(task.getTaskId()).build();
+        store.storeStatus("a", status);
+
+        // Visible via this instance, but not yet written to the persister:
+        assertEquals(task, store.fetchTask("a").get());
+        assertEquals(status, store.fetchStatus("a").get());
+        assertTrue(new StateStore(persister).fetchTaskNames().isEmpty());
+
+        store.commitTaskWriteBatch();
+        StateStore otherStore = new StateStore(persister);
+        assertEquals(task, otherStore.fetchTask("a").get());
+        assertEquals(status, otherStore.fetchStatus("a").get());
+
+        // Writes after the batch has ended go directly to the persister:
+        store.storeTasks(createTasks("b"));
+        assertEquals(Arrays.asList("a", "b"), new StateStore(persister).fetchTaskNames());
+    }
+
+    @Test
+    public void testTaskWriteBatchAbort() throws Exception {
+        store.storeTasks(createTasks("a"));
+        store.beginTaskWriteBatch();
+        store.storeTasks(createTasks("b"));
+        assertEquals(Arrays.asList("a", "b"), store.fetchTaskNames());
+
+        store.abortTaskWriteBatch();
+        assertEquals(Arrays.asList("a"), store.fetchTaskNames());
+        assertEquals(Arrays.asList("a"), new StateStore(persister).fetchTaskNames());
+
+        // Aborting without a batch in progress is a no-op:
+        store.abortTaskWriteBatch();
+    }
+
+    @Test
+    public void testTaskWriteBatchRollbackToMark() throws Exception {
+        store.storeTasks(createTasks("a"));
+        Protos.TaskInfo taskA = store.fetchTask("a").get();
+        Protos.TaskStatus statusA = TASK_STATUS.toBuilder().setTaskId(taskA.getTaskId()).build();
+        store.beginTaskWriteBatch();
+        store.storeTasks(createTasks("b"));
+
+        store.markTaskWriteBatch();
+        store.storeTasks(createTasks("c"));
+        Protos.TaskInfo updatedTaskA = createTask("a");
+        store.storeTasks(Arrays.asList(updatedTaskA));
+        store.storeStatus("a", statusA);
+        assertEquals(Arrays.asList("a", "b", "c"), store.fetchTaskNames());
+        assertEquals(Arrays.asList(updatedTaskA), store.fetchTasksForTaskId(updatedTaskA.getTaskId()));
+
+        // The writes since the mark are discarded, while those before the mark remain batched:
+        store.rollbackTaskWriteBatch();
+        assertEquals(Arrays.asList("a", "b"), store.fetchTaskNames());
+        assertEquals(taskA, store.fetchTask("a").get());
+        assertFalse(store.fetchStatus("a").isPresent());
+        assertTrue(store.fetchTasksForTaskId(updatedTaskA.getTaskId()).isEmpty());
+        assertEquals(Arrays.asList(taskA), store.fetchTasksForTaskId(taskA.getTaskId()));
+
+        store.commitTaskWriteBatch();
+        assertEquals(
+                new TreeSet<>(Arrays.asList("/SchemaVersion", "/Tasks", "/Tasks/a", "/Tasks/a/TaskInfo", "/Tasks/b",
+                        "/Tasks/b/TaskInfo")),
+                new TreeSet<>(PersisterUtils.getAllKeys(persister)));
+        assertEquals(taskA, new StateStore(persister).fetchTask("a").get());
+    }
+
+    @Test(expected = StateStoreException.class)
+    public void testTaskWriteBatchRollbackWithoutBatch() throws Exception {
+        store.rollbackTaskWriteBatch();
+    }
+
+    @Test
+    public void testFetchAsync() throws Exception {
+        store.storeTasks(createTasks("a", "b"));
+        Protos.TaskInfo taskA = store.fetchTask("a").get();
+        Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(taskA.getTaskId()).build();
+        store.storeStatus("a", status);
+        assertEquals(store.fetchTasks(), store.fetchTasksAsync().get());
+        assertEquals(Arrays.asList(status), store.fetchStatusesAsync().get());
+
+        // Aborting a batch reloads the aborted tasks from the persister:
+        store.beginTaskWriteBatch();
+        store.storeTasks(createTasks("c"));
+        store.abortTaskWriteBatch();
+        Collection<Protos.TaskInfo> tasks = store.fetchTasksAsync().get();
+        assertEquals(Arrays.asList("a", "b"), tasks.stream().map(task -> task.getName()).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(status), store.fetchStatusesAsync().get());
+        assertEquals(Arrays.asList(taskA), store.fetchTasksForTaskId(taskA.getTaskId()));
+    }
+
+    @Test
+    public void testRefreshedCacheInvalidatesTaskIndex() throws Exception {
+        PersisterCache cache = new PersisterCache(persister);
+        store = new StateStore(cache);
+        store.storeTasks(createTasks("a"));
+
+        // Task written to the persister behind the cache's back:
+        new StateStore(persister).storeTasks(createTasks("b"));
+        assertEquals(Arrays.asList("a"), store.fetchTaskNames());
+        cache.refresh();
+        assertEquals(Arrays.asList("a", "b"), store.fetchTaskNames());
+
+        // Refreshing during a batch doesn't discard the batch's writes:
+        store.beginTaskWriteBatch();
+        store.storeTasks(createTasks("c"));
+        new StateStore(persister).storeTasks(createTasks("d"));
+        cache.refresh();
+        assertEquals(Arrays.asList("a", "b", "c"), store.fetchTaskNames());
+        store.commitTaskWriteBatch();
+        assertEquals(Arrays.asList("a", "b", "c", "d"), store.fetchTaskNames());
+    }
+
+    @Test
+    public void testReadsDuringInvalidationSeeLoadedIndex() throws Exception {
+        PersisterCache cache = new PersisterCache(persister);
+        store = new StateStore(cache);
+        store.storeTasks(createTasks("a", "b"));
+
+        // Each refresh invalidates the task index, which must never be observed empty by a concurrent read:
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService refresher = Executors.newSingleThreadExecutor();
+        Future<?> refreshes = refresher.submit(() -> {
+            while (!done.get()) {
+                cache.refresh();
+            }
+            return null;
+        });
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                reads.add(readers.submit(() -> {
+                    for (int j = 0; j < 500; ++j) {
+                        assertEquals(Arrays.asList("a", "b"), store.fetchTaskNames());
+                        assertEquals(2, store.fetchTasks().size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> read : reads) {
+                read.get();
+            }
+        } finally {
+            done.set(true);
+            readers.shutdown();
+            refresher.shutdown();
+        }
+        refreshes.get();
+    }
+
+    @Test
+    public void testClosedStoreIgnoresCacheChanges() throws Exception {
+        PersisterCache cache = new PersisterCache(persister);
+        store = new StateStore(cache);
+        store.storeTasks(createTasks("a"));
+        long version = store.getDataVersion();
+
+        store.close();
+        cache.refresh();
+        assertEquals(version, store.getDataVersion());
+    }
+
+    @Test
+    public void testDataVersion() throws Exception {
+        long version = store.getDataVersion();
+        Protos.TaskInfo task = createTask("a");
+        store.storeTasks(Collections.singletonList(task));
+        version = assertDataVersionChanged(version);
+        store.storeStatus("a", TASK_STATUS.toBuilder().setTaskId(task.getTaskId()).build());
+        version = assertDataVersionChanged(version);
+        store.storeProperty("prop", new byte[0]);
+        version = assertDataVersionChanged(version);
+        store.clearTask("a");
+        version = assertDataVersionChanged(version);
+
+        // Reads don't change the version:
+        store.fetchTasks();
+        store.fetchProperty("prop");
+        assertEquals(version, store.getDataVersion());
+        assertEquals(version, store.awaitDataVersion(version, 10));
+
+        // Waiters are woken by changes, including those reported by a cache:
+        PersisterCache cache = new PersisterCache(persister);
+        store = new StateStore(cache);
+        long cacheVersion = store.getDataVersion();
+        Thread refresher = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                cache.refresh();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        refresher.start();
+        assertNotEquals(cacheVersion, store.awaitDataVersion(cacheVersion, 30000));
+        refresher.join();
+    }
+
+    @Test
+    public void testDataVersionListener() throws Exception {
+        AtomicInteger notifications = new AtomicInteger();
+        StateStore.DataVersionListener listener = notifications::incrementAndGet;
+        store.addDataVersionListener(listener);
+        store.storeTasks(createTasks("a"));
+        int count = notifications.get();
+        assertNotEquals(0, count);
+
+        // Reads don't notify:
+        store.fetchTasks();
+        assertEquals(count, notifications.get());
+        store.storeProperty("prop", new byte[0]);
+        assertNotEquals(count, notifications.get());
+
+        store.removeDataVersionListener(listener);
+        count = notifications.get();
+        store.clearTask("a");
+        assertEquals(count, notifications.get());
+    }
+
+    @Test
+    public void testTaskWriteBatchClearTask() throws Exception {
+        store.beginTaskWriteBatch();
+        store.storeTasks(createTasks("a", "b"));
+        store.clearTask("a");
+        store.commitTaskWriteBatch();
+        assertEquals(Arrays.asList("b"), store.fetchTaskNames());
+        assertEquals(Arrays.asList("b"), new StateStore(persister).fetchTaskNames());
+    }
+
+    @Test
+    public void testTaskWriteBatchOtherThreadNotDeferred() throws Exception {
+        store.beginTaskWriteBatch();
+        Thread thread = new Thread(() -> store.storeTasks(createTasks("a")));
+        thread.start();
+        thread.join();
+        assertEquals(Arrays.asList("a"), new StateStore(persister).fetchTaskNames());
+        store.commitTaskWriteBatch();
+    }
+
+    @Test
+    public void testTaskWriteBatchesInSeparateThreads() throws Exception {
+        store.storeTasks(createTasks("a"));
+        store.beginTaskWriteBatch();
+        store.storeTasks(createTasks("b"));
+
+        Protos.TaskInfo taskA = store.fetchTask("a").get();
+        Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(taskA.getTaskId()).build();
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+        otherThread.submit(() -> {
+            store.beginTaskWriteBatch();
+            store.storeStatus("a", status);
+            store.commitTaskWriteBatch();
+            store.beginTaskWriteBatch();
+            store.storeTasks(createTasks("c"));
+        }).get();
+        assertEquals(status, new StateStore(persister).fetchStatus("a").get());
+        assertEquals(Arrays.asList("a", "b", "c"), store.fetchTaskNames());
+
+        // Rolling back this thread's writes doesn't affect the other thread's writes, to the same or other tasks:
+        store.markTaskWriteBatch();
+        store.storeStatus("a", status.toBuilder().setState(Protos.TaskState.TASK_FAILED).build());
+        store.storeTasks(createTasks("c"));
+        store.rollbackTaskWriteBatch();
+        assertEquals(status, store.fetchStatus("a").get());
+        assertEquals(Arrays.asList("a", "b", "c"), store.fetchTaskNames());
+
+        store.commitTaskWriteBatch();
+        assertEquals(Arrays.asList("a", "b"), new StateStore(persister).fetchTaskNames());
+        otherThread.submit(() -> store.abortTaskWriteBatch()).get();
+        otherThread.shutdown();
+        assertEquals(Arrays.asList("a", "b"), store.fetchTaskNames());
+    }
+
+    @Test
+    public void testWritesAreDurableAfterFlushWithWriteBehind() throws Exception {
+        // Long window: deferred writes are only sent when flushed
+        WriteBehindPersister writeBehindPersister = new WriteBehindPersister(persister, 60000);
+        try {
+            StateStore writeBehindStore = new StateStore(writeBehindPersister);
+            writeBehindStore.storeFrameworkId(FRAMEWORK_ID);
+            writeBehindStore.storeProperty(GOOD_PROPERTY_KEY, PROPERTY_VALUE.getBytes(StandardCharsets.UTF_8));
+            Protos.TaskInfo task = createTask(TestConstants.TASK_NAME);
+            writeBehindStore.storeTasks(Collections.singletonList(task));
+            Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(task.getTaskId()).build();
+            writeBehindStore.storeStatus(TestConstants.TASK_NAME, status);
+            writeBehindStore.beginTaskWriteBatch();
+            writeBehindStore.storeTasks(createTasks("batched"));
+            writeBehindStore.commitTaskWriteBatch();
+            // Nothing has been written yet:
+            assertFalse(persister.getChildren("").contains("FrameworkID"));
+
+            writeBehindStore.flush();
+            StateStore readStore = new StateStore(persister);
+            assertEquals(FRAMEWORK_ID, readStore.fetchFrameworkId().get());
+            assertArrayEquals(PROPERTY_VALUE.getBytes(StandardCharsets.UTF_8),
+                    readStore.fetchProperty(GOOD_PROPERTY_KEY));
+            assertEquals(status, readStore.fetchStatus(TestConstants.TASK_NAME).get());
+            assertEquals(Arrays.asList("batched", TestConstants.TASK_NAME), readStore.fetchTaskNames());
+        } finally {
+            writeBehindPersister.close();
+        }
+    }
+
+    @Test
+    public void testFailedWriteBehindDiscardsWrites() throws Exception {
+        AtomicBoolean failWrites = new AtomicBoolean(false);
+        WriteBehindPersister writeBehindPersister = new WriteBehindPersister(new MemPersister() {
+            @Override
+            public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+                if (failWrites.get()) {
+                    throw new PersisterException(Reason.STORAGE_ERROR, "hi");
+                }
+                super.setMany(pathBytesMap);
+            }
+        }, 60000);
+        try {
+            store = new StateStore(writeBehindPersister);
+            Protos.TaskInfo task = createTask(TestConstants.TASK_NAME);
+            store.storeTasks(Collections.singletonList(task));
+            store.flush();
+
+            // The status fails to be written, and the failure is reported by the flush:
+            Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(task.getTaskId()).build();
+            store.storeStatus(TestConstants.TASK_NAME, status);
+            assertEquals(status, store.fetchStatus(TestConstants.TASK_NAME).get());
+            failWrites.set(true);
+            try {
+                store.flush();
+                fail("Expected flush to fail");
+            } catch (StateStoreException e) {
+                assertEquals(Reason.STORAGE_ERROR, e.getReason());
+            }
+
+            // The store reloads the task without the failed status, which is never written:
+            failWrites.set(false);
+            assertFalse(store.fetchStatus(TestConstants.TASK_NAME).isPresent());
+            store.flush();
+            assertFalse(new StateStore(writeBehindPersister).fetchStatus(TestConstants.TASK_NAME).isPresent());
+        } finally {
+            writeBehindPersister.close();
+        }
+    }
+
+    @Test(expected = StateStoreException.class)
+    public void testTaskWriteBatchAlreadyStarted() throws Exception {
+        store.beginTaskWriteBatch();
+        store.beginTaskWriteBatch();
+    }
+
+    @Test(expected = StateStoreException.class)
+    public void testTaskWriteBatchCommitWithoutBegin() throws Exception {
+        store.commitTaskWriteBatch();
+    }
+
     // status
 
     @Test
@@ -484,6 +934,12 @@ public class StateStoreTest {
         assertEquals(taskInfo, store.fetchTasks().stream().findAny().get());
     }
 
+    private long assertDataVersionChanged(long previousVersion) {
+        long version = store.getDataVersion();
+        assertNotEquals(previousVersion, version);
+        return version;
+    }
+
     private static Collection<Protos.TaskInfo> createTasks(String... taskNames) {
         List<Protos.TaskInfo> taskInfos = new ArrayList<>();
         for (String taskName : taskNames) {
@@ -8,8 +8,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.curator.test.TestingServer;
 import org.junit.Before;
@@ -67,6 +71,49 @@ public class MemPersisterTest {
         }
     }
 
+    @Test
+    public void testAsyncOperations() throws Exception {
+        // Run the same test against a real ZK persister to validate that the MemPersister behavior matches real ZK:
+        when(mockServiceSpec.getName()).thenReturn(TestConstants.SERVICE_NAME);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        CuratorTestUtils.clear(testZk);
+        CuratorPersister curatorPersister = CuratorPersister.newBuilder(mockServiceSpec).build();
+        testAsyncOperationsForPersister(curatorPersister);
+        testAsyncOperationsForPersister((MemPersister) persister);
+        testAsyncOperationsForPersister(new PersisterCache(new MemPersister()));
+        curatorPersister.close();
+    }
+
+    private static void testAsyncOperationsForPersister(AsyncPersister persister) throws Exception {
+        // Issue many writes at once, including repeated writes to the same node:
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            writes.add(persister.setAsync("/async/" + i, VAL));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[writes.size()])).get();
+        persister.setAsync("/async/0", VAL2).get();
+        persister.setManyAsync(Collections.singletonMap("/async/20/a", VAL)).get();
+
+        assertEquals(21, persister.getChildrenAsync("/async").get().size());
+        assertArrayEquals(VAL2, persister.getAsync("/async/0").get());
+        assertArrayEquals(VAL, persister.getAsync("/async/19").get());
+        assertArrayEquals(VAL, persister.getAsync("/async/20/a").get());
+
+        persister.deleteAllAsync("/async").get();
+        try {
+            persister.getAsync("/async/0").get();
+            fail("expected exception");
+        } catch (ExecutionException e) {
+            assertEquals(Reason.NOT_FOUND, ((PersisterException) e.getCause()).getReason());
+        }
+        try {
+            persister.getChildrenAsync("/async").get();
+            fail("expected exception");
+        } catch (ExecutionException e) {
+            assertEquals(Reason.NOT_FOUND, ((PersisterException) e.getCause()).getReason());
+        }
+    }
+
     @Test
     public void testMissingRootBehavior() throws Exception {
         // Matches what CuratorPersister would do, except CuratorPersister is now initialized with a 'servicename' node
@@ -225,6 +272,44 @@ public class MemPersisterTest {
         runThreads(threads);
     }
 
+    @Test
+    public void testReadsSeeWholeWrites() throws InterruptedException {
+        Map<String, byte[]> batch = new HashMap<>();
+        for (int i = 0; i < 10; ++i) {
+            batch.put(String.format("batch/%s-%d", KEY, i), VAL);
+        }
+        Collection<Runnable> threads = new ArrayList<>();
+        threads.add(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 1000; ++i) {
+                        persister.setMany(batch);
+                        persister.deleteAll("batch");
+                    }
+                } catch (PersisterException e) {
+                    fail(e.getMessage());
+                }
+            }
+        });
+        for (int i = 0; i < 4; ++i) {
+            threads.add(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; ++i) {
+                        try {
+                            // Reads don't lock, but a multi-node write is only ever seen in full:
+                            assertEquals(batch.size(), persister.getChildren("batch").size());
+                        } catch (PersisterException e) {
+                            assertEquals(Reason.NOT_FOUND, e.getReason());
+                        }
+                    }
+                }
+            });
+        }
+        runThreads(threads);
+    }
+
     private static void runThreads(Collection<Runnable> runnables) throws InterruptedException {
         final Object lock = new Object();
         final List<Throwable> errors = new ArrayList<>();
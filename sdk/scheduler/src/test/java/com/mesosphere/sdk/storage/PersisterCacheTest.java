@@ -10,6 +10,9 @@ import com.mesosphere.sdk.storage.StorageError.Reason;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.doThrow;
@@ -304,6 +307,110 @@ public class PersisterCacheTest {
         runThreads(threads);
     }
 
+    @Test
+    public void testSlowWriteDoesntBlockUnrelatedOperations() throws Exception {
+        BlockingMemPersister blockingPersister = new BlockingMemPersister("Tasks");
+        blockingPersister.set("Properties/a", VAL);
+        cache = new PersisterCache(blockingPersister);
+        cache.get("Properties/a");
+
+        CompletableFuture<Void> blockedWrite = CompletableFuture.runAsync(() -> {
+            try {
+                cache.set("Tasks/a", VAL);
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(blockingPersister.blocked.await(10, TimeUnit.SECONDS));
+
+        // Reads and writes outside of the blocked subtree proceed while the write is in progress:
+        assertArrayEquals(VAL, cache.get("Properties/a"));
+        assertEquals(Collections.singleton("a"), cache.getChildren("Properties"));
+        CompletableFuture.runAsync(() -> {
+            try {
+                cache.set("Properties/b", VAL2);
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL2, cache.get("Properties/b"));
+        assertFalse(blockedWrite.isDone());
+
+        // The write is only visible once it has been accepted by the underlying persister:
+        checkNotFound(cache, "Tasks/a");
+        blockingPersister.release.countDown();
+        blockedWrite.get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL, cache.get("Tasks/a"));
+    }
+
+    @Test
+    public void testRefreshDuringSlowWriteKeepsWrite() throws Exception {
+        BlockingMemPersister blockingPersister = new BlockingMemPersister("Tasks");
+        cache = new PersisterCache(blockingPersister);
+        assertTrue(PersisterUtils.getAllKeys(cache).isEmpty());
+
+        CompletableFuture<Void> blockedWrite = CompletableFuture.runAsync(() -> {
+            try {
+                cache.set("Tasks/a", VAL);
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(blockingPersister.blocked.await(10, TimeUnit.SECONDS));
+
+        // The refresh doesn't wait for the write, which is then applied to the refreshed cache:
+        cache.refresh();
+        checkNotFound(cache, "Tasks/a");
+        blockingPersister.release.countDown();
+        blockedWrite.get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL, cache.get("Tasks/a"));
+        assertSameData(blockingPersister, cache);
+    }
+
+    static void assertSameData(Persister expected, Persister actual) throws PersisterException {
+        Map<String, byte[]> expectedData = PersisterUtils.getAllData(expected);
+        Map<String, byte[]> actualData = PersisterUtils.getAllData(actual);
+        assertEquals(expectedData.keySet(), actualData.keySet());
+        for (Map.Entry<String, byte[]> entry : expectedData.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), actualData.get(entry.getKey()));
+        }
+    }
+
+    static void checkNotFound(Persister persister, String path) {
+        try {
+            persister.get(path);
+            fail("Expected exception");
+        } catch (PersisterException e) {
+            assertEquals(Reason.NOT_FOUND, e.getReason());
+        }
+    }
+
+    /**
+     * A {@link MemPersister} whose first write beneath the provided path doesn't complete until released by the test.
+     */
+    private static class BlockingMemPersister extends MemPersister {
+        private final String blockedPath;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private BlockingMemPersister(String blockedPath) {
+            this.blockedPath = blockedPath;
+        }
+
+        @Override
+        public void set(String path, byte[] bytes) throws PersisterException {
+            if (path.startsWith(blockedPath) && blocked.getCount() > 0) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            super.set(path, bytes);
+        }
+    }
+
     private static void runThreads(Collection<Runnable> runnables) throws InterruptedException {
         final Object lock = new Object();
         final List<Throwable> errors = new ArrayList<>();
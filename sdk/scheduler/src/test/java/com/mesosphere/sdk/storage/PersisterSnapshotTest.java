@@ -0,0 +1,82 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PersisterSnapshot}.
+ */
+public class PersisterSnapshotTest {
+
+    private static final byte[] VAL = "someval".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VAL2 = "someval2".getBytes(StandardCharsets.UTF_8);
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+    private Path file;
+
+    @Before
+    public void beforeEach() throws Exception {
+        file = folder.getRoot().toPath().resolve("dir/snapshot");
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, PersisterSnapshot.Entry> entries = new TreeMap<>();
+        entries.put("/a", new PersisterSnapshot.Entry(5, VAL));
+        entries.put("/a/b", new PersisterSnapshot.Entry(Long.MAX_VALUE, VAL2));
+        entries.put("/empty", new PersisterSnapshot.Entry(1, new byte[0]));
+        entries.put("/stub", new PersisterSnapshot.Entry(3, null));
+        PersisterSnapshot.write(file, entries);
+
+        Map<String, PersisterSnapshot.Entry> read = PersisterSnapshot.read(file).get();
+        assertEquals(entries.keySet(), read.keySet());
+        for (Map.Entry<String, PersisterSnapshot.Entry> entry : entries.entrySet()) {
+            assertEquals(entry.getValue().getVersion(), read.get(entry.getKey()).getVersion());
+            assertArrayEquals(entry.getValue().getData(), read.get(entry.getKey()).getData());
+        }
+        // Nodes without data are distinguished from nodes with empty data:
+        assertNull(read.get("/stub").getData());
+        assertNotNull(read.get("/empty").getData());
+
+        // Replacing the snapshot doesn't leave any temporary files behind:
+        PersisterSnapshot.write(file, Collections.emptyMap());
+        assertTrue(PersisterSnapshot.read(file).get().isEmpty());
+        assertEquals(1, file.getParent().toFile().list().length);
+    }
+
+    @Test
+    public void testMissingSnapshot() {
+        assertEquals(Optional.empty(), PersisterSnapshot.read(file));
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        PersisterSnapshot.write(file, Collections.singletonMap("/a", new PersisterSnapshot.Entry(5, VAL)));
+        byte[] bytes = Files.readAllBytes(file);
+
+        // Flipped bit in the data:
+        byte[] corrupt = bytes.clone();
+        corrupt[corrupt.length - 10] ^= 1;
+        Files.write(file, corrupt);
+        assertEquals(Optional.empty(), PersisterSnapshot.read(file));
+
+        // Truncated file:
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertEquals(Optional.empty(), PersisterSnapshot.read(file));
+        Files.write(file, new byte[3]);
+        assertEquals(Optional.empty(), PersisterSnapshot.read(file));
+    }
+}
@@ -0,0 +1,181 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mesosphere.sdk.storage.PersisterCacheTest.assertSameData;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SnapshotPersisterCache}
+ */
+public class SnapshotPersisterCacheTest {
+
+    private static final byte[] VAL = "someval".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VAL2 = "someval2".getBytes(StandardCharsets.UTF_8);
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+    private Path snapshotFile;
+    private SnapshotPersisterCache cache;
+
+    @Before
+    public void beforeEach() throws Exception {
+        snapshotFile = folder.getRoot().toPath().resolve("snapshot");
+    }
+
+    @Test
+    public void testSnapshotOnlyFetchesChangedData() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+        versionedPersister.set("b/c", VAL);
+        versionedPersister.set("d", VAL);
+
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        cache.set("a", VAL2);
+        cache.writeSnapshot();
+
+        // Modify the data out of band, as if by a previous scheduler after the snapshot was written:
+        versionedPersister.set("d", VAL2);
+        versionedPersister.deleteAll("b");
+        versionedPersister.set("e", VAL);
+
+        // Only the changed nodes are fetched when loading a new cache:
+        versionedPersister.reads.clear();
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        assertArrayEquals(VAL2, cache.get("a"));
+        assertEquals(new HashSet<>(Arrays.asList("/d", "/e")), new HashSet<>(versionedPersister.reads));
+        assertSameData(versionedPersister, cache);
+
+        // The same applies to refreshes of the cache:
+        versionedPersister.set("a", VAL);
+        versionedPersister.reads.clear();
+        cache.refresh();
+        assertEquals(Collections.singletonList("/a"), versionedPersister.reads);
+        assertSameData(versionedPersister, cache);
+    }
+
+    @Test
+    public void testSnapshotRecordsNodesWithoutData() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a/b/c", VAL);
+
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        assertArrayEquals(VAL, cache.get("a/b/c"));
+        cache.writeSnapshot();
+
+        // The stub parents of the node are loaded from the snapshot, rather than being fetched again:
+        versionedPersister.reads.clear();
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        assertEquals(new HashSet<>(Arrays.asList("/a", "/a/b", "/a/b/c")), PersisterUtils.getAllKeys(cache));
+        assertTrue(versionedPersister.reads.isEmpty());
+
+        // Nor are they fetched again when refreshing:
+        cache.refresh();
+        assertTrue(versionedPersister.reads.isEmpty());
+        assertSameData(versionedPersister, cache);
+    }
+
+    @Test
+    public void testSnapshotOmitsDataWrittenAfterSnapshot() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        cache.set("b", VAL);
+        cache.writeSnapshot();
+        cache.set("a", VAL2);
+        cache.deleteAll("b");
+
+        versionedPersister.reads.clear();
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        assertArrayEquals(VAL2, cache.get("a"));
+        assertEquals(Collections.singletonList("/a"), versionedPersister.reads);
+        assertSameData(versionedPersister, cache);
+    }
+
+    @Test
+    public void testCorruptSnapshotIsIgnored() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+        versionedPersister.set("b", VAL2);
+        Files.write(snapshotFile, VAL);
+
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        assertSameData(versionedPersister, cache);
+        assertEquals(new HashSet<>(Arrays.asList("/a", "/b")), new HashSet<>(versionedPersister.reads));
+    }
+
+    @Test
+    public void testSlowRefreshDoesntBlockCache() throws Exception {
+        BlockingVersionsPersister versionedPersister = new BlockingVersionsPersister();
+        versionedPersister.set("a", VAL);
+        cache = new SnapshotPersisterCache(versionedPersister, snapshotFile, Duration.ofHours(1));
+        assertArrayEquals(VAL, cache.get("a"));
+
+        versionedPersister.block = true;
+        CompletableFuture<Void> refresh = CompletableFuture.runAsync(() -> {
+            try {
+                cache.refresh();
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(versionedPersister.blocked.await(10, TimeUnit.SECONDS));
+
+        // Reads and writes proceed while the versions are being read:
+        assertArrayEquals(VAL, cache.get("a"));
+        CompletableFuture.runAsync(() -> {
+            try {
+                cache.set("b", VAL2);
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL2, cache.get("b"));
+        assertFalse(refresh.isDone());
+
+        // The refresh then reloads the data, as it may predate the write:
+        versionedPersister.release.countDown();
+        refresh.get(10, TimeUnit.SECONDS);
+        assertEquals(2, versionedPersister.versionReads);
+        assertSameData(versionedPersister, cache);
+    }
+
+    /**
+     * A {@link VersionedMemPersister} whose first read of all versions after {@link #block} is set doesn't complete
+     * until released by the test.
+     */
+    private static class BlockingVersionsPersister extends VersionedMemPersister {
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean block = false;
+        private volatile int versionReads = 0;
+
+        @Override
+        public Map<String, Long> getAllVersions() throws PersisterException {
+            if (block) {
+                ++versionReads;
+                if (blocked.getCount() > 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+            return super.getAllVersions();
+        }
+    }
+}
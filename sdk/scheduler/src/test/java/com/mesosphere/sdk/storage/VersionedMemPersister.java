@@ -0,0 +1,94 @@
+package com.mesosphere.sdk.storage;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link WatchablePersister} which stores data in memory and records the paths which are read from it. Watch events
+ * after initialization are only delivered when requested by the test.
+ */
+class VersionedMemPersister extends MemPersister implements WatchablePersister {
+    final Map<String, Long> versions = new HashMap<>();
+    final List<String> reads = new ArrayList<>();
+    private long nextVersion = 1;
+    volatile WatchablePersister.Listener watchListener;
+    volatile boolean initialize = true;
+
+    @Override
+    public synchronized Closeable watch(WatchablePersister.Listener listener) throws PersisterException {
+        watchListener = listener;
+        Map<String, Long> allVersions = getAllVersions();
+        for (Map.Entry<String, byte[]> entry : PersisterUtils.getAllData(this).entrySet()) {
+            listener.onUpdated(entry.getKey(), entry.getValue(), allVersions.get(entry.getKey()));
+        }
+        if (initialize) {
+            listener.onInitialized();
+        }
+        return () -> {
+            // A newer watch may have been started before this one was stopped:
+            if (watchListener == listener) {
+                watchListener = null;
+            }
+        };
+    }
+
+    void notifyUpdated(String path) throws PersisterException {
+        watchListener.onUpdated(path, super.get(path), versions.getOrDefault(path, 0L));
+    }
+
+    void notifyRemoved(String path, long version) {
+        watchListener.onRemoved(path, version);
+    }
+
+    @Override
+    public synchronized byte[] get(String path) throws PersisterException {
+        reads.add(toKey(path));
+        return super.get(path);
+    }
+
+    @Override
+    public synchronized void set(String path, byte[] bytes) throws PersisterException {
+        super.set(path, bytes);
+        versions.put(toKey(path), nextVersion++);
+    }
+
+    @Override
+    public synchronized void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+        for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void deleteAll(String path) throws PersisterException {
+        super.deleteAll(path);
+        String key = toKey(path);
+        versions.keySet().removeIf(versioned -> versioned.equals(key) || versioned.startsWith(key + "/"));
+    }
+
+    @Override
+    public synchronized Map<String, Long> getAllVersions() throws PersisterException {
+        // Stub parents are all at version zero:
+        return getVersions(PersisterUtils.getAllKeys(this));
+    }
+
+    @Override
+    public synchronized Map<String, Long> getVersions(Collection<String> paths) throws PersisterException {
+        Collection<String> allKeys = PersisterUtils.getAllKeys(this);
+        Map<String, Long> result = new HashMap<>();
+        for (String path : paths) {
+            if (allKeys.contains(path)) {
+                result.put(path, versions.getOrDefault(path, 0L));
+            }
+        }
+        return result;
+    }
+
+    private static String toKey(String path) {
+        return path.startsWith("/") ? path : "/" + path;
+    }
+}
@@ -0,0 +1,272 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.Test;
+
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mesosphere.sdk.storage.PersisterCacheTest.assertSameData;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link WatchingPersisterCache}
+ */
+public class WatchingPersisterCacheTest {
+
+    private static final byte[] VAL = "someval".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VAL2 = "someval2".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EXTERNAL_VAL = "external".getBytes(StandardCharsets.UTF_8);
+
+    private WatchingPersisterCache cache;
+
+    @Test
+    public void testWatchAppliesExternalChanges() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+        cache = new WatchingPersisterCache(versionedPersister, Duration.ofSeconds(10));
+        List<String> changes = new ArrayList<>();
+        cache.addChangeListener(changes::add);
+        assertArrayEquals(VAL, cache.get("a"));
+
+        // Changes made by another client are applied from the watch events, without reading the persister:
+        versionedPersister.reads.clear();
+        versionedPersister.set("b/c", VAL2);
+        versionedPersister.notifyUpdated("/b/c");
+        versionedPersister.deleteAll("a");
+        versionedPersister.notifyRemoved("/a", 1);
+        assertTrue(versionedPersister.reads.isEmpty());
+        assertSameData(versionedPersister, cache);
+        assertEquals(Arrays.asList("/b/c", "/a"), changes);
+
+        // Events which are older than the cached data are ignored:
+        versionedPersister.watchListener.onUpdated("/b/c", VAL, 1);
+        assertArrayEquals(VAL2, cache.get("b/c"));
+        assertEquals(2, changes.size());
+
+        // Refreshing restarts the watch:
+        cache.refresh();
+        assertEquals("/", changes.get(2));
+        versionedPersister.set("d", VAL);
+        versionedPersister.notifyUpdated("/d");
+        assertSameData(versionedPersister, cache);
+    }
+
+    @Test
+    public void testWatchRecognizesOwnWrites() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+        cache = new WatchingPersisterCache(versionedPersister, Duration.ofSeconds(10));
+        List<String> changes = new ArrayList<>();
+        cache.addChangeListener(changes::add);
+
+        // Several writes to the same path are made before any of their events are received:
+        cache.set("a", VAL2);
+        long firstVersion = versionedPersister.versions.get("/a");
+        cache.set("a", VAL);
+        cache.set("b", VAL);
+        versionedPersister.reads.clear();
+
+        // The lagging events don't revert the cache to older data:
+        versionedPersister.watchListener.onUpdated("/a", VAL2, firstVersion);
+        assertArrayEquals(VAL, cache.get("a"));
+        versionedPersister.notifyUpdated("/a");
+        versionedPersister.notifyUpdated("/b");
+        assertTrue(versionedPersister.reads.isEmpty());
+        assertSameData(versionedPersister, cache);
+        assertTrue(changes.isEmpty());
+
+        // Subsequent changes by other clients are still applied:
+        versionedPersister.set("a", VAL2);
+        versionedPersister.notifyUpdated("/a");
+        assertArrayEquals(VAL2, cache.get("a"));
+        assertEquals(Collections.singletonList("/a"), changes);
+    }
+
+    @Test
+    public void testWatchResolvesConflictsWithOwnWrites() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+        versionedPersister.set("t/x", VAL);
+        versionedPersister.set("t/y", VAL);
+        cache = new WatchingPersisterCache(versionedPersister, Duration.ofSeconds(10));
+        List<String> changes = new ArrayList<>();
+        cache.addChangeListener(changes::add);
+        assertArrayEquals(VAL, cache.get("a"));
+
+        // Another client wrote the node just before we did, but its event arrives after our write has completed:
+        versionedPersister.set("a", EXTERNAL_VAL);
+        cache.set("a", VAL2);
+        versionedPersister.reads.clear();
+        versionedPersister.watchListener.onUpdated("/a", EXTERNAL_VAL, versionedPersister.versions.get("/a") - 1);
+        assertArrayEquals(VAL2, cache.get("a"));
+        assertEquals(Collections.singletonList("/a"), versionedPersister.reads);
+        versionedPersister.notifyUpdated("/a");
+        assertArrayEquals(VAL2, cache.get("a"));
+
+        // Another client modified a node just before we deleted it:
+        versionedPersister.set("t/x", VAL2);
+        long externalVersion = versionedPersister.versions.get("/t/x");
+        cache.deleteAll("t");
+        versionedPersister.reads.clear();
+        versionedPersister.watchListener.onUpdated("/t/x", VAL2, externalVersion);
+        versionedPersister.notifyRemoved("/t/x", externalVersion);
+        versionedPersister.notifyRemoved("/t/y", 3);
+        versionedPersister.notifyRemoved("/t", 0);
+        assertEquals(Collections.singletonList("/t/x"), versionedPersister.reads);
+        assertSameData(versionedPersister, cache);
+        assertTrue(changes.isEmpty());
+
+        // The node is then recreated by another client:
+        versionedPersister.set("t/x", VAL);
+        versionedPersister.notifyUpdated("/t");
+        versionedPersister.notifyUpdated("/t/x");
+        assertSameData(versionedPersister, cache);
+        assertEquals(Collections.singletonList("/t/x"), changes);
+    }
+
+    @Test
+    public void testWatchInitTimeout() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.initialize = false;
+        cache = new WatchingPersisterCache(versionedPersister, Duration.ofMillis(10));
+        try {
+            cache.get("a");
+            fail("Expected cache load to time out");
+        } catch (PersisterException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+        assertNull(versionedPersister.watchListener);
+
+        versionedPersister.initialize = true;
+        versionedPersister.set("a", VAL);
+        assertArrayEquals(VAL, cache.get("a"));
+    }
+
+    @Test
+    public void testRefreshDoesntBlockCache() throws Exception {
+        VersionedMemPersister versionedPersister = new VersionedMemPersister();
+        versionedPersister.set("a", VAL);
+        cache = new WatchingPersisterCache(versionedPersister, Duration.ofSeconds(10));
+        assertArrayEquals(VAL, cache.get("a"));
+
+        // Start a refresh whose new watch doesn't report its initial content until the test allows it:
+        WatchablePersister.Listener previousListener = versionedPersister.watchListener;
+        versionedPersister.initialize = false;
+        CompletableFuture<Void> refresh = CompletableFuture.runAsync(() -> {
+            try {
+                cache.refresh();
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        WatchablePersister.Listener newListener = awaitNewListener(versionedPersister, previousListener);
+
+        // Reads and writes are served by the previous content while the new watch is initializing:
+        assertArrayEquals(VAL, cache.get("a"));
+        CompletableFuture.runAsync(() -> {
+            try {
+                cache.set("b", VAL2);
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL2, cache.get("b"));
+        assertFalse(refresh.isDone());
+
+        // The new watch may not have reported the write, so the watch is restarted:
+        versionedPersister.initialize = true;
+        newListener.onInitialized();
+        refresh.get(10, TimeUnit.SECONDS);
+        assertNotSame(newListener, versionedPersister.watchListener);
+        assertSameData(versionedPersister, cache);
+
+        // The restarted watch updates the cache:
+        versionedPersister.set("c", VAL);
+        versionedPersister.notifyUpdated("/c");
+        assertSameData(versionedPersister, cache);
+    }
+
+    @Test
+    public void testSlowResolveDoesntBlockCache() throws Exception {
+        BlockingGetPersister versionedPersister = new BlockingGetPersister();
+        versionedPersister.set("a", VAL);
+        versionedPersister.set("p/x", VAL);
+        cache = new WatchingPersisterCache(versionedPersister, Duration.ofSeconds(10));
+        assertArrayEquals(VAL, cache.get("a"));
+
+        // An event which conflicts with our own write is resolved by reading the persister, which is slow:
+        versionedPersister.set("a", EXTERNAL_VAL);
+        cache.set("a", VAL2);
+        long externalVersion = versionedPersister.versions.get("/a") - 1;
+        versionedPersister.block = true;
+        WatchablePersister.Listener listener = versionedPersister.watchListener;
+        CompletableFuture<Void> event =
+                CompletableFuture.runAsync(() -> listener.onUpdated("/a", EXTERNAL_VAL, externalVersion));
+        assertTrue(versionedPersister.blocked.await(10, TimeUnit.SECONDS));
+
+        // Reads, and writes to other nodes, proceed while the event is being resolved:
+        assertArrayEquals(VAL2, cache.get("a"));
+        CompletableFuture.runAsync(() -> {
+            try {
+                cache.set("p/y", VAL);
+            } catch (PersisterException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL, cache.get("p/y"));
+        assertFalse(event.isDone());
+
+        versionedPersister.release.countDown();
+        event.get(10, TimeUnit.SECONDS);
+        assertArrayEquals(VAL2, cache.get("a"));
+        assertSameData(versionedPersister, cache);
+    }
+
+    /**
+     * Waits for the provided persister to have finished starting a watch other than the provided one, and returns its
+     * listener.
+     */
+    private static WatchablePersister.Listener awaitNewListener(
+            VersionedMemPersister versionedPersister, WatchablePersister.Listener previousListener) throws Exception {
+        long deadlineMs = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (System.currentTimeMillis() < deadlineMs) {
+            // Watches are started while holding the persister's lock:
+            synchronized (versionedPersister) {
+                if (versionedPersister.watchListener != previousListener) {
+                    return versionedPersister.watchListener;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Timed out waiting for a new watch to be started");
+    }
+
+    /**
+     * A {@link VersionedMemPersister} whose first read after {@link #block} is set doesn't complete until released by
+     * the test.
+     */
+    private static class BlockingGetPersister extends VersionedMemPersister {
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean block = false;
+
+        @Override
+        public byte[] get(String path) throws PersisterException {
+            if (block && blocked.getCount() > 0) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return super.get(path);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link WriteBehindPersister}.
+ */
+public class WriteBehindPersisterTest {
+
+    private static final byte[] VAL = "someval".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VAL2 = "someval2".getBytes(StandardCharsets.UTF_8);
+
+    @Mock private Persister mockPersister;
+    private MemPersister memPersister;
+    private Persister spyPersister;
+    private WriteBehindPersister persister;
+
+    @Before
+    public void beforeEach() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        memPersister = new MemPersister();
+        spyPersister = spy(memPersister);
+        // Long window: flushes only happen when explicitly requested
+        persister = new WriteBehindPersister(spyPersister, 60000);
+    }
+
+    @After
+    public void afterEach() {
+        persister.close();
+    }
+
+    @Test
+    public void testWritesAreCoalescedUntilFlush() throws Exception {
+        persister.set("a", VAL);
+        persister.set("b", VAL);
+        persister.set("a", VAL2);
+        persister.setMany(Collections.singletonMap("c/d", VAL));
+        verifyZeroInteractions(spyPersister);
+
+        persister.flush();
+        verify(spyPersister, times(1)).setMany(any());
+        assertArrayEquals(VAL2, spyPersister.get("a"));
+        assertArrayEquals(VAL, spyPersister.get("b"));
+        assertArrayEquals(VAL, spyPersister.get("c/d"));
+
+        // Nothing left to write:
+        persister.flush();
+        verify(spyPersister, times(1)).setMany(any());
+    }
+
+    @Test
+    public void testReadsAndDeletesAreOrderedAfterWrites() throws Exception {
+        persister.set("a", VAL);
+        assertArrayEquals(VAL, persister.get("a"));
+
+        persister.set("b/c", VAL);
+        assertEquals(Collections.singleton("c"), persister.getChildren("b"));
+
+        persister.set("b/d", VAL);
+        persister.deleteAll("b");
+        assertEquals(Collections.singleton("a"), persister.getChildren(""));
+    }
+
+    @Test
+    public void testBackgroundFlush() throws Exception {
+        persister.close();
+        persister = new WriteBehindPersister(memPersister, 1);
+        persister.set("a", VAL);
+        for (int i = 0; i < 500 && !PersisterUtils.getAllKeys(memPersister).contains("/a"); ++i) {
+            Thread.sleep(10);
+        }
+        assertArrayEquals(VAL, memPersister.get("a"));
+    }
+
+    @Test
+    public void testFailedFlushIsDiscarded() throws Exception {
+        persister.close();
+        persister = new WriteBehindPersister(mockPersister, 60000);
+        doThrow(new PersisterException(Reason.STORAGE_ERROR, "hey"))
+                .doNothing()
+                .when(mockPersister).setMany(any());
+
+        persister.set("a", VAL);
+        try {
+            persister.flush();
+            fail("Expected flush to fail");
+        } catch (PersisterException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+
+        // The failed data is never sent again, and the failure isn't reported twice:
+        persister.set("b", VAL);
+        persister.flush();
+        persister.flush();
+        verify(mockPersister, times(2)).setMany(any());
+        verify(mockPersister).setMany(Collections.singletonMap("b", VAL));
+    }
+
+    @Test
+    public void testFailedFlushDataNeverReachesPersister() throws Exception {
+        AtomicBoolean failWrites = new AtomicBoolean(true);
+        persister.close();
+        persister = new WriteBehindPersister(new MemPersister() {
+            @Override
+            public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+                if (failWrites.get()) {
+                    throw new PersisterException(Reason.STORAGE_ERROR, "hey");
+                }
+                super.setMany(pathBytesMap);
+            }
+        }, 60000);
+        PersisterCache cache = new PersisterCache(persister);
+
+        cache.set("a", VAL);
+        assertArrayEquals(VAL, cache.get("a"));
+        try {
+            cache.flush();
+            fail("Expected flush to fail");
+        } catch (PersisterException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+
+        // Once storage recovers, later writes succeed without the failed data, which the cache no longer returns:
+        failWrites.set(false);
+        cache.set("b", VAL);
+        cache.flush();
+        assertEquals(Collections.singleton("/b"), PersisterUtils.getAllKeys(cache));
+        assertEquals(Collections.singleton("/b"), PersisterUtils.getAllKeys(persister));
+    }
+
+    @Test
+    public void testFailureListenersAreNotified() throws Exception {
+        persister.close();
+        persister = new WriteBehindPersister(mockPersister, 1);
+        List<Collection<String>> failedPaths = new CopyOnWriteArrayList<>();
+        persister.addFailureListener(failedPaths::add);
+        doThrow(new PersisterException(Reason.STORAGE_ERROR, "hey"))
+                .doNothing()
+                .when(mockPersister).setMany(any());
+
+        // The background flush fails, and the data is discarded rather than retried:
+        persister.set("a", VAL);
+        for (int i = 0; i < 500 && failedPaths.isEmpty(); ++i) {
+            Thread.sleep(10);
+        }
+        assertEquals(Collections.singletonList(Collections.singleton("a")), failedPaths);
+
+        // The failure is reported to the writer by its next flush, only once:
+        try {
+            persister.flush();
+            fail("Expected flush to fail");
+        } catch (PersisterException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+        persister.flush();
+        verify(mockPersister, times(1)).setMany(any());
+
+        // Deletes report failures to write the preceding data:
+        doThrow(new PersisterException(Reason.STORAGE_ERROR, "hey")).when(mockPersister).setMany(any());
+        persister.set("b", VAL);
+        try {
+            persister.deleteAll("a");
+            fail("Expected delete to fail");
+        } catch (PersisterException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+        verify(mockPersister, never()).deleteAll(any());
+        assertEquals(Collections.singleton("b"), failedPaths.get(1));
+    }
+
+    @Test
+    public void testLargeWritesFlushImmediately() throws Exception {
+        persister.set("a", new byte[1024 * 1024]);
+        verify(spyPersister, times(1)).setMany(any());
+        assertEquals(1024 * 1024, spyPersister.get("a").length);
+    }
+}
@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.testutils;
 
+import com.mesosphere.sdk.queue.OfferQueue;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
 
 import java.time.Duration;
@@ -21,6 +22,9 @@ public class SchedulerConfigTestUtils {
         when(schedulerConfig.getDcosSpace()).thenReturn("/");
         when(schedulerConfig.getSecretsNamespace(TestConstants.SERVICE_NAME)).thenReturn(TestConstants.SERVICE_NAME);
         when(schedulerConfig.getApiServerInitTimeout()).thenReturn(Duration.ofSeconds(10));
+        when(schedulerConfig.getOfferQueueCapacity()).thenReturn(100);
+        when(schedulerConfig.getOfferQueueOverflowPolicy()).thenReturn(OfferQueue.OverflowPolicy.DECLINE_NEWEST);
+        when(schedulerConfig.getOfferQueueMaxAge()).thenReturn(Duration.ZERO);
         return schedulerConfig;
     }
 }
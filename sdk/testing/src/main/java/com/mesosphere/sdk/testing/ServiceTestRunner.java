@@ -1,6 +1,7 @@
 package com.mesosphere.sdk.testing;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -16,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.offer.evaluate.PodInfoBuilder;
+import com.mesosphere.sdk.queue.OfferQueue;
 import com.mesosphere.sdk.scheduler.AbstractScheduler;
 import com.mesosphere.sdk.scheduler.DefaultScheduler;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
@@ -184,6 +186,9 @@ public class ServiceTestRunner {
         Mockito.when(mockSchedulerConfig.getJavaURI()).thenReturn("test-java-uri");
         Mockito.when(mockSchedulerConfig.getApiServerPort()).thenReturn(8080);
         Mockito.when(mockSchedulerConfig.getDcosSpace()).thenReturn("test-space");
+        Mockito.when(mockSchedulerConfig.getOfferQueueOverflowPolicy())
+                .thenReturn(OfferQueue.OverflowPolicy.DECLINE_NEWEST);
+        Mockito.when(mockSchedulerConfig.getOfferQueueMaxAge()).thenReturn(Duration.ZERO);
 
         Capabilities mockCapabilities = Mockito.mock(Capabilities.class);
         Mockito.when(mockCapabilities.supportsGpuResource()).thenReturn(true);